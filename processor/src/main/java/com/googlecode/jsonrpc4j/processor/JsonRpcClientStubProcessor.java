@@ -0,0 +1,371 @@
+package com.googlecode.jsonrpc4j.processor;
+
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.IntersectionType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.util.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code JsonRpcClientStub} for every interface annotated with
+ * {@code @JsonRpcService}.  Each method of the stub writes its arguments
+ * straight to the request generator, as an array or an object following
+ * {@code @JsonRpcMethod}, {@code @JsonRpcParam} and the fixed params the way
+ * client proxies do, and passes a result type worked out once.
+ * <p>
+ * The stub of {@code com.example.Outer.Service} is
+ * {@code com.example.Outer_Service_JsonRpcClientStub}.  No stub is generated
+ * for interfaces with methods throwing a type variable.
+ */
+@SupportedAnnotationTypes(ServiceProcessor.SERVICE)
+public class JsonRpcClientStubProcessor extends ServiceProcessor {
+
+	private static final String STUB = "com.googlecode.jsonrpc4j.JsonRpcClientStub";
+	private static final String PARAM = "com.googlecode.jsonrpc4j.JsonRpcParam";
+	private static final String FIXED_PARAM = "com.googlecode.jsonrpc4j.JsonRpcFixedParam";
+	private static final String FIXED_PARAMS = "com.googlecode.jsonrpc4j.JsonRpcFixedParams";
+
+	public JsonRpcClientStubProcessor() {
+		super("_JsonRpcClientStub");
+	}
+
+	@Override
+	String generate(TypeElement service, String packageName, String simpleName) {
+		Types types = processingEnv.getTypeUtils();
+		DeclaredType serviceType = (DeclaredType) service.asType();
+
+		List<ExecutableElement> methods = new ArrayList<>();
+		List<ExecutableType> methodTypes = new ArrayList<>();
+		Set<String> signatures = new HashSet<>();
+		for (ExecutableElement method : collectMethods(service)) {
+			if (method.getModifiers().contains(Modifier.STATIC) || isObjectMethod(method)) {
+				continue;
+			}
+			ExecutableType methodType = (ExecutableType) types.asMemberOf(serviceType, method);
+			for (TypeMirror thrown : methodType.getThrownTypes()) {
+				if (thrown.getKind() == TypeKind.TYPEVAR) {
+					warn("No client stub generated for " + service.getQualifiedName() + ", "
+							+ method.getSimpleName() + " throws a type variable", service);
+					return null;
+				}
+			}
+			StringBuilder signature = new StringBuilder(method.getSimpleName());
+			for (TypeMirror parameterType : methodType.getParameterTypes()) {
+				signature.append(',').append(typeName(parameterType));
+			}
+			if (signatures.add(signature.toString())) {
+				methods.add(method);
+				methodTypes.add(methodType);
+			}
+		}
+
+		StringBuilder source = startSource(packageName);
+		source.append("public final class ").append(simpleName).append(typeParameters(service.getTypeParameters()))
+				.append(" extends ").append(STUB).append(" implements ").append(serviceType).append(" {\n\n");
+
+		for (int i = 0; i < methods.size(); i++) {
+			source.append("\tprivate static final java.lang.reflect.Type RESULT_").append(i).append(" = ")
+					.append(resultType(service, methods.get(i))).append(";\n");
+		}
+		if (!methods.isEmpty()) {
+			source.append("\n");
+		}
+
+		source.append("\tpublic ").append(simpleName).append("(").append(STUB).append(".Invoker invoker) {\n");
+		source.append("\t\tsuper(invoker);\n");
+		source.append("\t}\n");
+
+		for (int i = 0; i < methods.size(); i++) {
+			source.append("\n");
+			appendMethod(source, methods.get(i), methodTypes.get(i), i);
+		}
+		source.append("}\n");
+		return source.toString();
+	}
+
+	/**
+	 * Proxies answer these themselves instead of calling the service.
+	 */
+	private boolean isObjectMethod(ExecutableElement method) {
+		String name = method.getSimpleName().toString();
+		List<? extends VariableElement> parameters = method.getParameters();
+		if (parameters.isEmpty()) {
+			return "toString".equals(name) || "hashCode".equals(name);
+		}
+		return "equals".equals(name) && parameters.size() == 1 && "java.lang.Object".equals(typeName(parameters.get(0).asType()));
+	}
+
+	private void appendMethod(StringBuilder source, ExecutableElement method, ExecutableType methodType, int index) {
+		String javaName = method.getSimpleName().toString();
+		List<? extends TypeMirror> parameterTypes = methodType.getParameterTypes();
+		TypeMirror returnType = methodType.getReturnType();
+
+		source.append("\t@Override\n");
+		source.append("\tpublic ");
+		String methodTypeParameters = typeVariables(methodType.getTypeVariables());
+		if (!methodTypeParameters.isEmpty()) {
+			source.append(methodTypeParameters).append(' ');
+		}
+		source.append(returnType).append(' ').append(javaName).append('(');
+		for (int i = 0; i < parameterTypes.size(); i++) {
+			TypeMirror parameterType = parameterTypes.get(i);
+			source.append(i == 0 ? "" : ", ");
+			if (method.isVarArgs() && i == parameterTypes.size() - 1) {
+				source.append(((ArrayType) parameterType).getComponentType()).append("...");
+			} else {
+				source.append(parameterType);
+			}
+			source.append(" arg").append(i);
+		}
+		source.append(')');
+		List<? extends TypeMirror> thrownTypes = methodType.getThrownTypes();
+		for (int i = 0; i < thrownTypes.size(); i++) {
+			source.append(i == 0 ? " throws " : ", ").append(thrownTypes.get(i));
+		}
+		source.append(" {\n");
+
+		Map<String, Object> methodAnnotation = getValues(getAnnotation(method, METHOD));
+		String wireName = methodAnnotation.isEmpty() ? javaName : (String) methodAnnotation.get("value");
+		String passMode = methodAnnotation.isEmpty() ? "AUTO" : ((VariableElement) methodAnnotation.get("paramsPassMode")).getSimpleName().toString();
+
+		// the same rules and messages as ClientCallPlan
+		Map<String, String> fixed = fixedParams(method);
+		Map<String, Integer> named = new LinkedHashMap<>();
+		List<? extends VariableElement> parameters = method.getParameters();
+		for (int i = 0; i < parameters.size(); i++) {
+			Map<String, Object> param = getValues(getAnnotation(parameters.get(i), PARAM));
+			if (!param.isEmpty()) {
+				named.put((String) param.get("value"), i);
+			}
+		}
+		List<String> names = new ArrayList<>(fixed.keySet());
+		for (String name : named.keySet()) {
+			if (!fixed.containsKey(name)) {
+				names.add(name);
+			}
+		}
+
+		String params;
+		if (names.isEmpty() && "OBJECT".equals(passMode) && !parameters.isEmpty()) {
+			appendThrow(source, "OBJECT parameters pass mode is impossible without declaring JsonRpcParam annotations for all parameters on method " + javaName);
+			return;
+		} else if (!named.isEmpty() && named.size() != parameters.size()) {
+			appendThrow(source, "JsonRpcParam annotations were not found for all parameters on method " + javaName);
+			return;
+		} else if (names.isEmpty()) {
+			if (parameters.isEmpty()) {
+				params = STUB + ".NO_PARAMS";
+			} else {
+				StringBuilder body = new StringBuilder("\t\t\t\tgenerator.writeStartArray();\n");
+				for (int i = 0; i < parameters.size(); i++) {
+					body.append("\t\t\t\t").append(write(parameterTypes.get(i), "arg" + i)).append(";\n");
+				}
+				params = writer(body.append("\t\t\t\tgenerator.writeEndArray();\n"));
+			}
+		} else {
+			boolean array = "ARRAY".equals(passMode);
+			StringBuilder body = new StringBuilder(array ? "\t\t\t\tgenerator.writeStartArray();\n" : "\t\t\t\tgenerator.writeStartObject();\n");
+			for (String name : names) {
+				if (!array) {
+					body.append("\t\t\t\tgenerator.writeFieldName(").append(literal(name)).append(");\n");
+				}
+				Integer argument = named.get(name);
+				body.append("\t\t\t\t").append(argument == null
+						? "generator.writeString(" + literal(fixed.get(name)) + ")"
+						: write(parameterTypes.get(argument), "arg" + argument)).append(";\n");
+			}
+			params = writer(body.append(array ? "\t\t\t\tgenerator.writeEndArray();\n" : "\t\t\t\tgenerator.writeEndObject();\n"));
+		}
+
+		boolean async = isFuture(method.getReturnType());
+		String call = "super.invoke(" + literal(wireName) + ", " + params + ", RESULT_" + index + ", " + async + ")";
+		String statement = returnType.getKind() == TypeKind.VOID ? call + ";\n" : "return (" + returnType + ") " + call + ";\n";
+
+		List<TypeMirror> rethrown = rethrownTypes(thrownTypes);
+		if (rethrown == null) {
+			source.append("\t\t").append(statement);
+		} else {
+			source.append("\t\ttry {\n");
+			source.append("\t\t\t").append(statement);
+			source.append("\t\t} catch (java.lang.RuntimeException | java.lang.Error e) {\n");
+			source.append("\t\t\tthrow e;\n");
+			for (TypeMirror thrown : rethrown) {
+				source.append("\t\t} catch (").append(typeName(thrown)).append(" e) {\n");
+				source.append("\t\t\tthrow e;\n");
+			}
+			source.append("\t\t} catch (java.lang.Throwable e) {\n");
+			source.append("\t\t\tthrow new java.lang.reflect.UndeclaredThrowableException(e);\n");
+			source.append("\t\t}\n");
+		}
+		source.append("\t}\n");
+	}
+
+	private void appendThrow(StringBuilder source, String message) {
+		source.append("\t\tthrow new java.lang.IllegalArgumentException(").append(literal(message)).append(");\n");
+		source.append("\t}\n");
+	}
+
+	/**
+	 * Fixed params in the order client proxies send them: those of
+	 * {@code @JsonRpcFixedParams} first, then {@code @JsonRpcFixedParam}.
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<String, String> fixedParams(ExecutableElement method) {
+		Map<String, String> fixed = new LinkedHashMap<>();
+		Map<String, Object> collection = getValues(getAnnotation(method, FIXED_PARAMS));
+		if (!collection.isEmpty()) {
+			for (AnnotationValue value : (List<? extends AnnotationValue>) collection.get("fixedParams")) {
+				Map<String, Object> param = getValues((AnnotationMirror) value.getValue());
+				fixed.put((String) param.get("name"), (String) param.get("value"));
+			}
+		}
+		Map<String, Object> param = getValues(getAnnotation(method, FIXED_PARAM));
+		if (!param.isEmpty()) {
+			fixed.put((String) param.get("name"), (String) param.get("value"));
+		}
+		return fixed;
+	}
+
+	private String writer(StringBuilder body) {
+		return "(" + STUB + ".Params) (generator, provider) -> {\n" + body + "\t\t\t}";
+	}
+
+	/**
+	 * Writes an argument the way the mapper writes it as an element of the
+	 * {@code Object[]} a proxy sends, without boxing it.
+	 */
+	private String write(TypeMirror type, String argument) {
+		switch (type.getKind()) {
+			case BOOLEAN:
+				return "generator.writeBoolean(" + argument + ")";
+			case BYTE:
+			case SHORT:
+			case INT:
+			case LONG:
+			case FLOAT:
+			case DOUBLE:
+				return "generator.writeNumber(" + argument + ")";
+			case CHAR:
+				return "generator.writeString(java.lang.String.valueOf(" + argument + "))";
+			default:
+				if ("java.lang.String".equals(typeName(type))) {
+					return "generator.writeString(" + argument + ")";
+				}
+				return STUB + ".writeValue(generator, provider, " + argument + ")";
+		}
+	}
+
+	/**
+	 * The type the result is read as: a class literal where the declared
+	 * return type leaves no choice, otherwise the generic type of the
+	 * reflected method, looked up once, as client proxies use it.
+	 */
+	private String resultType(TypeElement service, ExecutableElement method) {
+		TypeMirror type = method.getReturnType();
+		if (isFuture(type)) {
+			List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+			type = arguments.isEmpty() ? null : arguments.get(0);
+			if (type == null) {
+				return "java.lang.Object.class";
+			}
+		}
+		if (isPlain(type)) {
+			return typeName(type) + ".class";
+		}
+		StringBuilder lookup = new StringBuilder(STUB).append(".resultType(").append(service.getQualifiedName())
+				.append(".class, ").append(literal(method.getSimpleName().toString()));
+		for (VariableElement parameter : method.getParameters()) {
+			lookup.append(", ").append(typeName(parameter.asType())).append(".class");
+		}
+		return lookup.append(')').toString();
+	}
+
+	private boolean isPlain(TypeMirror type) {
+		if (type.getKind().isPrimitive() || type.getKind() == TypeKind.VOID) {
+			return true;
+		}
+		if (type.getKind() == TypeKind.ARRAY) {
+			return isPlain(((ArrayType) type).getComponentType());
+		}
+		return type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).getTypeArguments().isEmpty();
+	}
+
+	private boolean isFuture(TypeMirror type) {
+		String name = typeName(type);
+		return "java.util.concurrent.CompletableFuture".equals(name) || "java.util.concurrent.CompletionStage".equals(name);
+	}
+
+	/**
+	 * @return the checked exceptions to let through, {@code null} if the method may throw anything
+	 */
+	private List<TypeMirror> rethrownTypes(List<? extends TypeMirror> thrownTypes) {
+		Types types = processingEnv.getTypeUtils();
+		TypeMirror throwable = processingEnv.getElementUtils().getTypeElement("java.lang.Throwable").asType();
+		TypeMirror runtimeException = processingEnv.getElementUtils().getTypeElement("java.lang.RuntimeException").asType();
+		TypeMirror error = processingEnv.getElementUtils().getTypeElement("java.lang.Error").asType();
+		List<TypeMirror> rethrown = new ArrayList<>();
+		for (TypeMirror thrown : thrownTypes) {
+			if (types.isSameType(thrown, throwable)) {
+				return null;
+			}
+			if (types.isSubtype(thrown, runtimeException) || types.isSubtype(thrown, error)) {
+				continue;
+			}
+			boolean covered = false;
+			for (TypeMirror other : thrownTypes) {
+				covered |= other != thrown && types.isSubtype(thrown, other)
+						&& (!types.isSameType(thrown, other) || thrownTypes.indexOf(other) < thrownTypes.indexOf(thrown));
+			}
+			if (!covered) {
+				rethrown.add(thrown);
+			}
+		}
+		return rethrown;
+	}
+
+	private String typeParameters(List<? extends TypeParameterElement> parameters) {
+		List<TypeVariable> variables = new ArrayList<>();
+		for (TypeParameterElement parameter : parameters) {
+			variables.add((TypeVariable) parameter.asType());
+		}
+		return typeVariables(variables);
+	}
+
+	private String typeVariables(List<? extends TypeVariable> variables) {
+		if (variables.isEmpty()) {
+			return "";
+		}
+		StringBuilder declaration = new StringBuilder("<");
+		for (int i = 0; i < variables.size(); i++) {
+			TypeVariable variable = variables.get(i);
+			declaration.append(i == 0 ? "" : ", ").append(variable);
+			TypeMirror bound = variable.getUpperBound();
+			if (bound.getKind() == TypeKind.INTERSECTION) {
+				List<? extends TypeMirror> bounds = ((IntersectionType) bound).getBounds();
+				for (int j = 0; j < bounds.size(); j++) {
+					declaration.append(j == 0 ? " extends " : " & ").append(bounds.get(j));
+				}
+			} else if (!"java.lang.Object".equals(bound.toString())) {
+				declaration.append(" extends ").append(bound);
+			}
+		}
+		return declaration.append('>').toString();
+	}
+}
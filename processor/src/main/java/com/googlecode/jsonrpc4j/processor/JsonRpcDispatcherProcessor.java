@@ -0,0 +1,174 @@
+package com.googlecode.jsonrpc4j.processor;
+
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code JsonRpcDispatcher} for every interface annotated with
+ * {@code @JsonRpcService}.  The dispatcher finds methods with a switch on the
+ * JSON-RPC method name, following {@code @JsonRpcMethod} the way the servers
+ * do, and calls them directly, so the servers neither scan the interface nor
+ * invoke it reflectively.
+ * <p>
+ * The dispatcher of {@code com.example.Outer.Service} is
+ * {@code com.example.Outer_Service_JsonRpcDispatcher}.
+ */
+@SupportedAnnotationTypes(ServiceProcessor.SERVICE)
+public class JsonRpcDispatcherProcessor extends ServiceProcessor {
+
+	private static final String DISPATCHER = "com.googlecode.jsonrpc4j.JsonRpcDispatcher";
+
+	public JsonRpcDispatcherProcessor() {
+		super("_JsonRpcDispatcher");
+	}
+
+	@Override
+	String generate(TypeElement service, String packageName, String simpleName) {
+		String serviceName = service.getQualifiedName().toString();
+
+		List<ExecutableElement> methods = collectMethods(service);
+		Map<String, List<Integer>> indexesByName = new LinkedHashMap<>();
+		for (int i = 0; i < methods.size(); i++) {
+			for (String name : rpcNames(methods.get(i))) {
+				indexesByName.computeIfAbsent(name, key -> new ArrayList<>()).add(i);
+			}
+		}
+
+		StringBuilder source = startSource(packageName);
+		source.append("public final class ").append(simpleName).append(" implements ").append(DISPATCHER).append(" {\n\n");
+
+		source.append("\tprivate static final java.lang.reflect.Method[] METHODS = {\n");
+		for (ExecutableElement method : methods) {
+			source.append("\t\tmethod(").append(literal(method.getSimpleName().toString()));
+			for (VariableElement parameter : method.getParameters()) {
+				source.append(", ").append(typeName(parameter.asType())).append(".class");
+			}
+			source.append("),\n");
+		}
+		source.append("\t};\n\n");
+
+		source.append("\tprivate static final java.util.Map<java.lang.reflect.Method, java.lang.Integer> INDEXES = new java.util.HashMap<>();\n\n");
+		source.append("\tstatic {\n");
+		source.append("\t\tfor (int i = 0; i < METHODS.length; i++) {\n");
+		source.append("\t\t\tINDEXES.put(METHODS[i], i);\n");
+		source.append("\t\t}\n");
+		source.append("\t}\n\n");
+
+		int set = 0;
+		for (List<Integer> indexes : indexesByName.values()) {
+			source.append("\tprivate static final java.util.Set<java.lang.reflect.Method> METHODS_").append(set++).append(" = methods(");
+			for (int i = 0; i < indexes.size(); i++) {
+				source.append(i == 0 ? "" : ", ").append(indexes.get(i));
+			}
+			source.append(");\n");
+		}
+		source.append("\n");
+
+		source.append("\t@Override\n");
+		source.append("\tpublic java.lang.Class<?> getServiceInterface() {\n");
+		source.append("\t\treturn ").append(serviceName).append(".class;\n");
+		source.append("\t}\n\n");
+
+		source.append("\t@Override\n");
+		source.append("\tpublic java.util.Set<java.lang.reflect.Method> getMethods(java.lang.String name) {\n");
+		source.append("\t\tswitch (name) {\n");
+		set = 0;
+		for (String name : indexesByName.keySet()) {
+			source.append("\t\t\tcase ").append(literal(name)).append(":\n");
+			source.append("\t\t\t\treturn METHODS_").append(set++).append(";\n");
+		}
+		source.append("\t\t\tdefault:\n");
+		source.append("\t\t\t\treturn java.util.Collections.emptySet();\n");
+		source.append("\t\t}\n");
+		source.append("\t}\n\n");
+
+		source.append("\t@Override\n");
+		source.append("\tpublic java.lang.Object invoke(java.lang.Object target, java.lang.reflect.Method method, java.lang.Object[] arguments) throws java.lang.Throwable {\n");
+		source.append("\t\tjava.lang.Integer index = INDEXES.get(method);\n");
+		source.append("\t\tswitch (index == null ? -1 : index) {\n");
+		for (int i = 0; i < methods.size(); i++) {
+			ExecutableElement method = methods.get(i);
+			String call = call(method);
+			source.append("\t\t\tcase ").append(i).append(":\n");
+			if (method.getReturnType().getKind() == TypeKind.VOID) {
+				source.append("\t\t\t\t").append(call).append(";\n");
+				source.append("\t\t\t\treturn null;\n");
+			} else {
+				source.append("\t\t\t\treturn ").append(call).append(";\n");
+			}
+		}
+		source.append("\t\t\tdefault:\n");
+		source.append("\t\t\t\ttry {\n");
+		source.append("\t\t\t\t\treturn method.invoke(target, arguments);\n");
+		source.append("\t\t\t\t} catch (java.lang.reflect.InvocationTargetException e) {\n");
+		source.append("\t\t\t\t\tthrow e.getCause();\n");
+		source.append("\t\t\t\t}\n");
+		source.append("\t\t}\n");
+		source.append("\t}\n\n");
+
+		source.append("\tprivate static java.lang.reflect.Method method(java.lang.String name, java.lang.Class<?>... parameterTypes) {\n");
+		source.append("\t\ttry {\n");
+		source.append("\t\t\treturn ").append(serviceName).append(".class.getMethod(name, parameterTypes);\n");
+		source.append("\t\t} catch (java.lang.NoSuchMethodException e) {\n");
+		source.append("\t\t\tthrow new java.lang.IllegalStateException(e);\n");
+		source.append("\t\t}\n");
+		source.append("\t}\n\n");
+
+		source.append("\tprivate static java.util.Set<java.lang.reflect.Method> methods(int... indexes) {\n");
+		source.append("\t\tjava.util.Set<java.lang.reflect.Method> methods = new java.util.HashSet<>();\n");
+		source.append("\t\tfor (int index : indexes) {\n");
+		source.append("\t\t\tmethods.add(METHODS[index]);\n");
+		source.append("\t\t}\n");
+		source.append("\t\treturn java.util.Collections.unmodifiableSet(methods);\n");
+		source.append("\t}\n");
+		source.append("}\n");
+		return source.toString();
+	}
+
+	/**
+	 * The JSON-RPC names of a method, by the same rules as {@code ReflectionUtil}.
+	 */
+	private Set<String> rpcNames(ExecutableElement method) {
+		Set<String> names = new LinkedHashSet<>();
+		Map<String, Object> annotation = getValues(getAnnotation(method, METHOD));
+		if (!annotation.isEmpty()) {
+			names.add((String) annotation.get("value"));
+			if (Boolean.TRUE.equals(annotation.get("required"))) {
+				return names;
+			}
+		}
+		names.add(method.getSimpleName().toString());
+		return names;
+	}
+
+	/**
+	 * A direct call on the erasure of the declaring interface with erased
+	 * argument casts, which matches the method whatever its type arguments.
+	 */
+	private String call(ExecutableElement method) {
+		TypeElement owner = (TypeElement) method.getEnclosingElement();
+		StringBuilder call = new StringBuilder();
+		if (method.getModifiers().contains(Modifier.STATIC)) {
+			call.append(owner.getQualifiedName());
+		} else {
+			call.append("((").append(owner.getQualifiedName()).append(") target)");
+		}
+		call.append('.').append(method.getSimpleName()).append('(');
+		List<? extends VariableElement> parameters = method.getParameters();
+		for (int i = 0; i < parameters.size(); i++) {
+			call.append(i == 0 ? "" : ", ")
+					.append('(').append(typeName(parameters.get(i).asType())).append(") arguments[").append(i).append(']');
+		}
+		return call.append(')').toString();
+	}
+}
@@ -0,0 +1,206 @@
+package com.googlecode.jsonrpc4j.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Base class of the processors generating a class for every interface
+ * annotated with {@code @JsonRpcService}.  The class generated for
+ * {@code com.example.Outer.Service} is named
+ * {@code com.example.Outer_Service} followed by the processor's suffix.
+ * Classes annotated with {@code @JsonRpcService} and private interfaces are
+ * left to reflection.
+ */
+abstract class ServiceProcessor extends AbstractProcessor {
+
+	static final String SERVICE = "com.googlecode.jsonrpc4j.JsonRpcService";
+	static final String METHOD = "com.googlecode.jsonrpc4j.JsonRpcMethod";
+
+	private final String suffix;
+
+	/**
+	 * @param suffix appended to the interface name to name the generated class
+	 */
+	ServiceProcessor(String suffix) {
+		this.suffix = suffix;
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() != ElementKind.INTERFACE) {
+					continue;
+				}
+				TypeElement service = (TypeElement) element;
+				if (!isAccessible(service)) {
+					warn("No " + suffix.substring(1) + " generated for private interface " + service.getQualifiedName(), service);
+					continue;
+				}
+				String packageName = getPackageName(service);
+				String simpleName = getGeneratedName(service);
+				try {
+					String source = generate(service, packageName, simpleName);
+					if (source != null) {
+						write(service, packageName.isEmpty() ? simpleName : packageName + "." + simpleName, source);
+					}
+				} catch (IOException e) {
+					processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+							"Failed to generate " + suffix.substring(1) + ": " + e.getMessage(), service);
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param service     the interface
+	 * @param packageName the package of the interface and the generated class
+	 * @param simpleName  the simple name of the generated class
+	 * @return the source of the generated class, {@code null} to generate nothing
+	 */
+	abstract String generate(TypeElement service, String packageName, String simpleName);
+
+	void warn(String message, Element element) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+	}
+
+	private boolean isAccessible(TypeElement service) {
+		for (Element element = service; element instanceof TypeElement; element = element.getEnclosingElement()) {
+			if (element.getModifiers().contains(Modifier.PRIVATE)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String getPackageName(TypeElement service) {
+		return processingEnv.getElementUtils().getPackageOf(service).getQualifiedName().toString();
+	}
+
+	private String getGeneratedName(TypeElement service) {
+		String packageName = getPackageName(service);
+		String binaryName = processingEnv.getElementUtils().getBinaryName(service).toString();
+		return (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_') + suffix;
+	}
+
+	private void write(TypeElement service, String qualifiedName, String source) throws IOException {
+		try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, service).openWriter()) {
+			writer.write(source);
+		}
+	}
+
+	/**
+	 * Starts the source of a generated class.
+	 *
+	 * @param packageName the package
+	 * @return the package declaration and the annotations of the class
+	 */
+	StringBuilder startSource(String packageName) {
+		StringBuilder source = new StringBuilder();
+		if (!packageName.isEmpty()) {
+			source.append("package ").append(packageName).append(";\n\n");
+		}
+		source.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+		source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+		return source;
+	}
+
+	/**
+	 * Collects the methods {@code Class.getMethods()} would return for the interface:
+	 * its own and inherited abstract and default methods, and its own static methods.
+	 */
+	List<ExecutableElement> collectMethods(TypeElement service) {
+		List<ExecutableElement> methods = new ArrayList<>();
+		for (Element member : processingEnv.getElementUtils().getAllMembers(service)) {
+			if (member.getKind() != ElementKind.METHOD) {
+				continue;
+			}
+			ExecutableElement method = (ExecutableElement) member;
+			Element owner = method.getEnclosingElement();
+			if (owner.getKind() != ElementKind.INTERFACE || method.getModifiers().contains(Modifier.PRIVATE)) {
+				continue;
+			}
+			if (method.getModifiers().contains(Modifier.STATIC) && !owner.equals(service)) {
+				continue;
+			}
+			methods.add(method);
+		}
+		return methods;
+	}
+
+	/**
+	 * @param element   an annotated element
+	 * @param className the qualified name of the annotation
+	 * @return the annotation on the element or {@code null}
+	 */
+	AnnotationMirror getAnnotation(Element element, String className) {
+		for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			TypeElement annotation = (TypeElement) mirror.getAnnotationType().asElement();
+			if (annotation.getQualifiedName().contentEquals(className)) {
+				return mirror;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param mirror an annotation
+	 * @return its values by name, defaults included
+	 */
+	Map<String, Object> getValues(AnnotationMirror mirror) {
+		if (mirror == null) {
+			return Collections.emptyMap();
+		}
+		Map<String, Object> values = new LinkedHashMap<>();
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+				: processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+			values.put(entry.getKey().getSimpleName().toString(), entry.getValue().getValue());
+		}
+		return values;
+	}
+
+	/**
+	 * The erased type as it is written in source, without annotations.
+	 */
+	String typeName(TypeMirror type) {
+		TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+		if (erased.getKind() == TypeKind.ARRAY) {
+			return typeName(((ArrayType) erased).getComponentType()) + "[]";
+		}
+		if (erased.getKind() == TypeKind.DECLARED) {
+			return ((TypeElement) ((DeclaredType) erased).asElement()).getQualifiedName().toString();
+		}
+		return erased.getKind().name().toLowerCase();
+	}
+
+	String literal(String value) {
+		return processingEnv.getElementUtils().getConstantExpression(value);
+	}
+}
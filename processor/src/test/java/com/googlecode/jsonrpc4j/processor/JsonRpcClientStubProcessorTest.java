@@ -0,0 +1,171 @@
+package com.googlecode.jsonrpc4j.processor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlecode.jsonrpc4j.JsonRpcBasicServer;
+import com.googlecode.jsonrpc4j.JsonRpcClientStub;
+import com.googlecode.jsonrpc4j.JsonRpcLocalClient;
+import com.googlecode.jsonrpc4j.ProxyUtil;
+import com.googlecode.jsonrpc4j.ReflectionUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonRpcClientStubProcessorTest {
+
+	private static final String SOURCE = String.join("\n",
+			"package sample;",
+			"",
+			"import com.googlecode.jsonrpc4j.JsonRpcFixedParam;",
+			"import com.googlecode.jsonrpc4j.JsonRpcMethod;",
+			"import com.googlecode.jsonrpc4j.JsonRpcParam;",
+			"import com.googlecode.jsonrpc4j.JsonRpcParamsPassMode;",
+			"import com.googlecode.jsonrpc4j.JsonRpcService;",
+			"import java.io.IOException;",
+			"import java.util.List;",
+			"import java.util.concurrent.CompletableFuture;",
+			"",
+			"public class Services {",
+			"",
+			"	public interface Base<T> {",
+			"		T echo(T value);",
+			"	}",
+			"",
+			"	@JsonRpcService(\"/calculator\")",
+			"	public interface Calculator extends Base<String> {",
+			"		int add(int first, int second);",
+			"		int add(@JsonRpcParam(\"values\") List<Integer> values);",
+			"		@JsonRpcMethod(\"multiply\") long times(long first, long second);",
+			"		@JsonRpcMethod(value = \"divide\", paramsPassMode = JsonRpcParamsPassMode.ARRAY)",
+			"		double divide(@JsonRpcParam(\"dividend\") double dividend, @JsonRpcParam(\"divisor\") double divisor);",
+			"		@JsonRpcFixedParam(name = \"unit\", value = \"cm\") String measure(@JsonRpcParam(\"length\") int length);",
+			"		@JsonRpcFixedParam(name = \"unit\", value = \"cm\") String convert(@JsonRpcParam(\"unit\") String unit, @JsonRpcParam(\"length\") int length);",
+			"		List<String> split(String text, char separator);",
+			"		int sum(int... values);",
+			"		void clear();",
+			"		CompletableFuture<List<Integer>> range(int from, int to);",
+			"		String read(String name) throws IOException;",
+			"		int partly(@JsonRpcParam(\"first\") int first, int second);",
+			"	}",
+			"",
+			"	public static class CalculatorImpl implements Calculator {",
+			"		public int add(int first, int second) { return first + second; }",
+			"		public int add(List<Integer> values) { return values.stream().mapToInt(Integer::intValue).sum(); }",
+			"		public long times(long first, long second) { return first * second; }",
+			"		public double divide(double dividend, double divisor) { return dividend / divisor; }",
+			"		public String measure(int length) { return length + \"cm\"; }",
+			"		public String convert(String unit, int length) { return length + unit; }",
+			"		public List<String> split(String text, char separator) { return java.util.Arrays.asList(text.split(java.util.regex.Pattern.quote(String.valueOf(separator)))); }",
+			"		public int sum(int... values) { int sum = 0; for (int value : values) sum += value; return sum; }",
+			"		public void clear() { }",
+			"		public CompletableFuture<List<Integer>> range(int from, int to) { return CompletableFuture.completedFuture(java.util.Arrays.asList(from, to)); }",
+			"		public String read(String name) { return name; }",
+			"		public int partly(int first, int second) { return first; }",
+			"		public String echo(String value) { return value; }",
+			"	}",
+			"}",
+			"");
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private ClassLoader classLoader;
+	private Class<?> calculator;
+
+	@Before
+	public void compile() throws Exception {
+		Path directory = Files.createTempDirectory("stub");
+		Path source = directory.resolve("sample/Services.java");
+		Files.createDirectories(source.getParent());
+		Files.write(source, SOURCE.getBytes(StandardCharsets.UTF_8));
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+		int status = compiler.run(null, null, diagnostics,
+				"-classpath", System.getProperty("java.class.path"),
+				"-processor", JsonRpcClientStubProcessor.class.getName(),
+				"-d", directory.toString(),
+				"-s", directory.toString(),
+				source.toString());
+		assertEquals(diagnostics.toString(), 0, status);
+		classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, getClass().getClassLoader());
+		calculator = Class.forName("sample.Services$Calculator", true, classLoader);
+	}
+
+	@Test
+	public void writesParamsLikeProxies() throws Throwable {
+		assertSameCall(method("add", int.class, int.class), 1, 2);
+		assertSameCall(method("add", List.class), Arrays.asList(1, 2, 3));
+		assertSameCall(method("times", long.class, long.class), 3L, 4L);
+		assertSameCall(method("divide", double.class, double.class), 1.5, 0.5);
+		assertSameCall(method("measure", int.class), 3);
+		assertSameCall(method("convert", String.class, int.class), "mm", 3);
+		assertSameCall(method("split", String.class, char.class), "a,b", ',');
+		assertSameCall(method("sum", int[].class), (Object) new int[]{1, 2});
+		assertSameCall(method("clear"));
+		assertSameCall(method("range", int.class, int.class), 1, 2);
+		assertSameCall(method("echo", Object.class), "text");
+
+		Object stub = JsonRpcClientStub.forInterface(calculator, (methodName, params, resultType, async) -> null);
+		try {
+			method("partly", int.class, int.class).invoke(stub, 1, 2);
+			fail();
+		} catch (InvocationTargetException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+	}
+
+	@Test
+	public void callsServerThroughStub() throws Exception {
+		Object service = Class.forName("sample.Services$CalculatorImpl", true, classLoader).getDeclaredConstructor().newInstance();
+		Object client = ProxyUtil.createClientProxy(classLoader, calculator,
+				new JsonRpcLocalClient(new JsonRpcBasicServer(mapper, service, calculator)));
+		assertEquals("sample.Services_Calculator_JsonRpcClientStub", client.getClass().getName());
+
+		assertEquals(3, method("add", int.class, int.class).invoke(client, 1, 2));
+		assertEquals(6, method("add", List.class).invoke(client, Arrays.asList(1, 2, 3)));
+		assertEquals(12L, method("times", long.class, long.class).invoke(client, 3L, 4L));
+		assertEquals(3.0, method("divide", double.class, double.class).invoke(client, 1.5, 0.5));
+		assertEquals(Arrays.asList("a", "b"), method("split", String.class, char.class).invoke(client, "a,b", ','));
+		assertEquals("3mm", method("convert", String.class, int.class).invoke(client, "mm", 3));
+		assertNull(method("clear").invoke(client));
+		assertEquals("file", method("read", String.class).invoke(client, "file"));
+		assertEquals("text", method("echo", Object.class).invoke(client, "text"));
+	}
+
+	private Method method(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+		return calculator.getMethod(name, parameterTypes);
+	}
+
+	private void assertSameCall(Method method, Object... arguments) throws Throwable {
+		List<Object> call = new ArrayList<>();
+		Object stub = JsonRpcClientStub.forInterface(calculator, (methodName, params, resultType, async) -> {
+			call.addAll(Arrays.asList(methodName, mapper.writeValueAsString(params), resultType, async));
+			return method.getReturnType().isPrimitive() && method.getReturnType() != void.class
+					? Array.get(Array.newInstance(method.getReturnType(), 1), 0) : null;
+		});
+		method.invoke(stub, arguments);
+
+		boolean async = ProxyUtil.isAsyncMethod(method);
+		Type resultType = async ? ProxyUtil.getAsyncResultType(method) : method.getGenericReturnType();
+		assertEquals(Arrays.asList(ProxyUtil.getMethodName(method),
+				mapper.writeValueAsString(ReflectionUtil.parseArguments(method, arguments)), resultType, async), call);
+	}
+}
@@ -0,0 +1,149 @@
+package com.googlecode.jsonrpc4j.processor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlecode.jsonrpc4j.JsonRpcBasicServer;
+import com.googlecode.jsonrpc4j.JsonRpcDispatcher;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JsonRpcDispatcherProcessorTest {
+
+	private static final String SOURCE = String.join("\n",
+			"package sample;",
+			"",
+			"import com.googlecode.jsonrpc4j.JsonRpcMethod;",
+			"import com.googlecode.jsonrpc4j.JsonRpcParam;",
+			"import com.googlecode.jsonrpc4j.JsonRpcService;",
+			"import java.util.List;",
+			"",
+			"public class Services {",
+			"",
+			"	public interface Base<T> {",
+			"		T echo(T value);",
+			"	}",
+			"",
+			"	@JsonRpcService(\"/calculator\")",
+			"	public interface Calculator extends Base<String> {",
+			"		int add(int first, int second);",
+			"		int add(@JsonRpcParam(\"values\") List<Integer> values);",
+			"		@JsonRpcMethod(\"multiply\") long times(long first, long second);",
+			"		@JsonRpcMethod(value = \"reset\", required = true) void clear();",
+			"		String caller();",
+			"		default int sum(int... values) { int sum = 0; for (int value : values) sum += value; return sum; }",
+			"		static String version() { return \"1\"; }",
+			"	}",
+			"",
+			"	@JsonRpcService(\"/hidden\")",
+			"	private interface Hidden {",
+			"		void hide();",
+			"	}",
+			"",
+			"	public static class CalculatorImpl implements Calculator {",
+			"		public int add(int first, int second) { return first + second; }",
+			"		public int add(List<Integer> values) { return values.stream().mapToInt(Integer::intValue).sum(); }",
+			"		public long times(long first, long second) { return first * second; }",
+			"		public void clear() { }",
+			"		public String caller() { return new Throwable().getStackTrace()[1].getClassName(); }",
+			"		public String echo(String value) { return value; }",
+			"	}",
+			"}",
+			"");
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private ClassLoader classLoader;
+
+	@Before
+	public void compile() throws IOException {
+		Path directory = Files.createTempDirectory("dispatcher");
+		Path source = directory.resolve("sample/Services.java");
+		Files.createDirectories(source.getParent());
+		Files.write(source, SOURCE.getBytes(StandardCharsets.UTF_8));
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+		int status = compiler.run(null, null, diagnostics,
+				"-classpath", System.getProperty("java.class.path"),
+				"-processor", JsonRpcDispatcherProcessor.class.getName(),
+				"-d", directory.toString(),
+				"-s", directory.toString(),
+				source.toString());
+		assertEquals(diagnostics.toString(), 0, status);
+		classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, getClass().getClassLoader());
+	}
+
+	@Test
+	public void findsMethodsByJsonRpcName() throws Exception {
+		Class<?> calculator = load("sample.Services$Calculator");
+		JsonRpcDispatcher dispatcher = JsonRpcDispatcher.forInterface(calculator);
+		assertNotNull(dispatcher);
+		assertSame(calculator, dispatcher.getServiceInterface());
+		assertSame(dispatcher, JsonRpcDispatcher.forInterface(calculator));
+
+		assertEquals(2, dispatcher.getMethods("add").size());
+		assertSame(dispatcher.getMethods("add"), dispatcher.getMethods("add"));
+		assertEquals(Collections.singleton(calculator.getMethod("times", long.class, long.class)), dispatcher.getMethods("multiply"));
+		assertEquals(dispatcher.getMethods("multiply"), dispatcher.getMethods("times"));
+		assertEquals(1, dispatcher.getMethods("reset").size());
+		assertTrue(dispatcher.getMethods("clear").isEmpty());
+		assertTrue(dispatcher.getMethods("hashCode").isEmpty());
+		assertEquals(1, dispatcher.getMethods("echo").size());
+		assertEquals(1, dispatcher.getMethods("version").size());
+
+		assertNull(JsonRpcDispatcher.forInterface(load("sample.Services$Hidden")));
+		assertNull(JsonRpcDispatcher.forInterface(load("sample.Services$CalculatorImpl")));
+	}
+
+	@Test
+	public void serverCallsThroughDispatcher() throws Exception {
+		Class<?> calculator = load("sample.Services$Calculator");
+		Object service = load("sample.Services$CalculatorImpl").getDeclaredConstructor().newInstance();
+		JsonRpcBasicServer server = new JsonRpcBasicServer(mapper, service, calculator);
+
+		assertEquals("sample.Services_Calculator_JsonRpcDispatcher", call(server, "caller").textValue());
+		assertEquals(3, call(server, "add", 1, 2).intValue());
+		assertEquals(6, call(server, "add", Arrays.asList(1, 2, 3)).intValue());
+		assertEquals(12, call(server, "multiply", 3, 4).longValue());
+		assertEquals(10, call(server, "sum", 1, 2, 3, 4).intValue());
+		assertEquals("text", call(server, "echo", "text").textValue());
+		assertEquals("1", call(server, "version").textValue());
+		assertTrue(call(server, "reset").isNull());
+	}
+
+	private Class<?> load(String name) throws ClassNotFoundException {
+		return Class.forName(name, true, classLoader);
+	}
+
+	private JsonNode call(JsonRpcBasicServer server, String method, Object... params) throws IOException {
+		String request = mapper.writeValueAsString(mapper.createObjectNode()
+				.put("jsonrpc", "2.0")
+				.put("id", 1)
+				.put("method", method)
+				.set("params", mapper.valueToTree(params)));
+		ByteArrayOutputStream response = new ByteArrayOutputStream();
+		server.handleRequest(new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8)), response);
+		JsonNode result = mapper.readTree(response.toByteArray());
+		assertNull(result.toString(), result.get("error"));
+		return result.get("result");
+	}
+}
@@ -0,0 +1,90 @@
+package com.googlecode.jsonrpc4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The service called by the benchmarks, with payloads of a chosen size.
+ */
+public interface BenchmarkService {
+
+	List<Item> echo(List<Item> items);
+
+	int count(@JsonRpcParam("items") List<Item> items);
+
+	List<Item> items(int count);
+
+	String overloaded(String value);
+
+	String overloaded(int value);
+
+	String overloaded(int first, int second);
+
+	String overloaded(List<String> values);
+
+	class Item {
+
+		public int id;
+		public String name;
+		public double[] values;
+
+		public Item() {
+		}
+
+		Item(int id) {
+			this.id = id;
+			this.name = "item-" + id;
+			this.values = new double[]{id, id * 0.5, id * 0.25};
+		}
+
+		/**
+		 * @param count the number of items
+		 * @return a payload of the given size
+		 */
+		public static List<Item> create(int count) {
+			List<Item> items = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				items.add(new Item(i));
+			}
+			return items;
+		}
+	}
+
+	class Impl implements BenchmarkService {
+
+		@Override
+		public List<Item> echo(List<Item> items) {
+			return items;
+		}
+
+		@Override
+		public int count(List<Item> items) {
+			return items.size();
+		}
+
+		@Override
+		public List<Item> items(int count) {
+			return Item.create(count);
+		}
+
+		@Override
+		public String overloaded(String value) {
+			return "string";
+		}
+
+		@Override
+		public String overloaded(int value) {
+			return "int";
+		}
+
+		@Override
+		public String overloaded(int first, int second) {
+			return "int,int";
+		}
+
+		@Override
+		public String overloaded(List<String> values) {
+			return "list";
+		}
+	}
+}
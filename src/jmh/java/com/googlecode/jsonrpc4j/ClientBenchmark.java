@@ -0,0 +1,64 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JsonRpcClient} writing requests and reading responses, without a transport.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClientBenchmark {
+
+	private static final Type RESULT_TYPE = new TypeReference<List<BenchmarkService.Item>>() {
+	}.getType();
+
+	/**
+	 * The number of items in the params and in the result.
+	 */
+	@Param({"1", "100", "1000"})
+	public int size;
+
+	private JsonRpcClient client;
+	private Object[] arguments;
+	private byte[] response;
+
+	@Setup
+	public void setUp() throws IOException {
+		ObjectMapper mapper = new ObjectMapper();
+		client = new JsonRpcClient(mapper);
+		arguments = new Object[]{BenchmarkService.Item.create(size)};
+		response = mapper.writeValueAsBytes(mapper.createObjectNode()
+				.put(JsonRpcBasicServer.JSONRPC, JsonRpcBasicServer.VERSION)
+				.put(JsonRpcBasicServer.ID, "1")
+				.set(JsonRpcBasicServer.RESULT, mapper.valueToTree(arguments[0])));
+	}
+
+	@Benchmark
+	public int encodeRequest() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		client.invoke("echo", arguments, output);
+		return output.size();
+	}
+
+	@Benchmark
+	public Object decodeResponse() throws Throwable {
+		return client.readResponse(RESULT_TYPE, new ByteArrayInputStream(response));
+	}
+}
@@ -0,0 +1,57 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch of parsed requests to overloads of one method, with and without
+ * the cache of the overload resolved per parameter shape.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MethodResolutionBenchmark {
+
+	/**
+	 * {@code 0} resolves every request from scratch.
+	 */
+	@Param({"0", "1024"})
+	public int resolvedMethodCacheSize;
+
+	private JsonRpcBasicServer server;
+	private JsonNode[] requests;
+
+	@Setup
+	public void setUp() {
+		ObjectMapper mapper = new ObjectMapper();
+		server = new JsonRpcBasicServer(mapper, new BenchmarkService.Impl(), BenchmarkService.class);
+		server.setResolvedMethodCacheSize(resolvedMethodCacheSize);
+		JsonRpcClient client = new JsonRpcClient(mapper);
+		requests = new JsonNode[]{
+				client.createRequest("overloaded", new Object[]{"a"}, "1"),
+				client.createRequest("overloaded", new Object[]{1}, "2"),
+				client.createRequest("overloaded", new Object[]{1, 2}, "3"),
+				client.createRequest("overloaded", new Object[]{Arrays.asList("a", "b")}, "4")
+		};
+	}
+
+	@Benchmark
+	public void overloads(Blackhole blackhole) throws IOException {
+		for (JsonNode request : requests) {
+			blackhole.consume(server.handleParsedRequest(request));
+		}
+	}
+}
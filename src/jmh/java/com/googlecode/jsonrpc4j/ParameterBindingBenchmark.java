@@ -0,0 +1,56 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binding the params of a parsed request to a list of beans, passed by
+ * position or by name, for a method with a small result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParameterBindingBenchmark {
+
+	/**
+	 * The number of items bound.
+	 */
+	@Param({"1", "100", "1000"})
+	public int size;
+
+	/**
+	 * {@code ARRAY} or {@code OBJECT} params.
+	 */
+	@Param({"ARRAY", "OBJECT"})
+	public String params;
+
+	private JsonRpcBasicServer server;
+	private JsonNode request;
+
+	@Setup
+	public void setUp() {
+		ObjectMapper mapper = new ObjectMapper();
+		server = new JsonRpcBasicServer(mapper, new BenchmarkService.Impl(), BenchmarkService.class);
+		List<BenchmarkService.Item> items = BenchmarkService.Item.create(size);
+		Object arguments = "OBJECT".equals(params) ? Collections.singletonMap("items", items) : new Object[]{items};
+		request = new JsonRpcClient(mapper).createRequest("count", arguments, "1");
+	}
+
+	@Benchmark
+	public JsonResponse bind() throws IOException {
+		return server.handleParsedRequest(request);
+	}
+}
@@ -0,0 +1,58 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two steps of writing a result: converting it to a tree, as the server
+ * does after the call, and writing the response holding that tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseSerializationBenchmark {
+
+	/**
+	 * The number of items in the result.
+	 */
+	@Param({"1", "100", "1000"})
+	public int size;
+
+	private ObjectMapper mapper;
+	private JsonRpcBasicServer server;
+	private List<BenchmarkService.Item> result;
+	private JsonResponse response;
+
+	@Setup
+	public void setUp() throws IOException {
+		mapper = new ObjectMapper();
+		server = new JsonRpcBasicServer(mapper, new BenchmarkService.Impl(), BenchmarkService.class);
+		result = BenchmarkService.Item.create(size);
+		response = server.handleParsedRequest(new JsonRpcClient(mapper).createRequest("items", new Object[]{size}, "1"));
+	}
+
+	@Benchmark
+	public JsonNode resultToTree() {
+		return mapper.valueToTree(result);
+	}
+
+	@Benchmark
+	public int writeResponse() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		server.writeResponse(output, response, DataFormat.JSON);
+		return output.size();
+	}
+}
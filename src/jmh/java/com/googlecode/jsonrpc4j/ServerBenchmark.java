@@ -0,0 +1,88 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JsonRpcBasicServer#handleRequest} from request bytes to response
+ * bytes, for a single request and for batches handled sequentially and in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServerBenchmark {
+
+	private static final int BATCH_SIZE = 16;
+
+	/**
+	 * The number of items echoed by each request.
+	 */
+	@Param({"1", "100", "1000"})
+	public int size;
+
+	private JsonRpcBasicServer sequentialServer;
+	private JsonRpcBasicServer parallelServer;
+	private ExecutorService batchExecutorService;
+	private byte[] single;
+	private byte[] batch;
+
+	@Setup
+	public void setUp() throws IOException {
+		ObjectMapper mapper = new ObjectMapper();
+		sequentialServer = new JsonRpcBasicServer(mapper, new BenchmarkService.Impl(), BenchmarkService.class);
+		parallelServer = new JsonRpcBasicServer(mapper, new BenchmarkService.Impl(), BenchmarkService.class);
+		batchExecutorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		parallelServer.setBatchExecutorService(batchExecutorService);
+
+		JsonRpcClient client = new JsonRpcClient(mapper);
+		Object[] arguments = {BenchmarkService.Item.create(size)};
+		single = mapper.writeValueAsBytes(client.createRequest("echo", arguments, "1"));
+		ArrayNode requests = mapper.createArrayNode();
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			requests.add(client.createRequest("echo", arguments, Integer.toString(i)));
+		}
+		batch = mapper.writeValueAsBytes(requests);
+	}
+
+	@TearDown
+	public void tearDown() {
+		batchExecutorService.shutdownNow();
+	}
+
+	@Benchmark
+	public int single() throws IOException {
+		return handle(sequentialServer, single);
+	}
+
+	@Benchmark
+	public int batchSequential() throws IOException {
+		return handle(sequentialServer, batch);
+	}
+
+	@Benchmark
+	public int batchParallel() throws IOException {
+		return handle(parallelServer, batch);
+	}
+
+	private static int handle(JsonRpcBasicServer server, byte[] request) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		server.handleRequest(new ByteArrayInputStream(request), output);
+		return output.size();
+	}
+}
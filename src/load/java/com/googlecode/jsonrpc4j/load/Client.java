@@ -0,0 +1,155 @@
+package com.googlecode.jsonrpc4j.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlecode.jsonrpc4j.JsonRpcClient;
+import com.googlecode.jsonrpc4j.JsonRpcHttpAsyncClient;
+import com.googlecode.jsonrpc4j.JsonRpcHttpClient;
+import com.googlecode.jsonrpc4j.JsonRpcJdkHttpClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The clients driven by the load harness, with the {@link Transport} each one talks to.
+ */
+public enum Client {
+
+	/**
+	 * {@link JsonRpcHttpClient} with keep-alive connections, blocking the calling worker.
+	 */
+	HTTP_URL_CONNECTION(Transport.HTTP) {
+		@Override
+		Connection connect(ObjectMapper mapper, URI uri, int connections) throws IOException {
+			final JsonRpcHttpClient client = new JsonRpcHttpClient(mapper, uri.toURL(), Collections.<String, String>emptyMap());
+			client.setKeepAlive(true);
+			return (worker, method, params) -> {
+				try {
+					return CompletableFuture.completedFuture(client.invoke(method, params, String.class));
+				} catch (Throwable t) {
+					return failed(t);
+				}
+			};
+		}
+	},
+
+	/**
+	 * {@link JsonRpcJdkHttpClient} invoked asynchronously.
+	 */
+	JDK_HTTP(Transport.HTTP) {
+		@Override
+		Connection connect(ObjectMapper mapper, URI uri, int connections) {
+			final JsonRpcJdkHttpClient client = new JsonRpcJdkHttpClient(mapper, JsonRpcJdkHttpClient.createHttpClient(), uri, Collections.<String, String>emptyMap());
+			return (worker, method, params) -> client.invokeAsync(method, params, String.class);
+		}
+	},
+
+	/**
+	 * {@link JsonRpcHttpAsyncClient} with a connection per worker.
+	 */
+	HTTP_ASYNC(Transport.HTTP) {
+		@Override
+		Connection connect(ObjectMapper mapper, URI uri, int connections) throws IOException {
+			final JsonRpcHttpAsyncClient client = JsonRpcHttpAsyncClient.builder(uri.toURL())
+					.mapper(mapper)
+					.maxPerRoute(connections)
+					.maxTotal(connections)
+					.build();
+			return new Connection() {
+				@Override
+				public CompletableFuture<?> call(int worker, String method, Object params) {
+					return client.invoke(method, params, String.class);
+				}
+
+				@Override
+				public void close() throws IOException {
+					client.close();
+				}
+			};
+		}
+	},
+
+	/**
+	 * {@link JsonRpcClient} over a socket per worker, blocking the calling worker.
+	 */
+	STREAM(Transport.STREAM) {
+		@Override
+		Connection connect(ObjectMapper mapper, URI uri, int connections) throws IOException {
+			final JsonRpcClient client = new JsonRpcClient(mapper);
+			final Socket[] sockets = new Socket[connections];
+			final InputStream[] inputs = new InputStream[connections];
+			final OutputStream[] outputs = new OutputStream[connections];
+			for (int i = 0; i < connections; i++) {
+				sockets[i] = new Socket(uri.getHost(), uri.getPort());
+				sockets[i].setTcpNoDelay(true);
+				inputs[i] = sockets[i].getInputStream();
+				outputs[i] = sockets[i].getOutputStream();
+			}
+			return new Connection() {
+				@Override
+				public CompletableFuture<?> call(int worker, String method, Object params) {
+					try {
+						return CompletableFuture.completedFuture(client.invokeAndReadResponse(method, params, String.class, outputs[worker], inputs[worker]));
+					} catch (Throwable t) {
+						return failed(t);
+					}
+				}
+
+				@Override
+				public void close() throws IOException {
+					for (Socket socket : sockets) {
+						socket.close();
+					}
+				}
+			};
+		}
+	};
+
+	private final Transport transport;
+
+	Client(Transport transport) {
+		this.transport = transport;
+	}
+
+	private static CompletableFuture<?> failed(Throwable t) {
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		future.completeExceptionally(t);
+		return future;
+	}
+
+	/**
+	 * @return the transport this client talks to
+	 */
+	public Transport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * Connects to a server started by {@link #getTransport()}.
+	 *
+	 * @param mapper      the mapper of the client
+	 * @param uri         the address of the server
+	 * @param connections the number of workers calling the connection
+	 * @return the connection
+	 * @throws IOException if the client can't connect
+	 */
+	abstract Connection connect(ObjectMapper mapper, URI uri, int connections) throws IOException;
+
+	/**
+	 * Calls made by the workers of a run.  Blocking clients complete the
+	 * returned future before returning it, holding up the calling worker.
+	 */
+	interface Connection extends Closeable {
+
+		CompletableFuture<?> call(int worker, String method, Object params);
+
+		@Override
+		default void close() throws IOException {
+		}
+	}
+}
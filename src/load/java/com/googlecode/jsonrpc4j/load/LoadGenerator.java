@@ -0,0 +1,134 @@
+package com.googlecode.jsonrpc4j.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Calls a {@link Client.Connection} at a fixed rate from a number of workers.
+ * <p>
+ * Requests are scheduled up front, one every {@code 1 / rate} seconds spread
+ * over the workers, and each latency is measured from the time the request was
+ * scheduled rather than the time it was sent.  A worker held up by a slow
+ * blocking call sends the requests it owes as soon as it is free, and the time
+ * they spent waiting is part of their latency, so a stall shows up in the
+ * percentiles as it would for callers arriving at that rate instead of being
+ * hidden by the generator slowing down (coordinated omission).
+ */
+class LoadGenerator {
+
+	private static final String METHOD = "echo";
+
+	private final int rate;
+	private final int connections;
+	private final long warmUpNanos;
+	private final long durationNanos;
+	private final long drainNanos;
+	private final Object[] params;
+
+	/**
+	 * @param rate        requests per second over all workers
+	 * @param connections the number of workers, each with its own connection where the client has them
+	 * @param warmUp      the time requests are sent before latencies are recorded
+	 * @param duration    the time latencies are recorded
+	 * @param drain       the time to wait for outstanding responses after the last request, before they count as errors
+	 * @param unit        the unit of {@code warmUp}, {@code duration} and {@code drain}
+	 * @param payload     the string echoed by each request
+	 */
+	LoadGenerator(int rate, int connections, long warmUp, long duration, long drain, TimeUnit unit, String payload) {
+		this.rate = rate;
+		this.connections = connections;
+		this.warmUpNanos = unit.toNanos(warmUp);
+		this.durationNanos = unit.toNanos(duration);
+		this.drainNanos = unit.toNanos(drain);
+		this.params = new Object[]{payload};
+	}
+
+	/**
+	 * Runs the schedule against the connection.
+	 *
+	 * @param client     the client under test, for the result
+	 * @param connection the connection to call
+	 * @return the recorded latencies, throughput and errors
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 */
+	LoadResult run(Client client, Client.Connection connection) throws InterruptedException {
+		final Recorder recorder = new Recorder(3);
+		final LongAdder errors = new LongAdder();
+		final AtomicLong outstanding = new AtomicLong();
+		final AtomicLong lastCompletion = new AtomicLong();
+		final AtomicReference<Throwable> lastError = new AtomicReference<>();
+		final double interval = (double) TimeUnit.SECONDS.toNanos(1) / rate;
+		final long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+		final long measureStart = start + warmUpNanos;
+		final long end = measureStart + durationNanos;
+
+		List<Thread> workers = new ArrayList<>(connections);
+		for (int i = 0; i < connections; i++) {
+			final int worker = i;
+			Thread thread = new Thread(() -> {
+				for (long k = worker; ; k += connections) {
+					final long intended = start + (long) (k * interval);
+					if (intended - end >= 0) {
+						return;
+					}
+					parkUntil(intended);
+					final boolean measured = intended - measureStart >= 0;
+					if (measured) {
+						outstanding.incrementAndGet();
+					}
+					CompletableFuture<?> future;
+					try {
+						future = connection.call(worker, METHOD, params);
+					} catch (RuntimeException e) {
+						future = new CompletableFuture<>();
+						future.completeExceptionally(e);
+					}
+					if (measured) {
+						future.whenComplete((result, error) -> {
+							long now = System.nanoTime();
+							if (error == null) {
+								recorder.recordValue(now - intended);
+							} else {
+								errors.increment();
+								lastError.set(error);
+							}
+							lastCompletion.accumulateAndGet(now, (previous, current) -> current - previous > 0 ? current : previous);
+							outstanding.decrementAndGet();
+						});
+					}
+				}
+			}, "load-" + client.name().toLowerCase() + "-" + worker);
+			thread.setDaemon(true);
+			workers.add(thread);
+			thread.start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		long drainDeadline = System.nanoTime() + drainNanos;
+		while (outstanding.get() > 0 && drainDeadline - System.nanoTime() > 0) {
+			Thread.sleep(1);
+		}
+		long timedOut = outstanding.get();
+		Histogram histogram = recorder.getIntervalHistogram();
+		long elapsed = Math.max(lastCompletion.get(), end) - measureStart;
+		return new LoadResult(client, rate, connections, histogram, elapsed, errors.sum() + timedOut, timedOut, lastError.get());
+	}
+
+	private static void parkUntil(long deadline) {
+		long remaining;
+		while ((remaining = deadline - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(remaining);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.googlecode.jsonrpc4j.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The latencies, throughput and errors of one client at one rate.
+ */
+class LoadResult {
+
+	static final String HEADER = String.format(Locale.ROOT, "%-10s %-20s %8s %5s %10s %10s %10s %10s %10s %8s",
+			"transport", "client", "rate", "conn", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+
+	private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final Client client;
+	private final int rate;
+	private final int connections;
+	private final Histogram histogram;
+	private final long elapsedNanos;
+	private final long errors;
+	private final long timedOut;
+	private final Throwable lastError;
+
+	LoadResult(Client client, int rate, int connections, Histogram histogram, long elapsedNanos, long errors, long timedOut, Throwable lastError) {
+		this.client = client;
+		this.rate = rate;
+		this.connections = connections;
+		this.histogram = histogram;
+		this.elapsedNanos = elapsedNanos;
+		this.errors = errors;
+		this.timedOut = timedOut;
+		this.lastError = lastError;
+	}
+
+	Client getClient() {
+		return client;
+	}
+
+	int getRate() {
+		return rate;
+	}
+
+	/**
+	 * @return successful responses per second over the measured period
+	 */
+	double getThroughput() {
+		return histogram.getTotalCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+
+	/**
+	 * @param percentile the percentile, from 0 to 100
+	 * @return the latency at the percentile in milliseconds, measured from the scheduled send time
+	 */
+	double getLatencyMillis(double percentile) {
+		return histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+	}
+
+	long getErrors() {
+		return errors;
+	}
+
+	long getTimedOut() {
+		return timedOut;
+	}
+
+	Throwable getLastError() {
+		return lastError;
+	}
+
+	/**
+	 * Writes the percentile distribution of the latencies in milliseconds, in the
+	 * format read by the HdrHistogram plotter.
+	 *
+	 * @param out the stream to write to
+	 */
+	void writeDistribution(PrintStream out) {
+		histogram.outputPercentileDistribution(out, NANOS_PER_MILLI);
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "%-10s %-20s %8d %5d %10.1f %10.3f %10.3f %10.3f %10.3f %8d",
+				client.getTransport(), client, rate, connections, getThroughput(),
+				getLatencyMillis(50), getLatencyMillis(99), getLatencyMillis(99.9), histogram.getMaxValue() / NANOS_PER_MILLI, errors);
+	}
+}
@@ -0,0 +1,17 @@
+package com.googlecode.jsonrpc4j.load;
+
+/**
+ * The service called by the load harness.
+ */
+public interface LoadService {
+
+	String echo(String payload);
+
+	class Impl implements LoadService {
+
+		@Override
+		public String echo(String payload) {
+			return payload;
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package com.googlecode.jsonrpc4j.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives each {@link Client} against its {@link Transport} over loopback at
+ * fixed request rates and reports throughput, latency percentiles and errors
+ * per combination.
+ * <p>
+ * Options, all optional, are given as {@code --name=value}:
+ * <ul>
+ * <li>{@code rates} - comma separated requests per second, run in turn (1000,5000)</li>
+ * <li>{@code clients} - comma separated {@link Client} names (all)</li>
+ * <li>{@code connections} - workers and connections per client (16)</li>
+ * <li>{@code warmup} - seconds sent before recording (10)</li>
+ * <li>{@code duration} - seconds recorded (30)</li>
+ * <li>{@code drain} - seconds to wait for the last responses before they count as errors (10)</li>
+ * <li>{@code payload} - characters echoed by each request (256)</li>
+ * <li>{@code output} - directory for an HdrHistogram percentile distribution per run</li>
+ * <li>{@code slo-p99}, {@code slo-p999} - milliseconds no run may exceed</li>
+ * </ul>
+ * The exit status is 1 if a run exceeds one of them or has errors.
+ */
+public class LoadTest {
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = parse(args);
+		int connections = Integer.parseInt(options.getOrDefault("connections", "16"));
+		LoadGenerator[] generators = generators(options, connections);
+		File output = options.containsKey("output") ? new File(options.get("output")) : null;
+		Double sloP99 = options.containsKey("slo-p99") ? Double.valueOf(options.get("slo-p99")) : null;
+		Double sloP999 = options.containsKey("slo-p999") ? Double.valueOf(options.get("slo-p999")) : null;
+
+		// HttpURLConnection keeps at most 5 idle connections per destination by default
+		if (System.getProperty("http.maxConnections") == null) {
+			System.setProperty("http.maxConnections", Integer.toString(connections));
+		}
+		if (output != null && !output.isDirectory() && !output.mkdirs()) {
+			throw new FileNotFoundException("Can't create " + output);
+		}
+
+		List<LoadResult> failures = new ArrayList<>();
+		System.out.println(LoadResult.HEADER);
+		for (Client client : clients(options)) {
+			try (Transport.Endpoint endpoint = client.getTransport().start(new ObjectMapper(), connections);
+				 Client.Connection connection = client.connect(new ObjectMapper(), endpoint.uri, connections)) {
+				for (LoadGenerator generator : generators) {
+					LoadResult result = generator.run(client, connection);
+					System.out.println(result);
+					if (output != null) {
+						write(result, output);
+					}
+					if (result.getErrors() > 0
+							|| sloP99 != null && result.getLatencyMillis(99) > sloP99
+							|| sloP999 != null && result.getLatencyMillis(99.9) > sloP999) {
+						failures.add(result);
+					}
+				}
+			}
+		}
+
+		for (LoadResult failure : failures) {
+			Throwable error = failure.getLastError();
+			System.out.printf(Locale.ROOT, "%s/%s at %d req/s: %d errors, %d timed out%s%n",
+					failure.getClient().getTransport(), failure.getClient(), failure.getRate(), failure.getErrors(), failure.getTimedOut(),
+					error != null ? ", last " + error : "");
+		}
+		System.exit(failures.isEmpty() ? 0 : 1);
+	}
+
+	private static Map<String, String> parse(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (!arg.startsWith("--") || separator < 0) {
+				throw new IllegalArgumentException("Expected --name=value but got " + arg);
+			}
+			options.put(arg.substring(2, separator), arg.substring(separator + 1));
+		}
+		return options;
+	}
+
+	private static LoadGenerator[] generators(Map<String, String> options, int connections) {
+		long warmUp = Long.parseLong(options.getOrDefault("warmup", "10"));
+		long duration = Long.parseLong(options.getOrDefault("duration", "30"));
+		long drain = Long.parseLong(options.getOrDefault("drain", "10"));
+		char[] payload = new char[Integer.parseInt(options.getOrDefault("payload", "256"))];
+		Arrays.fill(payload, 'x');
+		String[] rates = options.getOrDefault("rates", "1000,5000").split(",");
+		LoadGenerator[] generators = new LoadGenerator[rates.length];
+		for (int i = 0; i < rates.length; i++) {
+			generators[i] = new LoadGenerator(Integer.parseInt(rates[i].trim()), connections, warmUp, duration, drain, TimeUnit.SECONDS, new String(payload));
+		}
+		return generators;
+	}
+
+	private static List<Client> clients(Map<String, String> options) {
+		if (!options.containsKey("clients")) {
+			return Arrays.asList(Client.values());
+		}
+		List<Client> clients = new ArrayList<>();
+		for (String name : options.get("clients").split(",")) {
+			clients.add(Client.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+		}
+		return clients;
+	}
+
+	private static void write(LoadResult result, File directory) throws FileNotFoundException {
+		String name = String.format(Locale.ROOT, "%s-%s-%d.hgrm", result.getClient().getTransport(), result.getClient(), result.getRate()).toLowerCase(Locale.ROOT);
+		try (PrintStream out = new PrintStream(new File(directory, name))) {
+			result.writeDistribution(out);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package com.googlecode.jsonrpc4j.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlecode.jsonrpc4j.JsonRpcBasicServer;
+import com.googlecode.jsonrpc4j.JsonRpcServer;
+import com.googlecode.jsonrpc4j.StreamServer;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+
+import javax.net.ServerSocketFactory;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+
+/**
+ * A server listening on a loopback port for the duration of one run.
+ */
+public enum Transport {
+
+	/**
+	 * {@link JsonRpcServer} in a servlet on embedded Jetty.
+	 */
+	HTTP {
+		@Override
+		Endpoint start(ObjectMapper mapper, int connections) throws Exception {
+			final Server jetty = new Server(new InetSocketAddress(LOOPBACK, 0));
+			ServletContextHandler context = new ServletContextHandler(ServletContextHandler.NO_SESSIONS);
+			context.setContextPath("/");
+			context.addServlet(new ServletHolder(new JsonRpcServlet(new JsonRpcServer(mapper, new LoadService.Impl(), LoadService.class))), "/" + PATH);
+			jetty.setHandler(context);
+			jetty.start();
+			int port = ((ServerConnector) jetty.getConnectors()[0]).getLocalPort();
+			return new Endpoint(URI.create("http://" + LOOPBACK + ":" + port + "/" + PATH)) {
+				@Override
+				public void close() throws Exception {
+					jetty.stop();
+				}
+			};
+		}
+	},
+
+	/**
+	 * {@link StreamServer} with a thread per connection.
+	 */
+	STREAM {
+		@Override
+		Endpoint start(ObjectMapper mapper, int connections) throws IOException {
+			ServerSocket serverSocket = ServerSocketFactory.getDefault().createServerSocket(0, connections, InetAddress.getByName(LOOPBACK));
+			final StreamServer streamServer = new StreamServer(new JsonRpcBasicServer(mapper, new LoadService.Impl(), LoadService.class), connections, serverSocket);
+			streamServer.start();
+			return new Endpoint(URI.create("tcp://" + LOOPBACK + ":" + serverSocket.getLocalPort())) {
+				@Override
+				public void close() throws InterruptedException {
+					streamServer.stop();
+				}
+			};
+		}
+	};
+
+	static final String LOOPBACK = "127.0.0.1";
+	private static final String PATH = "rpc";
+
+	/**
+	 * Starts a server for the {@link LoadService}.
+	 *
+	 * @param mapper      the mapper of the server
+	 * @param connections the number of client connections to expect
+	 * @return the running server
+	 * @throws Exception if the server can't be started
+	 */
+	abstract Endpoint start(ObjectMapper mapper, int connections) throws Exception;
+
+	/**
+	 * A running server and the address clients connect to.
+	 */
+	abstract static class Endpoint implements AutoCloseable {
+
+		final URI uri;
+
+		Endpoint(URI uri) {
+			this.uri = uri;
+		}
+	}
+
+	private static class JsonRpcServlet extends HttpServlet {
+
+		static final long serialVersionUID = 1L;
+		private final transient JsonRpcServer jsonRpcServer;
+
+		JsonRpcServlet(JsonRpcServer jsonRpcServer) {
+			this.jsonRpcServer = jsonRpcServer;
+		}
+
+		@Override
+		protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+			jsonRpcServer.handle(request, response);
+		}
+	}
+}
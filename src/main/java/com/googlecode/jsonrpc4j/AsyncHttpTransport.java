@@ -0,0 +1,117 @@
+package com.googlecode.jsonrpc4j;
+
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.impl.DefaultConnectionReuseStrategy;
+import org.apache.http.impl.nio.DefaultHttpClientIODispatch;
+import org.apache.http.impl.nio.pool.BasicNIOConnFactory;
+import org.apache.http.impl.nio.pool.BasicNIOConnPool;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.protocol.HttpAsyncRequestExecutor;
+import org.apache.http.nio.protocol.HttpAsyncRequester;
+import org.apache.http.nio.reactor.ConnectingIOReactor;
+import org.apache.http.nio.reactor.IOEventDispatch;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.protocol.HttpProcessor;
+import org.apache.http.protocol.ImmutableHttpProcessor;
+import org.apache.http.protocol.RequestConnControl;
+import org.apache.http.protocol.RequestContent;
+import org.apache.http.protocol.RequestExpectContinue;
+import org.apache.http.protocol.RequestTargetHost;
+import org.apache.http.protocol.RequestUserAgent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * The IO reactor, connection pool and requester behind a
+ * {@link JsonRpcHttpAsyncClient}.  Clients built with
+ * {@link JsonRpcHttpAsyncClient.Builder} own one each; all others share a
+ * single transport configured from system properties.
+ */
+class AsyncHttpTransport implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(AsyncHttpTransport.class);
+	private static final long SHUTDOWN_WAIT_MILLIS = 1000;
+
+	private final BasicNIOConnPool pool;
+	private final HttpAsyncRequester requester;
+
+	AsyncHttpTransport(int reactorThreads, int maxPerRoute, int maxTotal, int connectTimeoutMillis,
+			int socketTimeoutMillis, int socketBufferSize, boolean tcpNoDelay, SSLContext sslContext) {
+		final IOReactorConfig config = IOReactorConfig.custom()
+				.setSoTimeout(socketTimeoutMillis)
+				.setConnectTimeout(connectTimeoutMillis)
+				.setTcpNoDelay(tcpNoDelay)
+				.setIoThreadCount(reactorThreads)
+				.build();
+		final ConnectingIOReactor ioReactor = createIoReactor(config);
+		final SSLContext ssl = sslContext != null ? sslContext : defaultSslContext();
+		final ConnectionConfig connectionConfig = ConnectionConfig.custom().setBufferSize(socketBufferSize).build();
+		BasicNIOConnFactory nioConnFactory = new BasicNIOConnFactory(ssl, null, connectionConfig);
+		pool = new BasicNIOConnPool(ioReactor, nioConnFactory, connectTimeoutMillis);
+		pool.setDefaultMaxPerRoute(maxPerRoute);
+		pool.setMaxTotal(maxTotal);
+
+		Thread t = new Thread(
+			() -> {
+				try {
+					HttpAsyncRequestExecutor protocolHandler = new HttpAsyncRequestExecutor();
+					IOEventDispatch ioEventDispatch = new DefaultHttpClientIODispatch<>(
+						protocolHandler,
+						ssl,
+						connectionConfig
+					);
+					ioReactor.execute(ioEventDispatch);
+				} catch (InterruptedIOException ex) {
+					logger.debug("IO reactor interrupted");
+				} catch (IOException e) {
+					logger.error("IO reactor failed", e);
+				}
+			},
+			"jsonrpc4j HTTP IOReactor"
+		);
+
+		t.setDaemon(true);
+		t.start();
+
+		HttpProcessor httpProcessor = new ImmutableHttpProcessor(new RequestContent(), new RequestTargetHost(), new RequestConnControl(), new RequestUserAgent(), new RequestExpectContinue(false));
+		requester = new HttpAsyncRequester(httpProcessor, new DefaultConnectionReuseStrategy());
+	}
+
+	private static ConnectingIOReactor createIoReactor(IOReactorConfig config) {
+		try {
+			return new DefaultConnectingIOReactor(config);
+		} catch (IOReactorException e) {
+			throw new RuntimeException("Exception initializing asynchronous Apache HTTP Client", e);
+		}
+	}
+
+	private static SSLContext defaultSslContext() {
+		try {
+			return SSLContext.getDefault();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	BasicNIOConnPool getPool() {
+		return pool;
+	}
+
+	HttpAsyncRequester getRequester() {
+		return requester;
+	}
+
+	/**
+	 * Closes all pooled connections and stops the IO reactor.
+	 */
+	@Override
+	public void close() throws IOException {
+		pool.shutdown(SHUTDOWN_WAIT_MILLIS);
+	}
+}
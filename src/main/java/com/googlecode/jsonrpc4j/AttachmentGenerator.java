@@ -0,0 +1,91 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates the envelope of a {@link DataFormat#ATTACHMENTS} message: every
+ * binary value is written as a reference and kept to be sent after the
+ * envelope, byte arrays without copying them and streams without reading them.
+ */
+class AttachmentGenerator extends JsonGeneratorDelegate {
+
+	private static final Logger logger = LoggerFactory.getLogger(AttachmentGenerator.class);
+
+	/**
+	 * {@link ByteBuffer}s and {@link InputStream}s in the order they are referenced.
+	 */
+	private final List<Object> attachments = new ArrayList<>();
+
+	/**
+	 * @param generator the generator writing the JSON envelope
+	 */
+	AttachmentGenerator(JsonGenerator generator) {
+		super(generator, false);
+	}
+
+	/**
+	 * @return the attachments referenced so far
+	 */
+	List<Object> getAttachments() {
+		return attachments;
+	}
+
+	@Override
+	public void writeBinary(Base64Variant variant, byte[] data, int offset, int length) throws IOException {
+		writeReference(ByteBuffer.wrap(data, offset, length));
+	}
+
+	/**
+	 * Streams of a known length are read right away, others when the frame
+	 * is written; since nothing is read yet, the length is reported as given.
+	 */
+	@Override
+	public int writeBinary(Base64Variant variant, InputStream data, int dataLength) throws IOException {
+		if (dataLength < 0) {
+			writeReference(data);
+		} else {
+			writeReference(ByteBuffer.wrap(data.readNBytes(dataLength)));
+		}
+		return dataLength;
+	}
+
+	private void writeReference(Object attachment) throws IOException {
+		delegate.writeStartObject();
+		delegate.writeFieldName(Attachments.REFERENCE);
+		delegate.writeNumber(attachments.size());
+		delegate.writeEndObject();
+		attachments.add(attachment);
+	}
+
+	/**
+	 * Closes the streams among the attachments that will not be written.
+	 */
+	void closeAttachments() {
+		closeAttachments(0);
+	}
+
+	/**
+	 * @param from the index of the first attachment not written
+	 */
+	void closeAttachments(int from) {
+		for (int i = from; i < attachments.size(); i++) {
+			if (attachments.get(i) instanceof InputStream) {
+				try {
+					((InputStream) attachments.get(i)).close();
+				} catch (IOException e) {
+					logger.debug("Failed to close an attachment", e);
+				}
+			}
+		}
+	}
+}
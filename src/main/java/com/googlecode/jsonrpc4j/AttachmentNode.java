@@ -0,0 +1,67 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.databind.node.BinaryNode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * A binary value of a {@link DataFormat#ATTACHMENTS} message, read from the
+ * message when it is bound.  It binds like any other binary node, e.g. to
+ * {@code byte[]} or {@link java.nio.ByteBuffer}, and {@link #openStream(Closeable)}
+ * streams it into an {@link InputStream}.  Serializing the node writes no
+ * contents, so logging a message does not read its attachments.
+ */
+final class AttachmentNode extends BinaryNode {
+
+	private static final long serialVersionUID = 1L;
+	private static final byte[] NOT_READ = new byte[0];
+
+	private final transient AttachmentReader reader;
+	private final int index;
+
+	AttachmentNode(AttachmentReader reader, int index) {
+		super(NOT_READ);
+		this.reader = reader;
+		this.index = index;
+	}
+
+	/**
+	 * @throws UncheckedIOException if the attachment cannot be read
+	 */
+	@Override
+	public byte[] binaryValue() {
+		try {
+			return reader.bytes(index);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @param transport closed with the stream if it reads the transport, may be {@code null}
+	 * @return the attachment as a stream
+	 * @throws IOException on error
+	 */
+	InputStream openStream(Closeable transport) throws IOException {
+		return reader.open(index, transport);
+	}
+
+	@Override
+	public String asText() {
+		return Base64Variants.getDefaultVariant().encode(binaryValue(), false);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o == this;
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(this);
+	}
+}
@@ -0,0 +1,285 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Reads one message framed as {@link DataFormat#ATTACHMENTS}.  The envelope is
+ * read first with its references replaced by {@link AttachmentNode}s; the
+ * attachments are read when a node is first bound.  Since they follow each
+ * other on the stream, binding an attachment buffers the ones before it, and
+ * only the last one can be handed out as a stream that reads the transport.
+ */
+class AttachmentReader {
+
+	private final InputStream input;
+	private int count;
+	/**
+	 * The index of the attachment the stream is positioned on.
+	 */
+	private int next;
+	private byte[][] buffered;
+	private AttachmentInputStream streamed;
+
+	/**
+	 * @param input the stream positioned on the start of a message
+	 */
+	AttachmentReader(InputStream input) {
+		this.input = input;
+	}
+
+	/**
+	 * @param mapper the JSON mapper
+	 * @return the envelope
+	 * @throws IOException on error, {@link StreamEndedException} if the stream ended before the message
+	 */
+	JsonNode readEnvelope(ObjectMapper mapper) throws IOException {
+		final int first = input.read();
+		if (first < 0) {
+			throw new StreamEndedException();
+		}
+		final int length = first << 24 | readBytes(3);
+		if (length < 0) {
+			throw new IOException("Invalid envelope length " + length);
+		}
+		final byte[] envelope = input.readNBytes(length);
+		if (envelope.length < length) {
+			throw new EOFException("Message ended within the envelope");
+		}
+		final JsonNode node;
+		try (JsonParser parser = mapper.createParser(envelope)) {
+			node = resolve(MessageTreeReader.readTree(mapper, parser));
+		}
+		buffered = new byte[count][];
+		return node;
+	}
+
+	private JsonNode resolve(JsonNode node) throws IOException {
+		if (node instanceof ObjectNode) {
+			final ObjectNode object = (ObjectNode) node;
+			final JsonNode index = object.size() == 1 ? object.get(Attachments.REFERENCE) : null;
+			if (index != null && index.isInt()) {
+				if (index.intValue() != count) {
+					throw new IOException("Attachment " + index.intValue() + " referenced out of order");
+				}
+				return new AttachmentNode(this, count++);
+			}
+			final Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+			while (fields.hasNext()) {
+				final Map.Entry<String, JsonNode> field = fields.next();
+				field.setValue(resolve(field.getValue()));
+			}
+		} else if (node instanceof ArrayNode && !(node instanceof NumericArrayNode)) {
+			final ArrayNode array = (ArrayNode) node;
+			for (int i = 0; i < array.size(); i++) {
+				array.set(i, resolve(array.get(i)));
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * @param index the index of an attachment
+	 * @return its contents, read into memory
+	 * @throws IOException on error
+	 */
+	byte[] bytes(int index) throws IOException {
+		if (buffered[index] != null) {
+			return buffered[index];
+		}
+		if (index < next) {
+			throw new IllegalStateException("Attachment " + index + " is read as a stream");
+		}
+		while (next <= index) {
+			buffered[next++] = readChunks();
+		}
+		return buffered[index];
+	}
+
+	/**
+	 * @param index     the index of an attachment
+	 * @param transport closed with the stream if it reads the transport, may be {@code null}
+	 * @return a stream reading the transport if it is the last attachment and
+	 * none of it has been read, a stream over its buffered contents otherwise
+	 * @throws IOException on error
+	 */
+	InputStream open(int index, Closeable transport) throws IOException {
+		if (index != count - 1 || index < next) {
+			return new ByteArrayInputStream(bytes(index));
+		}
+		while (next < index) {
+			buffered[next++] = readChunks();
+		}
+		next++;
+		streamed = new AttachmentInputStream(transport);
+		return streamed;
+	}
+
+	/**
+	 * @param result a result read from a message
+	 * @return whether it is reading the transport
+	 */
+	static boolean isStreamed(Object result) {
+		return result instanceof AttachmentInputStream;
+	}
+
+	/**
+	 * Reads past the attachments not read yet, leaving the stream on the next message.
+	 *
+	 * @throws IOException on error
+	 */
+	void skipRemaining() throws IOException {
+		if (streamed != null) {
+			streamed.drain();
+		}
+		while (next < count) {
+			final AttachmentInputStream skipped = new AttachmentInputStream(null);
+			skipped.drain();
+			next++;
+		}
+	}
+
+	private byte[] readChunks() throws IOException {
+		int length = readLength();
+		if (length == 0) {
+			return new byte[0];
+		}
+		final byte[] first = readFully(length);
+		length = readLength();
+		if (length == 0) {
+			return first;
+		}
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(first.length * 2);
+		bytes.write(first);
+		while (length > 0) {
+			bytes.write(readFully(length));
+			length = readLength();
+		}
+		return bytes.toByteArray();
+	}
+
+	private byte[] readFully(int length) throws IOException {
+		final byte[] bytes = input.readNBytes(length);
+		if (bytes.length < length) {
+			throw new EOFException("Message ended within an attachment");
+		}
+		return bytes;
+	}
+
+	private int readLength() throws IOException {
+		final int length = readBytes(4);
+		if (length < 0) {
+			throw new IOException("Invalid chunk length " + length);
+		}
+		return length;
+	}
+
+	private int readBytes(int count) throws IOException {
+		int value = 0;
+		for (int i = 0; i < count; i++) {
+			final int b = input.read();
+			if (b < 0) {
+				throw new EOFException("Message ended within a length");
+			}
+			value = value << 8 | b;
+		}
+		return value;
+	}
+
+	/**
+	 * The last attachment of a message, read from the transport chunk by chunk.
+	 */
+	private class AttachmentInputStream extends InputStream {
+
+		private final Closeable transport;
+		private int remaining;
+		private boolean ended;
+		private boolean closed;
+
+		private AttachmentInputStream(Closeable transport) {
+			this.transport = transport;
+		}
+
+		private boolean nextChunk() throws IOException {
+			while (remaining == 0 && !ended) {
+				remaining = readLength();
+				ended = remaining == 0;
+			}
+			return !ended;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (closed || !nextChunk()) {
+				return -1;
+			}
+			final int b = input.read();
+			if (b < 0) {
+				throw new EOFException("Message ended within an attachment");
+			}
+			remaining--;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			if (length == 0) {
+				return 0;
+			}
+			if (closed || !nextChunk()) {
+				return -1;
+			}
+			final int n = input.read(buffer, offset, Math.min(length, remaining));
+			if (n < 0) {
+				throw new EOFException("Message ended within an attachment");
+			}
+			remaining -= n;
+			return n;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return closed ? 0 : Math.min(remaining, input.available());
+		}
+
+		private void drain() throws IOException {
+			while (nextChunk()) {
+				remaining -= (int) input.skip(remaining);
+				if (remaining > 0 && input.read() >= 0) {
+					remaining--;
+				} else if (remaining > 0) {
+					throw new EOFException("Message ended within an attachment");
+				}
+			}
+		}
+
+		/**
+		 * Releases the transport if there is one; otherwise reads to the end
+		 * of the attachment, so that the next message can be read.
+		 */
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			if (transport != null) {
+				transport.close();
+			} else {
+				drain();
+			}
+		}
+	}
+}
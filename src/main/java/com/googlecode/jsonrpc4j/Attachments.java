@@ -0,0 +1,205 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes messages framed as {@link DataFormat#ATTACHMENTS} and lets
+ * {@link InputStream}s travel as binary values in any format.
+ *
+ * @see AttachmentReader
+ */
+final class Attachments {
+
+	/**
+	 * The only member of the object standing in for an attachment in the envelope.
+	 */
+	static final String REFERENCE = "$attachment";
+
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	private Attachments() {
+	}
+
+	/**
+	 * Writes the envelope of a message.
+	 */
+	interface EnvelopeWriter {
+
+		/**
+		 * @param generator the generator for the envelope, binary values written to it become attachments
+		 * @throws IOException on error
+		 */
+		void write(JsonGenerator generator) throws IOException;
+	}
+
+	/**
+	 * Writes one framed message and flushes {@code output}, leaving it open.
+	 * The envelope is buffered to learn its length; the attachments are copied
+	 * to {@code output} as they are read and streams among them are closed.
+	 *
+	 * @param output   the stream to write to
+	 * @param mapper   the JSON mapper whose factory creates the envelope generator
+	 * @param envelope writes the envelope
+	 * @throws IOException on error
+	 */
+	static void write(OutputStream output, ObjectMapper mapper, EnvelopeWriter envelope) throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final AttachmentGenerator generator = new AttachmentGenerator(mapper.getFactory().createGenerator(buffer, JsonEncoding.UTF8));
+		try {
+			envelope.write(generator);
+			generator.close();
+		} catch (IOException | RuntimeException e) {
+			generator.closeAttachments();
+			throw e;
+		}
+		final List<Object> attachments = generator.getAttachments();
+		writeLength(output, buffer.size());
+		buffer.writeTo(output);
+		byte[] chunk = null;
+		for (int i = 0; i < attachments.size(); i++) {
+			final Object attachment = attachments.get(i);
+			if (attachment instanceof ByteBuffer) {
+				final ByteBuffer bytes = (ByteBuffer) attachment;
+				if (bytes.hasRemaining()) {
+					writeLength(output, bytes.remaining());
+					output.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+				}
+			} else {
+				if (chunk == null) {
+					chunk = new byte[CHUNK_SIZE];
+				}
+				try (InputStream data = (InputStream) attachment) {
+					int n;
+					while ((n = data.readNBytes(chunk, 0, chunk.length)) > 0) {
+						writeLength(output, n);
+						output.write(chunk, 0, n);
+					}
+				} catch (IOException | RuntimeException e) {
+					generator.closeAttachments(i + 1);
+					throw e;
+				}
+			}
+			writeLength(output, 0);
+		}
+		output.flush();
+	}
+
+	private static void writeLength(OutputStream output, int length) throws IOException {
+		output.write(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+	}
+
+	/**
+	 * Writes the contents of a stream as a binary value and closes it.  Text
+	 * generators copy the stream as it is read; generators with native binary
+	 * values need the length up front and get the stream read into memory.
+	 * The envelope generator of an attachment frame keeps the stream, which
+	 * is then read and closed once the frame is written.
+	 *
+	 * @param generator the generator
+	 * @param data      the stream
+	 * @throws IOException on error
+	 */
+	static void writeBinary(JsonGenerator generator, InputStream data) throws IOException {
+		if (generator instanceof AttachmentGenerator) {
+			generator.writeBinary(data, -1);
+			return;
+		}
+		try (InputStream in = data) {
+			if (generator.canWriteBinaryNatively()) {
+				generator.writeBinary(in.readAllBytes());
+			} else {
+				generator.writeBinary(in, -1);
+			}
+		}
+	}
+
+	/**
+	 * Makes the {@link InputStream}s among the arguments of a call
+	 * serializable, leaving everything else as is.
+	 *
+	 * @param arguments the arguments, see {@link JsonRpcClient#invoke(String, Object, OutputStream)}
+	 * @return the arguments, copied if any of them had to be replaced
+	 */
+	@SuppressWarnings("unchecked")
+	static Object wrapStreams(Object arguments) {
+		if (arguments instanceof InputStream) {
+			return new StreamValue((InputStream) arguments);
+		}
+		if (arguments instanceof Object[]) {
+			final Object[] values = (Object[]) arguments;
+			Object[] wrapped = null;
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] instanceof InputStream) {
+					if (wrapped == null) {
+						wrapped = values.clone();
+					}
+					wrapped[i] = new StreamValue((InputStream) values[i]);
+				}
+			}
+			return wrapped == null ? arguments : wrapped;
+		}
+		if (arguments instanceof Collection && containsStream((Collection<?>) arguments)) {
+			final List<Object> wrapped = new ArrayList<>(((Collection<?>) arguments).size());
+			for (Object value : (Collection<?>) arguments) {
+				wrapped.add(value instanceof InputStream ? new StreamValue((InputStream) value) : value);
+			}
+			return wrapped;
+		}
+		if (arguments instanceof Map && containsStream(((Map<?, ?>) arguments).values())) {
+			final Map<Object, Object> wrapped = new LinkedHashMap<>();
+			for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) arguments).entrySet()) {
+				final Object value = entry.getValue();
+				wrapped.put(entry.getKey(), value instanceof InputStream ? new StreamValue((InputStream) value) : value);
+			}
+			return wrapped;
+		}
+		return arguments;
+	}
+
+	private static boolean containsStream(Collection<?> values) {
+		for (Object value : values) {
+			if (value instanceof InputStream) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * An {@link InputStream} argument, written as a binary value.
+	 */
+	private static class StreamValue extends JsonSerializable.Base {
+
+		private final InputStream data;
+
+		private StreamValue(InputStream data) {
+			this.data = data;
+		}
+
+		@Override
+		public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+			writeBinary(generator, data);
+		}
+
+		@Override
+		public void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer) throws IOException {
+			serialize(generator, provider);
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.googlecode.jsonrpc4j;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything a client proxy needs to turn a call of a {@link Method} into a
+ * request, worked out once from the method's annotations: the wire name, the
+ * {@link JsonRpcParamsPassMode}, the fixed and named parameters and the type
+ * the result is read as.  Instances are immutable and shared between threads;
+ * {@link #encodeArguments(Object[])} only allocates the params it returns.
+ *
+ * @see ReflectionUtil#getCallPlan(Method)
+ */
+final class ClientCallPlan {
+
+	private static final Object[] NO_ARGUMENTS = new Object[0];
+	private static final int NOT_AN_ARGUMENT = -1;
+
+	private final Method method;
+	private final String methodName;
+	private final JsonRpcParamsPassMode paramsPassMode;
+	private final boolean async;
+	private final Type resultType;
+	private final int parameterCount;
+	private final int namedParameterCount;
+	/**
+	 * The names of the params in the order they are sent, fixed params first.
+	 */
+	private final String[] names;
+	/**
+	 * For each name the index of the argument that supplies it, or
+	 * {@link #NOT_AN_ARGUMENT} if it is fixed.
+	 */
+	private final int[] argumentIndexes;
+	/**
+	 * For each name its fixed value, or {@code null} if an argument supplies it.
+	 */
+	private final Object[] fixedValues;
+	private final int mapCapacity;
+
+	ClientCallPlan(Method method) {
+		this.method = method;
+		final JsonRpcMethod jsonRpcMethod = ReflectionUtil.getAnnotation(method, JsonRpcMethod.class);
+		this.methodName = jsonRpcMethod == null ? method.getName() : jsonRpcMethod.value();
+		this.paramsPassMode = jsonRpcMethod == null ? JsonRpcParamsPassMode.AUTO : jsonRpcMethod.paramsPassMode();
+		this.async = ProxyUtil.isAsyncMethod(method);
+		this.resultType = async ? ProxyUtil.getAsyncResultType(method) : method.getGenericReturnType();
+		this.parameterCount = method.getParameterCount();
+
+		final Map<String, Object> fixed = new LinkedHashMap<>();
+		fixed.putAll(ReflectionUtil.getFixedParametersCollection(method));
+		fixed.putAll(ReflectionUtil.getFixedParameters(method));
+		final Map<String, Integer> named = new LinkedHashMap<>();
+		final List<List<JsonRpcParam>> paramAnnotations = ReflectionUtil.getParameterAnnotations(method, JsonRpcParam.class);
+		for (int i = 0; i < paramAnnotations.size(); i++) {
+			if (!paramAnnotations.get(i).isEmpty()) {
+				named.put(paramAnnotations.get(i).get(0).value(), i);
+			}
+		}
+		this.namedParameterCount = named.size();
+
+		// same order and precedence as putting fixed and then named params into one LinkedHashMap
+		final List<String> order = new ArrayList<>(fixed.keySet());
+		for (String name : named.keySet()) {
+			if (!fixed.containsKey(name)) {
+				order.add(name);
+			}
+		}
+		this.names = order.toArray(new String[0]);
+		this.argumentIndexes = new int[names.length];
+		this.fixedValues = new Object[names.length];
+		for (int i = 0; i < names.length; i++) {
+			final Integer index = named.get(names[i]);
+			argumentIndexes[i] = index != null ? index : NOT_AN_ARGUMENT;
+			fixedValues[i] = index != null ? null : fixed.get(names[i]);
+		}
+		this.mapCapacity = (int) (names.length / 0.75f) + 1;
+	}
+
+	/**
+	 * Turns the arguments of a call into the params of the request, exactly
+	 * like {@link ReflectionUtil#parseArguments(Method, Object[])} documents.
+	 *
+	 * @param arguments the arguments, or {@code null} for a method without parameters
+	 * @return the params, either an {@code Object[]} or a {@code Map<String, Object>}
+	 * @throws IllegalArgumentException if the params cannot be passed the way the method asks for
+	 */
+	Object encodeArguments(Object[] arguments) {
+		if (names.length == 0) {
+			if (paramsPassMode == JsonRpcParamsPassMode.OBJECT && arguments != null) {
+				throw new IllegalArgumentException(
+						"OBJECT parameters pass mode is impossible without declaring JsonRpcParam annotations for all parameters on method "
+								+ method.getName());
+			}
+			return arguments != null ? arguments : NO_ARGUMENTS;
+		}
+
+		if (namedParameterCount > 0) {
+			final int argumentCount = arguments == null ? 0 : arguments.length;
+			if (argumentCount != parameterCount || (argumentCount > 0 && namedParameterCount != argumentCount)) {
+				throw new IllegalArgumentException("JsonRpcParam annotations were not found for all parameters on method " + method.getName());
+			}
+		}
+
+		if (paramsPassMode == JsonRpcParamsPassMode.ARRAY) {
+			final Object[] params = new Object[names.length];
+			for (int i = 0; i < names.length; i++) {
+				params[i] = valueAt(i, arguments);
+			}
+			return params;
+		}
+
+		final Map<String, Object> params = new LinkedHashMap<>(mapCapacity);
+		for (int i = 0; i < names.length; i++) {
+			params.put(names[i], valueAt(i, arguments));
+		}
+		return params;
+	}
+
+	private Object valueAt(int i, Object[] arguments) {
+		final int index = argumentIndexes[i];
+		return index == NOT_AN_ARGUMENT ? fixedValues[i] : arguments[index];
+	}
+
+	/**
+	 * @return the method name sent on the wire
+	 */
+	String getMethodName() {
+		return methodName;
+	}
+
+	/**
+	 * @return {@code true} if the method returns a {@link java.util.concurrent.CompletableFuture}
+	 * or {@link java.util.concurrent.CompletionStage}
+	 */
+	boolean isAsync() {
+		return async;
+	}
+
+	/**
+	 * @return the type the result is read as; for asynchronous methods the
+	 * type the returned future completes with
+	 */
+	Type getResultType() {
+		return resultType;
+	}
+}
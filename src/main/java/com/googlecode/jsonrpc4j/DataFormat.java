@@ -0,0 +1,157 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Locale;
+
+/**
+ * The wire formats a JSON-RPC envelope can be encoded in.  The envelope and its
+ * semantics stay the same, only the bytes differ.  Binary formats use Jackson's
+ * dataformat modules, which are optional dependencies looked up at runtime:
+ * {@code jackson-dataformat-cbor} for {@link #CBOR} and
+ * {@code jackson-dataformat-smile} for {@link #SMILE}.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public enum DataFormat {
+
+	JSON(JsonRpcBasicServer.JSONRPC_CONTENT_TYPE, null, true, "application/json", "application/jsonrequest"),
+	CBOR("application/cbor", "com.fasterxml.jackson.dataformat.cbor.CBORFactory", false),
+	SMILE("application/x-jackson-smile", "com.fasterxml.jackson.dataformat.smile.SmileFactory", false),
+	/**
+	 * A JSON envelope with binary values sent next to it instead of as base64
+	 * strings.  Each message is framed as a 4 byte big-endian length and the
+	 * JSON envelope, in which every {@code byte[]}, {@link java.nio.ByteBuffer}
+	 * and {@link java.io.InputStream} is replaced by {@code {"$attachment":n}},
+	 * followed by the attachments in the order of {@code n}, each as chunks
+	 * of a 4 byte length and that many bytes ending with an empty chunk.
+	 * {@link java.io.InputStream} parameters and results are streamed when they
+	 * are the last attachment of a message and buffered otherwise.
+	 */
+	ATTACHMENTS("application/x-jsonrpc-attachments", null, false);
+
+	private final String contentType;
+	private final String factoryClassName;
+	/**
+	 * The factory class, looked up once, or {@code null} for formats without
+	 * one and formats whose module is missing.
+	 */
+	private final Class<?> factoryClass;
+	private final boolean textual;
+	private final String[] aliases;
+
+	DataFormat(String contentType, String factoryClassName, boolean textual, String... aliases) {
+		this.contentType = contentType;
+		this.factoryClassName = factoryClassName;
+		this.factoryClass = factoryClassName == null ? null : loadFactoryClass(factoryClassName);
+		this.textual = textual;
+		this.aliases = aliases;
+	}
+
+	/**
+	 * Finds the format for a {@code Content-Type} value, ignoring any parameters.
+	 *
+	 * @param contentType the content type, may be {@code null}
+	 * @return the format or {@code null} if none matches
+	 */
+	public static DataFormat forContentType(String contentType) {
+		if (contentType == null) {
+			return null;
+		}
+		final String mediaType = mediaType(contentType);
+		for (DataFormat format : values()) {
+			if (format.matches(mediaType)) {
+				return format;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Picks the first available format named in an {@code Accept} header.
+	 * Quality values are not weighed, the order of the header decides.
+	 *
+	 * @param accept the header value, may be {@code null}
+	 * @return the format or {@code null} if none matches
+	 */
+	public static DataFormat forAccept(String accept) {
+		if (accept == null) {
+			return null;
+		}
+		for (String range : accept.split(",")) {
+			final DataFormat format = forContentType(range);
+			if (format != null && format.isAvailable()) {
+				return format;
+			}
+		}
+		return null;
+	}
+
+	private static String mediaType(String contentType) {
+		final int parameters = contentType.indexOf(';');
+		return (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim().toLowerCase(Locale.ROOT);
+	}
+
+	private boolean matches(String mediaType) {
+		if (contentType.equals(mediaType)) {
+			return true;
+		}
+		for (String alias : aliases) {
+			if (alias.equals(mediaType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the {@code Content-Type} used when sending this format
+	 */
+	public String getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * @return {@code true} for text formats, which get a newline after each message on streams
+	 */
+	public boolean isTextual() {
+		return textual;
+	}
+
+	/**
+	 * @return {@code true} if the Jackson module for this format is on the class path
+	 */
+	public boolean isAvailable() {
+		return factoryClassName == null || factoryClass != null;
+	}
+
+	/**
+	 * Derives a mapper for this format from the given one, keeping its
+	 * configuration and registered modules.
+	 *
+	 * @param mapper the JSON {@link ObjectMapper}
+	 * @return the mapper itself for {@link #JSON}, a copy bound to the binary factory otherwise
+	 * @throws IllegalStateException if the Jackson module for this format is missing
+	 */
+	public ObjectMapper createMapper(ObjectMapper mapper) {
+		if (factoryClassName == null) {
+			return mapper;
+		}
+		if (factoryClass == null) {
+			throw new IllegalStateException(name() + " requires " + factoryClassName + " on the class path");
+		}
+		try {
+			return mapper.copyWith((JsonFactory) factoryClass.getDeclaredConstructor().newInstance());
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Unable to create " + factoryClassName, e);
+		}
+	}
+
+	private static Class<?> loadFactoryClass(String factoryClassName) {
+		try {
+			return Class.forName(factoryClassName, true, DataFormat.class.getClassLoader());
+		} catch (ClassNotFoundException | LinkageError e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package com.googlecode.jsonrpc4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * A bounded pool of {@link Deflater}s.  Each {@code Deflater} holds native
+ * zlib memory that is only released by {@link Deflater#end()} or finalization,
+ * so allocating one per message is costly under load.  Instances beyond the
+ * pool size are ended instead of being kept.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class DeflaterPool {
+
+	public static final int DEFAULT_MAX_SIZE = 32;
+
+	private final int level;
+	private final boolean nowrap;
+	private final BlockingQueue<Deflater> idle;
+
+	/**
+	 * @param level   the compression level, see {@link Deflater#setLevel(int)}
+	 * @param nowrap  {@code true} for raw deflate data (as wrapped by gzip),
+	 *                {@code false} for the zlib format of HTTP's {@code deflate} encoding
+	 * @param maxSize how many idle instances to keep
+	 */
+	public DeflaterPool(int level, boolean nowrap, int maxSize) {
+		this.level = level;
+		this.nowrap = nowrap;
+		this.idle = new ArrayBlockingQueue<>(maxSize);
+	}
+
+	/**
+	 * @return an idle {@link Deflater} or a new one
+	 */
+	public Deflater acquire() {
+		final Deflater deflater = idle.poll();
+		return deflater != null ? deflater : new Deflater(level, nowrap);
+	}
+
+	/**
+	 * Resets the {@link Deflater} and keeps it for the next {@link #acquire()},
+	 * or ends it if the pool is full.
+	 *
+	 * @param deflater a {@link Deflater} obtained from this pool
+	 */
+	public void release(Deflater deflater) {
+		deflater.reset();
+		if (!idle.offer(deflater)) {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * @return {@code true} if the pooled instances produce raw deflate data
+	 */
+	public boolean isNowrap() {
+		return nowrap;
+	}
+
+	/**
+	 * @return the number of idle instances
+	 */
+	public int getIdleCount() {
+		return idle.size();
+	}
+}
@@ -0,0 +1,26 @@
+package com.googlecode.jsonrpc4j;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A client making JSON-RPC calls without blocking the calling thread.
+ * {@link ProxyUtil#createAsyncClientProxy(ClassLoader, Class, IJsonRpcAsyncClient)}
+ * turns it into a typed proxy for service interfaces whose methods return
+ * {@link CompletableFuture} or {@link java.util.concurrent.CompletionStage}.
+ */
+public interface IJsonRpcAsyncClient {
+	
+	/**
+	 * Invokes the given method with the given arguments and returns immediately.
+	 *
+	 * @param methodName   the name of the method to invoke
+	 * @param argument     the argument to the method
+	 * @param returnType   the type of the result, which may be generic
+	 * @param extraHeaders extra headers to add to the request
+	 * @return a future completed with the result, or exceptionally with the
+	 * exception the {@link ExceptionResolver} resolved the error to
+	 */
+	CompletableFuture<Object> invokeAsync(String methodName, Object argument, Type returnType, Map<String, String> extraHeaders);
+}
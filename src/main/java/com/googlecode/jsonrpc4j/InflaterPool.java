@@ -0,0 +1,64 @@
+package com.googlecode.jsonrpc4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Inflater;
+
+/**
+ * A bounded pool of {@link Inflater}s, the decompressing counterpart of
+ * {@link DeflaterPool}.  Instances beyond the pool size are ended instead
+ * of being kept.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class InflaterPool {
+
+	public static final int DEFAULT_MAX_SIZE = 32;
+
+	private final boolean nowrap;
+	private final BlockingQueue<Inflater> idle;
+
+	/**
+	 * @param nowrap  {@code true} for raw deflate data (as wrapped by gzip),
+	 *                {@code false} for the zlib format of HTTP's {@code deflate} encoding
+	 * @param maxSize how many idle instances to keep
+	 */
+	public InflaterPool(boolean nowrap, int maxSize) {
+		this.nowrap = nowrap;
+		this.idle = new ArrayBlockingQueue<>(maxSize);
+	}
+
+	/**
+	 * @return an idle {@link Inflater} or a new one
+	 */
+	public Inflater acquire() {
+		final Inflater inflater = idle.poll();
+		return inflater != null ? inflater : new Inflater(nowrap);
+	}
+
+	/**
+	 * Resets the {@link Inflater} and keeps it for the next {@link #acquire()},
+	 * or ends it if the pool is full.
+	 *
+	 * @param inflater an {@link Inflater} obtained from this pool
+	 */
+	public void release(Inflater inflater) {
+		inflater.reset();
+		if (!idle.offer(inflater)) {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * @return {@code true} if the pooled instances read raw deflate data
+	 */
+	public boolean isNowrap() {
+		return nowrap;
+	}
+
+	/**
+	 * @return the number of idle instances
+	 */
+	public int getIdleCount() {
+		return idle.size();
+	}
+}
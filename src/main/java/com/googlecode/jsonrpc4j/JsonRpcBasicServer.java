@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.*;
 import com.fasterxml.jackson.databind.node.*;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.googlecode.jsonrpc4j.ErrorResolver.JsonError;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,11 +13,14 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -25,6 +29,7 @@ import java.util.regex.Pattern;
 import static com.googlecode.jsonrpc4j.ErrorResolver.JsonError.ERROR_NOT_HANDLED;
 import static com.googlecode.jsonrpc4j.ErrorResolver.JsonError.INTERNAL_ERROR;
 import static com.googlecode.jsonrpc4j.ReflectionUtil.findCandidateMethods;
+import static com.googlecode.jsonrpc4j.ReflectionUtil.getDispatcher;
 import static com.googlecode.jsonrpc4j.ReflectionUtil.getParameterTypes;
 import static com.googlecode.jsonrpc4j.Util.hasNonNullData;
 
@@ -41,6 +46,7 @@ public class JsonRpcBasicServer {
 	public static final String ID = "id";
 	public static final String CONTENT_ENCODING = "Content-Encoding";
 	public static final String ACCEPT_ENCODING = "Accept-Encoding";
+	public static final String ACCEPT = "Accept";
 	public static final String ERROR = "error";
 	public static final String ERROR_MESSAGE = "message";
 	public static final String ERROR_CODE = "code";
@@ -49,6 +55,7 @@ public class JsonRpcBasicServer {
 	public static final String EXCEPTION_TYPE_NAME = "exceptionTypeName";
 	public static final String VERSION = "2.0";
 	public static final int CODE_OK = 0;
+	public static final int DEFAULT_RESOLVED_METHOD_CACHE_SIZE = 1024;
 	public static final String NAME = "name";
 	public static final String NULL = "null";
 	private static final Logger logger = LoggerFactory.getLogger(JsonRpcBasicServer.class);
@@ -71,6 +78,12 @@ public class JsonRpcBasicServer {
 	private List<JsonRpcInterceptor> interceptorList = new ArrayList<>();
     private ExecutorService batchExecutorService = null;
     private long parallelBatchProcessingTimeout = Long.MAX_VALUE;
+	private DataFormat dataFormat = DataFormat.JSON;
+	private final Map<DataFormat, ObjectMapper> formatMappers = new ConcurrentHashMap<>();
+	private final Map<DataFormat, ObjectWriter> responseWriters = new ConcurrentHashMap<>();
+	private final Map<ParamsShape, ResolvedMethod> resolvedMethods = new ConcurrentHashMap<>();
+	private int resolvedMethodCacheSize = DEFAULT_RESOLVED_METHOD_CACHE_SIZE;
+	private final Map<Method, ObjectReader[]> parameterReaders = new ConcurrentHashMap<>();
 	private final Set<Class<? extends Annotation>> webParamAnnotationClasses;
 
 	/**
@@ -241,24 +254,155 @@ public class JsonRpcBasicServer {
 	 * @throws IOException on error
 	 */
 	public int handleRequest(final InputStream input, final OutputStream output) throws IOException {
-		final ReadContext readContext = ReadContext.getReadContext(input, mapper);
+		return handleRequest(input, output, dataFormat, dataFormat);
+	}
+	
+	/**
+	 * Handles a single request like {@link #handleRequest(InputStream, OutputStream)},
+	 * reading and writing the given {@link DataFormat}s instead of the configured one.
+	 *
+	 * @param input          the {@link InputStream}
+	 * @param output         the {@link OutputStream}
+	 * @param requestFormat  the format of the request
+	 * @param responseFormat the format to write the response in
+	 * @return the error code, or {@code 0} if none
+	 * @throws IOException on error
+	 */
+	public int handleRequest(final InputStream input, final OutputStream output, final DataFormat requestFormat,
+			final DataFormat responseFormat) throws IOException {
+		final JsonResponse jsonResponse = readAndHandleRequest(input, requestFormat);
+		writeAndFlushValue(output, jsonResponse.getResponse(), responseFormat);
+		if (jsonResponse.getExceptionToRethrow() != null) {
+			throw jsonResponse.getExceptionToRethrow();
+		}
+		return jsonResponse.getCode();
+	}
+	
+	/**
+	 * Reads a single request from the given {@link InputStream} and handles it
+	 * without writing anything, so that callers can act on the outcome (e.g. set
+	 * an HTTP status) before the response goes out through
+	 * {@link #writeResponse(OutputStream, JsonResponse, DataFormat)}.
+	 * Unparseable input yields a parse error response.
+	 *
+	 * @param input         the {@link InputStream}
+	 * @param requestFormat the format of the request
+	 * @return the {@link JsonResponse} instance
+	 * @throws IOException on error, {@link StreamEndedException} if the stream holds no request
+	 */
+	protected JsonResponse readAndHandleRequest(final InputStream input, final DataFormat requestFormat) throws IOException {
+		if (requestFormat == DataFormat.ATTACHMENTS) {
+			return readAndHandleRequestWithAttachments(input);
+		}
+		final ReadContext readContext = ReadContext.getReadContext(input, getMapper(requestFormat));
 		try {
 			readContext.assertReadable();
 			final JsonNode jsonNode = readContext.nextValue();
-			for (JsonRpcInterceptor interceptor : interceptorList) {
-				interceptor.preHandleJson(jsonNode);
-			}
-            JsonResponse jsonResponse = handleJsonNodeRequest(jsonNode);
-			writeAndFlushValue(output, jsonResponse.getResponse());
-			if (jsonResponse.getExceptionToRethrow() != null) {
-			    throw jsonResponse.getExceptionToRethrow();
-            }
-			return jsonResponse.getCode();
-        } catch (JsonParseException | JsonMappingException e) {
-            JsonResponse responseError = createResponseError(VERSION, NULL, JsonError.PARSE_ERROR);
-            writeAndFlushValue(output, responseError.getResponse());
-            return responseError.getCode();
+			return handleParsedRequest(jsonNode);
+		} catch (JsonParseException | JsonMappingException e) {
+			return createResponseError(VERSION, NULL, JsonError.PARSE_ERROR);
+		}
+	}
+	
+	/**
+	 * Handles a {@link DataFormat#ATTACHMENTS} message.  Attachments not bound
+	 * by the handler, or not read to their end, are skipped afterwards.
+	 */
+	private JsonResponse readAndHandleRequestWithAttachments(final InputStream input) throws IOException {
+		final AttachmentReader attachments = new AttachmentReader(input);
+		final JsonNode jsonNode;
+		try {
+			jsonNode = attachments.readEnvelope(mapper);
+		} catch (JsonParseException | JsonMappingException e) {
+			return createResponseError(VERSION, NULL, JsonError.PARSE_ERROR);
+		}
+		try {
+			return handleParsedRequest(jsonNode);
+		} catch (JsonParseException | JsonMappingException e) {
+			return createResponseError(VERSION, NULL, JsonError.PARSE_ERROR);
+		} finally {
+			attachments.skipRemaining();
+		}
+	}
+	
+	/**
+	 * Writes a response produced by {@link #readAndHandleRequest(InputStream, DataFormat)}.
+	 *
+	 * @param output         the {@link OutputStream}
+	 * @param jsonResponse   the response, nothing is written for notifications
+	 * @param responseFormat the format to write the response in
+	 * @throws IOException on error
+	 */
+	protected void writeResponse(final OutputStream output, final JsonResponse jsonResponse, final DataFormat responseFormat) throws IOException {
+		writeAndFlushValue(output, jsonResponse.getResponse(), responseFormat);
+	}
+	
+	/**
+	 * Returns the {@link ObjectMapper} reading and writing the given format,
+	 * derived once from the server's mapper and reused afterwards.
+	 *
+	 * @param format the {@link DataFormat}
+	 * @return the mapper
+	 */
+	protected ObjectMapper getMapper(final DataFormat format) {
+		if (format == null || format == DataFormat.JSON) {
+			return mapper;
+		}
+		return formatMappers.computeIfAbsent(format, f -> f.createMapper(mapper));
+	}
+	
+	/**
+	 * @param format the {@link DataFormat}
+	 * @return the writer for responses in that format, which also writes streamed results
+	 */
+	private ObjectWriter getResponseWriter(final DataFormat format) {
+		final DataFormat key = format == null ? DataFormat.JSON : format;
+		return responseWriters.computeIfAbsent(key, f -> getMapper(f).writer().withAttribute(StreamedResult.WRITE_ELEMENTS, Boolean.TRUE));
+	}
+	
+	/**
+	 * Handles a request that has already been read into a {@link JsonNode},
+	 * running the JSON interceptors before dispatching it.  Nothing is written;
+	 * the caller decides what to do with the returned {@link JsonResponse}.
+	 *
+	 * @param jsonNode the request
+	 * @return the {@link JsonResponse} instance
+	 * @throws JsonParseException when {@link JsonNode} read fails
+	 * @throws JsonMappingException when {@link JsonNode} read fails
+	 */
+	JsonResponse handleParsedRequest(final JsonNode jsonNode) throws JsonParseException, JsonMappingException {
+		for (JsonRpcInterceptor interceptor : interceptorList) {
+			interceptor.preHandleJson(jsonNode);
+		}
+		return handleJsonNodeRequest(jsonNode);
+	}
+	
+	/**
+	 * Writes the streamed results of a response into trees, consuming and
+	 * closing their sources, for callers that read the response as a tree
+	 * rather than writing it out.
+	 *
+	 * @param response a response or a batch of responses, may be {@code null}
+	 * @return the response, with any streamed result replaced by its elements
+	 * @throws IOException if a streamed result fails
+	 */
+	JsonNode materializeStreamedResults(final JsonNode response) throws IOException {
+		if (!StreamedResult.isStreamed(response)) {
+			return response;
 		}
+		final TokenBuffer buffer = new TokenBuffer(mapper, false);
+		getResponseWriter(DataFormat.JSON).writeValue(buffer, response);
+		return mapper.readTree(buffer.asParser());
+	}
+	
+	/**
+	 * Returns the {@link ObjectMapper} that the server
+	 * is using for JSON marshalling.
+	 *
+	 * @return the {@link ObjectMapper}
+	 */
+	public ObjectMapper getObjectMapper() {
+		return mapper;
 	}
 	
 	/**
@@ -276,7 +420,122 @@ public class JsonRpcBasicServer {
 			return new Class<?>[]{handler.getClass()};
 		}
 	}
-	
+
+	/**
+	 * Returns the handler interfaces of every exported service, see {@link #getHandlerInterfaces(String)}.
+	 *
+	 * @return the interfaces of each service
+	 */
+	protected List<Class<?>[]> getServiceInterfaces() {
+		if (handler == null) {
+			return Collections.emptyList();
+		}
+		return Collections.singletonList(getHandlerInterfaces(null));
+	}
+
+	/**
+	 * Resolves ahead of the first request what the server otherwise resolves
+	 * lazily for each exported method, see {@link #warmUp(int)}.
+	 *
+	 * @return what was warmed up
+	 */
+	public WarmUpReport warmUp() {
+		return warmUp(0);
+	}
+
+	/**
+	 * Resolves ahead of the first request what the server otherwise resolves
+	 * lazily for each exported method: the methods by JSON-RPC name, their
+	 * reflection metadata, the readers of their parameters and the serializers
+	 * of their results.  Then handles the given number of synthetic requests
+	 * to get the JIT compiling request parsing and response writing.  The
+	 * synthetic requests name no method, so no service is called and no
+	 * interceptor or listener sees them.
+	 *
+	 * @param iterations the number of synthetic requests, {@code 0} for none
+	 * @return what was warmed up
+	 */
+	public WarmUpReport warmUp(int iterations) {
+		final long start = System.nanoTime();
+		final Set<Method> methods = new HashSet<>();
+		final Set<JavaType> types = new HashSet<>();
+		final SerializerProvider serializers = mapper.getSerializerProviderInstance();
+		int failed = 0;
+		for (Class<?>[] interfaces : getServiceInterfaces()) {
+			final JsonRpcDispatcher dispatcher = interfaces.length == 1 ? getDispatcher(interfaces[0]) : null;
+			for (Class<?> type : interfaces) {
+				for (Method method : type.getMethods()) {
+					if (method.getDeclaringClass() == Object.class || !methods.add(method)) {
+						continue;
+					}
+					findMethods(dispatcher, interfaces, method.getName());
+					final JsonRpcMethod rpcMethod = ReflectionUtil.getAnnotation(method, JsonRpcMethod.class);
+					if (rpcMethod != null) {
+						findMethods(dispatcher, interfaces, rpcMethod.value());
+					}
+					getParameterTypes(method);
+					ReflectionUtil.getParameterAnnotations(method, JsonRpcParam.class);
+					for (ObjectReader reader : getParameterReaders(method)) {
+						types.add(reader.getValueType());
+					}
+					if (hasReturnValue(method) && !StreamedResult.isStreamedType(method.getReturnType())) {
+						failed += warmUpSerializers(serializers, mapper.constructType(method.getGenericReturnType()), types);
+					}
+				}
+			}
+		}
+		for (int i = 0; i < iterations; i++) {
+			handleWarmUpRequest();
+		}
+		final WarmUpReport report = new WarmUpReport(methods.size(), types.size(), failed, Math.max(iterations, 0), System.nanoTime() - start);
+		logger.info("Warmed up {} methods and {} types in {} ms", report.getMethodCount(), report.getTypeCount(), report.getDurationMillis());
+		return report;
+	}
+
+	private static void findMethods(JsonRpcDispatcher dispatcher, Class<?>[] interfaces, String name) {
+		if (dispatcher != null) {
+			dispatcher.getMethods(name);
+		} else {
+			findCandidateMethods(interfaces, name);
+		}
+	}
+
+	/**
+	 * Resolves the serializers of a result type and of the types it contains,
+	 * which are otherwise only known once the first result is written.
+	 *
+	 * @return the number of types without a serializer
+	 */
+	private int warmUpSerializers(SerializerProvider serializers, JavaType type, Set<JavaType> types) {
+		if (type == null || !types.add(type)) {
+			return 0;
+		}
+		int failed = 0;
+		try {
+			serializers.findTypedValueSerializer(type, true, null);
+		} catch (JsonMappingException | RuntimeException e) {
+			logger.warn("Failed to resolve the serializer of {}", type, e);
+			failed = 1;
+		}
+		if (type.isMapLikeType()) {
+			failed += warmUpSerializers(serializers, type.getKeyType(), types);
+		}
+		return failed + warmUpSerializers(serializers, type.getContentType(), types);
+	}
+
+	private void handleWarmUpRequest() {
+		final ObjectNode request = mapper.createObjectNode().put(JSONRPC, VERSION).put(ID, 1);
+		final ArrayNode batch = mapper.createArrayNode().add(request).add(request.deepCopy().put(ID, "2"));
+		try {
+			final ReadContext readContext = ReadContext.getReadContext(
+				new ByteArrayInputStream(mapper.writeValueAsBytes(batch)), mapper);
+			final JsonResponse response = handleJsonNodeRequest(readContext.nextValue());
+			writeAndFlushValue(OutputStream.nullOutputStream(), response.getResponse(), DataFormat.JSON);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
 	/**
 	 * Handles the given {@link JsonNode} and creates {@link JsonResponse}
 	 *
@@ -437,11 +696,15 @@ public class JsonRpcBasicServer {
 		final String partialMethodName = getMethodName(fullMethodName);
 		final String serviceName = getServiceName(fullMethodName);
 		
-		Set<Method> methods = findCandidateMethods(getHandlerInterfaces(serviceName), partialMethodName);
+		final Class<?>[] handlerInterfaces = getHandlerInterfaces(serviceName);
+		final JsonRpcDispatcher dispatcher = handlerInterfaces.length == 1 ? getDispatcher(handlerInterfaces[0]) : null;
+		Set<Method> methods = dispatcher != null ?
+			dispatcher.getMethods(partialMethodName) :
+			findCandidateMethods(handlerInterfaces, partialMethodName);
 		if (methods.isEmpty()) {
 			return createResponseError(jsonRpc, id, JsonError.METHOD_NOT_FOUND);
 		}
-		AMethodWithItsArgs methodArgs = findBestMethodByParamsNode(methods, node.get(PARAMS));
+		AMethodWithItsArgs methodArgs = findResolvedMethod(methods, node.get(PARAMS));
 		if (methodArgs == null) {
 			return createResponseError(jsonRpc, id, JsonError.METHOD_PARAMS_INVALID);
 		}
@@ -456,7 +719,7 @@ public class JsonRpcBasicServer {
 					interceptor.preHandle(target, methodArgs.method, methodArgs.arguments);
 				}
 				// invocation
-				JsonNode result = invoke(target, methodArgs.method, methodArgs.arguments);
+				JsonNode result = invoke(dispatcher, target, methodArgs.method, methodArgs.arguments);
 				handler.result = result;
 				// interceptors postHandle
 				for (JsonRpcInterceptor interceptor : interceptorList) {
@@ -465,6 +728,7 @@ public class JsonRpcBasicServer {
 				if (!isNotificationRequest(id)) {
 					return createResponseSuccess(jsonRpc, id, handler.result);
 				}
+				StreamedResult.discard(handler.result);
 				return new JsonResponse(null, JsonError.OK.code);
 			} catch (JsonParseException | JsonMappingException e) {
 				throw e; // rethrow this, it will be handled as PARSE_ERROR later
@@ -472,6 +736,7 @@ public class JsonRpcBasicServer {
 				handler.error = pce.getCause();
 				return handleParameterConvertError(pce, id, jsonRpc);
 			} catch (Throwable e) {
+				StreamedResult.discard(handler.result);
 				handler.error = e;
 				return handleError(id, jsonRpc, methodArgs, e);
 			}
@@ -576,6 +841,7 @@ public class JsonRpcBasicServer {
 	 * the given params (after converting them to beans\objects)
 	 * to it.
 	 *
+	 * @param dispatcher the generated dispatcher of the service, or {@code null} to invoke reflectively
 	 * @param target optional service name used to locate the target object
 	 *               to invoke the Method on
 	 * @param method the method to invoke
@@ -585,7 +851,7 @@ public class JsonRpcBasicServer {
 	 * @throws IllegalAccessException    on error
 	 * @throws InvocationTargetException on error
 	 */
-	private JsonNode invoke(Object target, Method method, List<JsonNode> params) throws IOException, IllegalAccessException, InvocationTargetException {
+	private JsonNode invoke(JsonRpcDispatcher dispatcher, Object target, Method method, List<JsonNode> params) throws IOException, IllegalAccessException, InvocationTargetException {
 		logger.debug("Invoking method: {} with args {}", method.getName(), params);
 
 		Object result;
@@ -593,34 +859,51 @@ public class JsonRpcBasicServer {
         if (method.getGenericParameterTypes().length == 1 && method.isVarArgs()) {
 			Class<?> componentType = method.getParameterTypes()[0].getComponentType();
 			result = componentType.isPrimitive() ?
-				invokePrimitiveVarargs(target, method, params, componentType) :
-				invokeNonPrimitiveVarargs(target, method, params, componentType);
+				invokePrimitiveVarargs(dispatcher, target, method, params, componentType) :
+				invokeNonPrimitiveVarargs(dispatcher, target, method, params, componentType);
         } else {
             Object[] convertedParams = convertJsonToParameters(method, params);
 			if (convertedParameterTransformer != null) {
 				convertedParams = convertedParameterTransformer.transformConvertedParameters(target, convertedParams);
 			}
-			result = method.invoke(target, convertedParams);
+			result = call(dispatcher, target, method, convertedParams);
         }
 
 		logger.debug("Invoked method: {}, result {}", method.getName(), result);
 
-		return hasReturnValue(method) ? mapper.valueToTree(result) : null;
+		if (!hasReturnValue(method)) {
+			return null;
+		}
+		if (result != null && StreamedResult.isStreamedType(method.getReturnType())) {
+			return StreamedResult.node(result);
+		}
+		if (!mapper.isEnabled(SerializationFeature.WRITE_SINGLE_ELEM_ARRAYS_UNWRAPPED)) {
+			final JsonNode numbers = NumericArrayNode.forResult(mapper.getNodeFactory(), result);
+			if (numbers != null) {
+				return numbers;
+			}
+		}
+		return mapper.valueToTree(result);
 	}
 
-	private Object invokePrimitiveVarargs(Object target, Method method, List<JsonNode> params, Class<?> componentType) throws IllegalAccessException, InvocationTargetException {
+	private Object invokePrimitiveVarargs(JsonRpcDispatcher dispatcher, Object target, Method method, List<JsonNode> params, Class<?> componentType) throws IllegalAccessException, InvocationTargetException {
+		Object convertedParams = NumericArrayNode.toArray(params, componentType);
+		if (convertedParams != null) {
+			return call(dispatcher, target, method, convertedParams);
+		}
+
 		// need to cast to object here in order to support primitives.
-		Object convertedParams = Array.newInstance(componentType, params.size());
+		convertedParams = Array.newInstance(componentType, params.size());
 
 		for (int i = 0; i < params.size(); i++) {
 			Object object = convertAndLogParam(method, params, i);
 			Array.set(convertedParams, i, object);
 		}
 
-		return method.invoke(target, convertedParams);
+		return call(dispatcher, target, method, convertedParams);
 	}
 
-	private Object invokeNonPrimitiveVarargs(Object target, Method method, List<JsonNode> params, Class<?> componentType) throws IllegalAccessException, InvocationTargetException {
+	private Object invokeNonPrimitiveVarargs(JsonRpcDispatcher dispatcher, Object target, Method method, List<JsonNode> params, Class<?> componentType) throws IllegalAccessException, InvocationTargetException {
 		Object[] convertedParams = (Object[]) Array.newInstance(componentType, params.size());
 
 		for (int i = 0; i < params.size(); i++) {
@@ -628,7 +911,22 @@ public class JsonRpcBasicServer {
 			convertedParams[i] = object;
 		}
 
-		return method.invoke(target, new Object[] { convertedParams });
+		return call(dispatcher, target, method, new Object[] { convertedParams });
+	}
+
+	/**
+	 * Calls the method through the generated dispatcher if there is one,
+	 * reporting what it throws the way {@link Method#invoke(Object, Object...)} does.
+	 */
+	private static Object call(JsonRpcDispatcher dispatcher, Object target, Method method, Object... arguments) throws IllegalAccessException, InvocationTargetException {
+		if (dispatcher == null) {
+			return method.invoke(target, arguments);
+		}
+		try {
+			return dispatcher.invoke(target, method, arguments);
+		} catch (Throwable e) {
+			throw new InvocationTargetException(e);
+		}
 	}
 
 	private Object convertAndLogParam(Method method, List<JsonNode> params, int paramIndex) {
@@ -656,23 +954,28 @@ public class JsonRpcBasicServer {
 	
 	private Object[] convertJsonToParameters(Method m, List<JsonNode> params) throws IOException {
 		Object[] convertedParams = new Object[params.size()];
-		Type[] parameterTypes = m.getGenericParameterTypes();
+		ObjectReader[] readers = getParameterReaders(m);
 		
-		for (int i = 0; i < parameterTypes.length; i++) {
+		for (int i = 0; i < readers.length; i++) {
+			final Class<?> parameterType = readers[i].getValueType().getRawClass();
+			if (parameterType == InputStream.class) {
+				convertedParams[i] = convertToInputStream(m, i, params.get(i));
+				continue;
+			}
+			final Object numbers = NumericArrayNode.toArray(params.get(i), parameterType);
+			if (numbers != null) {
+				convertedParams[i] = numbers;
+				continue;
+			}
 			JsonParser paramJsonParser = mapper.treeAsTokens(params.get(i));
-			JavaType paramJavaType = mapper.getTypeFactory().constructType(parameterTypes[i]);
-			ObjectReader reader =
-				mapper
-					.readerFor(paramJavaType)
-					.with(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
 			try {
-				convertedParams[i] = reader.readValue(paramJsonParser);
+				convertedParams[i] = readers[i].readValue(paramJsonParser);
 			} catch (JsonParseException | JsonMappingException e) {
 				logger.debug(
 					"[{}] Failed to convert param: {} -> {}",
 					m.getName(),
 					i,
-					parameterTypes[i].getTypeName()
+					readers[i].getValueType().toCanonical()
 				);
 				throw new ParameterConvertException(i, e);
 			}
@@ -680,6 +983,46 @@ public class JsonRpcBasicServer {
 		return convertedParams;
 	}
 
+	/**
+	 * Returns the readers of the method's parameters, resolved once per method.
+	 */
+	private ObjectReader[] getParameterReaders(Method m) {
+		ObjectReader[] readers = parameterReaders.get(m);
+		if (readers == null) {
+			Type[] parameterTypes = m.getGenericParameterTypes();
+			readers = new ObjectReader[parameterTypes.length];
+			for (int i = 0; i < parameterTypes.length; i++) {
+				JavaType paramJavaType = mapper.getTypeFactory().constructType(parameterTypes[i]);
+				readers[i] = mapper
+					.readerFor(paramJavaType)
+					.with(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
+			}
+			ObjectReader[] raced = parameterReaders.putIfAbsent(m, readers);
+			if (raced != null) {
+				readers = raced;
+			}
+		}
+		return readers;
+	}
+
+	/**
+	 * Streams an attachment into the parameter, or decodes any other binary value.
+	 */
+	private InputStream convertToInputStream(Method m, int index, JsonNode param) throws IOException {
+		if (param == null || param.isNull()) {
+			return null;
+		}
+		if (param instanceof AttachmentNode) {
+			return ((AttachmentNode) param).openStream(null);
+		}
+		final byte[] bytes = param.isBinary() || param.isTextual() ? mapper.convertValue(param, byte[].class) : null;
+		if (bytes == null) {
+			logger.debug("[{}] Failed to convert param: {} -> {}", m.getName(), index, InputStream.class.getName());
+			throw new ParameterConvertException(index, new IllegalArgumentException("Cannot read binary data from " + param.getNodeType()));
+		}
+		return new ByteArrayInputStream(bytes);
+	}
+
     /**
      * Creates a response.
      *
@@ -751,6 +1094,47 @@ public class JsonRpcBasicServer {
         return createResponse(jsonRpc, id, result, null);
     }
 
+	/**
+	 * Looks up the overload chosen for earlier parameters of the same shape,
+	 * see {@link ParamsShape}, and resolves it the first time a shape is seen.
+	 * A method name with a single candidate is resolved every time, as is
+	 * a shape that matches no overload.
+	 *
+	 * @param methods    the {@link Method}s
+	 * @param paramsNode the {@link JsonNode} passed as the parameters
+	 * @return the {@link AMethodWithItsArgs}
+	 */
+	private AMethodWithItsArgs findResolvedMethod(Set<Method> methods, JsonNode paramsNode) {
+		final ParamsShape shape = resolvedMethodCacheSize > 0 && methods.size() > 1 ? ParamsShape.of(methods, paramsNode) : null;
+		if (shape == null) {
+			return findBestMethodByParamsNode(methods, paramsNode);
+		}
+		final ResolvedMethod resolved = resolvedMethods.get(shape);
+		if (resolved != null) {
+			return resolved.collectArguments(paramsNode);
+		}
+		final AMethodWithItsArgs methodArgs = findBestMethodByParamsNode(methods, paramsNode);
+		if (methodArgs != null) {
+			evictResolvedMethods(resolvedMethodCacheSize - 1);
+			resolvedMethods.put(shape, new ResolvedMethod(methodArgs));
+		}
+		return methodArgs;
+	}
+	
+	/**
+	 * Drops remembered shapes, in no particular order, until at most
+	 * {@code size} are left.
+	 *
+	 * @param size the number of shapes to keep
+	 */
+	private void evictResolvedMethods(int size) {
+		final Iterator<ParamsShape> shapes = resolvedMethods.keySet().iterator();
+		while (resolvedMethods.size() > size && shapes.hasNext()) {
+			shapes.next();
+			shapes.remove();
+		}
+	}
+
 	/**
 	 * Finds the {@link Method} from the supplied {@link Set} that
 	 * best matches the rest of the arguments supplied and returns
@@ -778,7 +1162,7 @@ public class JsonRpcBasicServer {
 		return matchedMethod;
 	}
 	
-	private Set<String> collectFieldNames(JsonNode paramsNode) {
+	private static Set<String> collectFieldNames(JsonNode paramsNode) {
 		Set<String> fieldNames = new HashSet<>();
 		Iterator<String> itr = paramsNode.fieldNames();
 		while (itr.hasNext()) {
@@ -972,7 +1356,7 @@ public class JsonRpcBasicServer {
 			return type.isArray() || Collection.class.isAssignableFrom(type);
 		}
 		if (node.isBinary()) {
-			return byteOrCharAssignable(type);
+			return byteOrCharAssignable(type) || InputStream.class.isAssignableFrom(type) || ByteBuffer.class.isAssignableFrom(type);
 		}
 		if (node.isBoolean()) {
 			return boolean.class.isAssignableFrom(type) || Boolean.class.isAssignableFrom(type);
@@ -1002,14 +1386,21 @@ public class JsonRpcBasicServer {
 	 * @param value  the value to write
 	 * @throws IOException on error
 	 */
-	private void writeAndFlushValue(OutputStream output, JsonNode value) throws IOException {
+	private void writeAndFlushValue(OutputStream output, JsonNode value, DataFormat format) throws IOException {
 	    if (value == null) {
 	        return;
         }
 		logger.debug("Response: {}", value);
 
-	    mapper.writeValue(new NoCloseOutputStream(output), value);
-		output.write('\n');
+		final ObjectWriter writer = getResponseWriter(format);
+		if (format == DataFormat.ATTACHMENTS) {
+			Attachments.write(output, mapper, generator -> writer.writeValue(generator, value));
+			return;
+		}
+	    writer.writeValue(new NoCloseOutputStream(output), value);
+		if (format == null || format.isTextual()) {
+			output.write('\n');
+		}
 	}
 	
 	private Object parseId(JsonNode node) {
@@ -1071,6 +1462,7 @@ public class JsonRpcBasicServer {
 	 */
 	public void setAllowExtraParams(boolean allowExtraParams) {
 		this.allowExtraParams = allowExtraParams;
+		resolvedMethods.clear();
 	}
 	
 	/**
@@ -1081,6 +1473,20 @@ public class JsonRpcBasicServer {
 	 */
 	public void setAllowLessParams(boolean allowLessParams) {
 		this.allowLessParams = allowLessParams;
+		resolvedMethods.clear();
+	}
+
+	/**
+	 * Sets how many parameter shapes the overload chosen for them is
+	 * remembered for.  Once that many are known, a new shape replaces
+	 * one of them.
+	 *
+	 * @param resolvedMethodCacheSize the number of shapes, 0 to resolve every request,
+	 *                                {@link #DEFAULT_RESOLVED_METHOD_CACHE_SIZE} by default
+	 */
+	public void setResolvedMethodCacheSize(int resolvedMethodCacheSize) {
+		this.resolvedMethodCacheSize = resolvedMethodCacheSize;
+		resolvedMethods.clear();
 	}
 
 	/**
@@ -1152,12 +1558,32 @@ public class JsonRpcBasicServer {
         this.parallelBatchProcessingTimeout = parallelBatchProcessingTimeout;
     }
 	
+	public DataFormat getDataFormat() {
+		return dataFormat;
+	}
+	
+	/**
+	 * Sets the format requests are read and responses written in by
+	 * {@link #handleRequest(InputStream, OutputStream)}, e.g. for stream servers.
+	 * HTTP servers negotiate the format per request instead.
+	 *
+	 * @param dataFormat the {@link DataFormat}, {@link DataFormat#JSON} by default
+	 */
+	public void setDataFormat(DataFormat dataFormat) {
+		if (!dataFormat.isAvailable()) {
+			throw new IllegalStateException(dataFormat + " support is not on the class path");
+		}
+		this.dataFormat = dataFormat;
+	}
+	
 	/**
 	 * Simple inner class for the {@code findXXX} methods.
 	 */
 	private static class AMethodWithItsArgs {
-		private final List<JsonNode> arguments = new ArrayList<>();
+		private List<JsonNode> arguments = new ArrayList<>();
 		private final Method method;
+		private List<JsonRpcParam> allNames;
+		private boolean varargs;
 		
 		public AMethodWithItsArgs(Method method, int paramCount, ArrayNode paramNodes) {
 			this(method);
@@ -1181,11 +1607,13 @@ public class JsonRpcBasicServer {
 		
 		public AMethodWithItsArgs(Method method, Set<String> paramNames, List<JsonRpcParam> allNames, ObjectNode paramNodes) {
 			this(method);
+			this.allNames = allNames;
 			collectArgumentsBasedOnName(method, paramNames, allNames, paramNodes);
 		}
 		
 		public AMethodWithItsArgs(Method method, JsonNode jsonNode) {
 			this(method);
+			this.varargs = true;
 			collectVarargsFromNode(jsonNode);
 		}
 
@@ -1207,6 +1635,11 @@ public class JsonRpcBasicServer {
 		}
 
 		private void collectVarargsFromNode(JsonNode node) {
+			final List<JsonNode> numbers = NumericArrayNode.elements(node);
+			if (numbers != null && arguments.isEmpty()) {
+				arguments = numbers;
+				return;
+			}
 			if (node.isArray()) {
 				ArrayNode arrayNode = (ArrayNode) node;
 				for (int i = 0; i < node.size(); i++) {
@@ -1231,6 +1664,126 @@ public class JsonRpcBasicServer {
         }
 	}
 	
+	/**
+	 * The overload chosen for a {@link ParamsShape} and how its arguments are
+	 * collected, without the arguments themselves.
+	 */
+	private static class ResolvedMethod {
+		
+		private final Method method;
+		private final List<JsonRpcParam> allNames;
+		private final boolean varargs;
+		
+		ResolvedMethod(AMethodWithItsArgs methodArgs) {
+			this.method = methodArgs.method;
+			this.allNames = methodArgs.allNames;
+			this.varargs = methodArgs.varargs;
+		}
+		
+		AMethodWithItsArgs collectArguments(JsonNode paramsNode) {
+			if (varargs) {
+				return new AMethodWithItsArgs(method, paramsNode);
+			}
+			if (allNames != null) {
+				return new AMethodWithItsArgs(method, collectFieldNames(paramsNode), allNames, (ObjectNode) paramsNode);
+			}
+			if (paramsNode == null || paramsNode.isNull()) {
+				return new AMethodWithItsArgs(method, 0, null);
+			}
+			return new AMethodWithItsArgs(method, paramsNode.size(), (ArrayNode) paramsNode);
+		}
+	}
+	
+	/**
+	 * What overload resolution looks at in a request: the candidate methods,
+	 * the number of parameters, their names and, as far as {@link #isMatchingType}
+	 * tells them apart, the kinds of their values.  Requests with more than
+	 * {@link #MAX_PARAMS} parameters have no shape, so keys stay short.
+	 */
+	private static final class ParamsShape {
+		
+		private static final int MAX_PARAMS = 16;
+		
+		private final Set<Method> methods;
+		private final String shape;
+		
+		private ParamsShape(Set<Method> methods, String shape) {
+			this.methods = methods;
+			this.shape = shape;
+		}
+		
+		/**
+		 * @param methods    the candidates, the same instance for the same method name
+		 * @param paramsNode the parameters
+		 * @return the shape, {@code null} for parameters that are neither an array nor an object
+		 * or that are too many
+		 */
+		static ParamsShape of(Set<Method> methods, JsonNode paramsNode) {
+			final StringBuilder shape = new StringBuilder();
+			if (paramsNode == null || paramsNode.isNull()) {
+				shape.append('-');
+			} else if (paramsNode.size() > MAX_PARAMS) {
+				return null;
+			} else if (paramsNode.isArray()) {
+				shape.append(paramsNode.size()).append('[');
+				for (JsonNode param : paramsNode) {
+					appendKind(shape, param);
+				}
+			} else if (paramsNode.isObject()) {
+				shape.append('{');
+				final String[] names = collectFieldNames(paramsNode).toArray(new String[0]);
+				Arrays.sort(names);
+				for (String name : names) {
+					shape.append(name.length()).append(':').append(name);
+					appendKind(shape, paramsNode.get(name));
+				}
+			} else {
+				return null;
+			}
+			return new ParamsShape(methods, shape.toString());
+		}
+		
+		private static void appendKind(StringBuilder shape, JsonNode node) {
+			while (node.isArray()) {
+				shape.append('a');
+				if (node.size() == 0) {
+					shape.append('0');
+					return;
+				}
+				node = node.get(0);
+			}
+			if (node.isNull()) {
+				shape.append('n');
+			} else if (node.isTextual()) {
+				shape.append('s');
+			} else if (node.isNumber()) {
+				shape.append('#');
+			} else if (node.isBinary()) {
+				shape.append('b');
+			} else if (node.isBoolean()) {
+				shape.append('?');
+			} else if (node.isObject() || node.isPojo()) {
+				shape.append('o');
+			} else {
+				shape.append('x');
+			}
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof ParamsShape)) {
+				return false;
+			}
+			final ParamsShape other = (ParamsShape) o;
+			return methods == other.methods && shape.equals(other.shape);
+		}
+		
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(methods) + shape.hashCode();
+		}
+	}
+	
 	private static class InvokeListenerHandler implements AutoCloseable {
 		
 		private final long startMs = System.currentTimeMillis();
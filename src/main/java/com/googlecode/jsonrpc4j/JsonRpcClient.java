@@ -1,14 +1,18 @@
 package com.googlecode.jsonrpc4j;
 
 import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -17,6 +21,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.ERROR;
 import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.ID;
@@ -36,12 +41,21 @@ public class JsonRpcClient {
 	// Toha: to use same logger in extension classes
 	protected final Logger logger = LoggerFactory.getLogger(this.getClass());
 	
+	/**
+	 * Returned by {@link #readStreamedResponse(Type, JsonParser, String, Closeable)} for a response to another request.
+	 */
+	private static final Object NOT_MATCHED = new Object();
+	
 	private final ObjectMapper mapper;
 	private final Random random;
 	private RequestListener requestListener;
 	private RequestIDGenerator requestIDGenerator;
 	private ExceptionResolver exceptionResolver;
 	private Map<String, Object> additionalJsonContent = new HashMap<>();
+	private DataFormat dataFormat = DataFormat.JSON;
+	private ObjectMapper formatMapper;
+	private final Map<DataFormat, ObjectMapper> formatMappers = new ConcurrentHashMap<>();
+	private final RequestWriter requestWriter;
 	
 	/**
 	 * Creates a client that uses the default {@link ObjectMapper}
@@ -70,6 +84,8 @@ public class JsonRpcClient {
 	 */
 	public JsonRpcClient(ObjectMapper mapper, ExceptionResolver exceptionResolver) {
 		this.mapper = mapper;
+		this.formatMapper = mapper;
+		this.requestWriter = new RequestWriter(mapper);
 		this.random = new Random(System.currentTimeMillis());
 		this.requestIDGenerator = new RandomRequestIDGenerator();
 		this.exceptionResolver = exceptionResolver;
@@ -189,8 +205,102 @@ public class JsonRpcClient {
 	 * @throws Throwable on error
 	 */
 	private Object readResponse(Type returnType, InputStream input, String id) throws Throwable {
-		
-		ReadContext context = ReadContext.getReadContext(input, mapper);
+		return readResponse(returnType, input, id, dataFormat, null);
+	}
+	
+	/**
+	 * Reads a JSON-RPC response encoded in the given format, which may
+	 * differ from the one requests are written in when the server
+	 * answered in another format than the one asked for.
+	 *
+	 * @param returnType the expected return type
+	 * @param input      the {@link InputStream} to read from
+	 * @param format     the format of the response
+	 * @return the object returned by the JSON-RPC response
+	 * @throws Throwable on error
+	 */
+	protected Object readFormattedResponse(Type returnType, InputStream input, DataFormat format) throws Throwable {
+		return readResponse(returnType, input, null, format, null);
+	}
+	
+	/**
+	 * Reads a JSON-RPC response like {@link #readFormattedResponse(Type, InputStream, DataFormat)}.
+	 * If the return type is an {@link java.util.Iterator} or a {@link java.util.stream.Stream}
+	 * the elements of the result are read from {@code input} as they are consumed,
+	 * and the given transport is closed once the result is exhausted or closed;
+	 * see {@link #isLazyResult(Type, Object)}.
+	 *
+	 * @param returnType the expected return type
+	 * @param input      the {@link InputStream} to read from
+	 * @param format     the format of the response
+	 * @param transport  releases the connection {@code input} is read from
+	 * @return the object returned by the JSON-RPC response
+	 * @throws Throwable on error
+	 */
+	protected Object readFormattedResponse(Type returnType, InputStream input, DataFormat format, Closeable transport) throws Throwable {
+		return readResponse(returnType, input, null, format, transport);
+	}
+	
+	/**
+	 * Reads a JSON-RPC response from a parser over it, such as one replaying
+	 * the tokens of a response that was parsed while it arrived.
+	 *
+	 * @param returnType the expected return type
+	 * @param parser     the parser, positioned before the response and closed when done
+	 * @return the object returned by the JSON-RPC response
+	 * @throws Throwable on error
+	 */
+	protected Object readParsedResponse(Type returnType, JsonParser parser) throws Throwable {
+		Object result = null;
+		try {
+			if (requestListener != null) {
+				final JsonNode response = mapper.readTree(parser);
+				if (response == null) {
+					throw MismatchedInputException.from(parser, JsonNode.class, "No content to map due to end-of-input");
+				}
+				logger.debug("JSON-RPC Response: {}", response);
+				return readResponse(returnType, response, (Closeable) null);
+			}
+			result = readStreamedResponse(returnType, parser, null, null);
+			return result;
+		} finally {
+			if (!isLazyResult(returnType, result)) {
+				parser.close();
+			}
+		}
+	}
+	
+	/**
+	 * @param returnType the expected return type
+	 * @param result     the result read for it
+	 * @return whether the result is still reading from the response, and
+	 * the transport must be left open until it is closed
+	 */
+	protected static boolean isLazyResult(Type returnType, Object result) {
+		return result != null && (ResultIterator.isLazyType(returnType) || AttachmentReader.isStreamed(result));
+	}
+	
+	private Object readResponse(Type returnType, InputStream input, String id, DataFormat format, Closeable transport) throws Throwable {
+		if (format == DataFormat.ATTACHMENTS) {
+			return readResponseWithAttachments(returnType, input, id, transport);
+		}
+		final ObjectMapper readMapper = getMapper(format);
+		ReadContext context = ReadContext.getReadContext(input, readMapper);
+		if (requestListener == null) {
+			context.assertReadable();
+			final JsonParser parser = readMapper.getFactory().createParser(new NoCloseInputStream(input));
+			Object result = null;
+			try {
+				do {
+					result = readStreamedResponse(returnType, parser, id, transport);
+				} while (result == NOT_MATCHED);
+				return result;
+			} finally {
+				if (!isLazyResult(returnType, result)) {
+					parser.close();
+				}
+			}
+		}
 		ObjectNode jsonObject = getValidResponse(id, context);
 		notifyAnswerListener(jsonObject);
 		handleErrorResponse(jsonObject);
@@ -199,13 +309,120 @@ public class JsonRpcClient {
 			if (isReturnTypeInvalid(returnType)) {
 				return null;
 			}
-			return constructResponseObject(returnType, jsonObject);
+			return constructResponseObject(returnType, jsonObject, transport);
 		}
 		
 		// no return type
 		return null;
 	}
 	
+	/**
+	 * Reads a {@link DataFormat#ATTACHMENTS} response.  An {@link InputStream}
+	 * result that is the last attachment is left reading {@code input}; the
+	 * attachments of skipped responses and those not bound are read past.
+	 */
+	private Object readResponseWithAttachments(Type returnType, InputStream input, String id, Closeable transport) throws Throwable {
+		AttachmentReader attachments = new AttachmentReader(input);
+		JsonNode response = attachments.readEnvelope(mapper);
+		raiseExceptionIfNotValidResponseObject(response);
+		while (id != null && isIdValueNotCorrect(id, (ObjectNode) response)) {
+			attachments.skipRemaining();
+			attachments = new AttachmentReader(input);
+			response = attachments.readEnvelope(mapper);
+			raiseExceptionIfNotValidResponseObject(response);
+		}
+		logger.debug("JSON-RPC Response: {}", response);
+		Object result = null;
+		try {
+			result = readResponse(returnType, response, transport);
+			return result;
+		} finally {
+			if (!AttachmentReader.isStreamed(result)) {
+				attachments.skipRemaining();
+			}
+		}
+	}
+	
+	/**
+	 * Reads the next response from the parser, binding {@code result} in
+	 * place to the return type instead of going through a tree.  All other
+	 * members are collected for the {@link ExceptionResolver}.  A result
+	 * arriving before the {@code id} it has to be matched against is buffered
+	 * as tokens until the id is known.  A lazily read result is returned as
+	 * soon as it starts; members after it are not read.
+	 *
+	 * @param returnType the expected return type
+	 * @param parser     the parser, positioned before the response
+	 * @param id         the id the response must carry, or {@code null} to take any response
+	 * @param transport  handed to a lazily read result
+	 * @return the object returned by the JSON-RPC response, or {@link #NOT_MATCHED}
+	 * if it answers another request
+	 * @throws Throwable on error
+	 */
+	private Object readStreamedResponse(Type returnType, JsonParser parser, String id, Closeable transport) throws Throwable {
+		final JsonToken start = parser.nextToken();
+		if (start == null) {
+			throw MismatchedInputException.from(parser, JsonNode.class, "No content to map due to end-of-input");
+		}
+		if (start != JsonToken.START_OBJECT) {
+			throw new JsonRpcClientException(0, "Invalid JSON-RPC response", mapper.<JsonNode>readTree(parser));
+		}
+		
+		final ObjectNode jsonObject = mapper.createObjectNode();
+		Boolean idMatches = id == null ? Boolean.TRUE : null;
+		Object result = null;
+		TokenBuffer bufferedResult = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			final String name = parser.getCurrentName();
+			final JsonToken value = parser.nextToken();
+			if (idMatches == Boolean.FALSE) {
+				parser.skipChildren();
+			} else if (!RESULT.equals(name) || value == JsonToken.VALUE_NULL) {
+				jsonObject.set(name, mapper.<JsonNode>readTree(parser));
+				if (ID.equals(name) && id != null) {
+					idMatches = !isIdValueNotCorrect(id, jsonObject);
+				}
+			} else if (isReturnTypeInvalid(returnType)) {
+				parser.skipChildren();
+			} else if (idMatches == null) {
+				bufferedResult = new TokenBuffer(parser);
+				bufferedResult.copyCurrentStructure(parser);
+			} else if (ResultIterator.isLazyType(returnType)) {
+				logger.debug("JSON-RPC Response: {}", jsonObject);
+				handleErrorResponse(jsonObject);
+				return bindResult(returnType, parser, transport);
+			} else {
+				result = bindResult(returnType, parser, transport);
+			}
+		}
+		if (idMatches != Boolean.TRUE) {
+			return NOT_MATCHED;
+		}
+		logger.debug("JSON-RPC Response: {}", jsonObject);
+		handleErrorResponse(jsonObject);
+		if (bufferedResult != null) {
+			final JsonParser bufferedParser = bufferedResult.asParser();
+			bufferedParser.nextToken();
+			return bindResult(returnType, bufferedParser, transport);
+		}
+		return result;
+	}
+	
+	/**
+	 * @param parser    positioned on the first token of the result
+	 * @param transport handed to a lazily read result
+	 */
+	private Object bindResult(Type returnType, JsonParser parser, Closeable transport) throws IOException {
+		if (returnType == InputStream.class) {
+			final byte[] bytes = mapper.readValue(parser, byte[].class);
+			return bytes == null ? null : new ByteArrayInputStream(bytes);
+		}
+		if (ResultIterator.isLazyType(returnType) && parser.currentToken() == JsonToken.START_ARRAY) {
+			return new ResultIterator<>(mapper, parser, ResultIterator.elementType(mapper, returnType), transport).as(returnType);
+		}
+		return mapper.readValue(parser, mapper.getTypeFactory().constructType(returnType));
+	}
+	
 	/**
 	 * Writes a JSON-RPC request to the given {@link OutputStream}.
 	 * If the value passed for argument is null then the {@code params}
@@ -286,10 +503,13 @@ public class JsonRpcClient {
 		return false;
 	}
 	
-	private Object constructResponseObject(Type returnType, ObjectNode jsonObject) throws IOException {
+	private Object constructResponseObject(Type returnType, ObjectNode jsonObject, Closeable transport) throws IOException {
+		if (returnType == InputStream.class && jsonObject.get(RESULT) instanceof AttachmentNode) {
+			return ((AttachmentNode) jsonObject.get(RESULT)).openStream(transport);
+		}
 		JsonParser returnJsonParser = mapper.treeAsTokens(jsonObject.get(RESULT));
-		JavaType returnJavaType = mapper.getTypeFactory().constructType(returnType);
-		return mapper.readValue(returnJsonParser, returnJavaType);
+		returnJsonParser.nextToken();
+		return bindResult(returnType, returnJsonParser, transport);
 	}
 	
 	/**
@@ -302,11 +522,44 @@ public class JsonRpcClient {
 	 * @throws IOException on error
 	 */
 	private void internalWriteRequest(String methodName, Object arguments, OutputStream output, String id) throws IOException {
+		arguments = Attachments.wrapStreams(arguments);
+		if (dataFormat == DataFormat.ATTACHMENTS) {
+			writeRequestWithAttachments(methodName, arguments, output, id);
+			return;
+		}
+		if (canStreamRequest(arguments)) {
+			logger.debug("Request {} with id {}", methodName, id);
+			requestWriter.write(output, methodName, arguments, id, additionalJsonContent);
+			output.flush();
+			return;
+		}
 		final ObjectNode request = internalCreateRequest(methodName, arguments, id);
 		logger.debug("Request {}", request);
 		writeAndFlushValue(output, request);
 	}
 	
+	private void writeRequestWithAttachments(String methodName, Object arguments, OutputStream output, String id) throws IOException {
+		if (canStreamRequest(arguments)) {
+			logger.debug("Request {} with id {}", methodName, id);
+			Attachments.write(output, mapper, generator -> requestWriter.write(generator, methodName, arguments, id, additionalJsonContent));
+		} else {
+			final ObjectNode request = internalCreateRequest(methodName, arguments, id);
+			logger.debug("Request {}", request);
+			Attachments.write(output, mapper, generator -> mapper.writeValue(generator, request));
+		}
+	}
+	
+	/**
+	 * Requests are only built as a tree when a {@link RequestListener} gets to
+	 * see them or they are written in a binary format.
+	 */
+	private boolean canStreamRequest(Object arguments) {
+		return requestListener == null
+				&& (dataFormat == DataFormat.JSON || dataFormat == DataFormat.ATTACHMENTS)
+				&& RequestWriter.canWrite(arguments)
+				&& RequestWriter.canAdd(additionalJsonContent);
+	}
+	
 	private JsonNode readResponseNode(ReadContext context) throws IOException {
 		context.assertReadable();
 		JsonNode response = context.nextValue();
@@ -356,7 +609,7 @@ public class JsonRpcClient {
 	 * @throws IOException on error
 	 */
 	private void writeAndFlushValue(OutputStream output, Object value) throws IOException {
-		mapper.writeValue(new NoCloseOutputStream(output), value);
+		formatMapper.writeValue(new NoCloseOutputStream(output), value);
 		output.flush();
 	}
 	
@@ -580,11 +833,11 @@ public class JsonRpcClient {
 	
 	// Suppose than jsonObject is single and contains valid id :)
 	protected Object readResponse(Type returnType, JsonNode jsonObject) throws Throwable {
-		return readResponse(returnType, jsonObject, null);
+		return readResponse(returnType, jsonObject, (Closeable) null);
 	}
 	
 	// Suppose than jsonObject is single and contains valid id :)
-	private Object readResponse(Type returnType, JsonNode jsonNode, String id) throws Throwable {
+	private Object readResponse(Type returnType, JsonNode jsonNode, Closeable transport) throws Throwable {
 		raiseExceptionIfNotValidResponseObject(jsonNode);
 		final ObjectNode jsonObject = ObjectNode.class.cast(jsonNode);
 		notifyAnswerListener(jsonObject);
@@ -593,7 +846,7 @@ public class JsonRpcClient {
 			if (isReturnTypeInvalid(returnType)) {
 				return null;
 			}
-			return constructResponseObject(returnType, jsonObject);
+			return constructResponseObject(returnType, jsonObject, transport);
 		}
 		return null;
 	}
@@ -608,6 +861,36 @@ public class JsonRpcClient {
 		return mapper;
 	}
 	
+	/**
+	 * Returns the {@link ObjectMapper} reading and writing the given format,
+	 * derived once from the client's mapper and reused afterwards.
+	 *
+	 * @param format the {@link DataFormat}
+	 * @return the mapper
+	 */
+	protected ObjectMapper getMapper(DataFormat format) {
+		if (format == null || format == DataFormat.JSON) {
+			return mapper;
+		}
+		return format == dataFormat ? formatMapper : formatMappers.computeIfAbsent(format, f -> f.createMapper(mapper));
+	}
+	
+	public DataFormat getDataFormat() {
+		return dataFormat;
+	}
+	
+	/**
+	 * Sets the format requests are written and responses read in.  The
+	 * mapper for binary formats is derived from {@link #getObjectMapper()},
+	 * so change its configuration before calling this.
+	 *
+	 * @param dataFormat the {@link DataFormat}, {@link DataFormat#JSON} by default
+	 */
+	public void setDataFormat(DataFormat dataFormat) {
+		this.formatMapper = dataFormat.createMapper(mapper);
+		this.dataFormat = dataFormat;
+	}
+	
 	/**
 	 * @param exceptionResolver the exceptionResolver to set
 	 */
@@ -0,0 +1,137 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+
+/**
+ * Base class of the client stubs generated at compile time by the
+ * {@code jsonrpc4j-processor} annotation processor for interfaces annotated
+ * with {@link JsonRpcService}.  A stub implements the interface with plain
+ * methods that write their params straight to the request generator and
+ * pass the result type worked out when the stub class was loaded, so calls
+ * go neither through a {@link java.lang.reflect.Proxy} nor through
+ * {@link ReflectionUtil#parseArguments(Method, Object[])}.
+ * <p>
+ * {@link ProxyUtil} and the Spring {@code JsonProxyFactoryBean} return a stub
+ * instead of a proxy when one is on the classpath, see {@link #forInterface(Class, Invoker)}.
+ */
+public abstract class JsonRpcClientStub {
+
+	/**
+	 * The suffix appended to the interface name to name its stub.
+	 */
+	public static final String CLASS_NAME_SUFFIX = "_JsonRpcClientStub";
+
+	/**
+	 * The params of methods without parameters.
+	 */
+	protected static final Object[] NO_PARAMS = new Object[0];
+
+	private final Invoker invoker;
+
+	/**
+	 * @param invoker sends the calls of the stub
+	 */
+	protected JsonRpcClientStub(Invoker invoker) {
+		this.invoker = invoker;
+	}
+
+	/**
+	 * Returns a stub of the given interface.  The stub class is looked up once
+	 * per interface as the class named after the interface's binary name, with
+	 * {@code $} replaced by {@code _}, followed by {@link #CLASS_NAME_SUFFIX}.
+	 *
+	 * @param <T>              the interface type
+	 * @param serviceInterface the interface
+	 * @param invoker          sends the calls of the stub
+	 * @return the stub or {@code null} if none was generated
+	 */
+	public static <T> T forInterface(Class<T> serviceInterface, Invoker invoker) {
+		return ReflectionUtil.createClientStub(serviceInterface, invoker);
+	}
+
+	/**
+	 * Sends a call.
+	 *
+	 * @param methodName the method name sent on the wire
+	 * @param params     the params, see {@link Invoker#invoke(String, Object, Type, boolean)}
+	 * @param resultType the type the result is read as
+	 * @param async      whether the method returns a future
+	 * @return the result
+	 * @throws Throwable on error
+	 */
+	protected final Object invoke(String methodName, Object params, Type resultType, boolean async) throws Throwable {
+		return invoker.invoke(methodName, params, resultType, async);
+	}
+
+	/**
+	 * Writes a param the way the arguments of a proxied call are written.
+	 *
+	 * @param generator the generator
+	 * @param provider  the provider serializing the request
+	 * @param value     the argument
+	 * @throws IOException on error
+	 */
+	protected static void writeValue(JsonGenerator generator, SerializerProvider provider, Object value) throws IOException {
+		if (value instanceof InputStream) {
+			Attachments.writeBinary(generator, (InputStream) value);
+		} else {
+			provider.defaultSerializeValue(value, generator);
+		}
+	}
+
+	/**
+	 * Works out the result type of a method whose return type is generic.
+	 *
+	 * @param serviceInterface the interface
+	 * @param name             the Java method name
+	 * @param parameterTypes   the erased parameter types
+	 * @return the type the result is read as
+	 */
+	protected static Type resultType(Class<?> serviceInterface, String name, Class<?>... parameterTypes) {
+		try {
+			Method method = serviceInterface.getMethod(name, parameterTypes);
+			return ProxyUtil.isAsyncMethod(method) ? ProxyUtil.getAsyncResultType(method) : method.getGenericReturnType();
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Sends the calls of a stub, e.g. through an {@link IJsonRpcClient}.
+	 */
+	@FunctionalInterface
+	public interface Invoker {
+
+		/**
+		 * @param methodName the method name sent on the wire
+		 * @param params     the params, an {@code Object[]}, a {@link java.util.Map} or {@link Params}
+		 * @param resultType the type the result is read as; for methods returning
+		 *                   a future the type the future completes with
+		 * @param async      whether the method returns a {@link java.util.concurrent.CompletableFuture}
+		 *                   or {@link java.util.concurrent.CompletionStage}
+		 * @return the result, or the future for asynchronous methods
+		 * @throws Throwable on error
+		 */
+		Object invoke(String methodName, Object params, Type resultType, boolean async) throws Throwable;
+	}
+
+	/**
+	 * Params that write themselves, as an array or an object.
+	 */
+	@FunctionalInterface
+	public interface Params extends JsonSerializable {
+
+		@Override
+		default void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer) throws IOException {
+			serialize(generator, provider);
+		}
+	}
+}
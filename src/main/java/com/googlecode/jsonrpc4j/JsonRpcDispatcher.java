@@ -0,0 +1,58 @@
+package com.googlecode.jsonrpc4j;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+
+/**
+ * Finds and calls the methods of one service interface without scanning
+ * or reflective calls.  Implementations are generated at compile time by
+ * the {@code jsonrpc4j-processor} annotation processor for interfaces
+ * annotated with {@link JsonRpcService}, and are picked up by the servers
+ * when they are on the classpath, see {@link #forInterface(Class)}.
+ */
+public interface JsonRpcDispatcher {
+
+	/**
+	 * The suffix appended to the interface name to name its dispatcher.
+	 */
+	String CLASS_NAME_SUFFIX = "_JsonRpcDispatcher";
+
+	/**
+	 * @return the interface this dispatcher calls
+	 */
+	Class<?> getServiceInterface();
+
+	/**
+	 * Returns the methods that the given JSON-RPC method name may call,
+	 * following the same rules as the reflective lookup.  The same name
+	 * gives the same set instance.
+	 *
+	 * @param name the JSON-RPC method name
+	 * @return the methods, empty if there are none
+	 */
+	Set<Method> getMethods(String name);
+
+	/**
+	 * Calls the given method on the target.
+	 *
+	 * @param target    the service
+	 * @param method    one of the methods returned by {@link #getMethods(String)}
+	 * @param arguments the converted arguments
+	 * @return the return value, {@code null} for {@code void} methods
+	 * @throws Throwable whatever the method throws
+	 */
+	Object invoke(Object target, Method method, Object[] arguments) throws Throwable;
+
+	/**
+	 * Returns the generated dispatcher of the given interface.  It is looked
+	 * up once per interface as the class named after the interface's binary
+	 * name, with {@code $} replaced by {@code _}, followed by
+	 * {@link #CLASS_NAME_SUFFIX}.
+	 *
+	 * @param serviceInterface the interface
+	 * @return the dispatcher or {@code null} if none was generated
+	 */
+	static JsonRpcDispatcher forInterface(Class<?> serviceInterface) {
+		return ReflectionUtil.getDispatcher(serviceInterface);
+	}
+}
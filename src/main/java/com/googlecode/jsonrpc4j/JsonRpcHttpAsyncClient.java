@@ -1,6 +1,7 @@
 package com.googlecode.jsonrpc4j;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -10,56 +11,33 @@ import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
-import org.apache.http.StatusLine;
 import org.apache.http.concurrent.FutureCallback;
-import org.apache.http.config.ConnectionConfig;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
-import org.apache.http.impl.DefaultConnectionReuseStrategy;
-import org.apache.http.impl.nio.DefaultHttpClientIODispatch;
-import org.apache.http.impl.nio.pool.BasicNIOConnFactory;
-import org.apache.http.impl.nio.pool.BasicNIOConnPool;
-import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
-import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+import org.apache.http.nio.NHttpClientConnection;
 import org.apache.http.nio.protocol.BasicAsyncRequestProducer;
-import org.apache.http.nio.protocol.BasicAsyncResponseConsumer;
-import org.apache.http.nio.protocol.HttpAsyncRequestExecutor;
-import org.apache.http.nio.protocol.HttpAsyncRequester;
-import org.apache.http.nio.reactor.ConnectingIOReactor;
-import org.apache.http.nio.reactor.IOEventDispatch;
-import org.apache.http.nio.reactor.IOReactorException;
 import org.apache.http.protocol.BasicHttpContext;
-import org.apache.http.protocol.HttpProcessor;
-import org.apache.http.protocol.ImmutableHttpProcessor;
-import org.apache.http.protocol.RequestConnControl;
-import org.apache.http.protocol.RequestContent;
-import org.apache.http.protocol.RequestExpectContinue;
-import org.apache.http.protocol.RequestTargetHost;
-import org.apache.http.protocol.RequestUserAgent;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLContext;
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InterruptedIOException;
 import java.lang.reflect.Type;
 import java.net.URL;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.ACCEPT;
 import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.ERROR;
 import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.ID;
 import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.JSONRPC;
@@ -90,29 +68,44 @@ import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.RESULT;
  * <li>com.googlecode.jsonrpc4j.async.max.inflight.total - maximum number of
  * total in-flight requests (across all providers), default is 500</li>
  * <li>com.googlecode.jsonrpc4j.async.reactor.threads - number of asynchronous
- * IO reactor threads, default is 2 (more than sufficient for most clients)</li>
+ * IO reactor threads, default is 1</li>
  * </ul>
+ * <p>
+ * These properties configure one transport shared by every client created
+ * through a constructor.  A client created through {@link #builder(URL)}
+ * gets its own reactor threads and connection pool instead, isolating it
+ * from other upstreams, and must be {@link #close() closed} when no longer
+ * needed.
  *
  * @author Brett Wooldridge
  */
 @SuppressWarnings({"WeakerAccess", "unused"})
-public class JsonRpcHttpAsyncClient {
+public class JsonRpcHttpAsyncClient implements IJsonRpcAsyncClient, Closeable {
 	
 	private static final Logger logger = LoggerFactory.getLogger(JsonRpcHttpAsyncClient.class);
 	
-	private static final AtomicBoolean initialized = new AtomicBoolean();
+	private static final String SOCKET_TIMEOUT = "com.googlecode.jsonrpc4j.async.socket.timeout";
+	private static final String CONNECT_TIMEOUT = "com.googlecode.jsonrpc4j.async.connect.timeout";
+	private static final String SOCKET_BUFFER = "com.googlecode.jsonrpc4j.async.socket.buffer";
+	private static final String TCP_NODELAY = "com.googlecode.jsonrpc4j.async.tcp.nodelay";
+	private static final String MAX_INFLIGHT_ROUTE = "com.googlecode.jsonrpc4j.async.max.inflight.route";
+	private static final String MAX_INFLIGHT_TOTAL = "com.googlecode.jsonrpc4j.async.max.inflight.total";
+	private static final String REACTOR_THREADS = "com.googlecode.jsonrpc4j.async.reactor.threads";
+	
 	private static final AtomicLong nextId = new AtomicLong();
-	private static HttpAsyncRequester requester;
-	private static BasicNIOConnPool pool;
+	private static final Object sharedTransportLock = new Object();
+	private static AsyncHttpTransport sharedTransport;
 	private static SSLContext sslContext;
+	private final AsyncHttpTransport transport;
+	private final boolean ownsTransport;
 	private final ExceptionResolver exceptionResolver;
 	private final Map<String, String> headers = new HashMap<>();
 	private final ObjectMapper mapper;
 	private final URL serviceUrl;
-	
-	{
-		initialize();
-	}
+	private DataFormat dataFormat = DataFormat.JSON;
+	private ObjectMapper formatMapper;
+	private final Map<DataFormat, ObjectMapper> formatMappers = new ConcurrentHashMap<>();
+	private final RequestWriter requestWriter;
 	
 	/**
 	 * Creates the {@link JsonRpcHttpAsyncClient} bound to the given {@code serviceUrl}.
@@ -149,7 +142,13 @@ public class JsonRpcHttpAsyncClient {
 	 * @param headers    the headers
 	 */
 	public JsonRpcHttpAsyncClient(ObjectMapper mapper, ExceptionResolver exceptionResolver, URL serviceUrl, Map<String, String> headers) {
+		this(mapper, exceptionResolver, serviceUrl, headers, null);
+	}
+	
+	private JsonRpcHttpAsyncClient(ObjectMapper mapper, ExceptionResolver exceptionResolver, URL serviceUrl, Map<String, String> headers, AsyncHttpTransport transport) {
 		this.mapper = mapper;
+		this.formatMapper = mapper;
+		this.requestWriter = new RequestWriter(mapper);
 		this.serviceUrl = serviceUrl;
 		this.headers.putAll(headers);
 		this.exceptionResolver = exceptionResolver;
@@ -157,6 +156,8 @@ public class JsonRpcHttpAsyncClient {
 		if(this.exceptionResolver == null) {
 			throw new IllegalArgumentException("ExceptionResolver can not be null");
 		}
+		this.ownsTransport = transport != null;
+		this.transport = ownsTransport ? transport : sharedTransport();
 	}
 
 	/**
@@ -171,10 +172,38 @@ public class JsonRpcHttpAsyncClient {
 		this(new ObjectMapper(), serviceUrl, headers);
 	}
 	
+	/**
+	 * Creates a {@link Builder} for a client with its own reactor and connection pool.
+	 *
+	 * @param serviceUrl the service end-point URL
+	 * @return the builder
+	 */
+	public static Builder builder(URL serviceUrl) {
+		return new Builder(serviceUrl);
+	}
+	
+	private static AsyncHttpTransport sharedTransport() {
+		synchronized (sharedTransportLock) {
+			if (sharedTransport == null) {
+				sharedTransport = new AsyncHttpTransport(
+						Integer.getInteger(REACTOR_THREADS, 1),
+						Integer.getInteger(MAX_INFLIGHT_ROUTE, 500),
+						Integer.getInteger(MAX_INFLIGHT_TOTAL, 500),
+						Integer.getInteger(CONNECT_TIMEOUT, 30000),
+						Integer.getInteger(SOCKET_TIMEOUT, 30000),
+						Integer.getInteger(SOCKET_BUFFER, 8 * 1024),
+						Boolean.parseBoolean(System.getProperty(TCP_NODELAY, "true")),
+						sslContext);
+			}
+			return sharedTransport;
+		}
+	}
+	
 	/**
 	 * Set the SSLContext to be used to create SSL connections. This method most
 	 * be called before the first {@code JsonRpcHttpAsyncClient} is constructed,
-	 * otherwise it has no effect.
+	 * otherwise it has no effect.  Clients created with a {@link Builder} use
+	 * {@link Builder#sslContext(SSLContext)} instead.
 	 *
 	 * @param sslContext the {@code SSLContext to use}
 	 */
@@ -182,34 +211,55 @@ public class JsonRpcHttpAsyncClient {
 		JsonRpcHttpAsyncClient.sslContext = sslContext;
 	}
 	
+	public DataFormat getDataFormat() {
+		return dataFormat;
+	}
+	
+	/**
+	 * Sets the format requests are sent in and asks the server to answer in it.
+	 *
+	 * @param dataFormat the {@link DataFormat}, {@link DataFormat#JSON} by default
+	 * @throws IllegalArgumentException for {@link DataFormat#ATTACHMENTS}, which this client does not frame
+	 */
+	public void setDataFormat(DataFormat dataFormat) {
+		if (dataFormat == DataFormat.ATTACHMENTS) {
+			throw new IllegalArgumentException(dataFormat + " is not supported by " + getClass().getSimpleName());
+		}
+		this.formatMapper = dataFormat.createMapper(mapper);
+		this.dataFormat = dataFormat;
+	}
+	
 	/**
 	 * Invokes the given method with the given arguments and returns
-	 * immediately. The {@code Future} object that is returned can be used to
-	 * retrieve the result.
+	 * immediately. The {@code CompletableFuture} object that is returned can be
+	 * used to retrieve the result.
 	 *
 	 * @param methodName the name of the method to invoke
 	 * @param argument   the arguments to the method
-	 * @return the response {@code Future<T>}
+	 * @return the response {@code CompletableFuture<Object>}
 	 */
-	public Future<Object> invoke(String methodName, Object argument) {
+	public CompletableFuture<Object> invoke(String methodName, Object argument) {
 		return invoke(methodName, argument, Object.class, new HashMap<String, String>());
 	}
 	
 	/**
 	 * Invokes the given method with the given arguments and returns
 	 * immediately. The {@code extraHeaders} are added to the request. The
-	 * {@code Future<T>} object that is returned can be used to retrieve the
-	 * result.
+	 * {@code CompletableFuture<T>} object that is returned can be used to
+	 * retrieve the result.  Cancelling it aborts the HTTP exchange and
+	 * releases its connection.
 	 *
 	 * @param methodName   the name of the method to invoke
 	 * @param argument     the argument to the method
-	 * @param returnType   the return type
+	 * @param returnType   the return type, which may be generic
 	 * @param extraHeaders extra headers to add to the request
 	 * @param <T>          the return type
-	 * @return the response {@code Future<T>}
+	 * @return the response {@code CompletableFuture<T>}
 	 */
-	private <T> Future<T> invoke(String methodName, Object argument, Class<T> returnType, Map<String, String> extraHeaders) {
-		return doInvoke(methodName, argument, returnType, extraHeaders, new JsonRpcFuture<T>());
+	public <T> CompletableFuture<T> invoke(String methodName, Object argument, Type returnType, Map<String, String> extraHeaders) {
+		final JsonRpcFuture<T> future = new JsonRpcFuture<>(new StreamingResponseConsumer(dataFormat, this::getReadMapper));
+		future.setExchange(doInvoke(methodName, argument, returnType, extraHeaders, future, future.consumer, future.context));
+		return future;
 	}
 	
 	/**
@@ -223,14 +273,19 @@ public class JsonRpcHttpAsyncClient {
 	 * @param extraHeaders extra headers to add to the request
 	 * @param returnType   the return type
 	 * @param callback     the {@code JsonRpcCallback}
+	 * @param consumer     reads the response
+	 * @param httpContext  the context of the exchange
 	 */
-	@SuppressWarnings("unchecked")
-	private <T> Future<T> doInvoke(String methodName, Object argument, Class<T> returnType, Map<String, String> extraHeaders, JsonRpcCallback<T> callback) {
+	private <T> Future<JsonParser> doInvoke(String methodName, Object argument, Type returnType, Map<String, String> extraHeaders, JsonRpcCallback<T> callback,
+			StreamingResponseConsumer consumer, HttpContext httpContext) {
 		
 		String path = serviceUrl.getPath() + (serviceUrl.getQuery() != null ? "?" + serviceUrl.getQuery() : "");
 		int port = serviceUrl.getPort() != -1 ? serviceUrl.getPort() : serviceUrl.getDefaultPort();
 		HttpRequest request = new BasicHttpEntityEnclosingRequest("POST", path);
 		
+		if (dataFormat != DataFormat.JSON) {
+			request.addHeader(ACCEPT, dataFormat.getContentType());
+		}
 		addHeaders(request, headers);
 		addHeaders(request, extraHeaders);
 		
@@ -238,18 +293,15 @@ public class JsonRpcHttpAsyncClient {
 			writeRequest(methodName, argument, request);
 		} catch (IOException e) {
 			callback.onError(e);
+			return null;
 		}
 		
 		HttpHost target = new HttpHost(serviceUrl.getHost(), port, serviceUrl.getProtocol());
 		BasicAsyncRequestProducer asyncRequestProducer = new BasicAsyncRequestProducer(target, request);
-		BasicAsyncResponseConsumer asyncResponseConsumer = new BasicAsyncResponseConsumer();
 		
 		RequestAsyncFuture<T> futureCallback = new RequestAsyncFuture<>(returnType, callback);
 		
-		BasicHttpContext httpContext = new BasicHttpContext();
-		requester.execute(asyncRequestProducer, asyncResponseConsumer, pool, httpContext, futureCallback);
-		
-		return (callback instanceof JsonRpcFuture ? (Future<T>) callback : null);
+		return transport.getRequester().execute(asyncRequestProducer, consumer, transport.getPool(), httpContext, futureCallback);
 	}
 	
 	/**
@@ -273,6 +325,29 @@ public class JsonRpcHttpAsyncClient {
 	 */
 	private void writeRequest(String methodName, Object arguments, HttpRequest httpRequest) throws IOException {
 		
+		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(512);
+		if (dataFormat == DataFormat.JSON && RequestWriter.canWrite(arguments)) {
+			final long id = nextId.getAndIncrement();
+			logger.debug("JSON-RPC Request: {} with id {}", methodName, id);
+			requestWriter.write(byteArrayOutputStream, methodName, arguments, id, null);
+		} else {
+			ObjectNode request = createRequest(methodName, arguments);
+			logger.debug("JSON-RPC Request: {}", request);
+			formatMapper.writeValue(byteArrayOutputStream, request);
+		}
+		HttpEntityEnclosingRequest entityRequest = (HttpEntityEnclosingRequest) httpRequest;
+		
+		HttpEntity entity;
+		if (entityRequest.getFirstHeader("Content-Type") == null) {
+			final ContentType contentType = dataFormat == DataFormat.JSON ? ContentType.APPLICATION_JSON : ContentType.create(dataFormat.getContentType());
+			entity = new ByteArrayEntity(byteArrayOutputStream.toByteArray(), contentType);
+		} else {
+			entity = new ByteArrayEntity(byteArrayOutputStream.toByteArray());
+		}
+		entityRequest.setEntity(entity);
+	}
+	
+	private ObjectNode createRequest(String methodName, Object arguments) {
 		ObjectNode request = mapper.createObjectNode();
 		request.put(ID, nextId.getAndIncrement());
 		request.put(JSONRPC, JsonRpcBasicServer.VERSION);
@@ -294,34 +369,45 @@ public class JsonRpcHttpAsyncClient {
 		} else if (arguments != null) {
 			request.set(PARAMS, mapper.valueToTree(arguments));
 		}
-		
-		logger.debug("JSON-RPC Request: {}", request);
-		
-		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(512);
-		mapper.writeValue(byteArrayOutputStream, request);
-		HttpEntityEnclosingRequest entityRequest = (HttpEntityEnclosingRequest) httpRequest;
-		
-		HttpEntity entity;
-		if (entityRequest.getFirstHeader("Content-Type") == null) {
-			entity = new ByteArrayEntity(byteArrayOutputStream.toByteArray(), ContentType.APPLICATION_JSON);
-		} else {
-			entity = new ByteArrayEntity(byteArrayOutputStream.toByteArray());
-		}
-		entityRequest.setEntity(entity);
+		return request;
 	}
 	
 	/**
 	 * Invokes the given method with the given arguments and returns
-	 * immediately. The {@code Future<T>} object that is returned can be used to
-	 * retrieve the result.
+	 * immediately. The {@code CompletableFuture<T>} object that is returned
+	 * can be used to retrieve the result.
 	 *
 	 * @param methodName the name of the method to invoke
 	 * @param argument   the arguments to the method
 	 * @param returnType the return type
 	 * @param <T>        the return type
-	 * @return the response {@code Future<T>}
+	 * @return the response {@code CompletableFuture<T>}
 	 */
-	public <T> Future<T> invoke(String methodName, Object argument, Class<T> returnType) {
+	public <T> CompletableFuture<T> invoke(String methodName, Object argument, Class<T> returnType) {
+		return invoke(methodName, argument, returnType, new HashMap<String, String>());
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<Object> invokeAsync(String methodName, Object argument, Type returnType, Map<String, String> extraHeaders) {
+		return invoke(methodName, argument, returnType, extraHeaders);
+	}
+	
+	/**
+	 * Invokes the given method with the given arguments and returns
+	 * immediately, reading the result as a possibly generic type such as
+	 * {@code List<Foo>}.
+	 *
+	 * @param methodName the name of the method to invoke
+	 * @param argument   the arguments to the method
+	 * @param returnType the return type
+	 * @param <T>        the return type
+	 * @return the response {@code CompletableFuture<T>}
+	 * @see #invoke(String, Object, Type, Map)
+	 */
+	public <T> CompletableFuture<T> invoke(String methodName, Object argument, Type returnType) {
 		return invoke(methodName, argument, returnType, new HashMap<String, String>());
 	}
 	
@@ -349,8 +435,8 @@ public class JsonRpcHttpAsyncClient {
 	 * @param extraHeaders extra headers to add to the request
 	 * @param callback     the {@code JsonRpcCallback}
 	 */
-	private <T> void invoke(String methodName, Object argument, Class<T> returnType, Map<String, String> extraHeaders, JsonRpcCallback<T> callback) {
-		doInvoke(methodName, argument, returnType, extraHeaders, callback);
+	private <T> void invoke(String methodName, Object argument, Type returnType, Map<String, String> extraHeaders, JsonRpcCallback<T> callback) {
+		doInvoke(methodName, argument, returnType, extraHeaders, callback, new StreamingResponseConsumer(dataFormat, this::getReadMapper), new BasicHttpContext());
 	}
 	
 	/**
@@ -369,195 +455,263 @@ public class JsonRpcHttpAsyncClient {
 	}
 	
 	/**
-	 * Reads a JSON-RPC response from the server. This blocks until a response
-	 * is received.
+	 * @return the mapper for responses in the given format, derived once from the client's mapper
+	 */
+	private ObjectMapper getReadMapper(DataFormat format) {
+		return format == dataFormat ? formatMapper : formatMappers.computeIfAbsent(format, f -> f.createMapper(mapper));
+	}
+	
+	/**
+	 * Reads a JSON-RPC response, binding {@code result} straight from the
+	 * parser to the return type rather than through an intermediate tree.
 	 *
 	 * @param returnType the expected return type
-	 * @param ips        the {@link InputStream} to read from
+	 * @param parser     a parser over the complete response
 	 * @return the object returned by the JSON-RPC response
 	 * @throws Throwable on error
 	 */
-	private <T> T readResponse(Type returnType, InputStream ips) throws Throwable {
-		JsonNode response = mapper.readTree(new NoCloseInputStream(ips));
-		logger.debug("JSON-RPC Response: {}", response);
-		if (!response.isObject()) {
-			throw new JsonRpcClientException(0, "Invalid JSON-RPC response", response);
-		}
-		ObjectNode jsonObject = ObjectNode.class.cast(response);
-		
-		if (jsonObject.has(ERROR) && jsonObject.get(ERROR) != null && !jsonObject.get(ERROR).isNull()) {
-			throw exceptionResolver.resolveException(jsonObject);
-		}
-		if (jsonObject.has(RESULT) && !jsonObject.get(RESULT).isNull() && jsonObject.get(RESULT) != null) {
-			
-			JsonParser returnJsonParser = mapper.treeAsTokens(jsonObject.get(RESULT));
-			JavaType returnJavaType = mapper.getTypeFactory().constructType(returnType);
+	@SuppressWarnings("unchecked")
+	private <T> T readResponse(Type returnType, JsonParser parser) throws Throwable {
+		try (JsonParser jsonParser = parser) {
+			if (jsonParser.nextToken() != JsonToken.START_OBJECT) {
+				throw new JsonRpcClientException(0, "Invalid JSON-RPC response", jsonParser.currentToken() == null ? null : mapper.<JsonNode>readTree(jsonParser));
+			}
+			// everything but the result, which is all the ExceptionResolver needs
+			ObjectNode jsonObject = mapper.createObjectNode();
+			T result = null;
+			while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = jsonParser.getCurrentName();
+				JsonToken value = jsonParser.nextToken();
+				if (RESULT.equals(name) && value != JsonToken.VALUE_NULL && returnType != null) {
+					JavaType returnJavaType = mapper.getTypeFactory().constructType(returnType);
+					result = (T) mapper.readValue(jsonParser, returnJavaType);
+				} else {
+					jsonObject.set(name, mapper.<JsonNode>readTree(jsonParser));
+				}
+			}
+			logger.debug("JSON-RPC Response: {}", jsonObject);
 			
-			return mapper.readValue(returnJsonParser, returnJavaType);
+			if (jsonObject.has(ERROR) && jsonObject.get(ERROR) != null && !jsonObject.get(ERROR).isNull()) {
+				throw exceptionResolver.resolveException(jsonObject);
+			}
+			return result;
 		}
-		return null;
-	}
-	
-	private void initialize() {
-		if (initialized.getAndSet(true)) {
-			return;
-		}
-		IOReactorConfig.Builder config = createConfig();
-		// params.setParameter(CoreProtocolPNames.USER_AGENT, "jsonrpc4j/1.0");
-		final ConnectingIOReactor ioReactor = createIoReactor(config);
-		createSslContext();
-		int socketBufferSize = Integer.getInteger("com.googlecode.jsonrpc4j.async.socket.buffer", 8 * 1024);
-		final ConnectionConfig connectionConfig = ConnectionConfig.custom().setBufferSize(socketBufferSize).build();
-		BasicNIOConnFactory nioConnFactory = new BasicNIOConnFactory(sslContext, null, connectionConfig);
-		pool = new BasicNIOConnPool(ioReactor, nioConnFactory, Integer.getInteger("com.googlecode.jsonrpc4j.async.connect.timeout", 30000));
-		pool.setDefaultMaxPerRoute(Integer.getInteger("com.googlecode.jsonrpc4j.async.max.inflight.route", 500));
-		pool.setMaxTotal(Integer.getInteger("com.googlecode.jsonrpc4j.async.max.inflight.total", 500));
-
-		Thread t = new Thread(
-			() -> {
-				try {
-					HttpAsyncRequestExecutor protocolHandler = new HttpAsyncRequestExecutor();
-					IOEventDispatch ioEventDispatch = new DefaultHttpClientIODispatch<>(
-						protocolHandler,
-						sslContext,
-						connectionConfig
-					);
-					ioReactor.execute(ioEventDispatch);
-				} catch (InterruptedIOException ex) {
-					System.err.println("Interrupted");
-				} catch (IOException e) {
-					System.err.println("I/O error: " + e.getMessage());
-				}
-			},
-			"jsonrpc4j HTTP IOReactor"
-		);
-
-		t.setDaemon(true);
-		t.start();
-		
-		HttpProcessor httpProcessor = new ImmutableHttpProcessor(new RequestContent(), new RequestTargetHost(), new RequestConnControl(), new RequestUserAgent(), new RequestExpectContinue(false));
-		requester = new HttpAsyncRequester(httpProcessor, new DefaultConnectionReuseStrategy());
-	}
-
-	private IOReactorConfig.Builder createConfig() {
-		IOReactorConfig.Builder config = IOReactorConfig.custom();
-		config = config.setSoTimeout(Integer.getInteger("com.googlecode.jsonrpc4j.async.socket.timeout", 30000));
-		config = config.setConnectTimeout(Integer.getInteger("com.googlecode.jsonrpc4j.async.connect.timeout", 30000));
-		config = config.setTcpNoDelay(Boolean.valueOf(System.getProperty("com.googlecode.jsonrpc4j.async.tcp.nodelay", "true")));
-		config = config.setIoThreadCount(Integer.getInteger("com.googlecode.jsonrpc4j.async.reactor.threads", 1));
-		return config;
 	}
 	
-	private ConnectingIOReactor createIoReactor(IOReactorConfig.Builder config) {
-		final ConnectingIOReactor ioReactor;
-		try {
-			ioReactor = new DefaultConnectingIOReactor(config.build());
-		} catch (IOReactorException e) {
-			throw new RuntimeException("Exception initializing asynchronous Apache HTTP Client", e);
+	/**
+	 * Closes the connection pool and stops the reactor threads of a client
+	 * created with a {@link Builder}.  Clients using the shared transport
+	 * leave it running.
+	 *
+	 * @throws IOException if shutting down fails
+	 */
+	@Override
+	public void close() throws IOException {
+		if (ownsTransport) {
+			transport.close();
 		}
-		return ioReactor;
 	}
 	
-	private void createSslContext() {
-		if (sslContext == null) {
-			try {
-				sslContext = SSLContext.getDefault();
-			} catch (Exception e) {
-				throw new RuntimeException(e);
-			}
+	/**
+	 * Configures a {@link JsonRpcHttpAsyncClient} with its own IO reactor and
+	 * connection pool.  Settings left alone fall back to the system properties
+	 * described on {@link JsonRpcHttpAsyncClient}, except the number of reactor
+	 * threads, which defaults to the number of available processors.
+	 */
+	public static class Builder {
+		
+		private final URL serviceUrl;
+		private final Map<String, String> headers = new HashMap<>();
+		private ObjectMapper mapper;
+		private ExceptionResolver exceptionResolver = DefaultExceptionResolver.INSTANCE;
+		private int reactorThreads = Integer.getInteger(REACTOR_THREADS, Runtime.getRuntime().availableProcessors());
+		private int maxPerRoute = Integer.getInteger(MAX_INFLIGHT_ROUTE, 500);
+		private int maxTotal = Integer.getInteger(MAX_INFLIGHT_TOTAL, 500);
+		private int connectTimeoutMillis = Integer.getInteger(CONNECT_TIMEOUT, 30000);
+		private int socketTimeoutMillis = Integer.getInteger(SOCKET_TIMEOUT, 30000);
+		private int socketBufferSize = Integer.getInteger(SOCKET_BUFFER, 8 * 1024);
+		private boolean tcpNoDelay = Boolean.parseBoolean(System.getProperty(TCP_NODELAY, "true"));
+		private SSLContext sslContext;
+		
+		private Builder(URL serviceUrl) {
+			this.serviceUrl = serviceUrl;
 		}
-	}
-	
-	private static class JsonRpcFuture<T> implements Future<T>, JsonRpcCallback<T> {
 		
-		private T object;
-		private volatile boolean done;
-		private ExecutionException exception;
-
-		private final Lock lock = new ReentrantLock();
-
-		private final Condition condition = lock.newCondition();
+		/**
+		 * @param mapper the {@link ObjectMapper} to use for json&lt;-&gt;java conversion
+		 * @return this builder
+		 */
+		public Builder mapper(ObjectMapper mapper) {
+			this.mapper = mapper;
+			return this;
+		}
 		
-		public boolean cancel(boolean mayInterruptIfRunning) {
-			return false;
+		/**
+		 * @param exceptionResolver the {@link ExceptionResolver} translating remote exceptions
+		 * @return this builder
+		 */
+		public Builder exceptionResolver(ExceptionResolver exceptionResolver) {
+			this.exceptionResolver = exceptionResolver;
+			return this;
 		}
 		
-		public boolean isCancelled() {
-			return false;
+		/**
+		 * @param headers headers to add to every request
+		 * @return this builder
+		 */
+		public Builder headers(Map<String, String> headers) {
+			this.headers.putAll(headers);
+			return this;
 		}
 		
-		public boolean isDone() {
-			return done;
+		/**
+		 * @param reactorThreads the number of IO reactor threads
+		 * @return this builder
+		 */
+		public Builder reactorThreads(int reactorThreads) {
+			this.reactorThreads = reactorThreads;
+			return this;
 		}
 		
-		public T get() throws InterruptedException,
-				ExecutionException {
-
-			lock.lock();
-			try {
-
-				while (!done) {
-					condition.await();
-				}
-
-				if (exception != null) {
-					throw exception;
-				}
-
-				return object;
-			} finally {
-				lock.unlock();
+		/**
+		 * @param maxPerRoute the maximum number of connections per route
+		 * @return this builder
+		 */
+		public Builder maxPerRoute(int maxPerRoute) {
+			this.maxPerRoute = maxPerRoute;
+			return this;
+		}
+		
+		/**
+		 * @param maxTotal the maximum number of connections in the pool
+		 * @return this builder
+		 */
+		public Builder maxTotal(int maxTotal) {
+			this.maxTotal = maxTotal;
+			return this;
+		}
+		
+		/**
+		 * @param connectTimeoutMillis the socket connect timeout in milliseconds
+		 * @return this builder
+		 */
+		public Builder connectTimeoutMillis(int connectTimeoutMillis) {
+			this.connectTimeoutMillis = connectTimeoutMillis;
+			return this;
+		}
+		
+		/**
+		 * @param socketTimeoutMillis the socket idle timeout in milliseconds
+		 * @return this builder
+		 */
+		public Builder socketTimeoutMillis(int socketTimeoutMillis) {
+			this.socketTimeoutMillis = socketTimeoutMillis;
+			return this;
+		}
+		
+		/**
+		 * @param socketBufferSize the socket buffer size in bytes
+		 * @return this builder
+		 */
+		public Builder socketBufferSize(int socketBufferSize) {
+			this.socketBufferSize = socketBufferSize;
+			return this;
+		}
+		
+		/**
+		 * @param tcpNoDelay whether to use {@code TCP_NODELAY}
+		 * @return this builder
+		 */
+		public Builder tcpNoDelay(boolean tcpNoDelay) {
+			this.tcpNoDelay = tcpNoDelay;
+			return this;
+		}
+		
+		/**
+		 * @param sslContext the {@link SSLContext} for HTTPS connections, the JVM default if not set
+		 * @return this builder
+		 */
+		public Builder sslContext(SSLContext sslContext) {
+			this.sslContext = sslContext;
+			return this;
+		}
+		
+		/**
+		 * Starts the reactor threads and creates the client.
+		 *
+		 * @return the client, to be {@link JsonRpcHttpAsyncClient#close() closed} after use
+		 */
+		public JsonRpcHttpAsyncClient build() {
+			if (exceptionResolver == null) {
+				throw new IllegalArgumentException("ExceptionResolver can not be null");
 			}
+			AsyncHttpTransport transport = new AsyncHttpTransport(reactorThreads, maxPerRoute, maxTotal,
+					connectTimeoutMillis, socketTimeoutMillis, socketBufferSize, tcpNoDelay, sslContext);
+			return new JsonRpcHttpAsyncClient(mapper != null ? mapper : new ObjectMapper(), exceptionResolver, serviceUrl, headers, transport);
+		}
+	}
+	
+	/**
+	 * Completes from the {@link JsonRpcCallback} methods, and cancels the
+	 * underlying HTTP exchange when cancelled itself.  The requester only
+	 * gives a connection back once its response is complete, so a request
+	 * already sent has its connection shut down to free it for other calls.
+	 */
+	private static class JsonRpcFuture<T> extends CompletableFuture<T> implements JsonRpcCallback<T> {
+		
+		private final StreamingResponseConsumer consumer;
+		private final HttpContext context = new BasicHttpContext();
+		private volatile Future<?> exchange;
+		
+		JsonRpcFuture(StreamingResponseConsumer consumer) {
+			this.consumer = consumer;
 		}
 		
-		public T get(long timeout, TimeUnit unit)
-				throws InterruptedException, ExecutionException,
-				TimeoutException {
-
-			if (timeout <= 0) {
-				throw new TimeoutException();
+		/**
+		 * The exchange only exists once the request was handed to the
+		 * requester, so a cancellation that came first is applied here.
+		 */
+		void setExchange(Future<?> exchange) {
+			this.exchange = exchange;
+			if (exchange != null && isCancelled()) {
+				exchange.cancel(true);
 			}
-
-			long nanos = unit.toNanos(timeout);
-			lock.lock();
-			try {
-				while (!done) {
-					if (nanos <= 0) {
-						throw new TimeoutException();
-					}
-					nanos = condition.awaitNanos(nanos);
-				}
-
-				if (exception != null) {
-					throw exception;
+		}
+		
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			final boolean cancelled = super.cancel(mayInterruptIfRunning);
+			final Future<?> current = exchange;
+			if (cancelled && current != null) {
+				current.cancel(true);
+			}
+			if (cancelled && consumer.abandon()) {
+				shutdownConnection();
+			}
+			return cancelled;
+		}
+		
+		/**
+		 * The connection is known once the request was written; without it,
+		 * the abandoned response still arrives and its connection is closed.
+		 */
+		private void shutdownConnection() {
+			final Object connection = context.getAttribute(HttpCoreContext.HTTP_CONNECTION);
+			if (connection instanceof NHttpClientConnection) {
+				try {
+					((NHttpClientConnection) connection).shutdown();
+				} catch (IOException e) {
+					logger.debug("Failed to shut down the connection of a cancelled request", e);
 				}
-				return object;
-			} finally {
-				lock.unlock();
 			}
-
 		}
 		
 		public void onComplete(T result) {
-			lock.lock();
-			try {
-				object = result;
-				done = true;
-				condition.signal();
-			} finally {
-				lock.unlock();
-			}
+			complete(result);
 		}
 		
 		public void onError(Throwable t) {
-			lock.lock();
-			try {
-				exception = new ExecutionException(t);
-				done = true;
-				condition.signal();
-			} finally {
-				lock.unlock();
-			}
+			completeExceptionally(t);
 		}
 	}
 	
@@ -566,35 +720,18 @@ public class JsonRpcHttpAsyncClient {
 	 *
 	 * @param <T>
 	 */
-	private class RequestAsyncFuture<T> implements FutureCallback<HttpResponse> {
+	private class RequestAsyncFuture<T> implements FutureCallback<JsonParser> {
 		private final JsonRpcCallback<T> callBack;
-		private final Class<T> type;
+		private final Type type;
 		
-		RequestAsyncFuture(Class<T> type, JsonRpcCallback<T> callBack) {
+		RequestAsyncFuture(Type type, JsonRpcCallback<T> callBack) {
 			this.type = type;
 			this.callBack = callBack;
 		}
 		
-		public void completed(final HttpResponse response) {
+		public void completed(final JsonParser response) {
 			try {
-				StatusLine statusLine = response.getStatusLine();
-				int statusCode = statusLine.getStatusCode();
-				
-				InputStream stream;
-				if (statusCode == 200) {
-					HttpEntity entity = response.getEntity();
-					try {
-						stream = entity.getContent();
-					} catch (Exception e) {
-						failed(e);
-						return;
-					}
-					
-					callBack.onComplete(type.cast(readResponse(type, stream)));
-				} else {
-					callBack.onError(new RuntimeException(
-							"Unexpected response code: " + statusCode));
-				}
+				callBack.onComplete(JsonRpcHttpAsyncClient.this.<T>readResponse(type, response));
 			} catch (Throwable t) {
 				callBack.onError(t);
 			}
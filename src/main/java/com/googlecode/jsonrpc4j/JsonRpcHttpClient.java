@@ -17,8 +17,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
 
 import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.*;
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -30,6 +30,23 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 public class JsonRpcHttpClient extends JsonRpcClient implements IJsonRpcClient {
 	
 	private static final String GZIP = "gzip";
+	private static final String DEFLATE = "deflate";
+	
+	/**
+	 * Requests smaller than this are sent uncompressed even when {@code gzipRequests} is set,
+	 * as the gzip framing alone would outweigh the savings.
+	 */
+	public static final int DEFAULT_REQUEST_COMPRESSION_THRESHOLD = 1024;
+	
+	/**
+	 * Responses with more unread bytes than this are not drained for reuse
+	 * in keep-alive mode; their connection is closed instead.
+	 */
+	public static final int DEFAULT_MAX_DRAIN_BYTES = 64 * 1024;
+	
+	static final DeflaterPool GZIP_DEFLATER_POOL = new DeflaterPool(Deflater.DEFAULT_COMPRESSION, true, DeflaterPool.DEFAULT_MAX_SIZE);
+	static final InflaterPool GZIP_INFLATER_POOL = new InflaterPool(true, InflaterPool.DEFAULT_MAX_SIZE);
+	static final InflaterPool DEFLATE_INFLATER_POOL = new InflaterPool(false, InflaterPool.DEFAULT_MAX_SIZE);
 	
 	private final Map<String, String> headers = new HashMap<>();
 	private URL serviceUrl;
@@ -41,6 +58,15 @@ public class JsonRpcHttpClient extends JsonRpcClient implements IJsonRpcClient {
 	private HostnameVerifier hostNameVerifier = null;
 	private String contentType = JSONRPC_CONTENT_TYPE;
 	private boolean gzipRequests = false;
+	private int requestCompressionThreshold = DEFAULT_REQUEST_COMPRESSION_THRESHOLD;
+	private final AtomicLong compressedRequests = new AtomicLong();
+	private final AtomicLong uncompressedRequests = new AtomicLong();
+	private final AtomicLong compressionBytesIn = new AtomicLong();
+	private final AtomicLong compressionBytesOut = new AtomicLong();
+	private boolean keepAlive = false;
+	private int maxDrainBytes = DEFAULT_MAX_DRAIN_BYTES;
+	private final AtomicLong releasedStreams = new AtomicLong();
+	private final AtomicLong discardedStreams = new AtomicLong();
 	
 	/**
 	 * Creates the {@link JsonRpcHttpClient} bound to the given {@code serviceUrl}.
@@ -121,29 +147,34 @@ public class JsonRpcHttpClient extends JsonRpcClient implements IJsonRpcClient {
 	@Override
 	public Object invoke(String methodName, Object argument, Type returnType, Map<String, String> extraHeaders) throws Throwable {
 		HttpURLConnection connection = prepareConnection(extraHeaders);
+		final ConnectionRelease release = new ConnectionRelease(connection);
 		try {
 			if (this.gzipRequests) {
-				connection.setRequestProperty(CONTENT_ENCODING, GZIP);
-				ByteArrayOutputStream baos = new ByteArrayOutputStream();
-				try (GZIPOutputStream gos = new GZIPOutputStream(baos)) {
-					super.invoke(methodName, argument, gos);
+				final CompressingRequestStream send = new CompressingRequestStream(connection);
+				try {
+					super.invoke(methodName, argument, send);
+				} catch (Throwable t) {
+					send.abort();
+					throw t;
 				}
-				connection.setFixedLengthStreamingMode(baos.size());
-				connection.connect();
-				connection.getOutputStream().write(baos.toByteArray());
+				send.close();
 			} else {
+				if (getDataFormat() == DataFormat.ATTACHMENTS) {
+					// attachments may be large, do not let the connection buffer the whole request
+					connection.setChunkedStreamingMode(0);
+				}
 				connection.connect();
 				try (OutputStream send = connection.getOutputStream()) {
 					super.invoke(methodName, argument, send);
 				}
 			}
 			
-			final boolean useGzip = useGzip(connection);
+			final String contentEncoding = connection.getHeaderField(CONTENT_ENCODING);
 			// read and return value
 			try {
-				try (InputStream answer = getStream(connection.getInputStream(), useGzip)) {
-					return super.readResponse(returnType, answer);
-				}
+				release.body = responseBody(connection.getInputStream());
+				release.answer = getStream(release.body, contentEncoding);
+				return release.handOver(returnType, super.readFormattedResponse(returnType, release.answer, responseFormat(connection), release));
 			} catch (JsonMappingException e) {
 				// JsonMappingException inherits from IOException
 				throw e;
@@ -153,21 +184,81 @@ public class JsonRpcHttpClient extends JsonRpcClient implements IJsonRpcClient {
 				}
 
 				byte[] errorText = e.getMessage().getBytes(UTF_8);
-				try (InputStream answer = getStream(connection.getErrorStream(), useGzip)) {
-					errorText = readErrorStream(answer, 1024);
-					PushbackInputStream wrappedStream = new PushbackInputStream(answer, errorText.length);
+				release.closeAnswer();
+				release.body = responseBody(connection.getErrorStream());
+				try {
+					release.answer = getStream(release.body, contentEncoding);
+					errorText = readErrorStream(release.answer, 1024);
+					PushbackInputStream wrappedStream = new PushbackInputStream(release.answer, errorText.length);
 					wrappedStream.unread(errorText);
-					return super.readResponse(returnType, wrappedStream);
+					return release.handOver(returnType, super.readFormattedResponse(returnType, wrappedStream, responseFormat(connection), release));
 				} catch (IOException ef) {
 					throw new HttpException(new String(errorText, UTF_8), ef);
 				}
 			}
 		} finally {
-			connection.disconnect();
+			if (!release.handedOver) {
+				release.close();
+			}
 		}
 		
 	}
 	
+	/**
+	 * Closes the response body and then gives the connection back to the
+	 * keep-alive cache if the body was released, or disconnects it.  A result
+	 * that is still reading the body closes it itself.
+	 */
+	private static class ConnectionRelease implements Closeable {
+		
+		private final HttpURLConnection connection;
+		private InputStream body;
+		private InputStream answer;
+		private boolean handedOver;
+		private boolean closed;
+		
+		ConnectionRelease(HttpURLConnection connection) {
+			this.connection = connection;
+		}
+		
+		void closeAnswer() {
+			if (answer != null) {
+				try {
+					answer.close();
+				} catch (IOException ignored) {
+					// the error stream is read next
+				}
+				answer = null;
+			}
+		}
+		
+		Object handOver(Type returnType, Object result) {
+			handedOver = isLazyResult(returnType, result);
+			return result;
+		}
+		
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				if (answer != null) {
+					answer.close();
+				}
+			} finally {
+				if (!(body instanceof KeepAliveInputStream) || !((KeepAliveInputStream) body).isReleased()) {
+					connection.disconnect();
+				}
+			}
+		}
+	}
+	
+	private InputStream responseBody(final InputStream inputStream) {
+		return keepAlive ? new KeepAliveInputStream(inputStream) : inputStream;
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -213,13 +304,23 @@ public class JsonRpcHttpClient extends JsonRpcClient implements IJsonRpcClient {
 		return connection;
 	}
 	
-	private boolean useGzip(final HttpURLConnection connection) {
-		String contentEncoding = connection.getHeaderField(CONTENT_ENCODING);
-		return contentEncoding != null && contentEncoding.equalsIgnoreCase(GZIP);
+	/**
+	 * The server may answer in another format than asked for, e.g. JSON
+	 * when it has no binary support, so trust its {@code Content-Type}.
+	 */
+	private DataFormat responseFormat(final HttpURLConnection connection) {
+		final DataFormat format = DataFormat.forContentType(connection.getContentType());
+		return format != null && format.isAvailable() ? format : getDataFormat();
 	}
 	
-	private InputStream getStream(final InputStream inputStream, final boolean useGzip) throws IOException {
-		return useGzip ? new GZIPInputStream(inputStream) : inputStream;
+	private InputStream getStream(final InputStream inputStream, final String contentEncoding) throws IOException {
+		if (GZIP.equalsIgnoreCase(contentEncoding)) {
+			return new PooledInflaterInputStream(inputStream, GZIP_INFLATER_POOL);
+		}
+		if (DEFLATE.equalsIgnoreCase(contentEncoding)) {
+			return new PooledInflaterInputStream(inputStream, DEFLATE_INFLATER_POOL);
+		}
+		return inputStream;
 	}
 	
 	private static byte[] readErrorStream(InputStream errorStream, int maxLength) throws IOException {
@@ -251,6 +352,9 @@ public class JsonRpcHttpClient extends JsonRpcClient implements IJsonRpcClient {
 	
 	private void addHeaders(Map<String, String> extraHeaders, HttpURLConnection connection) {
 		connection.setRequestProperty("Content-Type", contentType);
+		if (getDataFormat() != DataFormat.JSON) {
+			connection.setRequestProperty(ACCEPT, getDataFormat().getContentType());
+		}
 		for (Entry<String, String> entry : headers.entrySet()) {
 			connection.setRequestProperty(entry.getKey(), entry.getValue());
 		}
@@ -358,4 +462,260 @@ public class JsonRpcHttpClient extends JsonRpcClient implements IJsonRpcClient {
 		this.contentType = contentType;
 	}
 	
+	/**
+	 * Sets the format requests are sent in and asks the server to answer in it,
+	 * updating the {@code Content-Type} accordingly.
+	 *
+	 * @param dataFormat the {@link DataFormat}
+	 */
+	@Override
+	public void setDataFormat(DataFormat dataFormat) {
+		super.setDataFormat(dataFormat);
+		this.contentType = dataFormat.getContentType();
+	}
+	
+	/**
+	 * @param gzipRequests whether to gzip requests of at least {@link #getRequestCompressionThreshold()} bytes
+	 */
+	public void setGzipRequests(boolean gzipRequests) {
+		this.gzipRequests = gzipRequests;
+	}
+	
+	/**
+	 * @return the minimum request size in bytes to gzip
+	 */
+	public int getRequestCompressionThreshold() {
+		return requestCompressionThreshold;
+	}
+	
+	/**
+	 * @param requestCompressionThreshold the minimum request size in bytes to gzip when
+	 *                                    {@code gzipRequests} is set, {@code 0} to always compress
+	 */
+	public void setRequestCompressionThreshold(int requestCompressionThreshold) {
+		this.requestCompressionThreshold = requestCompressionThreshold;
+	}
+	
+	/**
+	 * @return the number of requests sent gzipped
+	 */
+	public long getCompressedRequestCount() {
+		return compressedRequests.get();
+	}
+	
+	/**
+	 * @return the number of requests sent as is because they were below the threshold
+	 */
+	public long getUncompressedRequestCount() {
+		return uncompressedRequests.get();
+	}
+	
+	/**
+	 * @return the ratio of uncompressed to compressed bytes over all gzipped requests,
+	 *         e.g. {@code 5.0} when requests shrank to a fifth, {@code 1.0} if none was compressed yet
+	 */
+	public double getRequestCompressionRatio() {
+		final long out = compressionBytesOut.get();
+		return out == 0 ? 1.0 : (double) compressionBytesIn.get() / out;
+	}
+	
+	/**
+	 * @return whether connections are handed back to the JDK keep-alive cache after each call
+	 */
+	public boolean isKeepAlive() {
+		return keepAlive;
+	}
+	
+	/**
+	 * Enables connection reuse.  Instead of {@link HttpURLConnection#disconnect()},
+	 * which closes the socket, each response is read to its end and closed so the
+	 * JDK can keep the connection for the next request to the same host.  Calls
+	 * failing before the response was read still disconnect.
+	 *
+	 * <p>
+	 * The JDK's keep-alive cache is shared by the whole JVM and sized by the
+	 * {@code http.maxConnections} and {@code http.keepAlive.time.server} system
+	 * properties, which it reads only once, when the first HTTP connection is made.
+	 *
+	 * @param keepAlive whether to reuse connections
+	 */
+	public void setKeepAlive(boolean keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+	
+	/**
+	 * @return the maximum number of unread response bytes to drain for reuse
+	 */
+	public int getMaxDrainBytes() {
+		return maxDrainBytes;
+	}
+	
+	/**
+	 * @param maxDrainBytes the maximum number of unread response bytes to drain in keep-alive
+	 *                      mode; connections with more left over are closed
+	 * @throws IllegalArgumentException if {@code maxDrainBytes} is negative
+	 */
+	public void setMaxDrainBytes(int maxDrainBytes) {
+		if (maxDrainBytes < 0) {
+			throw new IllegalArgumentException("maxDrainBytes must not be negative: " + maxDrainBytes);
+		}
+		this.maxDrainBytes = maxDrainBytes;
+	}
+	
+	/**
+	 * @return the number of responses read to their end and closed in keep-alive mode,
+	 *         leaving their connection to the JDK to cache; whether the JDK reuses it
+	 *         is up to its keep-alive cache
+	 */
+	public long getReleasedStreamCount() {
+		return releasedStreams.get();
+	}
+	
+	/**
+	 * @return the number of responses whose connection was closed in keep-alive mode
+	 *         because they had more than {@link #getMaxDrainBytes()} left or could not be drained
+	 */
+	public long getDiscardedStreamCount() {
+		return discardedStreams.get();
+	}
+	
+	/**
+	 * Reads whatever the response parser left behind, such as a trailing
+	 * newline, before closing.  The JDK only caches a connection whose
+	 * response was read to its end; it would otherwise close the socket.
+	 */
+	private class KeepAliveInputStream extends FilterInputStream {
+		
+		private boolean closed = false;
+		private boolean released = false;
+		
+		private KeepAliveInputStream(InputStream in) {
+			super(in);
+		}
+		
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				released = drain();
+			} catch (IOException e) {
+				released = false;
+			}
+			if (released) {
+				in.close();
+				releasedStreams.incrementAndGet();
+			} else {
+				discardedStreams.incrementAndGet();
+			}
+		}
+		
+		private boolean drain() throws IOException {
+			final byte[] buffer = new byte[(int) Math.min(maxDrainBytes + 1L, 8192)];
+			long drained = 0;
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				drained += n;
+				if (drained > maxDrainBytes) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		private boolean isReleased() {
+			return released;
+		}
+	}
+	
+	/**
+	 * Holds a request back until it is known whether it reaches the compression
+	 * threshold.  Small requests go out as is with a fixed length; once the
+	 * threshold is crossed the connection switches to chunked mode and the
+	 * rest of the request is gzipped straight into it.  A request that fails
+	 * while being written is aborted rather than closed, so that nothing
+	 * incomplete is sent.
+	 */
+	private class CompressingRequestStream extends OutputStream {
+		
+		private final HttpURLConnection connection;
+		private final ByteArrayOutputStream buffer;
+		private PooledDeflaterOutputStream compressor;
+		private boolean closed = false;
+		
+		private CompressingRequestStream(HttpURLConnection connection) {
+			this.connection = connection;
+			this.buffer = new ByteArrayOutputStream(Math.max(requestCompressionThreshold, 32));
+		}
+		
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (compressor != null) {
+				compressor.write(b, off, len);
+				return;
+			}
+			buffer.write(b, off, len);
+			if (buffer.size() >= requestCompressionThreshold) {
+				connection.setRequestProperty(CONTENT_ENCODING, GZIP);
+				connection.setChunkedStreamingMode(0);
+				connection.connect();
+				compressor = new PooledDeflaterOutputStream(connection.getOutputStream(), GZIP_DEFLATER_POOL);
+				buffer.writeTo(compressor);
+				buffer.reset();
+			}
+		}
+		
+		/**
+		 * Drops the request: nothing buffered is sent, the compressed data is
+		 * left unfinished and the connection is disconnected, so the server
+		 * never sees a complete request.
+		 */
+		void abort() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				connection.disconnect();
+			} finally {
+				if (compressor != null) {
+					compressor.abort();
+				}
+			}
+		}
+		
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			if (compressor != null) {
+				try {
+					compressor.finish();
+					compressedRequests.incrementAndGet();
+					compressionBytesIn.addAndGet(compressor.getBytesIn());
+					compressionBytesOut.addAndGet(compressor.getBytesOut());
+					compressor.close();
+				} finally {
+					compressor.abort();
+				}
+				return;
+			}
+			uncompressedRequests.incrementAndGet();
+			connection.setFixedLengthStreamingMode(buffer.size());
+			connection.connect();
+			try (OutputStream send = connection.getOutputStream()) {
+				buffer.writeTo(send);
+			}
+		}
+	}
+	
 }
@@ -0,0 +1,539 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A JSON-RPC client on top of the JDK's {@link HttpClient}.  Unlike
+ * {@link JsonRpcHttpClient} it negotiates HTTP/2 (via ALPN over TLS, or an
+ * {@code h2c} upgrade where the server offers it), so any number of
+ * concurrent calls share a single connection, and it offers non-blocking
+ * calls through {@link #invokeAsync(String, Object, Type)}.
+ * <p>
+ * Requests of up to 64 KiB are written before they are sent; larger ones
+ * are handed to the {@link HttpClient} while the calling thread writes
+ * them, also for asynchronous calls, so they are never held in memory as
+ * a whole.  Blocking calls park the calling thread until the response
+ * arrives and read it as it streams in, so they are cheap to issue from
+ * virtual threads.  Asynchronous calls parse the response as it arrives
+ * with Jackson's non-blocking parser, so no thread of the
+ * {@link HttpClient}'s executor ever blocks on the network; compressed
+ * and error responses, and formats without a non-blocking parser, are
+ * received in full before they are parsed.
+ * <p>
+ * Proxies, SSL, the executor and the HTTP version are configured on the
+ * {@link HttpClient} passed to
+ * {@link #JsonRpcJdkHttpClient(ObjectMapper, HttpClient, URI, Map)}.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class JsonRpcJdkHttpClient extends JsonRpcClient implements IJsonRpcClient, IJsonRpcAsyncClient {
+
+	private static final String GZIP = "gzip";
+	private static final String DEFLATE = "deflate";
+	private static final int ERROR_TEXT_LENGTH = 1024;
+	private static final int STREAMING_THRESHOLD = 64 * 1024;
+
+	private final HttpClient httpClient;
+	private final Map<String, String> headers = new HashMap<>();
+	private URI serviceUri;
+	private Duration requestTimeout = Duration.ofMinutes(2);
+	private String contentType = JSONRPC_CONTENT_TYPE;
+	private boolean gzipRequests = false;
+	private int requestCompressionThreshold = JsonRpcHttpClient.DEFAULT_REQUEST_COMPRESSION_THRESHOLD;
+
+	/**
+	 * Creates the client bound to the given {@code serviceUri} with an
+	 * {@link HttpClient} preferring HTTP/2.
+	 *
+	 * @param serviceUri the service end-point URI
+	 */
+	public JsonRpcJdkHttpClient(URI serviceUri) {
+		this(serviceUri, new HashMap<String, String>());
+	}
+
+	/**
+	 * Creates the client bound to the given {@code serviceUri} with an
+	 * {@link HttpClient} preferring HTTP/2.  The headers provided in the
+	 * {@code headers} map are added to every request.
+	 *
+	 * @param serviceUri the service end-point URI
+	 * @param headers    the headers
+	 */
+	public JsonRpcJdkHttpClient(URI serviceUri, Map<String, String> headers) {
+		this(new ObjectMapper(), createHttpClient(), serviceUri, headers);
+	}
+
+	/**
+	 * Creates the client bound to the given {@code serviceUri}.  The headers
+	 * provided in the {@code headers} map are added to every request.
+	 *
+	 * @param mapper     the {@link ObjectMapper} to use for json&lt;-&gt;java conversion
+	 * @param httpClient the {@link HttpClient}, which may be shared with other clients
+	 * @param serviceUri the service end-point URI
+	 * @param headers    the headers
+	 */
+	public JsonRpcJdkHttpClient(ObjectMapper mapper, HttpClient httpClient, URI serviceUri, Map<String, String> headers) {
+		super(mapper);
+		this.httpClient = httpClient;
+		this.serviceUri = serviceUri;
+		this.headers.putAll(headers);
+	}
+
+	/**
+	 * @return an {@link HttpClient} preferring HTTP/2 and following redirects like {@link JsonRpcHttpClient}
+	 */
+	public static HttpClient createHttpClient() {
+		return HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.connectTimeout(Duration.ofMinutes(1))
+				.build();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void invoke(String methodName, Object argument) throws Throwable {
+		invoke(methodName, argument, null, new HashMap<String, String>());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object invoke(String methodName, Object argument, Type returnType) throws Throwable {
+		return invoke(methodName, argument, returnType, new HashMap<String, String>());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object invoke(String methodName, Object argument, Type returnType, Map<String, String> extraHeaders) throws Throwable {
+		final HttpResponse<InputStream> response = await(send(methodName, argument, extraHeaders, HttpResponse.BodyHandlers.ofInputStream()));
+		final InputStream body = response.body();
+		Object result = null;
+		try {
+			result = readHttpResponse(returnType, response.statusCode(), response.headers(), body);
+			return result;
+		} finally {
+			if (!isLazyResult(returnType, result)) {
+				body.close();
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T invoke(String methodName, Object argument, Class<T> clazz) throws Throwable {
+		return (T) invoke(methodName, argument, Type.class.cast(clazz));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T invoke(String methodName, Object argument, Class<T> clazz, Map<String, String> extraHeaders) throws Throwable {
+		return (T) invoke(methodName, argument, Type.class.cast(clazz), extraHeaders);
+	}
+
+	/**
+	 * Invokes the given method without blocking.
+	 *
+	 * @param methodName the name of the method to invoke
+	 * @param argument   the arguments to the method
+	 * @param returnType the return type
+	 * @return a future completed with the result, or exceptionally with the
+	 * exception the {@link ExceptionResolver} resolved the error to
+	 */
+	public CompletableFuture<Object> invokeAsync(String methodName, Object argument, Type returnType) {
+		return invokeAsync(methodName, argument, returnType, new HashMap<String, String>());
+	}
+
+	/**
+	 * Invokes the given method without blocking.
+	 *
+	 * @param methodName the name of the method to invoke
+	 * @param argument   the arguments to the method
+	 * @param clazz      the return type
+	 * @param <T>        the return type
+	 * @return a future completed with the result
+	 * @see #invokeAsync(String, Object, Type)
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> CompletableFuture<T> invokeAsync(String methodName, Object argument, Class<T> clazz) {
+		return (CompletableFuture<T>) invokeAsync(methodName, argument, Type.class.cast(clazz));
+	}
+
+	/**
+	 * Invokes the given method without blocking.
+	 *
+	 * @param methodName   the name of the method to invoke
+	 * @param argument     the arguments to the method
+	 * @param returnType   the return type
+	 * @param extraHeaders extra headers to add to the request
+	 * @return a future completed with the result
+	 * @see #invokeAsync(String, Object, Type)
+	 */
+	@Override
+	public CompletableFuture<Object> invokeAsync(String methodName, Object argument, final Type returnType, Map<String, String> extraHeaders) {
+		final CompletableFuture<HttpResponse<Object>> response;
+		try {
+			response = send(methodName, argument, extraHeaders, this::asyncBodySubscriber);
+		} catch (IOException e) {
+			return failed(e);
+		}
+		return response.thenApply(received -> {
+			try {
+				final Object body = received.body();
+				if (body instanceof JsonParser) {
+					return readParsedResponse(returnType, (JsonParser) body);
+				}
+				return readHttpResponse(returnType, received.statusCode(), received.headers(), new ByteArrayInputStream((byte[]) body));
+			} catch (Throwable t) {
+				throw new CompletionException(t);
+			}
+		});
+	}
+
+	/**
+	 * Parses successful, uncompressed responses as they arrive if their
+	 * format has a non-blocking parser; others are received as bytes.
+	 *
+	 * @return a subscriber completing with a {@link JsonParser} over the
+	 * parsed tokens, or with the {@code byte[]} of the body
+	 */
+	private HttpResponse.BodySubscriber<Object> asyncBodySubscriber(HttpResponse.ResponseInfo info) {
+		final DataFormat format = responseFormat(info.headers());
+		if (info.statusCode() < 400 && format != DataFormat.ATTACHMENTS && info.headers().firstValue(CONTENT_ENCODING).isEmpty()) {
+			final ObjectMapper readMapper = getMapper(format);
+			if (readMapper.getFactory().canParseAsync()) {
+				try {
+					return HttpResponse.BodySubscribers.mapping(new ParsingBodySubscriber(readMapper), parser -> parser);
+				} catch (IOException e) {
+					logger.debug("Could not create a non-blocking parser, receiving the response in full", e);
+				}
+			}
+		}
+		return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), bytes -> bytes);
+	}
+
+	/**
+	 * Waits for a response like {@link HttpClient#send} does.
+	 */
+	private static <T> HttpResponse<T> await(CompletableFuture<HttpResponse<T>> response) throws Throwable {
+		try {
+			return response.get();
+		} catch (InterruptedException e) {
+			response.cancel(true);
+			throw e;
+		} catch (ExecutionException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static <T> CompletableFuture<T> failed(Throwable t) {
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		future.completeExceptionally(t);
+		return future;
+	}
+
+	/**
+	 * Writes the request and sends it, while it is written if it is large.
+	 *
+	 * @return the pending response
+	 * @throws IOException if the request could not be written
+	 */
+	private <T> CompletableFuture<HttpResponse<T>> send(String methodName, Object argument, Map<String, String> extraHeaders,
+			HttpResponse.BodyHandler<T> bodyHandler) throws IOException {
+		final HttpRequest.Builder builder = HttpRequest.newBuilder(serviceUri).timeout(requestTimeout);
+		builder.header("Content-Type", contentType);
+		if (getDataFormat() != DataFormat.JSON) {
+			builder.header(ACCEPT, getDataFormat().getContentType());
+		}
+		for (Map.Entry<String, String> entry : headers.entrySet()) {
+			builder.setHeader(entry.getKey(), entry.getValue());
+		}
+		for (Map.Entry<String, String> entry : extraHeaders.entrySet()) {
+			builder.setHeader(entry.getKey(), entry.getValue());
+		}
+
+		final RequestBodyStream<T> body = new RequestBodyStream<>(builder, bodyHandler);
+		try {
+			super.invoke(methodName, argument, body);
+			body.close();
+		} catch (IOException | RuntimeException e) {
+			body.abort(e);
+			// the response arriving or the exchange failing is why the body was no longer read
+			if (body.response != null && body.response.isDone()) {
+				return body.response;
+			}
+			throw e;
+		}
+		return body.response;
+	}
+
+	/**
+	 * Reads the JSON-RPC response, which servers may also send with an error
+	 * status.  Error bodies that are no JSON-RPC response are reported as an
+	 * {@link HttpException} carrying the start of the body.
+	 */
+	private Object readHttpResponse(Type returnType, int statusCode, HttpHeaders responseHeaders, InputStream body) throws Throwable {
+		final DataFormat format = responseFormat(responseHeaders);
+		final InputStream answer = decode(body, responseHeaders.firstValue(CONTENT_ENCODING).orElse(null));
+		Object result = null;
+		try {
+			if (statusCode < 400) {
+				result = super.readFormattedResponse(returnType, answer, format, answer);
+				return result;
+			}
+			byte[] errorText = ("HTTP " + statusCode).getBytes(UTF_8);
+			try {
+				errorText = readErrorText(answer);
+				PushbackInputStream wrappedStream = new PushbackInputStream(answer, errorText.length);
+				wrappedStream.unread(errorText);
+				result = super.readFormattedResponse(returnType, wrappedStream, format, answer);
+				return result;
+			} catch (IOException e) {
+				throw new HttpException(new String(errorText, UTF_8), e);
+			}
+		} finally {
+			if (!isLazyResult(returnType, result)) {
+				answer.close();
+			}
+		}
+	}
+
+	private DataFormat responseFormat(HttpHeaders responseHeaders) {
+		final DataFormat format = DataFormat.forContentType(responseHeaders.firstValue("Content-Type").orElse(null));
+		return format != null && format.isAvailable() ? format : getDataFormat();
+	}
+
+	private static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+		if (GZIP.equalsIgnoreCase(contentEncoding)) {
+			return new PooledInflaterInputStream(body, JsonRpcHttpClient.GZIP_INFLATER_POOL);
+		}
+		if (DEFLATE.equalsIgnoreCase(contentEncoding)) {
+			return new PooledInflaterInputStream(body, JsonRpcHttpClient.DEFLATE_INFLATER_POOL);
+		}
+		return body;
+	}
+
+	private static byte[] readErrorText(InputStream input) throws IOException {
+		final byte[] buffer = new byte[ERROR_TEXT_LENGTH];
+		int pos = 0;
+		int n;
+		while (pos < buffer.length && (n = input.read(buffer, pos, buffer.length - pos)) != -1) {
+			pos += n;
+		}
+		if (pos == 0) {
+			throw new IOException("Empty error stream");
+		}
+		return pos < buffer.length ? Arrays.copyOf(buffer, pos) : buffer;
+	}
+
+	/**
+	 * @return the {@link HttpClient} calls are made with
+	 */
+	public HttpClient getHttpClient() {
+		return httpClient;
+	}
+
+	/**
+	 * @return the service end-point URI
+	 */
+	public URI getServiceUri() {
+		return serviceUri;
+	}
+
+	/**
+	 * @param serviceUri the serviceUri to set
+	 */
+	public void setServiceUri(URI serviceUri) {
+		this.serviceUri = serviceUri;
+	}
+
+	/**
+	 * @return the headers added to every request
+	 */
+	public Map<String, String> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * @param headers the headers to add to every request
+	 */
+	public void setHeaders(Map<String, String> headers) {
+		this.headers.clear();
+		this.headers.putAll(headers);
+	}
+
+	/**
+	 * @param acceptGzipResponses whether to ask the server for gzipped responses
+	 */
+	public void setAcceptGzipResponses(boolean acceptGzipResponses) {
+		if (acceptGzipResponses) {
+			headers.put(ACCEPT_ENCODING, GZIP);
+		} else {
+			headers.remove(ACCEPT_ENCODING);
+		}
+	}
+
+	/**
+	 * @param gzipRequests whether to gzip requests of at least {@link #getRequestCompressionThreshold()} bytes
+	 */
+	public void setGzipRequests(boolean gzipRequests) {
+		this.gzipRequests = gzipRequests;
+	}
+
+	/**
+	 * @return the minimum request size in bytes to gzip
+	 */
+	public int getRequestCompressionThreshold() {
+		return requestCompressionThreshold;
+	}
+
+	/**
+	 * @param requestCompressionThreshold the minimum request size in bytes to gzip when
+	 *                                    {@code gzipRequests} is set
+	 */
+	public void setRequestCompressionThreshold(int requestCompressionThreshold) {
+		this.requestCompressionThreshold = requestCompressionThreshold;
+	}
+
+	/**
+	 * @return the time allowed for each call, from sending the request to receiving the response headers
+	 */
+	public Duration getRequestTimeout() {
+		return requestTimeout;
+	}
+
+	/**
+	 * @param requestTimeout the requestTimeout to set
+	 */
+	public void setRequestTimeout(Duration requestTimeout) {
+		this.requestTimeout = requestTimeout;
+	}
+
+	/**
+	 * @param contentType the contentType to set
+	 */
+	public void setContentType(String contentType) {
+		this.contentType = contentType;
+	}
+
+	@Override
+	public void setDataFormat(DataFormat dataFormat) {
+		super.setDataFormat(dataFormat);
+		this.contentType = dataFormat.getContentType();
+	}
+
+	/**
+	 * Buffers a request until it exceeds {@link #STREAMING_THRESHOLD}, or
+	 * the compression threshold if that is larger, and sends it as a whole.
+	 * A larger request is sent while it is written, gzipped if requests are.
+	 * A request that fails while being written is failed rather than
+	 * completed, so that nothing incomplete is sent.
+	 */
+	private class RequestBodyStream<T> extends OutputStream {
+
+		private final HttpRequest.Builder builder;
+		private final HttpResponse.BodyHandler<T> bodyHandler;
+		private final int limit;
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		private StreamingBodyPublisher publisher;
+		private OutputStream output;
+		private CompletableFuture<HttpResponse<T>> response;
+
+		private RequestBodyStream(HttpRequest.Builder builder, HttpResponse.BodyHandler<T> bodyHandler) {
+			this.builder = builder;
+			this.bodyHandler = bodyHandler;
+			this.limit = gzipRequests ? Math.max(STREAMING_THRESHOLD, requestCompressionThreshold) : STREAMING_THRESHOLD;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (output != null) {
+				output.write(b, off, len);
+				return;
+			}
+			buffer.write(b, off, len);
+			if (buffer.size() > limit) {
+				publisher = new StreamingBodyPublisher();
+				if (gzipRequests) {
+					builder.header(CONTENT_ENCODING, GZIP);
+					output = new PooledDeflaterOutputStream(publisher, JsonRpcHttpClient.GZIP_DEFLATER_POOL);
+				} else {
+					output = publisher;
+				}
+				response = httpClient.sendAsync(builder.POST(publisher).build(), bodyHandler);
+				response.whenComplete((received, failure) -> publisher.cancel());
+				buffer.writeTo(output);
+				buffer.reset();
+			}
+		}
+
+		void abort(Throwable cause) {
+			if (output instanceof PooledDeflaterOutputStream) {
+				((PooledDeflaterOutputStream) output).abort();
+			}
+			if (publisher != null) {
+				publisher.abort(cause);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (output != null) {
+				output.close();
+				return;
+			}
+			if (response != null) {
+				return;
+			}
+			if (!gzipRequests || buffer.size() < requestCompressionThreshold) {
+				response = httpClient.sendAsync(builder.POST(HttpRequest.BodyPublishers.ofByteArray(buffer.toByteArray())).build(), bodyHandler);
+				return;
+			}
+			final ByteArrayOutputStream compressed = new ByteArrayOutputStream(buffer.size() / 2);
+			try (PooledDeflaterOutputStream deflater = new PooledDeflaterOutputStream(compressed, JsonRpcHttpClient.GZIP_DEFLATER_POOL)) {
+				buffer.writeTo(deflater);
+			}
+			builder.header(CONTENT_ENCODING, GZIP);
+			response = httpClient.sendAsync(builder.POST(HttpRequest.BodyPublishers.ofByteArray(compressed.toByteArray())).build(), bodyHandler);
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * A JSON-RPC client that talks to a {@link JsonRpcBasicServer} living in the
+ * same JVM.  Requests are handed to the server's dispatch pipeline as
+ * {@link JsonNode} trees, so interceptors, error resolvers and invocation
+ * listeners run exactly as they would for a remote call, but no JSON text is
+ * ever written or parsed.
+ * <p>
+ * By default the request and response trees are shared between client and
+ * server.  Enable {@link #setDeepCopy(boolean)} to round-trip both through
+ * Jackson bytes when the two sides must not see each other's objects.
+ * <p>
+ * Use it with {@link ProxyUtil#createClientProxy(ClassLoader, Class, IJsonRpcClient)}
+ * to keep calling a co-located service through its RPC interface.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class JsonRpcLocalClient extends JsonRpcClient implements IJsonRpcClient {
+
+	private final JsonRpcBasicServer server;
+	private boolean deepCopy = false;
+
+	/**
+	 * Creates a client bound to the given server, sharing its {@link ObjectMapper}.
+	 *
+	 * @param server the {@link JsonRpcBasicServer} to dispatch to
+	 */
+	public JsonRpcLocalClient(JsonRpcBasicServer server) {
+		this(server, server.getObjectMapper());
+	}
+
+	/**
+	 * Creates a client bound to the given server.
+	 *
+	 * @param server the {@link JsonRpcBasicServer} to dispatch to
+	 * @param mapper the {@link ObjectMapper} used to build requests and read results
+	 */
+	public JsonRpcLocalClient(JsonRpcBasicServer server, ObjectMapper mapper) {
+		super(mapper);
+		this.server = server;
+	}
+
+	/**
+	 * @return the server this client dispatches to
+	 */
+	public JsonRpcBasicServer getServer() {
+		return server;
+	}
+
+	/**
+	 * @return {@code true} if requests and responses are copied through Jackson
+	 */
+	public boolean isDeepCopy() {
+		return deepCopy;
+	}
+
+	/**
+	 * Whether requests and responses are serialized to bytes and read back
+	 * before crossing between client and server, which isolates both sides
+	 * from mutations made by the other at the cost of a JSON round-trip.
+	 *
+	 * @param deepCopy {@code true} to copy, {@code false} (the default) to share the trees
+	 */
+	public void setDeepCopy(boolean deepCopy) {
+		this.deepCopy = deepCopy;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void invoke(String methodName, Object argument) throws Throwable {
+		invoke(methodName, argument, null, null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object invoke(String methodName, Object argument, Type returnType) throws Throwable {
+		return invoke(methodName, argument, returnType, null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * There is no transport, so {@code extraHeaders} are ignored.
+	 */
+	@Override
+	public Object invoke(String methodName, Object argument, Type returnType, Map<String, String> extraHeaders) throws Throwable {
+		final ObjectNode request = super.createRequest(methodName, argument);
+		final JsonNode requestNode = deepCopy ? copy(request, getObjectMapper(), server.getObjectMapper()) : request;
+		logger.debug("Local request: {}", requestNode);
+
+		final JsonResponse jsonResponse = server.handleParsedRequest(requestNode);
+		if (jsonResponse.getExceptionToRethrow() != null) {
+			throw jsonResponse.getExceptionToRethrow();
+		}
+
+		// streamed results are only written element by element when a response goes out
+		JsonNode response = server.materializeStreamedResults(jsonResponse.getResponse());
+		if (response == null) {
+			return null;
+		}
+		if (deepCopy) {
+			response = copy(response, server.getObjectMapper(), getObjectMapper());
+		}
+		return readResponse(returnType, response);
+	}
+
+	private static JsonNode copy(JsonNode node, ObjectMapper writer, ObjectMapper reader) throws IOException {
+		return reader.readTree(writer.writeValueAsBytes(node));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T invoke(String methodName, Object argument, Class<T> clazz) throws Throwable {
+		return (T) invoke(methodName, argument, Type.class.cast(clazz));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T invoke(String methodName, Object argument, Class<T> clazz, Map<String, String> extraHeaders) throws Throwable {
+		return (T) invoke(methodName, argument, Type.class.cast(clazz), extraHeaders);
+	}
+}
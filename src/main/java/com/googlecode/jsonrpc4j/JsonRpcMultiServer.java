@@ -5,7 +5,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Proxy;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -97,6 +99,20 @@ public class JsonRpcMultiServer extends JsonRpcServer {
 		}
 	}
 
+	/**
+	 * Returns the handler interfaces of every registered service.
+	 *
+	 * @return the interfaces of each service
+	 */
+	@Override
+	protected List<Class<?>[]> getServiceInterfaces() {
+		List<Class<?>[]> serviceInterfaces = new ArrayList<>();
+		for (String serviceName : handlerMap.keySet()) {
+			serviceInterfaces.add(getHandlerInterfaces(serviceName));
+		}
+		return serviceInterfaces;
+	}
+
 	/**
 	 * Get the service name from the methodNode.  JSON-RPC methods with the form
 	 * Service.method will result in "Service" being returned in this case.
@@ -13,6 +13,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.Deflater;
 
 /**
  * A JSON-RPC request server reads JSON-RPC requests from an input stream and writes responses to an output stream.
@@ -21,7 +23,14 @@ import java.io.OutputStream;
 public class JsonRpcServer extends JsonRpcBasicServer {
 	private static final Logger logger = LoggerFactory.getLogger(JsonRpcServer.class);
 
+	private static final String GZIP = "gzip";
+	private static final String DEFLATE = "deflate";
+	private static final String VARY = "Vary";
+
 	private String contentType = JSONRPC_CONTENT_TYPE;
+	private int responseCompressionThreshold = -1;
+	private final DeflaterPool gzipDeflaterPool = new DeflaterPool(Deflater.DEFAULT_COMPRESSION, true, DeflaterPool.DEFAULT_MAX_SIZE);
+	private final DeflaterPool deflateDeflaterPool = new DeflaterPool(Deflater.DEFAULT_COMPRESSION, false, DeflaterPool.DEFAULT_MAX_SIZE);
 
 	/**
 	 * Creates the server with the given {@link ObjectMapper} delegating
@@ -144,14 +153,19 @@ public class JsonRpcServer extends JsonRpcBasicServer {
 
 	private void handleCommon(CommonHttpServletRequest request, CommonHttpServletResponse response) throws IOException {
 		logger.debug("Handling HttpServletRequest {}", request.unwrap());
-		response.setContentType(contentType);
-		OutputStream output = response.getOutputStream();
+		final DataFormat requestFormat = resolveRequestFormat(request);
+		final DataFormat responseFormat = resolveResponseFormat(request, requestFormat);
+		response.setContentType(responseFormat == DataFormat.JSON ? contentType : responseFormat.getContentType());
 		InputStream input = getRequestStream(request);
 		int result = ErrorResolver.JsonError.PARSE_ERROR.code;
 
-		ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+		JsonResponse jsonResponse = null;
 		try {
-			result = handleRequest(input, byteOutput);
+			jsonResponse = readAndHandleRequest(input, requestFormat);
+			if (jsonResponse.getExceptionToRethrow() != null) {
+				throw jsonResponse.getExceptionToRethrow();
+			}
+			result = jsonResponse.getCode();
 		} catch (Throwable t) {
 			if (t instanceof StreamEndedException) {
 				logger.debug("Bad request: empty contents!");
@@ -160,10 +174,92 @@ public class JsonRpcServer extends JsonRpcBasicServer {
 			}
 		}
 
+		// the status must be known before the first byte of a streamed response is written
 		response.setStatus(resolveHttpStatusCode(result));
-		response.setContentLength(byteOutput.size());
-		byteOutput.writeTo(output);
-		output.flush();
+		final boolean streamed = jsonResponse != null && StreamedResult.isStreamed(jsonResponse.getResponse());
+		try (OutputStream output = createResponseStream(request, response, streamed)) {
+			if (jsonResponse != null) {
+				writeResponse(output, jsonResponse, responseFormat);
+			}
+		}
+	}
+
+	private OutputStream createResponseStream(CommonHttpServletRequest request, CommonHttpServletResponse response, boolean streamed) {
+		if (responseCompressionThreshold < 0) {
+			return new ResponseStream(response, null, null, 0);
+		}
+		response.setHeader(VARY, ACCEPT_ENCODING);
+		final String encoding = negotiateContentEncoding(request.getHeader(ACCEPT_ENCODING));
+		if (encoding == null) {
+			return new ResponseStream(response, null, null, 0);
+		}
+		final DeflaterPool pool = GZIP.equals(encoding) ? gzipDeflaterPool : deflateDeflaterPool;
+		// a streamed result has no known size, so it is compressed from the first byte
+		return new ResponseStream(response, encoding, pool, streamed ? 0 : responseCompressionThreshold);
+	}
+
+	/**
+	 * Picks {@code gzip} or {@code deflate} from an {@code Accept-Encoding}
+	 * header, preferring gzip and skipping codings with {@code q=0}.
+	 *
+	 * @param acceptEncoding the header value, may be {@code null}
+	 * @return the content coding or {@code null} if none is acceptable
+	 */
+	static String negotiateContentEncoding(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return null;
+		}
+		boolean deflate = false;
+		for (String coding : acceptEncoding.split(",")) {
+			final String[] parts = coding.split(";");
+			final String name = parts[0].trim().toLowerCase(Locale.ROOT);
+			if (isRejected(parts)) {
+				continue;
+			}
+			if (GZIP.equals(name) || "x-gzip".equals(name) || "*".equals(name)) {
+				return GZIP;
+			}
+			deflate |= DEFLATE.equals(name);
+		}
+		return deflate ? DEFLATE : null;
+	}
+
+	private static boolean isRejected(String[] codingParts) {
+		for (int i = 1; i < codingParts.length; i++) {
+			final String parameter = codingParts[i].trim();
+			if (parameter.startsWith("q=")) {
+				try {
+					return Double.parseDouble(parameter.substring(2).trim()) <= 0;
+				} catch (NumberFormatException e) {
+					return false;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * GET requests are always JSON, POST bodies are read in the format named
+	 * by their {@code Content-Type}, falling back to the configured format.
+	 */
+	private DataFormat resolveRequestFormat(CommonHttpServletRequest request) {
+		if ("POST".equals(request.getMethod())) {
+			final DataFormat format = DataFormat.forContentType(request.getContentType());
+			if (format != null && format.isAvailable()) {
+				return format;
+			}
+			return getDataFormat();
+		}
+		return DataFormat.JSON;
+	}
+
+	/**
+	 * Answers in the first supported format of the {@code Accept} header,
+	 * or in the format of the request when the header names none.
+	 */
+	private DataFormat resolveResponseFormat(CommonHttpServletRequest request, DataFormat requestFormat) {
+		final DataFormat format = DataFormat.forAccept(request.getHeader(ACCEPT));
+		return format != null ? format : requestFormat;
 	}
 
 	private int resolveHttpStatusCode(int result) {
@@ -201,11 +297,33 @@ public class JsonRpcServer extends JsonRpcBasicServer {
 		this.contentType = contentType;
 	}
 
+	/**
+	 * @return the size from which responses are compressed, negative if disabled
+	 */
+	public int getResponseCompressionThreshold() {
+		return responseCompressionThreshold;
+	}
+
+	/**
+	 * Enables {@code gzip}/{@code deflate} response compression for clients that
+	 * announce it in {@code Accept-Encoding}.  Responses smaller than the threshold
+	 * are sent as is with a {@code Content-Length}; larger ones are compressed
+	 * while being written, using chunked transfer encoding.
+	 *
+	 * @param responseCompressionThreshold the minimum response size in bytes to compress,
+	 *                                     negative (the default) to never compress
+	 */
+	public void setResponseCompressionThreshold(int responseCompressionThreshold) {
+		this.responseCompressionThreshold = responseCompressionThreshold;
+	}
+
 	private interface CommonHttpServletRequest {
 		Object unwrap();
 		InputStream getInputStream() throws IOException;
 		String getMethod();
 		String getParameter(String name);
+		String getContentType();
+		String getHeader(String name);
 	}
 
 	private static class JavaxHttpServletRequest implements CommonHttpServletRequest {
@@ -235,6 +353,16 @@ public class JsonRpcServer extends JsonRpcBasicServer {
 		public String getParameter(String name) {
 			return this.request.getParameter(name);
 		}
+
+		@Override
+		public String getContentType() {
+			return this.request.getContentType();
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return this.request.getHeader(name);
+		}
 	}
 
 	private static class JakartaHttpServletRequest implements CommonHttpServletRequest {
@@ -264,12 +392,23 @@ public class JsonRpcServer extends JsonRpcBasicServer {
 		public String getParameter(String name) {
 			return this.request.getParameter(name);
 		}
+
+		@Override
+		public String getContentType() {
+			return this.request.getContentType();
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return this.request.getHeader(name);
+		}
 	}
 
 	private interface CommonHttpServletResponse {
 		void setContentType(String type);
 		void setStatus(int sc);
 		void setContentLength(int len);
+		void setHeader(String name, String value);
 		OutputStream getOutputStream() throws IOException;
 	}
 
@@ -296,6 +435,11 @@ public class JsonRpcServer extends JsonRpcBasicServer {
 			this.response.setContentLength(len);
 		}
 
+		@Override
+		public void setHeader(String name, String value) {
+			this.response.setHeader(name, value);
+		}
+
 		@Override
 		public OutputStream getOutputStream() throws IOException {
 			return this.response.getOutputStream();
@@ -325,9 +469,101 @@ public class JsonRpcServer extends JsonRpcBasicServer {
 			this.response.setContentLength(len);
 		}
 
+		@Override
+		public void setHeader(String name, String value) {
+			this.response.setHeader(name, value);
+		}
+
 		@Override
 		public OutputStream getOutputStream() throws IOException {
 			return this.response.getOutputStream();
 		}
 	}
+
+	/**
+	 * Without an encoding, writes straight to the servlet stream.  With one,
+	 * buffers a response up to a threshold: responses that end below it are
+	 * sent with a {@code Content-Length}; once the threshold is crossed the
+	 * {@code Content-Encoding} is committed and everything is compressed
+	 * straight into the servlet stream.  A threshold of zero compresses from
+	 * the first byte, and {@link #flush()} then pushes out what was written so
+	 * far, so that a streamed result reaches the client as it is produced.
+	 */
+	private static class ResponseStream extends OutputStream {
+
+		private final CommonHttpServletResponse response;
+		private final String encoding;
+		private final DeflaterPool pool;
+		private final int threshold;
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		private OutputStream direct;
+		private PooledDeflaterOutputStream compressor;
+		private boolean closed = false;
+
+		private ResponseStream(CommonHttpServletResponse response, String encoding, DeflaterPool pool, int threshold) {
+			this.response = response;
+			this.encoding = encoding;
+			this.pool = pool;
+			this.threshold = threshold;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (encoding == null) {
+				if (direct == null) {
+					direct = response.getOutputStream();
+				}
+				direct.write(b, off, len);
+				return;
+			}
+			if (compressor == null && threshold == 0) {
+				startCompressing();
+			}
+			if (compressor != null) {
+				compressor.write(b, off, len);
+				return;
+			}
+			buffer.write(b, off, len);
+			if (buffer.size() >= threshold) {
+				startCompressing();
+				buffer.writeTo(compressor);
+				buffer.reset();
+			}
+		}
+
+		private void startCompressing() throws IOException {
+			response.setHeader(CONTENT_ENCODING, encoding);
+			compressor = new PooledDeflaterOutputStream(new NoCloseOutputStream(response.getOutputStream()), pool, threshold == 0);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (direct != null) {
+				direct.flush();
+			} else if (compressor != null) {
+				compressor.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			final OutputStream output = response.getOutputStream();
+			if (compressor != null) {
+				compressor.close();
+			} else if (encoding != null) {
+				response.setContentLength(buffer.size());
+				buffer.writeTo(output);
+			}
+			output.flush();
+		}
+	}
 }
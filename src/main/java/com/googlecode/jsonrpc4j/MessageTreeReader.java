@@ -0,0 +1,141 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.PARAMS;
+
+/**
+ * Reads a JSON-RPC message, or a batch of them, into a tree the way
+ * {@link ObjectMapper#readTree(JsonParser)} does, except that the {@code params}
+ * and arrays of numbers among them are read straight into {@link NumericArrayNode}s
+ * as long as they hold nothing but numbers.
+ * Everything else is left to the mapper's own tree deserializer.
+ */
+final class MessageTreeReader {
+
+	private final JsonParser parser;
+	private final DeserializationContext context;
+	private final JsonDeserializer<Object> nodes;
+	private final JsonNodeFactory nodeFactory;
+	private final boolean plainInts;
+	private final boolean plainFloats;
+
+	private MessageTreeReader(ObjectMapper mapper, JsonParser parser) throws IOException {
+		this.parser = parser;
+		this.context = ((DefaultDeserializationContext) mapper.getDeserializationContext())
+				.createInstance(mapper.getDeserializationConfig(), parser, mapper.getInjectableValues());
+		this.nodes = context.findRootValueDeserializer(context.constructType(JsonNode.class));
+		this.nodeFactory = mapper.getNodeFactory();
+		this.plainInts = !context.isEnabled(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS)
+				&& !context.isEnabled(DeserializationFeature.USE_LONG_FOR_INTS);
+		this.plainFloats = !context.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+	}
+
+	/**
+	 * @param mapper the mapper configuring the tree
+	 * @param parser the parser, positioned before the message
+	 * @return the message
+	 * @throws IOException on error, a {@link MismatchedInputException} if there is no message
+	 */
+	static JsonNode readTree(ObjectMapper mapper, JsonParser parser) throws IOException {
+		if (parser.nextToken() == null) {
+			throw MismatchedInputException.from(parser, JsonNode.class, "No content to map due to end-of-input");
+		}
+		return new MessageTreeReader(mapper, parser).readMessage();
+	}
+
+	private JsonNode readMessage() throws IOException {
+		if (parser.currentToken() == JsonToken.START_ARRAY) {
+			final ArrayNode batch = nodeFactory.arrayNode();
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				batch.add(readRequest());
+			}
+			return batch;
+		}
+		return readRequest();
+	}
+
+	private JsonNode readRequest() throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			return readValue();
+		}
+		final ObjectNode request = nodeFactory.objectNode();
+		String name;
+		while ((name = parser.nextFieldName()) != null) {
+			parser.nextToken();
+			request.set(name, PARAMS.equals(name) ? readParams() : readValue());
+		}
+		return request;
+	}
+
+	private JsonNode readParams() throws IOException {
+		final JsonToken token = parser.currentToken();
+		if (token == JsonToken.START_ARRAY) {
+			return readArray(true);
+		}
+		if (token == JsonToken.START_OBJECT) {
+			final ObjectNode params = nodeFactory.objectNode();
+			String name;
+			while ((name = parser.nextFieldName()) != null) {
+				parser.nextToken();
+				params.set(name, readParam());
+			}
+			return params;
+		}
+		return readValue();
+	}
+
+	private JsonNode readParam() throws IOException {
+		return parser.currentToken() == JsonToken.START_ARRAY ? readArray(false) : readValue();
+	}
+
+	/**
+	 * Collects numbers until the first element that is not one, from which
+	 * on the array is read as usual.
+	 *
+	 * @param params whether the array is the {@code params}, whose elements are
+	 *               read as params themselves
+	 */
+	private JsonNode readArray(boolean params) throws IOException {
+		final NumericArrayNode.Builder numbers = new NumericArrayNode.Builder();
+		JsonToken token;
+		while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+			if (!addNumber(numbers, token)) {
+				final ArrayNode array = numbers.toArrayNode(nodeFactory);
+				do {
+					array.add(params ? readParam() : readValue());
+				} while (parser.nextToken() != JsonToken.END_ARRAY);
+				return array;
+			}
+		}
+		return numbers.build(nodeFactory);
+	}
+
+	private boolean addNumber(NumericArrayNode.Builder numbers, JsonToken token) throws IOException {
+		if (token == JsonToken.VALUE_NUMBER_INT && plainInts) {
+			final JsonParser.NumberType type = parser.getNumberType();
+			return (type == JsonParser.NumberType.INT || type == JsonParser.NumberType.LONG) && numbers.add(parser.getLongValue());
+		}
+		if (token == JsonToken.VALUE_NUMBER_FLOAT && plainFloats) {
+			return parser.getNumberType() == JsonParser.NumberType.DOUBLE && numbers.add(parser.getDoubleValue());
+		}
+		return false;
+	}
+
+	private JsonNode readValue() throws IOException {
+		return (JsonNode) nodes.deserialize(parser, context);
+	}
+}
@@ -0,0 +1,398 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * An array of numbers kept in a primitive array instead of one node per
+ * element.  It reads like any other {@link ArrayNode}, creating element nodes
+ * as they are asked for, binds to {@code int[]}, {@code long[]} and
+ * {@code double[]} parameters by copying and writes itself without creating
+ * element nodes.  Modifying it turns it into an ordinary array node.
+ */
+@SuppressWarnings("unchecked")
+final class NumericArrayNode extends ArrayNode {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient Values values;
+
+	private NumericArrayNode(JsonNodeFactory nodeFactory, Values values) {
+		super(nodeFactory, values);
+		this.values = values;
+	}
+
+	/**
+	 * @param nodeFactory the factory for element nodes
+	 * @param result      the result of a handler method
+	 * @return a node for it if it is an {@code int[]}, {@code long[]} or {@code double[]}, {@code null} otherwise
+	 */
+	static JsonNode forResult(JsonNodeFactory nodeFactory, Object result) {
+		if (result instanceof int[]) {
+			final int[] ints = (int[]) result;
+			return new NumericArrayNode(nodeFactory, new Values(nodeFactory, ints, null, null, null, ints.length));
+		}
+		if (result instanceof long[]) {
+			final long[] longs = (long[]) result;
+			return new NumericArrayNode(nodeFactory, new Values(nodeFactory, null, longs, null, null, longs.length));
+		}
+		if (result instanceof double[]) {
+			final double[] doubles = (double[]) result;
+			return new NumericArrayNode(nodeFactory, new Values(nodeFactory, null, null, doubles, null, doubles.length));
+		}
+		return null;
+	}
+
+	/**
+	 * @param node a parameter
+	 * @param type the parameter type
+	 * @return a copy of the numbers if {@code node} is a numeric array node
+	 * that {@code type} can hold without conversion, {@code null} otherwise
+	 */
+	static Object toArray(JsonNode node, Type type) {
+		return node instanceof NumericArrayNode ? toArray(((NumericArrayNode) node).values, type) : null;
+	}
+
+	/**
+	 * @param node the parameters collected for a varargs parameter
+	 * @return the elements in a list of their own, which {@link #toArray(List, Class)}
+	 * copies without creating element nodes, if {@code node} is a numeric array node,
+	 * {@code null} otherwise
+	 */
+	static List<JsonNode> elements(JsonNode node) {
+		if (!(node instanceof NumericArrayNode)) {
+			return null;
+		}
+		final Values values = ((NumericArrayNode) node).values;
+		if (values.nodes != null) {
+			return null;
+		}
+		return new Values(values.nodeFactory, values.ints, values.longs, values.doubles, values.integral, values.size);
+	}
+
+	private static Object toArray(Values values, Type type) {
+		if (values.nodes != null) {
+			return null;
+		}
+		final int size = values.size;
+		if (type == double[].class) {
+			if (values.doubles != null) {
+				return Arrays.copyOf(values.doubles, size);
+			}
+			final double[] doubles = new double[size];
+			for (int i = 0; i < size; i++) {
+				doubles[i] = values.ints != null ? values.ints[i] : values.longs[i];
+			}
+			return doubles;
+		}
+		if (type == long[].class) {
+			if (values.longs != null) {
+				return Arrays.copyOf(values.longs, size);
+			}
+			if (values.ints != null) {
+				final long[] longs = new long[size];
+				for (int i = 0; i < size; i++) {
+					longs[i] = values.ints[i];
+				}
+				return longs;
+			}
+			return null;
+		}
+		if (type == int[].class && values.ints != null) {
+			return Arrays.copyOf(values.ints, size);
+		}
+		return null;
+	}
+
+	/**
+	 * @param nodes         the arguments collected for a varargs parameter
+	 * @param componentType the primitive component type of the parameter
+	 * @return the arguments in an array of that type if all of them are
+	 * numbers it can hold without conversion, {@code null} otherwise
+	 */
+	static Object toArray(List<JsonNode> nodes, Class<?> componentType) {
+		if (nodes instanceof Values && ((Values) nodes).nodes == null) {
+			return toArray((Values) nodes, (Type) Array.newInstance(componentType, 0).getClass());
+		}
+		final int size = nodes.size();
+		if (componentType == int.class) {
+			final int[] ints = new int[size];
+			for (int i = 0; i < size; i++) {
+				final JsonNode node = nodes.get(i);
+				if (!node.isInt()) {
+					return null;
+				}
+				ints[i] = node.intValue();
+			}
+			return ints;
+		}
+		if (componentType == long.class) {
+			final long[] longs = new long[size];
+			for (int i = 0; i < size; i++) {
+				final JsonNode node = nodes.get(i);
+				if (!node.isInt() && !node.isLong()) {
+					return null;
+				}
+				longs[i] = node.longValue();
+			}
+			return longs;
+		}
+		if (componentType == double.class) {
+			final double[] doubles = new double[size];
+			for (int i = 0; i < size; i++) {
+				final JsonNode node = nodes.get(i);
+				if (!node.isInt() && !node.isLong() && !node.isDouble() && !node.isFloat()) {
+					return null;
+				}
+				doubles[i] = node.doubleValue();
+			}
+			return doubles;
+		}
+		return null;
+	}
+
+	@Override
+	public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+		if (values.nodes != null) {
+			super.serialize(generator, provider);
+			return;
+		}
+		final int size = values.size;
+		if (values.ints != null) {
+			generator.writeArray(values.ints, 0, size);
+		} else if (values.longs != null) {
+			generator.writeArray(values.longs, 0, size);
+		} else if (values.integral == null) {
+			generator.writeArray(values.doubles, 0, size);
+		} else {
+			generator.writeStartArray(this, size);
+			for (int i = 0; i < size; i++) {
+				if (values.integral.get(i)) {
+					generator.writeNumber((long) values.doubles[i]);
+				} else {
+					generator.writeNumber(values.doubles[i]);
+				}
+			}
+			generator.writeEndArray();
+		}
+	}
+
+	@Override
+	public void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer) throws IOException {
+		serialize(generator, provider);
+	}
+
+	/**
+	 * Collects the numbers of an array while it is parsed, widening from
+	 * {@code int} to {@code long} to {@code double} as needed.
+	 */
+	static class Builder {
+
+		/**
+		 * Integers beyond this magnitude do not survive a {@code double}.
+		 */
+		private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+		private int[] ints = new int[16];
+		private long[] longs;
+		private double[] doubles;
+		private BitSet integral;
+		private int size;
+
+		/**
+		 * @param value an integer
+		 * @return {@code false} if it cannot be kept next to the floating point numbers added before
+		 */
+		boolean add(long value) {
+			if (doubles != null) {
+				if (!isExactDouble(value)) {
+					return false;
+				}
+				if (integral == null) {
+					integral = new BitSet();
+				}
+				integral.set(size);
+				doubles = grow(doubles);
+				doubles[size++] = value;
+				return true;
+			}
+			if (longs == null && value == (int) value) {
+				ints = grow(ints);
+				ints[size++] = (int) value;
+				return true;
+			}
+			if (longs == null) {
+				longs = new long[ints.length];
+				for (int i = 0; i < size; i++) {
+					longs[i] = ints[i];
+				}
+				ints = null;
+			}
+			longs = grow(longs);
+			longs[size++] = value;
+			return true;
+		}
+
+		/**
+		 * @param value a floating point number
+		 * @return {@code false} if it cannot be kept next to the integers added before
+		 */
+		boolean add(double value) {
+			if (doubles == null) {
+				for (int i = 0; longs != null && i < size; i++) {
+					if (!isExactDouble(longs[i])) {
+						return false;
+					}
+				}
+				doubles = new double[Math.max(16, size * 2)];
+				if (size > 0) {
+					integral = new BitSet(size);
+					integral.set(0, size);
+				}
+				for (int i = 0; i < size; i++) {
+					doubles[i] = ints != null ? ints[i] : longs[i];
+				}
+				ints = null;
+				longs = null;
+			}
+			doubles = grow(doubles);
+			doubles[size++] = value;
+			return true;
+		}
+
+		/**
+		 * @param nodeFactory the factory for element nodes
+		 * @return the numbers added so far
+		 */
+		NumericArrayNode build(JsonNodeFactory nodeFactory) {
+			return new NumericArrayNode(nodeFactory, new Values(nodeFactory, ints, longs, doubles, integral, size));
+		}
+
+		/**
+		 * @param nodeFactory the factory for element nodes
+		 * @return the numbers added so far as an ordinary array node to add more elements to
+		 */
+		ArrayNode toArrayNode(JsonNodeFactory nodeFactory) {
+			final Values values = new Values(nodeFactory, ints, longs, doubles, integral, size);
+			final ArrayNode array = nodeFactory.arrayNode(size + 1);
+			for (int i = 0; i < size; i++) {
+				array.add(values.get(i));
+			}
+			return array;
+		}
+
+		private static boolean isExactDouble(long value) {
+			return value >= -MAX_EXACT_DOUBLE && value <= MAX_EXACT_DOUBLE;
+		}
+
+		private int[] grow(int[] array) {
+			return size < array.length ? array : Arrays.copyOf(array, array.length * 2);
+		}
+
+		private long[] grow(long[] array) {
+			return size < array.length ? array : Arrays.copyOf(array, array.length * 2);
+		}
+
+		private double[] grow(double[] array) {
+			return size < array.length ? array : Arrays.copyOf(array, array.length * 2);
+		}
+	}
+
+	/**
+	 * The elements of a {@link NumericArrayNode}, created on access and kept
+	 * once the list is modified.
+	 */
+	private static class Values extends AbstractList<JsonNode> {
+
+		private final JsonNodeFactory nodeFactory;
+		private final int[] ints;
+		private final long[] longs;
+		private final double[] doubles;
+		/**
+		 * The integers among {@link #doubles}, {@code null} if there are none.
+		 */
+		private final BitSet integral;
+		private final int size;
+		private List<JsonNode> nodes;
+
+		private Values(JsonNodeFactory nodeFactory, int[] ints, long[] longs, double[] doubles, BitSet integral, int size) {
+			this.nodeFactory = nodeFactory;
+			this.ints = ints;
+			this.longs = longs;
+			this.doubles = doubles;
+			this.integral = integral;
+			this.size = size;
+		}
+
+		@Override
+		public JsonNode get(int index) {
+			if (nodes != null) {
+				return nodes.get(index);
+			}
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+			}
+			if (ints != null) {
+				return nodeFactory.numberNode(ints[index]);
+			}
+			final long value;
+			if (longs != null) {
+				value = longs[index];
+			} else if (integral != null && integral.get(index)) {
+				value = (long) doubles[index];
+			} else {
+				return nodeFactory.numberNode(doubles[index]);
+			}
+			return value == (int) value ? nodeFactory.numberNode((int) value) : nodeFactory.numberNode(value);
+		}
+
+		@Override
+		public int size() {
+			return nodes != null ? nodes.size() : size;
+		}
+
+		@Override
+		public JsonNode set(int index, JsonNode element) {
+			return nodes().set(index, element);
+		}
+
+		@Override
+		public void add(int index, JsonNode element) {
+			nodes().add(index, element);
+		}
+
+		@Override
+		public JsonNode remove(int index) {
+			return nodes().remove(index);
+		}
+
+		@Override
+		public void clear() {
+			nodes().clear();
+		}
+
+		private List<JsonNode> nodes() {
+			if (nodes == null) {
+				final List<JsonNode> created = new ArrayList<>(size + 1);
+				for (int i = 0; i < size; i++) {
+					created.add(get(i));
+				}
+				nodes = created;
+			}
+			return nodes;
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Parses a response body of the JDK's {@link java.net.http.HttpClient}
+ * while it arrives, like {@link StreamingResponseConsumer} does for the
+ * asynchronous Apache client: each chunk is fed to Jackson's non-blocking
+ * parser and the tokens are collected in a {@link TokenBuffer}, from which
+ * the result is bound once the body is complete.
+ */
+class ParsingBodySubscriber implements HttpResponse.BodySubscriber<JsonParser> {
+
+	private static final int CHUNK_SIZE = 8 * 1024;
+
+	private final CompletableFuture<JsonParser> body = new CompletableFuture<>();
+	private final ObjectMapper mapper;
+	private final JsonParser parser;
+	private final ByteArrayFeeder feeder;
+	private final TokenBuffer tokens;
+	private Flow.Subscription subscription;
+	private byte[] chunk;
+
+	/**
+	 * @param mapper the mapper of the response format, whose factory must {@link com.fasterxml.jackson.core.JsonFactory#canParseAsync() parse asynchronously}
+	 * @throws IOException if the parser cannot be created
+	 */
+	ParsingBodySubscriber(ObjectMapper mapper) throws IOException {
+		this.mapper = mapper;
+		this.parser = mapper.getFactory().createNonBlockingByteArrayParser();
+		this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+		this.tokens = new TokenBuffer(parser);
+	}
+
+	@Override
+	public CompletionStage<JsonParser> getBody() {
+		return body;
+	}
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		this.subscription = subscription;
+		subscription.request(1);
+	}
+
+	@Override
+	public void onNext(List<ByteBuffer> buffers) {
+		try {
+			for (ByteBuffer buffer : buffers) {
+				feed(buffer);
+			}
+		} catch (IOException e) {
+			subscription.cancel();
+			onError(e);
+			return;
+		}
+		subscription.request(1);
+	}
+
+	private void feed(ByteBuffer buffer) throws IOException {
+		if (buffer.hasArray()) {
+			final int start = buffer.arrayOffset() + buffer.position();
+			feeder.feedInput(buffer.array(), start, start + buffer.remaining());
+			copyAvailableTokens();
+			return;
+		}
+		if (chunk == null) {
+			chunk = new byte[CHUNK_SIZE];
+		}
+		while (buffer.hasRemaining()) {
+			final int n = Math.min(buffer.remaining(), chunk.length);
+			buffer.get(chunk, 0, n);
+			feeder.feedInput(chunk, 0, n);
+			copyAvailableTokens();
+		}
+	}
+
+	private void copyAvailableTokens() throws IOException {
+		JsonToken token;
+		while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+			tokens.copyCurrentEvent(parser);
+		}
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		closeParser();
+		body.completeExceptionally(throwable);
+	}
+
+	/**
+	 * Completes the body with a parser over all tokens, positioned before the first.
+	 */
+	@Override
+	public void onComplete() {
+		try {
+			feeder.endOfInput();
+			copyAvailableTokens();
+			body.complete(tokens.asParser(mapper));
+		} catch (IOException e) {
+			body.completeExceptionally(e);
+		} finally {
+			closeParser();
+		}
+	}
+
+	private void closeParser() {
+		try {
+			parser.close();
+		} catch (IOException ignored) {
+			// nothing was allocated that outlives the parser
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.googlecode.jsonrpc4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * A {@link DeflaterOutputStream} writing either the gzip or the zlib
+ * ({@code deflate}) format with a {@link Deflater} borrowed from a
+ * {@link DeflaterPool}, returned to the pool on {@link #close()}.
+ * {@link java.util.zip.GZIPOutputStream} cannot be used for this as it
+ * always allocates its own {@code Deflater}.
+ */
+class PooledDeflaterOutputStream extends DeflaterOutputStream {
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+	private final DeflaterPool pool;
+	private final CRC32 crc;
+	private boolean released = false;
+
+	/**
+	 * @param out  the stream receiving compressed bytes
+	 * @param pool the pool to borrow from; raw ({@code nowrap}) pools produce gzip, others zlib
+	 * @throws IOException if writing the gzip header fails
+	 */
+	PooledDeflaterOutputStream(OutputStream out, DeflaterPool pool) throws IOException {
+		this(out, pool, false);
+	}
+
+	/**
+	 * @param out       the stream receiving compressed bytes
+	 * @param pool      the pool to borrow from; raw ({@code nowrap}) pools produce gzip, others zlib
+	 * @param syncFlush whether {@link #flush()} pushes out everything written so far
+	 * @throws IOException if writing the gzip header fails
+	 */
+	PooledDeflaterOutputStream(OutputStream out, DeflaterPool pool, boolean syncFlush) throws IOException {
+		super(out, pool.acquire(), BUFFER_SIZE, syncFlush);
+		this.pool = pool;
+		this.crc = pool.isNowrap() ? new CRC32() : null;
+		if (crc != null) {
+			out.write(GZIP_HEADER);
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		super.write(b, off, len);
+		if (crc != null) {
+			crc.update(b, off, len);
+		}
+	}
+
+	@Override
+	public void finish() throws IOException {
+		if (def.finished()) {
+			return;
+		}
+		super.finish();
+		if (crc != null) {
+			writeInt((int) crc.getValue());
+			writeInt((int) def.getBytesRead());
+		}
+	}
+
+	private void writeInt(int value) throws IOException {
+		out.write(value & 0xff);
+		out.write((value >> 8) & 0xff);
+		out.write((value >> 16) & 0xff);
+		out.write((value >> 24) & 0xff);
+	}
+
+	/**
+	 * @return the number of uncompressed bytes written so far
+	 */
+	long getBytesIn() {
+		return def.getBytesRead();
+	}
+
+	/**
+	 * @return the number of compressed bytes produced so far, without gzip framing
+	 */
+	long getBytesOut() {
+		return def.getBytesWritten();
+	}
+
+	/**
+	 * Gives up on the stream, returning the deflater to the pool without
+	 * finishing the compressed data or closing the underlying stream.
+	 */
+	void abort() {
+		if (!released) {
+			released = true;
+			pool.release(def);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (released) {
+			return;
+		}
+		try {
+			super.close();
+		} finally {
+			abort();
+		}
+	}
+}
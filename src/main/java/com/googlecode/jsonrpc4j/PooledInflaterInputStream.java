@@ -0,0 +1,147 @@
+package com.googlecode.jsonrpc4j;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * An {@link InflaterInputStream} reading either the gzip or the zlib
+ * ({@code deflate}) format with an {@link Inflater} borrowed from an
+ * {@link InflaterPool}, returned to the pool on {@link #close()}.  This is
+ * the pooled counterpart of {@link java.util.zip.GZIPInputStream}, which
+ * always allocates its own {@code Inflater}.  Only a single gzip member is
+ * read, which is all an HTTP body carries.
+ */
+class PooledInflaterInputStream extends InflaterInputStream {
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final int GZIP_MAGIC = 0x8b1f;
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+
+	private final InflaterPool pool;
+	private final CRC32 crc;
+	private boolean eof = false;
+	private boolean released = false;
+
+	/**
+	 * @param in   the compressed stream
+	 * @param pool the pool to borrow from; raw ({@code nowrap}) pools read gzip, others zlib
+	 * @throws IOException if the gzip header is malformed
+	 */
+	PooledInflaterInputStream(InputStream in, InflaterPool pool) throws IOException {
+		super(in, pool.acquire(), BUFFER_SIZE);
+		this.pool = pool;
+		this.crc = pool.isNowrap() ? new CRC32() : null;
+		if (crc != null) {
+			try {
+				readHeader();
+			} catch (IOException e) {
+				close();
+				throw e;
+			}
+		}
+	}
+
+	private void readHeader() throws IOException {
+		if (readUShort() != GZIP_MAGIC) {
+			throw new ZipException("Not in GZIP format");
+		}
+		if (readUByte() != 8) {
+			throw new ZipException("Unsupported compression method");
+		}
+		final int flags = readUByte();
+		skipBytes(6);
+		if ((flags & FEXTRA) == FEXTRA) {
+			skipBytes(readUShort());
+		}
+		if ((flags & FNAME) == FNAME) {
+			skipZeroTerminated();
+		}
+		if ((flags & FCOMMENT) == FCOMMENT) {
+			skipZeroTerminated();
+		}
+		if ((flags & FHCRC) == FHCRC) {
+			skipBytes(2);
+		}
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (eof) {
+			return -1;
+		}
+		final int n = super.read(b, off, len);
+		if (n == -1) {
+			eof = true;
+			if (crc != null) {
+				readTrailer();
+			}
+		} else if (crc != null) {
+			crc.update(b, off, n);
+		}
+		return n;
+	}
+
+	/**
+	 * The trailer starts with whatever input the inflater did not consume.
+	 */
+	private void readTrailer() throws IOException {
+		final int remaining = inf.getRemaining();
+		final byte[] trailer = new byte[8];
+		final int buffered = Math.min(remaining, trailer.length);
+		System.arraycopy(buf, len - remaining, trailer, 0, buffered);
+		for (int i = buffered; i < trailer.length; i++) {
+			trailer[i] = (byte) readUByte();
+		}
+		if (readInt(trailer, 0) != (int) crc.getValue() || readInt(trailer, 4) != (int) inf.getBytesWritten()) {
+			throw new ZipException("Corrupt GZIP trailer");
+		}
+	}
+
+	private static int readInt(byte[] b, int off) {
+		return (b[off] & 0xff) | (b[off + 1] & 0xff) << 8 | (b[off + 2] & 0xff) << 16 | (b[off + 3] & 0xff) << 24;
+	}
+
+	private int readUByte() throws IOException {
+		final int b = in.read();
+		if (b == -1) {
+			throw new EOFException("Unexpected end of GZIP stream");
+		}
+		return b;
+	}
+
+	private int readUShort() throws IOException {
+		return readUByte() | readUByte() << 8;
+	}
+
+	private void skipBytes(int n) throws IOException {
+		for (int i = 0; i < n; i++) {
+			readUByte();
+		}
+	}
+
+	private void skipZeroTerminated() throws IOException {
+		while (readUByte() != 0) {
+			// skip
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			super.close();
+		} finally {
+			if (!released) {
+				released = true;
+				pool.release(inf);
+			}
+		}
+	}
+}
@@ -9,16 +9,23 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
 import java.net.Socket;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
 
 /**
- * Utilities for create client proxies.
+ * Utilities for create client proxies.  Client proxies are the generated
+ * {@link JsonRpcClientStub} of the interface if there is one on the classpath
+ * and {@link Proxy}s otherwise.
  */
 @SuppressWarnings({"unused", "WeakerAccess"})
 public abstract class ProxyUtil {
@@ -143,18 +150,39 @@ public abstract class ProxyUtil {
 	 * @param output         the {@link OutputStream}
 	 * @return the proxied interface
 	 */
-	@SuppressWarnings({"unchecked", "WeakerAccess"})
+	@SuppressWarnings("WeakerAccess")
 	public static <T> T createClientProxy(ClassLoader classLoader, Class<T> proxyInterface, final JsonRpcClient client, final InputStream input, final OutputStream output) {
 		
-		// create and return the proxy
+		return createClientProxy(classLoader, proxyInterface, new JsonRpcClientStub.Invoker() {
+			@Override
+			public Object invoke(String methodName, Object params, Type resultType, boolean async) throws Throwable {
+				if (async) {
+					return invokeAsCompleted(this, methodName, params, resultType);
+				}
+				return client.invokeAndReadResponse(methodName, params, resultType, output, input);
+			}
+		});
+	}
+	
+	/**
+	 * Returns the generated stub of the given interface if there is one, a
+	 * {@link Proxy} otherwise, sending calls through the given invoker.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T createClientProxy(ClassLoader classLoader, Class<T> proxyInterface, final JsonRpcClientStub.Invoker invoker) {
+		final T stub = JsonRpcClientStub.forInterface(proxyInterface, invoker);
+		if (stub != null) {
+			return stub;
+		}
+		
 		return (T) Proxy.newProxyInstance(classLoader, new Class<?>[]{proxyInterface}, new InvocationHandler() {
 			@Override
 			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
 				if (isDeclaringClassAnObject(method)) return proxyObjectMethods(method, proxy, args);
 				
-				final Object arguments = ReflectionUtil.parseArguments(method, args);
-				final String methodName = getMethodName(method);
-				return client.invokeAndReadResponse(methodName, arguments, method.getGenericReturnType(), output, input);
+				final ClientCallPlan plan = ReflectionUtil.getCallPlan(method);
+				final Object arguments = plan.encodeArguments(args);
+				return invoker.invoke(plan.getMethodName(), arguments, plan.getResultType(), plan.isAsync());
 			}
 		});
 	}
@@ -164,12 +192,7 @@ public abstract class ProxyUtil {
 	}
 	
 	public static String getMethodName(Method method) {
-		final JsonRpcMethod jsonRpcMethod = ReflectionUtil.getAnnotation(method, JsonRpcMethod.class);
-		if (jsonRpcMethod == null) {
-			return method.getName();
-		} else {
-			return jsonRpcMethod.value();
-		}
+		return ReflectionUtil.getCallPlan(method).getMethodName();
 	}
 	
 	public static <T> T createClientProxy(Class<T> clazz, JsonRpcRestClient client) {
@@ -200,19 +223,101 @@ public abstract class ProxyUtil {
 	 * @param extraHeaders   extra HTTP headers to be added to each response
 	 * @return the proxied interface
 	 */
-	@SuppressWarnings("unchecked")
 	private static <T> T createClientProxy(ClassLoader classLoader, Class<T> proxyInterface, final IJsonRpcClient client, final Map<String, String> extraHeaders) {
 		
-		return (T) Proxy.newProxyInstance(classLoader, new Class<?>[]{proxyInterface}, new InvocationHandler() {
+		return createClientProxy(classLoader, proxyInterface, new JsonRpcClientStub.Invoker() {
 			@Override
-			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-				if (isDeclaringClassAnObject(method)) return proxyObjectMethods(method, proxy, args);
-				
-				final Object arguments = ReflectionUtil.parseArguments(method, args);
-				final String methodName = getMethodName(method);
-				return client.invoke(methodName, arguments, method.getGenericReturnType(), extraHeaders);
+			public Object invoke(String methodName, Object params, Type resultType, boolean async) throws Throwable {
+				if (async) {
+					if (client instanceof IJsonRpcAsyncClient) {
+						return ((IJsonRpcAsyncClient) client).invokeAsync(methodName, params, resultType, extraHeaders);
+					}
+					return invokeAsCompleted(this, methodName, params, resultType);
+				}
+				return client.invoke(methodName, params, resultType, extraHeaders);
+			}
+		});
+	}
+	
+	/**
+	 * Makes a blocking call for an asynchronous method, returning its outcome as a completed future.
+	 */
+	private static CompletableFuture<Object> invokeAsCompleted(JsonRpcClientStub.Invoker invoker, String methodName, Object arguments, Type resultType) {
+		final CompletableFuture<Object> future = new CompletableFuture<>();
+		try {
+			future.complete(invoker.invoke(methodName, arguments, resultType, false));
+		} catch (Throwable t) {
+			future.completeExceptionally(t);
+		}
+		return future;
+	}
+	
+	/**
+	 * Creates a {@link Proxy} of the given {@code proxyInterface} that uses the
+	 * given {@link IJsonRpcAsyncClient}.  Methods returning {@link CompletableFuture}
+	 * or {@link CompletionStage} return as soon as the request is sent; any other
+	 * method blocks until its result arrives.
+	 *
+	 * @param <T>            the proxy type
+	 * @param classLoader    the {@link ClassLoader}
+	 * @param proxyInterface the interface to proxy
+	 * @param client         the {@link IJsonRpcAsyncClient}
+	 * @return the proxied interface
+	 */
+	public static <T> T createAsyncClientProxy(ClassLoader classLoader, Class<T> proxyInterface, final IJsonRpcAsyncClient client) {
+		return createAsyncClientProxy(classLoader, proxyInterface, client, new HashMap<String, String>());
+	}
+	
+	/**
+	 * Creates a {@link Proxy} of the given {@code proxyInterface} that uses the
+	 * given {@link IJsonRpcAsyncClient}.
+	 *
+	 * @param <T>            the proxy type
+	 * @param classLoader    the {@link ClassLoader}
+	 * @param proxyInterface the interface to proxy
+	 * @param client         the {@link IJsonRpcAsyncClient}
+	 * @param extraHeaders   extra HTTP headers to be added to each request
+	 * @return the proxied interface
+	 * @see #createAsyncClientProxy(ClassLoader, Class, IJsonRpcAsyncClient)
+	 */
+	public static <T> T createAsyncClientProxy(ClassLoader classLoader, Class<T> proxyInterface, final IJsonRpcAsyncClient client, final Map<String, String> extraHeaders) {
+		
+		return createClientProxy(classLoader, proxyInterface, new JsonRpcClientStub.Invoker() {
+			@Override
+			public Object invoke(String methodName, Object params, Type resultType, boolean async) throws Throwable {
+				final CompletableFuture<Object> result = client.invokeAsync(methodName, params, resultType, extraHeaders);
+				if (async) {
+					return result;
+				}
+				try {
+					return result.get();
+				} catch (ExecutionException e) {
+					throw e.getCause();
+				}
 			}
 		});
 	}
 	
+	/**
+	 * @param method the proxied method
+	 * @return {@code true} if the method returns a {@link CompletableFuture} or a {@link CompletionStage}
+	 */
+	public static boolean isAsyncMethod(Method method) {
+		final Class<?> returnType = method.getReturnType();
+		return returnType == CompletableFuture.class || returnType == CompletionStage.class;
+	}
+	
+	/**
+	 * @param method a method for which {@link #isAsyncMethod(Method)} holds
+	 * @return the type the future completes with, e.g. {@code List<Foo>} for
+	 * {@code CompletableFuture<List<Foo>>}, or {@code Object} if it is raw
+	 */
+	public static Type getAsyncResultType(Method method) {
+		final Type returnType = method.getGenericReturnType();
+		if (returnType instanceof ParameterizedType) {
+			return ((ParameterizedType) returnType).getActualTypeArguments()[0];
+		}
+		return Object.class;
+	}
+	
 }
@@ -1,5 +1,6 @@
 package com.googlecode.jsonrpc4j;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -23,7 +24,9 @@ public class ReadContext {
 	}
 	
 	public JsonNode nextValue() throws IOException {
-		return mapper.readValue(input, JsonNode.class);
+		try (JsonParser parser = mapper.createParser(input)) {
+			return MessageTreeReader.readTree(mapper, parser);
+		}
 	}
 	
 	public void assertReadable() throws IOException {
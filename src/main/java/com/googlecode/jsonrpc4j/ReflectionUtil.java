@@ -1,67 +1,193 @@
 package com.googlecode.jsonrpc4j;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Utilities for reflection.
+ * Utilities for reflection.  Metadata is kept per class in a {@link ClassValue},
+ * so it goes away with the class, and is limited to the methods a class has:
+ * method names that match nothing are looked up every time instead of being
+ * remembered.
  */
 public abstract class ReflectionUtil {
 	
-	private static final Map<String, Set<Method>> methodCache = new ConcurrentHashMap<>();
+	private static final ClassValue<ClassMetadata> classMetadata = new ClassValue<ClassMetadata>() {
+		@Override
+		protected ClassMetadata computeValue(Class<?> type) {
+			return new ClassMetadata(type.getMethods());
+		}
+	};
 	
-	private static final Map<Method, List<Class<?>>> parameterTypeCache = new ConcurrentHashMap<>();
+	/**
+	 * Generated dispatchers by interface, kept apart from the metadata
+	 * since they are fixed at compile time and need no method scan.
+	 */
+	private static final ClassValue<Optional<JsonRpcDispatcher>> dispatchers = new ClassValue<Optional<JsonRpcDispatcher>>() {
+		@Override
+		protected Optional<JsonRpcDispatcher> computeValue(Class<?> type) {
+			return Optional.ofNullable(loadDispatcher(type));
+		}
+	};
 	
-	private static final Map<Method, List<Annotation>> methodAnnotationCache = new ConcurrentHashMap<>();
+	/**
+	 * Constructors of generated client stubs by interface.
+	 */
+	private static final ClassValue<Optional<Constructor<?>>> clientStubs = new ClassValue<Optional<Constructor<?>>>() {
+		@Override
+		protected Optional<Constructor<?>> computeValue(Class<?> type) {
+			return Optional.ofNullable(loadClientStub(type));
+		}
+	};
 	
-	private static final Map<Method, List<List<Annotation>>> methodParamAnnotationCache = new ConcurrentHashMap<>();
+	/**
+	 * Bumped by {@link #clearCache()} to retire the metadata of every class.
+	 */
+	private static volatile int generation;
+	
+	private static ClassMetadata getClassMetadata(Class<?> type) {
+		ClassMetadata metadata = classMetadata.get(type);
+		if (metadata.generation != generation) {
+			classMetadata.remove(type);
+			metadata = classMetadata.get(type);
+		}
+		return metadata;
+	}
+	
+	private static MethodMetadata getMethodMetadata(Method method) {
+		return getClassMetadata(method.getDeclaringClass()).getMethodMetadata(method);
+	}
 	
 	/**
 	 * Finds methods with the given name on the given class.
+	 * The same classes and name give the same set instance
+	 * until the cache of the first class is cleared.
 	 *
 	 * @param classes                    the classes
 	 * @param name                       the method name
 	 * @return the methods
 	 */
 	static Set<Method> findCandidateMethods(Class<?>[] classes, String name) {
-		StringBuilder sb = new StringBuilder();
-		for (Class<?> clazz : classes) {
-			sb.append(clazz.getName()).append("::");
-		}
-		String cacheKey = sb.append(name).toString();
-		if (methodCache.containsKey(cacheKey)) {
-			return methodCache.get(cacheKey);
+		if (classes.length == 0) {
+			return Collections.emptySet();
 		}
+		return getClassMetadata(classes[0]).findCandidateMethods(classes, name);
+	}
+	
+	private static Set<Method> collectCandidateMethods(Class<?>[] classes, String name) {
 		Set<Method> methods = new HashSet<>();
 		for (Class<?> clazz : classes) {
-            for (Method method : clazz.getMethods()) {
-                if (method.isAnnotationPresent(JsonRpcMethod.class)) {
-                    JsonRpcMethod methodAnnotation = method.getAnnotation(JsonRpcMethod.class);
-
-                    if (methodAnnotation.required()) {
-                        if (methodAnnotation.value().equals(name)) {
-                            methods.add(method);
-                        }
-                    } else if (methodAnnotation.value().equals(name) || method.getName().equals(name)) {
-                        methods.add(method);
-                    }
-                } else if (method.getName().equals(name)) {
-                    methods.add(method);
-                }
-            }
-        }
-		methods = Collections.unmodifiableSet(methods);
-		methodCache.put(cacheKey, methods);
-		return methods;
+			for (Method method : getClassMetadata(clazz).publicMethods) {
+				if (isCandidate(method, name)) {
+					methods.add(method);
+				}
+			}
+		}
+		return Collections.unmodifiableSet(methods);
+	}
+	
+	private static boolean isCandidate(Method method, String name) {
+		if (method.isAnnotationPresent(JsonRpcMethod.class)) {
+			JsonRpcMethod methodAnnotation = method.getAnnotation(JsonRpcMethod.class);
+			if (methodAnnotation.required()) {
+				return methodAnnotation.value().equals(name);
+			}
+			return methodAnnotation.value().equals(name) || method.getName().equals(name);
+		}
+		return method.getName().equals(name);
+	}
+	
+	/**
+	 * Returns the generated dispatcher of the given interface.
+	 *
+	 * @param type the interface
+	 * @return the dispatcher or {@code null}
+	 * @see JsonRpcDispatcher#forInterface(Class)
+	 */
+	static JsonRpcDispatcher getDispatcher(Class<?> type) {
+		return dispatchers.get(type).orElse(null);
+	}
+	
+	private static JsonRpcDispatcher loadDispatcher(Class<?> type) {
+		Class<?> dispatcherClass = findGeneratedClass(type, JsonRpcDispatcher.CLASS_NAME_SUFFIX);
+		if (dispatcherClass == null || !JsonRpcDispatcher.class.isAssignableFrom(dispatcherClass)) {
+			return null;
+		}
+		try {
+			JsonRpcDispatcher dispatcher = (JsonRpcDispatcher) dispatcherClass.getDeclaredConstructor().newInstance();
+			return dispatcher.getServiceInterface() == type ? dispatcher : null;
+		} catch (ReflectiveOperationException | LinkageError e) {
+			// generated for an older version of the interface
+			return null;
+		}
+	}
+	
+	/**
+	 * Creates the generated client stub of the given interface.
+	 *
+	 * @param <T>     the interface type
+	 * @param type    the interface
+	 * @param invoker sends the calls of the stub
+	 * @return the stub or {@code null}
+	 * @see JsonRpcClientStub#forInterface(Class, JsonRpcClientStub.Invoker)
+	 */
+	static <T> T createClientStub(Class<T> type, JsonRpcClientStub.Invoker invoker) {
+		Constructor<?> constructor = clientStubs.get(type).orElse(null);
+		if (constructor == null) {
+			return null;
+		}
+		try {
+			return type.cast(constructor.newInstance(invoker));
+		} catch (InvocationTargetException e) {
+			throw new UndeclaredThrowableException(e.getTargetException());
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static Constructor<?> loadClientStub(Class<?> type) {
+		Class<?> stubClass = findGeneratedClass(type, JsonRpcClientStub.CLASS_NAME_SUFFIX);
+		if (stubClass == null || !JsonRpcClientStub.class.isAssignableFrom(stubClass) || !type.isAssignableFrom(stubClass)) {
+			return null;
+		}
+		try {
+			return stubClass.getConstructor(JsonRpcClientStub.Invoker.class);
+		} catch (NoSuchMethodException | LinkageError e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Loads the class generated for an interface, named after the interface's
+	 * binary name with {@code $} replaced by {@code _} and the given suffix.
+	 *
+	 * @return the class or {@code null} if it was not generated or fails to load,
+	 * e.g. because it was generated for an older version of the interface
+	 */
+	private static Class<?> findGeneratedClass(Class<?> type, String suffix) {
+		if (!type.isInterface() || type.getClassLoader() == null) {
+			return null;
+		}
+		String packageName = type.getPackage() == null ? "" : type.getPackage().getName();
+		String simpleName = type.getName().substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_');
+		try {
+			return Class.forName((packageName.isEmpty() ? "" : packageName + ".") + simpleName + suffix, true, type.getClassLoader());
+		} catch (ClassNotFoundException | LinkageError e) {
+			return null;
+		}
 	}
 	
 	/**
@@ -71,14 +197,7 @@ public abstract class ReflectionUtil {
 	 * @return the parameter types
 	 */
 	static List<Class<?>> getParameterTypes(Method method) {
-		if (parameterTypeCache.containsKey(method)) {
-			return parameterTypeCache.get(method);
-		}
-		List<Class<?>> types = new ArrayList<>();
-		Collections.addAll(types, method.getParameterTypes());
-		types = Collections.unmodifiableList(types);
-		parameterTypeCache.put(method, types);
-		return types;
+		return getMethodMetadata(method).parameterTypes;
 	}
 	
 	/**
@@ -112,14 +231,7 @@ public abstract class ReflectionUtil {
 	 * @return the {@link Annotation}s
 	 */
 	private static List<Annotation> getAnnotations(Method method) {
-		if (methodAnnotationCache.containsKey(method)) {
-			return methodAnnotationCache.get(method);
-		}
-		List<Annotation> annotations = new ArrayList<>();
-		Collections.addAll(annotations, method.getAnnotations());
-		annotations = Collections.unmodifiableList(annotations);
-		methodAnnotationCache.put(method, annotations);
-		return annotations;
+		return getMethodMetadata(method).annotations;
 	}
 	
 	/**
@@ -165,105 +277,32 @@ public abstract class ReflectionUtil {
 	 * @return the {@link Annotation}s
 	 */
 	private static List<List<Annotation>> getParameterAnnotations(Method method) {
-		if (methodParamAnnotationCache.containsKey(method)) {
-			return methodParamAnnotationCache.get(method);
-		}
-		List<List<Annotation>> annotations = new ArrayList<>();
-		for (Annotation[] paramAnnotations : method.getParameterAnnotations()) {
-			List<Annotation> listAnnotations = new ArrayList<>();
-			Collections.addAll(listAnnotations, paramAnnotations);
-			annotations.add(listAnnotations);
-		}
-		annotations = Collections.unmodifiableList(annotations);
-		methodParamAnnotationCache.put(method, annotations);
-		return annotations;
+		return getMethodMetadata(method).parameterAnnotations;
 	}
 	
 	/**
-	 * Parses the given arguments for the given method optionally
-	 * turning them into named parameters.
+	 * Returns the {@link ClientCallPlan} for the given {@link Method},
+	 * building it on first use.
 	 *
-	 * @param method    the method
-	 * @param arguments the arguments
-	 * @return the parsed arguments
+	 * @param method the method
+	 * @return the call plan
 	 */
-	public static Object parseArguments(Method method, Object[] arguments) {
-
-		JsonRpcParamsPassMode paramsPassMode = JsonRpcParamsPassMode.AUTO;
-		JsonRpcMethod jsonRpcMethod = getAnnotation(method, JsonRpcMethod.class);
-		if (jsonRpcMethod != null)
-			paramsPassMode = jsonRpcMethod.paramsPassMode();
-
-		Map<String, Object> params = new LinkedHashMap<>();
-
-		params.putAll(getFixedParametersCollection(method));
-		params.putAll(getFixedParameters(method));
-		params.putAll(getNamedParameters(method, arguments));
-
-		switch (paramsPassMode) {
-			case ARRAY:
-				if (params.size() > 0) {
-					Object[] parsed = new Object[params.size()];
-					int i = 0;
-					for (Object value : params.values()) {
-						parsed[i++] = value;
-					}
-					return parsed;
-				} else {
-					return arguments != null ? arguments : new Object[]{};
-				}
-			case OBJECT:
-				if (params.size() > 0) {
-					return params;
-				} else {
-					if (arguments == null) {
-                        return new Object[]{};
-                    }
-					throw new IllegalArgumentException(
-							"OBJECT parameters pass mode is impossible without declaring JsonRpcParam annotations for all parameters on method "
-									+ method.getName());
-				}
-			case AUTO:
-			default:
-				if (params.size() > 0) {
-					return params;
-				} else {
-					return arguments != null ? arguments : new Object[]{};
-				}
-		}
+	static ClientCallPlan getCallPlan(Method method) {
+		return getMethodMetadata(method).getCallPlan(method);
 	}
 	
 	/**
-	 * Checks method for @JsonRpcParam annotations and returns named parameters.
+	 * Parses the given arguments for the given method optionally
+	 * turning them into named parameters.
 	 *
 	 * @param method    the method
 	 * @param arguments the arguments
-	 * @return named parameters or empty if no annotations found
-	 * @throws IllegalArgumentException if some parameters are annotated and others not
+	 * @return the parsed arguments
 	 */
-	private static Map<String, Object> getNamedParameters(Method method, Object[] arguments) {
-		
-		Map<String, Object> namedParams = new LinkedHashMap<>();
-		
-		Annotation[][] paramAnnotations = method.getParameterAnnotations();
-		for (int i = 0; i < paramAnnotations.length; i++) {
-			Annotation[] ann = paramAnnotations[i];
-			for (Annotation an : ann) {
-				if (JsonRpcParam.class.isInstance(an)) {
-					JsonRpcParam jAnn = (JsonRpcParam) an;
-					namedParams.put(jAnn.value(), arguments[i]);
-					break;
-				}
-			}
-		}
-		
-		if (arguments != null && arguments.length > 0 && namedParams.size() > 0 && namedParams.size() != arguments.length) {
-			throw new IllegalArgumentException("JsonRpcParam annotations were not found for all parameters on method " + method.getName());
-		}
-		
-		return namedParams;
+	public static Object parseArguments(Method method, Object[] arguments) {
+		return getCallPlan(method).encodeArguments(arguments);
 	}
-
+	
 	/**
 	 * Checks method for @JsonRpcFixedParam annotations and returns fixed
 	 * parameters.
@@ -307,10 +346,119 @@ public abstract class ReflectionUtil {
 		return fixedParams;
 	}
 
+	/**
+	 * Forgets the metadata of all classes.
+	 *
+	 * @see #clearCache(Class[])
+	 */
 	public static void clearCache() {
-		methodCache.clear();
-		parameterTypeCache.clear();
-		methodAnnotationCache.clear();
-		methodParamAnnotationCache.clear();
+		generation++;
+	}
+	
+	/**
+	 * Forgets the metadata of the given classes, e.g. those of one service.
+	 *
+	 * @param classes the classes, {@code null}s are ignored
+	 */
+	public static void clearCache(Class<?>... classes) {
+		if (classes == null) {
+			return;
+		}
+		for (Class<?> clazz : classes) {
+			if (clazz != null) {
+				classMetadata.remove(clazz);
+			}
+		}
+	}
+	
+	/**
+	 * The metadata of one class.
+	 */
+	private static final class ClassMetadata {
+		
+		private final int generation = ReflectionUtil.generation;
+		private final Method[] publicMethods;
+		/**
+		 * Non-empty candidate sets by method name, for lookups on this class alone.
+		 */
+		private final Map<String, Set<Method>> candidates = new ConcurrentHashMap<>();
+		/**
+		 * Non-empty candidate sets by the other classes and the method name,
+		 * for lookups on this class and others.
+		 */
+		private final Map<List<Object>, Set<Method>> combinedCandidates = new ConcurrentHashMap<>();
+		private final Map<Method, MethodMetadata> methods = new ConcurrentHashMap<>();
+		
+		private ClassMetadata(Method[] publicMethods) {
+			this.publicMethods = publicMethods;
+		}
+		
+		private Set<Method> findCandidateMethods(Class<?>[] classes, String name) {
+			if (classes.length == 1) {
+				Set<Method> found = candidates.get(name);
+				if (found == null) {
+					found = remember(candidates, name, collectCandidateMethods(classes, name));
+				}
+				return found;
+			}
+			List<Object> key = new ArrayList<>(classes.length);
+			key.add(name);
+			key.addAll(Arrays.asList(classes).subList(1, classes.length));
+			Set<Method> found = combinedCandidates.get(key);
+			if (found == null) {
+				found = remember(combinedCandidates, key, collectCandidateMethods(classes, name));
+			}
+			return found;
+		}
+		
+		private static <K> Set<Method> remember(Map<K, Set<Method>> cache, K key, Set<Method> methods) {
+			if (methods.isEmpty()) {
+				return methods;
+			}
+			Set<Method> raced = cache.putIfAbsent(key, methods);
+			return raced == null ? methods : raced;
+		}
+		
+		private MethodMetadata getMethodMetadata(Method method) {
+			MethodMetadata metadata = methods.get(method);
+			if (metadata == null) {
+				metadata = new MethodMetadata(method);
+				MethodMetadata raced = methods.putIfAbsent(method, metadata);
+				if (raced != null) {
+					metadata = raced;
+				}
+			}
+			return metadata;
+		}
+	}
+	
+	/**
+	 * The metadata of one method.
+	 */
+	private static final class MethodMetadata {
+		
+		private final List<Class<?>> parameterTypes;
+		private final List<Annotation> annotations;
+		private final List<List<Annotation>> parameterAnnotations;
+		private volatile ClientCallPlan callPlan;
+		
+		private MethodMetadata(Method method) {
+			this.parameterTypes = Collections.unmodifiableList(Arrays.asList(method.getParameterTypes()));
+			this.annotations = Collections.unmodifiableList(Arrays.asList(method.getAnnotations()));
+			List<List<Annotation>> parameterAnnotations = new ArrayList<>();
+			for (Annotation[] paramAnnotations : method.getParameterAnnotations()) {
+				parameterAnnotations.add(Collections.unmodifiableList(Arrays.asList(paramAnnotations)));
+			}
+			this.parameterAnnotations = Collections.unmodifiableList(parameterAnnotations);
+		}
+		
+		private ClientCallPlan getCallPlan(Method method) {
+			ClientCallPlan plan = callPlan;
+			if (plan == null) {
+				plan = new ClientCallPlan(method);
+				callPlan = plan;
+			}
+			return plan;
+		}
 	}
 }
@@ -0,0 +1,171 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.ID;
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.JSONRPC;
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.METHOD;
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.PARAMS;
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.VERSION;
+
+/**
+ * Writes JSON requests straight to the transport without building an
+ * {@link com.fasterxml.jackson.databind.node.ObjectNode} first.  The constant
+ * start of a request, {@code {"jsonrpc":"2.0","method":"x","params":}, is
+ * encoded once per method and copied as is; only the params, any additional
+ * content and the id are serialized per call.
+ * <p>
+ * Requests that a {@link JsonRpcClient.RequestListener} may inspect or change,
+ * or that are written in a binary format, are still built as a tree.
+ */
+class RequestWriter {
+
+	/**
+	 * Method names beyond this many are encoded per call instead of cached.
+	 */
+	private static final int MAX_CACHED_METHODS = 1024;
+	private static final SerializedString EMPTY_PARAMS = new SerializedString("[]");
+	private static final SerializedString ID_FIELD = new SerializedString(",\"" + ID + "\":");
+
+	private final ObjectMapper mapper;
+	private final Map<String, SerializedString> prefixes = new ConcurrentHashMap<>();
+
+	/**
+	 * @param mapper the {@link ObjectMapper} writing JSON
+	 */
+	RequestWriter(ObjectMapper mapper) {
+		this.mapper = mapper;
+	}
+
+	/**
+	 * @param arguments the params of a request
+	 * @return whether the request can be streamed; arrays of primitives are
+	 * left to the tree path, which reports them as before
+	 */
+	static boolean canWrite(Object arguments) {
+		return arguments == null || !arguments.getClass().isArray() || arguments instanceof Object[];
+	}
+
+	/**
+	 * Writes a request and flushes the generator, leaving {@code output} open.
+	 *
+	 * @param output            the stream to write to
+	 * @param methodName        the method name
+	 * @param arguments         the params, see {@link JsonRpcClient#invoke(String, Object, OutputStream)}
+	 * @param id                the id, a {@link String} or {@link Number}, or {@code null} for a notification
+	 * @param additionalContent members added after the params, none of them named like a member of the envelope
+	 * @throws IOException on error
+	 */
+	void write(OutputStream output, String methodName, Object arguments, Object id, Map<String, Object> additionalContent) throws IOException {
+		try (JsonGenerator generator = mapper.createGenerator(new NoCloseOutputStream(output), JsonEncoding.UTF8)) {
+			write(generator, methodName, arguments, id, additionalContent);
+		}
+	}
+
+	/**
+	 * Writes a request to a generator created by the mapper, e.g. the envelope
+	 * generator of a {@link DataFormat#ATTACHMENTS} message.
+	 *
+	 * @param generator         the generator, left open
+	 * @param methodName        the method name
+	 * @param arguments         the params
+	 * @param id                the id, or {@code null} for a notification
+	 * @param additionalContent members added after the params
+	 * @throws IOException on error
+	 */
+	void write(JsonGenerator generator, String methodName, Object arguments, Object id, Map<String, Object> additionalContent) throws IOException {
+		final ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		// values follow raw members, so they must not be separated like root values
+		generator.setRootValueSeparator(null);
+		generator.writeRaw(prefix(methodName));
+		if (hasNoParams(arguments)) {
+			generator.writeRaw(EMPTY_PARAMS);
+		} else if (arguments instanceof Object[]) {
+			writeElements(generator, writer, Arrays.asList((Object[]) arguments));
+		} else if (arguments instanceof Collection) {
+			writeElements(generator, writer, (Collection<?>) arguments);
+		} else {
+			writer.writeValue(generator, arguments);
+		}
+		if (additionalContent != null) {
+			for (Map.Entry<String, Object> entry : additionalContent.entrySet()) {
+				generator.writeRaw(',');
+				generator.writeString(entry.getKey());
+				generator.writeRaw(':');
+				writer.writeValue(generator, entry.getValue());
+			}
+		}
+		if (id != null) {
+			generator.writeRaw(ID_FIELD);
+			if (id instanceof Number) {
+				generator.writeNumber(((Number) id).longValue());
+			} else {
+				generator.writeString(id.toString());
+			}
+		}
+		generator.writeRaw('}');
+	}
+
+	/**
+	 * Serializes every param for itself, like the tree path, so that its
+	 * runtime type picks the serializer and type ids are written.
+	 */
+	private static void writeElements(JsonGenerator generator, ObjectWriter writer, Collection<?> arguments) throws IOException {
+		generator.writeStartArray();
+		for (Object argument : arguments) {
+			writer.writeValue(generator, argument);
+		}
+		generator.writeEndArray();
+	}
+
+	/**
+	 * @param additionalContent the additional members of a request
+	 * @return whether none of them replaces a member of the envelope, which
+	 * only the tree path can do
+	 */
+	static boolean canAdd(Map<String, Object> additionalContent) {
+		if (additionalContent == null || additionalContent.isEmpty()) {
+			return true;
+		}
+		for (String name : additionalContent.keySet()) {
+			if (ID.equals(name) || JSONRPC.equals(name) || METHOD.equals(name) || PARAMS.equals(name)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Mirrors the tree path, which sends {@code []} for missing or empty params.
+	 */
+	private static boolean hasNoParams(Object arguments) {
+		return arguments == null
+				|| (arguments instanceof Object[] && ((Object[]) arguments).length == 0)
+				|| (arguments instanceof Collection && ((Collection<?>) arguments).isEmpty())
+				|| (arguments instanceof Map && ((Map<?, ?>) arguments).isEmpty());
+	}
+
+	private SerializedString prefix(String methodName) throws IOException {
+		SerializedString prefix = methodName == null ? null : prefixes.get(methodName);
+		if (prefix == null) {
+			prefix = new SerializedString("{\"" + JSONRPC + "\":\"" + VERSION + "\",\"" + METHOD + "\":"
+					+ mapper.writeValueAsString(methodName) + ",\"" + PARAMS + "\":");
+			if (methodName != null && prefixes.size() < MAX_CACHED_METHODS) {
+				prefixes.put(methodName, prefix);
+			}
+		}
+		return prefix;
+	}
+}
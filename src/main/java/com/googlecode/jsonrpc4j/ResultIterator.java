@@ -0,0 +1,146 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The {@code result} array of a response read one element at a time, while
+ * it is still arriving, for methods declared to return an {@link Iterator} or
+ * a {@link Stream}.  The transport the response is read from stays open
+ * until the last element has been read or the iterator or stream is closed.
+ *
+ * @param <T> the element type
+ */
+class ResultIterator<T> implements Iterator<T>, Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(ResultIterator.class);
+
+	private final ObjectMapper mapper;
+	private final JsonParser parser;
+	private final JavaType elementType;
+	private final Closeable transport;
+	private T next;
+	private boolean fetched;
+	private boolean closed;
+
+	/**
+	 * @param mapper      the mapper binding the elements
+	 * @param parser      a parser positioned on the {@code START_ARRAY} of the result
+	 * @param elementType the element type
+	 * @param transport   closed with the iterator, may be {@code null}
+	 */
+	ResultIterator(ObjectMapper mapper, JsonParser parser, JavaType elementType, Closeable transport) {
+		this.mapper = mapper;
+		this.parser = parser;
+		this.elementType = elementType;
+		this.transport = transport;
+	}
+
+	/**
+	 * @param returnType the declared return type of a call
+	 * @return whether results of this type are read lazily
+	 */
+	static boolean isLazyType(Type returnType) {
+		final Type raw = returnType instanceof ParameterizedType ? ((ParameterizedType) returnType).getRawType() : returnType;
+		return raw == Iterator.class || raw == Stream.class;
+	}
+
+	/**
+	 * @param mapper     the mapper
+	 * @param returnType a type for which {@link #isLazyType(Type)} holds
+	 * @return the type of its elements
+	 */
+	static JavaType elementType(ObjectMapper mapper, Type returnType) {
+		if (returnType instanceof ParameterizedType) {
+			return mapper.getTypeFactory().constructType(((ParameterizedType) returnType).getActualTypeArguments()[0]);
+		}
+		return mapper.getTypeFactory().constructType(Object.class);
+	}
+
+	/**
+	 * @param returnType the declared return type, an {@link Iterator} or a {@link Stream}
+	 * @return this iterator, or a sequential stream over it closing it when closed
+	 */
+	Object as(Type returnType) {
+		final Type raw = returnType instanceof ParameterizedType ? ((ParameterizedType) returnType).getRawType() : returnType;
+		if (raw != Stream.class) {
+			return this;
+		}
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false).onClose(this::closeQuietly);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (fetched) {
+			return true;
+		}
+		if (closed) {
+			return false;
+		}
+		try {
+			if (parser.nextToken() == JsonToken.END_ARRAY) {
+				close();
+				return false;
+			}
+			next = mapper.readValue(parser, elementType);
+			fetched = true;
+			return true;
+		} catch (IOException e) {
+			closeQuietly();
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		final T element = next;
+		next = null;
+		fetched = false;
+		return element;
+	}
+
+	/**
+	 * Stops reading and releases the transport; elements not read yet are discarded.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			parser.close();
+		} finally {
+			if (transport != null) {
+				transport.close();
+			}
+		}
+	}
+
+	private void closeQuietly() {
+		try {
+			close();
+		} catch (IOException e) {
+			logger.debug("Failed to release the transport of a streamed result", e);
+		}
+	}
+}
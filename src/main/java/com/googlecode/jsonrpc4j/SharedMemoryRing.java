@@ -0,0 +1,201 @@
+package com.googlecode.jsonrpc4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single-producer single-consumer byte ring living in a region of a
+ * (memory-mapped) {@link ByteBuffer}.  The region starts with a header that
+ * keeps the consumer position, the producer position and a closed flag on
+ * separate cache lines, followed by {@code capacity} bytes of data.
+ * Positions only ever grow; the data index is {@code position & (capacity - 1)}.
+ * <p>
+ * Positions are published with release stores and observed with acquire
+ * loads, which is all the ordering two processes mapping the same file need.
+ */
+class SharedMemoryRing {
+
+	static final int HEAD_OFFSET = 0;
+	static final int TAIL_OFFSET = 64;
+	static final int CLOSED_OFFSET = 128;
+	static final int HEADER_SIZE = 192;
+
+	private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+	private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+	private final ByteBuffer buffer;
+	private final int base;
+	private final int capacity;
+	private final int mask;
+	private final int spinTries;
+	private final long parkNanos;
+
+	/**
+	 * @param buffer    the buffer holding the ring
+	 * @param base      the offset of the ring header within the buffer
+	 * @param capacity  the size of the data area, a power of two
+	 * @param spinTries how many times to spin before parking when the ring is empty or full
+	 * @param parkNanos how long to park for once spinning gave up
+	 */
+	SharedMemoryRing(ByteBuffer buffer, int base, int capacity, int spinTries, long parkNanos) {
+		if (Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+		}
+		this.buffer = buffer;
+		this.base = base;
+		this.capacity = capacity;
+		this.mask = capacity - 1;
+		this.spinTries = spinTries;
+		this.parkNanos = parkNanos;
+	}
+
+	static int regionSize(int capacity) {
+		return HEADER_SIZE + capacity;
+	}
+
+	boolean isClosed() {
+		return (int) INT.getAcquire(buffer, base + CLOSED_OFFSET) != 0;
+	}
+
+	void close() {
+		INT.setRelease(buffer, base + CLOSED_OFFSET, 1);
+	}
+
+	private long head() {
+		return (long) LONG.getAcquire(buffer, base + HEAD_OFFSET);
+	}
+
+	private long tail() {
+		return (long) LONG.getAcquire(buffer, base + TAIL_OFFSET);
+	}
+
+	private int idle(int idleCount) throws InterruptedIOException {
+		if (idleCount < spinTries) {
+			Thread.onSpinWait();
+		} else {
+			LockSupport.parkNanos(parkNanos);
+			if (Thread.interrupted()) {
+				throw new InterruptedIOException("Interrupted while waiting on shared memory ring");
+			}
+		}
+		return idleCount + 1;
+	}
+
+	/**
+	 * @return the consuming end of the ring
+	 */
+	InputStream inputStream() {
+		return new RingInputStream();
+	}
+
+	/**
+	 * @return the producing end of the ring
+	 */
+	OutputStream outputStream() {
+		return new RingOutputStream();
+	}
+
+	private class RingInputStream extends InputStream {
+
+		private long head = SharedMemoryRing.this.head();
+
+		@Override
+		public int read() throws IOException {
+			final byte[] one = new byte[1];
+			return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+		}
+
+		/**
+		 * Blocks until at least one byte is available and returns whatever is
+		 * there, up to {@code len}, so a JSON parser never waits for bytes
+		 * beyond the end of the current message.
+		 */
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			int idleCount = 0;
+			long available;
+			while ((available = tail() - head) == 0) {
+				if (isClosed()) {
+					// the producer may have published its last bytes right before closing
+					if (tail() - head == 0) {
+						return -1;
+					}
+					continue;
+				}
+				idleCount = idle(idleCount);
+			}
+			final int n = (int) Math.min(len, available);
+			final int index = (int) (head & mask);
+			final int first = Math.min(n, capacity - index);
+			buffer.get(base + HEADER_SIZE + index, b, off, first);
+			if (first < n) {
+				buffer.get(base + HEADER_SIZE, b, off + first, n - first);
+			}
+			head += n;
+			LONG.setRelease(buffer, base + HEAD_OFFSET, head);
+			return n;
+		}
+
+		@Override
+		public int available() {
+			return (int) Math.min(Integer.MAX_VALUE, tail() - head);
+		}
+
+		@Override
+		public void close() {
+			SharedMemoryRing.this.close();
+		}
+	}
+
+	private class RingOutputStream extends OutputStream {
+
+		private long tail = SharedMemoryRing.this.tail();
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			int idleCount = 0;
+			while (len > 0) {
+				if (isClosed()) {
+					throw new IOException("Shared memory ring is closed");
+				}
+				final int free = capacity - (int) (tail - head());
+				if (free == 0) {
+					idleCount = idle(idleCount);
+					continue;
+				}
+				idleCount = 0;
+				final int n = Math.min(len, free);
+				final int index = (int) (tail & mask);
+				final int first = Math.min(n, capacity - index);
+				buffer.put(base + HEADER_SIZE + index, b, off, first);
+				if (first < n) {
+					buffer.put(base + HEADER_SIZE, b, off + first, n - first);
+				}
+				tail += n;
+				LONG.setRelease(buffer, base + TAIL_OFFSET, tail);
+				off += n;
+				len -= n;
+			}
+		}
+
+		@Override
+		public void close() {
+			SharedMemoryRing.this.close();
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package com.googlecode.jsonrpc4j;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serves JSON-RPC requests arriving over a {@link SharedMemoryTransport} on a
+ * dedicated thread, the shared memory counterpart of {@link StreamServer}.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class SharedMemoryServer {
+
+	private static final Logger logger = LoggerFactory.getLogger(SharedMemoryServer.class);
+
+	private static final long STOP_TIMEOUT_MILLIS = 5000;
+
+	private final JsonRpcBasicServer jsonRpcServer;
+	private final SharedMemoryTransport transport;
+	private final AtomicBoolean isStarted = new AtomicBoolean(false);
+	private final AtomicBoolean keepRunning = new AtomicBoolean(false);
+	private Thread thread;
+	private int maxClientErrors = 5;
+	private int errors;
+	private Throwable lastException;
+
+	/**
+	 * @param jsonRpcServer the {@link JsonRpcBasicServer} that will handle requests
+	 * @param transport     the server end of a {@link SharedMemoryTransport}
+	 */
+	public SharedMemoryServer(JsonRpcBasicServer jsonRpcServer, SharedMemoryTransport transport) {
+		this.jsonRpcServer = jsonRpcServer;
+		this.transport = transport;
+		jsonRpcServer.setRethrowExceptions(false);
+	}
+
+	/**
+	 * Starts the server thread.
+	 */
+	public void start() {
+		if (!isStarted.compareAndSet(false, true)) {
+			throw new IllegalStateException("The SharedMemoryServer is already started");
+		}
+		keepRunning.set(true);
+		thread = new Thread(this::serve, "jsonrpc4j-shm-server");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the server thread and closes the transport.
+	 *
+	 * @throws InterruptedException if a graceful shutdown didn't happen
+	 */
+	public void stop() throws InterruptedException {
+		if (!isStarted.get()) {
+			throw new IllegalStateException("The SharedMemoryServer is not started");
+		}
+		keepRunning.set(false);
+		try {
+			transport.close();
+		} catch (IOException e) {
+			logger.debug("Failed to close transport", e);
+		}
+		thread.join(STOP_TIMEOUT_MILLIS);
+		isStarted.set(false);
+	}
+
+	private void serve() {
+		final BufferedInputStream input = new BufferedInputStream(transport.getInputStream());
+		final OutputStream output = transport.getOutputStream();
+		while (keepRunning.get()) {
+			try {
+				jsonRpcServer.handleRequest(input, output);
+			} catch (Throwable t) {
+				if (StreamEndedException.class.isInstance(t) || transport.isInputClosed()) {
+					logger.debug("Shared memory client disconnected");
+					break;
+				}
+				errors++;
+				lastException = t;
+				if (errors < maxClientErrors) {
+					logger.error("Exception while handling request", t);
+				} else {
+					logger.error("Closing shared memory transport due to repeated errors", t);
+					break;
+				}
+			}
+		}
+		keepRunning.set(false);
+	}
+
+	/**
+	 * @return the number of errors while handling requests
+	 */
+	public int getNumberOfErrors() {
+		return errors;
+	}
+
+	/**
+	 * @return the last error while handling requests
+	 */
+	public Throwable getLastException() {
+		return lastException;
+	}
+
+	/**
+	 * @return the maxClientErrors
+	 */
+	public int getMaxClientErrors() {
+		return maxClientErrors;
+	}
+
+	/**
+	 * @param maxClientErrors the maxClientErrors to set
+	 */
+	public void setMaxClientErrors(int maxClientErrors) {
+		this.maxClientErrors = maxClientErrors;
+	}
+
+	/**
+	 * @return {@code true} while the server thread is serving requests
+	 */
+	public boolean isRunning() {
+		return keepRunning.get();
+	}
+
+	/**
+	 * @return the isStarted
+	 */
+	public boolean isStarted() {
+		return isStarted.get();
+	}
+}
@@ -0,0 +1,195 @@
+package com.googlecode.jsonrpc4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A JSON-RPC transport between two processes on the same machine backed by a
+ * memory-mapped file.  The file holds two {@link SharedMemoryRing}s: one
+ * carrying requests from client to server and one carrying responses back.
+ * <p>
+ * The server side {@link #create(Path, int) creates} the file and the client
+ * side {@link #open(Path) opens} it afterwards.  Each side then uses
+ * {@link #getInputStream()} and {@link #getOutputStream()} exactly like a
+ * socket's streams, e.g. with {@link SharedMemoryServer} on one end and
+ * {@link ProxyUtil#createClientProxy(ClassLoader, Class, JsonRpcClient, InputStream, OutputStream)}
+ * on the other.  The rings are single-producer single-consumer, so a
+ * file serves exactly one client, and each side must be driven by one
+ * thread at a time.
+ * <p>
+ * Waiting for data or space spins for {@link #DEFAULT_SPIN_TRIES} rounds before
+ * parking for {@link #DEFAULT_PARK_NANOS} at a time, trading a little CPU for
+ * round-trips that never go through a system call.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class SharedMemoryTransport implements Closeable {
+
+	public static final int DEFAULT_RING_CAPACITY = 1 << 20;
+	public static final int DEFAULT_SPIN_TRIES = 20000;
+	public static final long DEFAULT_PARK_NANOS = 50000L;
+
+	private static final int MAGIC = 0x4A52504D;
+	private static final int FILE_HEADER_SIZE = 64;
+	private static final int MAGIC_OFFSET = 0;
+	private static final int CAPACITY_OFFSET = 4;
+	private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+	private final FileChannel channel;
+	private final SharedMemoryRing inbound;
+	private final SharedMemoryRing outbound;
+	private final InputStream input;
+	private final OutputStream output;
+
+	private SharedMemoryTransport(FileChannel channel, MappedByteBuffer buffer, int capacity, boolean server, int spinTries, long parkNanos) {
+		this.channel = channel;
+		final SharedMemoryRing requests = new SharedMemoryRing(buffer, FILE_HEADER_SIZE, capacity, spinTries, parkNanos);
+		final SharedMemoryRing responses = new SharedMemoryRing(buffer, FILE_HEADER_SIZE + SharedMemoryRing.regionSize(capacity), capacity, spinTries, parkNanos);
+		this.inbound = server ? requests : responses;
+		this.outbound = server ? responses : requests;
+		this.input = inbound.inputStream();
+		this.output = outbound.outputStream();
+	}
+
+	/**
+	 * Creates (or truncates) the shared file with rings of {@link #DEFAULT_RING_CAPACITY} bytes
+	 * and returns the server end of the transport.
+	 *
+	 * @param file the file to map, ideally on a memory-backed file system such as {@code /dev/shm}
+	 * @return the server end
+	 * @throws IOException on error
+	 */
+	public static SharedMemoryTransport create(Path file) throws IOException {
+		return create(file, DEFAULT_RING_CAPACITY);
+	}
+
+	/**
+	 * Creates (or truncates) the shared file and returns the server end of the transport.
+	 *
+	 * @param file         the file to map
+	 * @param ringCapacity the size of each ring in bytes, a power of two
+	 * @return the server end
+	 * @throws IOException on error
+	 */
+	public static SharedMemoryTransport create(Path file, int ringCapacity) throws IOException {
+		return create(file, ringCapacity, DEFAULT_SPIN_TRIES, DEFAULT_PARK_NANOS);
+	}
+
+	/**
+	 * Creates (or truncates) the shared file and returns the server end of the transport.
+	 *
+	 * @param file         the file to map
+	 * @param ringCapacity the size of each ring in bytes, a power of two
+	 * @param spinTries    how many times to busy-spin before parking
+	 * @param parkNanos    how long to park between checks once spinning gave up
+	 * @return the server end
+	 * @throws IOException on error
+	 */
+	public static SharedMemoryTransport create(Path file, int ringCapacity, int spinTries, long parkNanos) throws IOException {
+		if (Integer.bitCount(ringCapacity) != 1) {
+			throw new IllegalArgumentException("Ring capacity must be a power of two: " + ringCapacity);
+		}
+		final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			// truncating first guarantees that positions and flags left over by a previous run are zeroed
+			channel.truncate(0);
+			final long size = fileSize(ringCapacity);
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			buffer.order(ByteOrder.nativeOrder());
+			buffer.putInt(CAPACITY_OFFSET, ringCapacity);
+			// published last, so a client that sees it also sees the capacity
+			INT.setRelease(buffer, MAGIC_OFFSET, MAGIC);
+			return new SharedMemoryTransport(channel, buffer, ringCapacity, true, spinTries, parkNanos);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens a file previously {@link #create(Path, int) created} by the server and
+	 * returns the client end of the transport.
+	 *
+	 * @param file the shared file
+	 * @return the client end
+	 * @throws IOException if the file is missing or was not created by a server
+	 */
+	public static SharedMemoryTransport open(Path file) throws IOException {
+		return open(file, DEFAULT_SPIN_TRIES, DEFAULT_PARK_NANOS);
+	}
+
+	/**
+	 * Opens a file previously {@link #create(Path, int) created} by the server and
+	 * returns the client end of the transport.
+	 *
+	 * @param file      the shared file
+	 * @param spinTries how many times to busy-spin before parking
+	 * @param parkNanos how long to park between checks once spinning gave up
+	 * @return the client end
+	 * @throws IOException if the file is missing or was not created by a server
+	 */
+	public static SharedMemoryTransport open(Path file, int spinTries, long parkNanos) throws IOException {
+		final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_HEADER_SIZE);
+			header.order(ByteOrder.nativeOrder());
+			if ((int) INT.getAcquire(header, MAGIC_OFFSET) != MAGIC) {
+				throw new IOException("Not a JSON-RPC shared memory file: " + file);
+			}
+			final int ringCapacity = header.getInt(CAPACITY_OFFSET);
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(ringCapacity));
+			buffer.order(ByteOrder.nativeOrder());
+			return new SharedMemoryTransport(channel, buffer, ringCapacity, false, spinTries, parkNanos);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private static long fileSize(int ringCapacity) {
+		return FILE_HEADER_SIZE + 2L * SharedMemoryRing.regionSize(ringCapacity);
+	}
+
+	/**
+	 * @return the stream of messages written by the other side
+	 */
+	public InputStream getInputStream() {
+		return input;
+	}
+
+	/**
+	 * @return the stream of messages read by the other side
+	 */
+	public OutputStream getOutputStream() {
+		return output;
+	}
+
+	/**
+	 * @return {@code true} once either side closed the inbound ring
+	 */
+	public boolean isInputClosed() {
+		return inbound.isClosed();
+	}
+
+	/**
+	 * Marks both rings closed, which makes the other side see end of
+	 * stream once it consumed what was already written, and releases
+	 * the file.  The mapping itself stays valid until garbage collected.
+	 *
+	 * @throws IOException on error
+	 */
+	@Override
+	public void close() throws IOException {
+		outbound.close();
+		inbound.close();
+		channel.close();
+	}
+}
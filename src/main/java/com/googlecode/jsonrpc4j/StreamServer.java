@@ -233,6 +233,8 @@ public class StreamServer {
 				BufferedInputStream input;
 				OutputStream output;
 				try {
+					// responses go out as separate writes, which Nagle's algorithm would hold for the client's delayed ack
+					clientSocket.setTcpNoDelay(true);
 					input = new BufferedInputStream(clientSocket.getInputStream());
 					output = clientSocket.getOutputStream();
 				} catch (IOException e) {
@@ -0,0 +1,250 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.node.POJONode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+
+/**
+ * The result of a handler method declared to return a {@link Stream}, an
+ * {@link Iterator} or a {@link Flow.Publisher}, written as the {@code result}
+ * array element by element while the response goes out instead of being
+ * turned into a tree first.  Nothing is pulled from the source until then, and
+ * a {@link Flow.Publisher} is only subscribed to once the response is being
+ * written and is asked for another element each time one has been written, so
+ * a slow transport slows the publisher down.  An {@link InputStream} result is
+ * copied into a binary value the same way, or into an attachment for
+ * {@link DataFormat#ATTACHMENTS}.
+ * <p>
+ * Outside of {@link JsonRpcBasicServer#writeResponse} the result serializes as
+ * a placeholder, so that logging a response or handing it to a
+ * {@link JsonRpcInterceptor} does not consume it.  A source failing after
+ * the response has started leaves the response truncated and fails the write.
+ */
+class StreamedResult extends JsonSerializable.Base {
+
+	/**
+	 * The serialization attribute under which a writer marks the real write of a response.
+	 */
+	static final Object WRITE_ELEMENTS = StreamedResult.class;
+
+	/**
+	 * How many elements a {@link Flow.Publisher} may have outstanding.
+	 */
+	static final int PUBLISHER_DEMAND = 16;
+
+	private static final Logger logger = LoggerFactory.getLogger(StreamedResult.class);
+	private static final String PLACEHOLDER = "(streamed result)";
+	private static final Object COMPLETE = new Object();
+	private static final Object NULL = new Object();
+
+	private final Object source;
+	private boolean consumed;
+
+	private StreamedResult(Object source) {
+		this.source = source;
+	}
+
+	/**
+	 * @param returnType the declared return type of a handler method
+	 * @return whether its results are streamed
+	 */
+	static boolean isStreamedType(Class<?> returnType) {
+		return Stream.class.isAssignableFrom(returnType)
+				|| Iterator.class.isAssignableFrom(returnType)
+				|| InputStream.class.isAssignableFrom(returnType)
+				|| Flow.Publisher.class.isAssignableFrom(returnType);
+	}
+
+	/**
+	 * @param source a {@link Stream}, {@link Iterator}, {@link Flow.Publisher} or {@link InputStream}
+	 * @return a node writing it incrementally
+	 */
+	static JsonNode node(Object source) {
+		return new POJONode(new StreamedResult(source));
+	}
+
+	/**
+	 * Releases the source of a result that will never be written, like the
+	 * result of a notification.
+	 *
+	 * @param result a result, streamed or not, may be {@code null}
+	 */
+	static void discard(JsonNode result) {
+		if (result instanceof POJONode && ((POJONode) result).getPojo() instanceof StreamedResult) {
+			((StreamedResult) ((POJONode) result).getPojo()).release();
+		}
+	}
+
+	/**
+	 * @param response a response or a batch of responses, may be {@code null}
+	 * @return whether a result in it is streamed
+	 */
+	static boolean isStreamed(JsonNode response) {
+		if (response == null) {
+			return false;
+		}
+		if (response.isArray()) {
+			for (JsonNode element : response) {
+				if (isStreamed(element)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		final JsonNode result = response.get(JsonRpcBasicServer.RESULT);
+		return result instanceof POJONode && ((POJONode) result).getPojo() instanceof StreamedResult;
+	}
+
+	@Override
+	public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+		if (provider.getAttribute(WRITE_ELEMENTS) == null) {
+			generator.writeString(PLACEHOLDER);
+			return;
+		}
+		if (consumed) {
+			throw JsonMappingException.from(generator, "A streamed result can only be written once");
+		}
+		consumed = true;
+		if (source instanceof InputStream) {
+			Attachments.writeBinary(generator, (InputStream) source);
+			return;
+		}
+		generator.writeStartArray();
+		if (source instanceof Flow.Publisher) {
+			writePublished(generator, provider, (Flow.Publisher<?>) source);
+		} else {
+			try {
+				writeIterated(generator, provider, source instanceof Stream ? ((Stream<?>) source).iterator() : (Iterator<?>) source);
+			} finally {
+				closeSource();
+			}
+		}
+		generator.writeEndArray();
+	}
+
+	@Override
+	public void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer) throws IOException {
+		serialize(generator, provider);
+	}
+
+	private static void writeIterated(JsonGenerator generator, SerializerProvider provider, Iterator<?> elements) throws IOException {
+		while (elements.hasNext()) {
+			provider.defaultSerializeValue(elements.next(), generator);
+		}
+	}
+
+	private static void writePublished(JsonGenerator generator, SerializerProvider provider, Flow.Publisher<?> publisher) throws IOException {
+		final Drain drain = new Drain();
+		publisher.subscribe(drain);
+		try {
+			while (true) {
+				Object signal = drain.signals.poll();
+				if (signal == null) {
+					// let the client have what is there while the publisher catches up
+					generator.flush();
+					signal = drain.signals.take();
+				}
+				if (signal == COMPLETE) {
+					return;
+				}
+				if (signal instanceof Failure) {
+					throw JsonMappingException.from(generator, "Streamed result failed", ((Failure) signal).cause);
+				}
+				provider.defaultSerializeValue(signal == NULL ? null : signal, generator);
+				drain.subscription.request(1);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			drain.cancel();
+			throw new InterruptedIOException("Interrupted while waiting for a streamed result");
+		} catch (IOException | RuntimeException e) {
+			drain.cancel();
+			throw e;
+		}
+	}
+
+	private void release() {
+		if (consumed) {
+			return;
+		}
+		consumed = true;
+		if (!(source instanceof Flow.Publisher)) {
+			closeSource();
+		}
+	}
+
+	private void closeSource() {
+		if (source instanceof AutoCloseable) {
+			try {
+				((AutoCloseable) source).close();
+			} catch (Exception e) {
+				logger.debug("Failed to close a streamed result", e);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return PLACEHOLDER;
+	}
+
+	/**
+	 * Hands the signals of a {@link Flow.Publisher} to the writing thread.
+	 */
+	private static class Drain implements Flow.Subscriber<Object> {
+
+		private final BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+		private volatile Flow.Subscription subscription;
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			subscription.request(PUBLISHER_DEMAND);
+		}
+
+		@Override
+		public void onNext(Object item) {
+			signals.add(item == null ? NULL : item);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			signals.add(new Failure(throwable));
+		}
+
+		@Override
+		public void onComplete() {
+			signals.add(COMPLETE);
+		}
+
+		private void cancel() {
+			if (subscription != null) {
+				subscription.cancel();
+			}
+		}
+	}
+
+	private static class Failure {
+
+		private final Throwable cause;
+
+		private Failure(Throwable cause) {
+			this.cause = cause;
+		}
+	}
+}
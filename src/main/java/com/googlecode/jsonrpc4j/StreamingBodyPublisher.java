@@ -0,0 +1,194 @@
+package com.googlecode.jsonrpc4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+
+/**
+ * A request body for the JDK's {@link java.net.http.HttpClient} that is
+ * sent while it is written.  Every full chunk is handed to the client as
+ * soon as it asks for more, and the writing thread waits while it does not,
+ * so no thread of the client ever blocks on the writer.
+ * <p>
+ * The body can only be sent once; a client asking for it again, e.g. to
+ * follow a redirect, gets an error.
+ */
+class StreamingBodyPublisher extends OutputStream implements HttpRequest.BodyPublisher {
+
+	private static final int CHUNK_SIZE = 16 * 1024;
+	private static final Flow.Subscription NO_SUBSCRIPTION = new Flow.Subscription() {
+		@Override
+		public void request(long n) {
+		}
+
+		@Override
+		public void cancel() {
+		}
+	};
+
+	private final Object lock = new Object();
+	private Flow.Subscriber<? super ByteBuffer> subscriber;
+	private boolean subscribed = false;
+	private long demand = 0;
+	private boolean done = false;
+	private Throwable failure;
+	private boolean closed = false;
+	private byte[] chunk = new byte[CHUNK_SIZE];
+	private int count = 0;
+
+	@Override
+	public long contentLength() {
+		return -1;
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+		final boolean first;
+		synchronized (lock) {
+			first = !subscribed;
+			subscribed = true;
+		}
+		if (!first) {
+			subscriber.onSubscribe(NO_SUBSCRIPTION);
+			subscriber.onError(new IllegalStateException("The request body can only be sent once"));
+			return;
+		}
+		subscriber.onSubscribe(new Subscription());
+		final Throwable cause;
+		synchronized (lock) {
+			if (!done) {
+				this.subscriber = subscriber;
+				lock.notifyAll();
+				return;
+			}
+			cause = failure;
+		}
+		if (cause != null) {
+			subscriber.onError(cause);
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[]{(byte) b}, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			final int n = Math.min(len, chunk.length - count);
+			System.arraycopy(b, off, chunk, count, n);
+			count += n;
+			off += n;
+			len -= n;
+			if (count == chunk.length) {
+				send();
+			}
+		}
+	}
+
+	private void send() throws IOException {
+		final Flow.Subscriber<? super ByteBuffer> target = awaitSubscriber(true);
+		target.onNext(ByteBuffer.wrap(chunk, 0, count));
+		chunk = new byte[CHUNK_SIZE];
+		count = 0;
+	}
+
+	/**
+	 * @param forData whether to wait for the subscriber to ask for data
+	 */
+	private Flow.Subscriber<? super ByteBuffer> awaitSubscriber(boolean forData) throws IOException {
+		synchronized (lock) {
+			while (!done && (subscriber == null || (forData && demand == 0))) {
+				try {
+					lock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while sending the request");
+				}
+			}
+			if (done) {
+				throw new IOException("The request body is no longer read");
+			}
+			if (forData) {
+				demand--;
+			}
+			return subscriber;
+		}
+	}
+
+	/**
+	 * Sends what is left and completes the body.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (count > 0) {
+			send();
+		}
+		final Flow.Subscriber<? super ByteBuffer> target = awaitSubscriber(false);
+		synchronized (lock) {
+			done = true;
+		}
+		target.onComplete();
+	}
+
+	/**
+	 * Fails the body instead of completing it, so that the client drops the
+	 * request and the server never sees it complete.
+	 *
+	 * @param cause why the body could not be written
+	 */
+	void abort(Throwable cause) {
+		closed = true;
+		final Flow.Subscriber<? super ByteBuffer> target;
+		synchronized (lock) {
+			target = done ? null : subscriber;
+			if (!done) {
+				failure = cause;
+			}
+			done = true;
+			lock.notifyAll();
+		}
+		if (target != null) {
+			target.onError(cause);
+		}
+	}
+
+	/**
+	 * Stops the writer from waiting for a client that will not read any
+	 * more, e.g. because the exchange failed or the response arrived.
+	 */
+	void cancel() {
+		synchronized (lock) {
+			done = true;
+			lock.notifyAll();
+		}
+	}
+
+	private class Subscription implements Flow.Subscription {
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				abort(new IllegalArgumentException("Non-positive request: " + n));
+				return;
+			}
+			synchronized (lock) {
+				demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+				lock.notifyAll();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			StreamingBodyPublisher.this.cancel();
+		}
+	}
+}
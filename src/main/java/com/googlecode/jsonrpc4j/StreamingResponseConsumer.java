@@ -0,0 +1,154 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Parses the response body while it arrives on the IO reactor instead of
+ * buffering the whole entity first.  Each chunk is fed to Jackson's
+ * non-blocking parser and the tokens are collected in a {@link TokenBuffer},
+ * from which the result is bound directly once the response is complete.
+ * <p>
+ * Formats without a non-blocking parser (such as CBOR) are collected as
+ * bytes and parsed when complete.
+ */
+class StreamingResponseConsumer extends AbstractAsyncResponseConsumer<JsonParser> {
+
+	private static final int CHUNK_SIZE = 8 * 1024;
+
+	private final DataFormat defaultFormat;
+	private final Function<DataFormat, ObjectMapper> mappers;
+	/**
+	 * Set by whichever comes first, building the result or giving up on it.
+	 */
+	private final AtomicBoolean settled = new AtomicBoolean();
+	private ByteBuffer chunk;
+	private int statusCode;
+	private ObjectMapper readMapper;
+	private JsonParser parser;
+	private ByteArrayFeeder feeder;
+	private TokenBuffer tokens;
+	private ByteArrayOutputStream bytes;
+
+	/**
+	 * @param defaultFormat the format to assume when the response has no known {@code Content-Type}
+	 * @param mappers       supplies the {@link ObjectMapper} for a format
+	 */
+	StreamingResponseConsumer(DataFormat defaultFormat, Function<DataFormat, ObjectMapper> mappers) {
+		this.defaultFormat = defaultFormat;
+		this.mappers = mappers;
+	}
+
+	/**
+	 * Gives up on the response unless its result was built already.  Called
+	 * from any thread; the response then fails once complete, so that its
+	 * connection is closed instead of reused.
+	 *
+	 * @return whether the response was given up on
+	 */
+	boolean abandon() {
+		return settled.compareAndSet(false, true);
+	}
+
+	@Override
+	protected void onResponseReceived(HttpResponse response) {
+		statusCode = response.getStatusLine().getStatusCode();
+	}
+
+	@Override
+	protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) throws IOException {
+		if (statusCode != 200) {
+			return;
+		}
+		final DataFormat format = entity.getContentType() == null ? null : DataFormat.forContentType(entity.getContentType().getValue());
+		readMapper = mappers.apply(format != null && format.isAvailable() ? format : defaultFormat);
+		final JsonFactory factory = readMapper.getFactory();
+		if (factory.canParseAsync()) {
+			parser = factory.createNonBlockingByteArrayParser();
+			feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+			tokens = new TokenBuffer(parser);
+		} else {
+			bytes = new ByteArrayOutputStream(entity.getContentLength() > 0 ? (int) entity.getContentLength() : CHUNK_SIZE);
+		}
+		chunk = ByteBuffer.allocate(CHUNK_SIZE);
+	}
+
+	@Override
+	protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+		if (chunk == null) {
+			chunk = ByteBuffer.allocate(CHUNK_SIZE);
+		}
+		int n;
+		while ((n = decoder.read(chunk)) > 0) {
+			if (feeder != null) {
+				feeder.feedInput(chunk.array(), 0, n);
+				copyAvailableTokens();
+			} else if (bytes != null) {
+				bytes.write(chunk.array(), 0, n);
+			}
+			chunk.clear();
+		}
+	}
+
+	private void copyAvailableTokens() throws IOException {
+		JsonToken token;
+		while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+			tokens.copyCurrentEvent(parser);
+		}
+	}
+
+	/**
+	 * @return a parser over the complete response, positioned before its first token
+	 */
+	@Override
+	protected JsonParser buildResult(HttpContext context) throws Exception {
+		if (!settled.compareAndSet(false, true)) {
+			throw new CancellationException("Response abandoned");
+		}
+		if (statusCode != 200) {
+			throw new RuntimeException("Unexpected response code: " + statusCode);
+		}
+		if (readMapper == null) {
+			throw new IOException("Empty response body");
+		}
+		if (feeder != null) {
+			feeder.endOfInput();
+			copyAvailableTokens();
+			return tokens.asParser(readMapper);
+		}
+		return readMapper.getFactory().createParser(bytes.toByteArray());
+	}
+
+	@Override
+	protected void releaseResources() {
+		if (parser != null) {
+			try {
+				parser.close();
+			} catch (IOException ignored) {
+				// nothing was allocated that outlives the parser
+			}
+		}
+		chunk = null;
+		parser = null;
+		feeder = null;
+		bytes = null;
+	}
+}
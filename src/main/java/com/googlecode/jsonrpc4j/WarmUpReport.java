@@ -0,0 +1,66 @@
+package com.googlecode.jsonrpc4j;
+
+/**
+ * What {@link JsonRpcBasicServer#warmUp(int)} resolved ahead of the first request.
+ */
+public final class WarmUpReport {
+
+	private final int methodCount;
+	private final int typeCount;
+	private final int failedTypeCount;
+	private final int requestCount;
+	private final long durationNanos;
+
+	WarmUpReport(int methodCount, int typeCount, int failedTypeCount, int requestCount, long durationNanos) {
+		this.methodCount = methodCount;
+		this.typeCount = typeCount;
+		this.failedTypeCount = failedTypeCount;
+		this.requestCount = requestCount;
+		this.durationNanos = durationNanos;
+	}
+
+	/**
+	 * @return the number of exported methods whose metadata and readers were resolved
+	 */
+	public int getMethodCount() {
+		return methodCount;
+	}
+
+	/**
+	 * @return the number of distinct parameter and result types covered
+	 */
+	public int getTypeCount() {
+		return typeCount;
+	}
+
+	/**
+	 * @return the number of types Jackson failed to find a serializer for, see the log for details
+	 */
+	public int getFailedTypeCount() {
+		return failedTypeCount;
+	}
+
+	/**
+	 * @return the number of synthetic requests handled
+	 */
+	public int getRequestCount() {
+		return requestCount;
+	}
+
+	/**
+	 * @return how long the warm up took, in milliseconds
+	 */
+	public long getDurationMillis() {
+		return durationNanos / 1_000_000L;
+	}
+
+	@Override
+	public String toString() {
+		return "WarmUpReport{" + "methodCount=" + methodCount +
+				", typeCount=" + typeCount +
+				", failedTypeCount=" + failedTypeCount +
+				", requestCount=" + requestCount +
+				", durationMillis=" + getDurationMillis() +
+				'}';
+	}
+}
@@ -29,6 +29,8 @@ abstract class AbstractCompositeJsonServiceExporter implements InitializingBean,
 	private HttpStatusCodeProvider httpStatusCodeProvider = null;
 	private ConvertedParameterTransformer convertedParameterTransformer = null;
 	private String contentType = null;
+	private boolean warmUp = false;
+	private int warmUpIterations = 0;
 	
 	private JsonRpcServer jsonRpcServer;
 
@@ -82,7 +84,10 @@ abstract class AbstractCompositeJsonServiceExporter implements InitializingBean,
 			jsonRpcServer.setContentType(contentType);
 		}
 
-		ReflectionUtil.clearCache();
+		ReflectionUtil.clearCache(serviceInterfaces);
+		if (warmUp) {
+			jsonRpcServer.warmUp(warmUpIterations);
+		}
 		
 		// export
 		exportService();
@@ -182,7 +187,22 @@ abstract class AbstractCompositeJsonServiceExporter implements InitializingBean,
 	public void setContentType(String contentType) {
 		this.contentType = contentType;
 	}
-	
+
+	/**
+	 * @param warmUp whether to resolve the serializers, deserializers and method
+	 *               metadata of the services on startup, see {@link JsonRpcBasicServer#warmUp(int)}
+	 */
+	public void setWarmUp(boolean warmUp) {
+		this.warmUp = warmUp;
+	}
+
+	/**
+	 * @param warmUpIterations the number of synthetic requests handled on warm up
+	 */
+	public void setWarmUpIterations(int warmUpIterations) {
+		this.warmUpIterations = warmUpIterations;
+	}
+
 	
 	/**
 	 * @param allowMultipleInheritance the allowMultipleInheritance to set
@@ -35,9 +35,13 @@ abstract class AbstractJsonServiceExporter implements InitializingBean, Applicat
 	private HttpStatusCodeProvider httpStatusCodeProvider = null;
 	private ConvertedParameterTransformer convertedParameterTransformer = null;
 	private String contentType = null;
+	private DataFormat dataFormat = null;
+	private int responseCompressionThreshold = -1;
 	private List<JsonRpcInterceptor> interceptorList;
 	private ExecutorService batchExecutorService = null;
 	private long parallelBatchProcessingTimeout;
+	private boolean warmUp = false;
+	private int warmUpIterations = 0;
 	private Object service;
 	private Class<?> serviceInterface;
 
@@ -83,11 +87,18 @@ abstract class AbstractJsonServiceExporter implements InitializingBean, Applicat
 		if (contentType != null) {
 			jsonRpcServer.setContentType(contentType);
 		}
+		if (dataFormat != null) {
+			jsonRpcServer.setDataFormat(dataFormat);
+		}
+		jsonRpcServer.setResponseCompressionThreshold(responseCompressionThreshold);
 		if (interceptorList != null) {
 			jsonRpcServer.setInterceptorList(interceptorList);
 		}
 
-		ReflectionUtil.clearCache();
+		ReflectionUtil.clearCache(getServiceInterface(), getService().getClass());
+		if (warmUp) {
+			jsonRpcServer.warmUp(warmUpIterations);
+		}
 
 		exportService();
 	}
@@ -205,6 +216,22 @@ abstract class AbstractJsonServiceExporter implements InitializingBean, Applicat
 		this.interceptorList = interceptorList;
 	}
 
+	/**
+	 * @param dataFormat the format assumed for requests whose {@code Content-Type} names none;
+	 *                   CBOR and Smile requests are recognised either way
+	 */
+	public void setDataFormat(DataFormat dataFormat) {
+		this.dataFormat = dataFormat;
+	}
+
+	/**
+	 * @param responseCompressionThreshold the minimum response size in bytes to gzip or deflate
+	 *                                     for clients accepting it, negative to never compress
+	 */
+	public void setResponseCompressionThreshold(int responseCompressionThreshold) {
+		this.responseCompressionThreshold = responseCompressionThreshold;
+	}
+
     /**
      * @param batchExecutorService the {@link ExecutorService} to set
      */
@@ -219,6 +246,21 @@ abstract class AbstractJsonServiceExporter implements InitializingBean, Applicat
         this.parallelBatchProcessingTimeout = parallelBatchProcessingTimeout;
     }
 
+	/**
+	 * @param warmUp whether to resolve the serializers, deserializers and method
+	 *               metadata of the service on startup, see {@link JsonRpcBasicServer#warmUp(int)}
+	 */
+	public void setWarmUp(boolean warmUp) {
+		this.warmUp = warmUp;
+	}
+
+	/**
+	 * @param warmUpIterations the number of synthetic requests handled on warm up
+	 */
+	public void setWarmUpIterations(int warmUpIterations) {
+		this.warmUpIterations = warmUpIterations;
+	}
+
 	/**
 	 * Set the service to export.
 	 * Typically populated via a bean reference.
@@ -21,6 +21,7 @@ import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.http.HttpClient;
 
 import static java.lang.String.format;
 import static org.springframework.util.ClassUtils.convertClassNameToResourcePath;
@@ -39,6 +40,7 @@ public class AutoJsonRpcClientProxyCreator implements BeanFactoryPostProcessor,
 	private URL baseUrl;
 	private ObjectMapper objectMapper;
 	private String contentType;
+	private HttpClient httpClient;
 	
 	@Override
 	public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
@@ -91,6 +93,10 @@ public class AutoJsonRpcClientProxyCreator implements BeanFactoryPostProcessor,
 			beanDefinitionBuilder.addPropertyValue("contentType", contentType);
 		}
 		
+		if (httpClient != null) {
+			beanDefinitionBuilder.addPropertyValue("httpClient", httpClient);
+		}
+		
 		defaultListableBeanFactory.registerBeanDefinition(className + "-clientProxy", beanDefinitionBuilder.getBeanDefinition());
 	}
 	
@@ -131,4 +137,11 @@ public class AutoJsonRpcClientProxyCreator implements BeanFactoryPostProcessor,
 	public void setContentType(String contextType) {
 		this.contentType = contextType;
 	}
+	
+	/**
+	 * @param httpClient the {@link HttpClient} shared by the proxies for calls returning a {@link java.util.concurrent.CompletableFuture}
+	 */
+	public void setHttpClient(HttpClient httpClient) {
+		this.httpClient = httpClient;
+	}
 }
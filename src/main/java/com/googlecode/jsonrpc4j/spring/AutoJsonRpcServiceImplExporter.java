@@ -62,6 +62,8 @@ public class AutoJsonRpcServiceImplExporter implements BeanFactoryPostProcessor
 	private List<JsonRpcInterceptor> interceptorList = null;
     private ExecutorService batchExecutorService = null;
     private long parallelBatchProcessingTimeout;
+	private boolean warmUp = false;
+	private int warmUpIterations = 0;
 	
 	/**
 	 * Finds the beans to expose.
@@ -206,6 +208,8 @@ public class AutoJsonRpcServiceImplExporter implements BeanFactoryPostProcessor
 		builder.addPropertyValue("allowExtraParams", allowExtraParams);
 		builder.addPropertyValue("allowLessParams", allowLessParams);
 		builder.addPropertyValue("shouldLogInvocationErrors", shouldLogInvocationErrors);
+		builder.addPropertyValue("warmUp", warmUp);
+		builder.addPropertyValue("warmUpIterations", warmUpIterations);
 		
 		defaultListableBeanFactory.registerBeanDefinition(servicePath, builder.getBeanDefinition());
 	}
@@ -338,4 +342,19 @@ public class AutoJsonRpcServiceImplExporter implements BeanFactoryPostProcessor
     public void setParallelBatchProcessingTimeout(long parallelBatchProcessingTimeout) {
         this.parallelBatchProcessingTimeout = parallelBatchProcessingTimeout;
     }
+
+	/**
+	 * @param warmUp whether the exported services resolve their serializers, deserializers
+	 *               and method metadata on startup, see {@link JsonRpcBasicServer#warmUp(int)}
+	 */
+	public void setWarmUp(boolean warmUp) {
+		this.warmUp = warmUp;
+	}
+
+	/**
+	 * @param warmUpIterations the number of synthetic requests each exported service handles on warm up
+	 */
+	public void setWarmUpIterations(int warmUpIterations) {
+		this.warmUpIterations = warmUpIterations;
+	}
 }
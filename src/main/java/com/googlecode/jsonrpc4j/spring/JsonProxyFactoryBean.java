@@ -3,7 +3,10 @@ package com.googlecode.jsonrpc4j.spring;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.googlecode.jsonrpc4j.JsonRpcClient.RequestListener;
 import com.googlecode.jsonrpc4j.ExceptionResolver;
+import com.googlecode.jsonrpc4j.IJsonRpcAsyncClient;
+import com.googlecode.jsonrpc4j.JsonRpcClientStub;
 import com.googlecode.jsonrpc4j.JsonRpcHttpClient;
+import com.googlecode.jsonrpc4j.JsonRpcJdkHttpClient;
 import com.googlecode.jsonrpc4j.ProxyUtil;
 import com.googlecode.jsonrpc4j.ReflectionUtil;
 import org.aopalliance.intercept.MethodInterceptor;
@@ -21,9 +24,12 @@ import javax.net.ssl.SSLContext;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
+import java.net.http.HttpClient;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * {@link FactoryBean} for creating a {@link UrlBasedRemoteAccessor}
@@ -36,6 +42,8 @@ public class JsonProxyFactoryBean extends UrlBasedRemoteAccessor implements Meth
 	private RequestListener requestListener = null;
 	private ObjectMapper objectMapper = null;
 	private JsonRpcHttpClient jsonRpcHttpClient = null;
+	private IJsonRpcAsyncClient jsonRpcAsyncClient = null;
+	private HttpClient httpClient = null;
 	private Map<String, String> extraHttpHeaders = new HashMap<>();
 	private String contentType;
 
@@ -53,22 +61,13 @@ public class JsonProxyFactoryBean extends UrlBasedRemoteAccessor implements Meth
 	@SuppressWarnings("unchecked")
 	public void afterPropertiesSet() {
 		super.afterPropertiesSet();
-		proxyObject = ProxyFactory.getProxy(getServiceInterface(), this);
+		proxyObject = JsonRpcClientStub.forInterface(getServiceInterface(), this::invokeStub);
+		if (proxyObject == null) {
+			proxyObject = ProxyFactory.getProxy(getServiceInterface(), this);
+		}
 
 		if (jsonRpcHttpClient==null) {
-			if (objectMapper == null && applicationContext != null && applicationContext.containsBean("objectMapper")) {
-				objectMapper = (ObjectMapper) applicationContext.getBean("objectMapper");
-			}
-			if (objectMapper == null && applicationContext != null) {
-				try {
-					objectMapper = BeanFactoryUtils.beanOfTypeIncludingAncestors(applicationContext, ObjectMapper.class);
-				} catch (Exception e) {
-					logger.debug(e);
-				}
-			}
-			if (objectMapper == null) {
-				objectMapper = new ObjectMapper();
-			}
+			resolveObjectMapper();
 	
 			try {
 				jsonRpcHttpClient = new JsonRpcHttpClient(objectMapper, new URL(getServiceUrl()), extraHttpHeaders);
@@ -88,7 +87,64 @@ public class JsonProxyFactoryBean extends UrlBasedRemoteAccessor implements Meth
 			}
 		}
 
-		ReflectionUtil.clearCache();
+		// java.net.http has no HostnameVerifier, so with one set futures are completed by the blocking client
+		if (jsonRpcAsyncClient == null && hostNameVerifier == null && hasAsyncMethods(getServiceInterface())) {
+			resolveObjectMapper();
+			jsonRpcAsyncClient = createAsyncClient();
+		}
+
+		ReflectionUtil.clearCache(getServiceInterface());
+	}
+
+	private void resolveObjectMapper() {
+		if (objectMapper == null && applicationContext != null && applicationContext.containsBean("objectMapper")) {
+			objectMapper = (ObjectMapper) applicationContext.getBean("objectMapper");
+		}
+		if (objectMapper == null && applicationContext != null) {
+			try {
+				objectMapper = BeanFactoryUtils.beanOfTypeIncludingAncestors(applicationContext, ObjectMapper.class);
+			} catch (Exception e) {
+				logger.debug(e);
+			}
+		}
+		if (objectMapper == null) {
+			objectMapper = new ObjectMapper();
+		}
+	}
+
+	private static boolean hasAsyncMethods(Class<?> serviceInterface) {
+		for (Method method : serviceInterface.getMethods()) {
+			if (ProxyUtil.isAsyncMethod(method)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Creates a {@link JsonRpcJdkHttpClient} for the methods returning a future,
+	 * configured like the blocking client.
+	 */
+	private IJsonRpcAsyncClient createAsyncClient() {
+		HttpClient client = httpClient;
+		if (client == null) {
+			HttpClient.Builder builder = HttpClient.newBuilder()
+					.version(HttpClient.Version.HTTP_2)
+					.followRedirects(HttpClient.Redirect.NORMAL);
+			if (sslContext != null) {
+				builder.sslContext(sslContext);
+			}
+			client = builder.build();
+		}
+		JsonRpcJdkHttpClient asyncClient = new JsonRpcJdkHttpClient(objectMapper, client, URI.create(getServiceUrl()), extraHttpHeaders);
+		asyncClient.setRequestListener(requestListener);
+		if (contentType != null) {
+			asyncClient.setContentType(contentType);
+		}
+		if (exceptionResolver != null) {
+			asyncClient.setExceptionResolver(exceptionResolver);
+		}
+		return asyncClient;
 	}
 
 	/**
@@ -105,9 +161,33 @@ public class JsonProxyFactoryBean extends UrlBasedRemoteAccessor implements Meth
 		Type retType = (invocation.getMethod().getGenericReturnType() != null) ? invocation.getMethod().getGenericReturnType() : invocation.getMethod().getReturnType();
 		Object arguments = ReflectionUtil.parseArguments(invocation.getMethod(), invocation.getArguments());
 
+		if (ProxyUtil.isAsyncMethod(method)) {
+			return invokeStub(ProxyUtil.getMethodName(method), arguments, ProxyUtil.getAsyncResultType(method), true);
+		}
+
 		return jsonRpcHttpClient.invoke(ProxyUtil.getMethodName(method), arguments, retType, extraHttpHeaders);
 	}
 
+	/**
+	 * Sends the calls of a generated client stub, and those of proxied methods
+	 * returning a future, over the asynchronous client if there is one.
+	 */
+	private Object invokeStub(String methodName, Object params, Type resultType, boolean async) throws Throwable {
+		if (!async) {
+			return jsonRpcHttpClient.invoke(methodName, params, resultType, extraHttpHeaders);
+		}
+		if (jsonRpcAsyncClient != null) {
+			return jsonRpcAsyncClient.invokeAsync(methodName, params, resultType, extraHttpHeaders);
+		}
+		CompletableFuture<Object> result = new CompletableFuture<>();
+		try {
+			result.complete(jsonRpcHttpClient.invoke(methodName, params, resultType, extraHttpHeaders));
+		} catch (Throwable t) {
+			result.completeExceptionally(t);
+		}
+		return result;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -169,6 +249,9 @@ public class JsonProxyFactoryBean extends UrlBasedRemoteAccessor implements Meth
 	}
 
 	/**
+	 * Methods returning a future are then called through the blocking client,
+	 * as {@code java.net.http} can't verify host names with it.
+	 *
 	 * @param hostNameVerifier the hostNameVerifier to pass to JsonRpcClient
 	 */
 	public void setHostNameVerifier(HostnameVerifier hostNameVerifier) {
@@ -190,5 +273,22 @@ public class JsonProxyFactoryBean extends UrlBasedRemoteAccessor implements Meth
 		this.exceptionResolver = exceptionResolver;
 	}
 
+	/**
+	 * @param jsonRpcAsyncClient the client for methods returning a
+	 *                           {@link java.util.concurrent.CompletableFuture} or
+	 *                           {@link java.util.concurrent.CompletionStage}; a
+	 *                           {@link JsonRpcJdkHttpClient} is created if not set
+	 */
+	public void setJsonRpcAsyncClient(IJsonRpcAsyncClient jsonRpcAsyncClient) {
+		this.jsonRpcAsyncClient = jsonRpcAsyncClient;
+	}
+
+	/**
+	 * @param httpClient the {@link HttpClient} for the {@link JsonRpcJdkHttpClient} created for future-returning methods
+	 */
+	public void setHttpClient(HttpClient httpClient) {
+		this.httpClient = httpClient;
+	}
+
 
 }
@@ -90,7 +90,7 @@ class JsonRestProxyFactoryBean<T> extends UrlBasedRemoteAccessor implements Meth
 			
 		}
 
-		ReflectionUtil.clearCache();
+		ReflectionUtil.clearCache(getServiceInterface());
 	}
 
 	/**
@@ -3,11 +3,14 @@ package com.googlecode.jsonrpc4j.spring.rest;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.googlecode.jsonrpc4j.DataFormat;
 import com.googlecode.jsonrpc4j.DefaultHttpStatusCodeProvider;
 import com.googlecode.jsonrpc4j.IJsonRpcClient;
 import com.googlecode.jsonrpc4j.JsonRpcClient;
 import com.googlecode.jsonrpc4j.JsonRpcClientException;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageConversionException;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.util.LinkedMultiValueMap;
@@ -166,6 +169,35 @@ public class JsonRpcRestClient extends JsonRpcClient implements IJsonRpcClient {
 		}
 	}
 
+	/**
+	 * Sets the format requests are sent in and asks the server to answer in it.
+	 * A converter for the format is registered with the {@link RestTemplate}
+	 * unless one is already present.
+	 *
+	 * @param dataFormat the {@link DataFormat}
+	 * @throws IllegalArgumentException for {@link DataFormat#ATTACHMENTS}, which the message converters do not frame
+	 */
+	@Override
+	public void setDataFormat(DataFormat dataFormat) {
+		if (dataFormat == DataFormat.ATTACHMENTS) {
+			throw new IllegalArgumentException(dataFormat + " is not supported by " + getClass().getSimpleName());
+		}
+		super.setDataFormat(dataFormat);
+		if (dataFormat == DataFormat.JSON) {
+			return;
+		}
+		final MediaType mediaType = MappingJacksonRPC2HttpMessageConverter.mediaType(dataFormat);
+		for (HttpMessageConverter<?> httpMessageConverter : this.restTemplate.getMessageConverters()) {
+			if (MappingJacksonRPC2HttpMessageConverter.class.isAssignableFrom(httpMessageConverter.getClass())
+					&& httpMessageConverter.getSupportedMediaTypes().contains(mediaType)) {
+				return;
+			}
+		}
+		final List<HttpMessageConverter<?>> restMessageConverters = new ArrayList<>(this.restTemplate.getMessageConverters());
+		restMessageConverters.add(0, new MappingJacksonRPC2HttpMessageConverter(dataFormat, getMapper(dataFormat)));
+		this.restTemplate.setMessageConverters(restMessageConverters);
+	}
+
 	public URL getServiceUrl() {
 		return serviceUrl.get();
 	}
@@ -200,6 +232,11 @@ public class JsonRpcRestClient extends JsonRpcClient implements IJsonRpcClient {
 		final ObjectNode request = super.createRequest(methodName, argument);
 		final MultiValueMap<String, String> httpHeaders = new LinkedMultiValueMap<>();
 
+		if (getDataFormat() != DataFormat.JSON) {
+			httpHeaders.add(HttpHeaders.CONTENT_TYPE, getDataFormat().getContentType());
+			httpHeaders.add(HttpHeaders.ACCEPT, getDataFormat().getContentType());
+		}
+
 		for (Map.Entry<String, String> entry : this.headers.entrySet()) {
 			httpHeaders.add(entry.getKey(), entry.getValue());
 		}
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.googlecode.jsonrpc4j.DataFormat;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.MediaType;
@@ -50,6 +51,26 @@ class MappingJacksonRPC2HttpMessageConverter extends AbstractHttpMessageConverte
 		this.objectMapper = objectMapper;
 	}
 
+	/**
+	 * Construct a converter for a binary {@link DataFormat}.
+	 *
+	 * @param dataFormat   the format, which decides the supported media type
+	 * @param objectMapper the object mapper bound to that format
+	 */
+	public MappingJacksonRPC2HttpMessageConverter(DataFormat dataFormat, ObjectMapper objectMapper) {
+		super(mediaType(dataFormat));
+		Assert.notNull(objectMapper, "ObjectMapper must not be null");
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * @param dataFormat the format
+	 * @return the media type the format is sent with
+	 */
+	static MediaType mediaType(DataFormat dataFormat) {
+		return dataFormat == DataFormat.JSON ? APPLICATION_JSON_RPC : MediaType.parseMediaType(dataFormat.getContentType());
+	}
+
 	/**
 	 * Return the underlying {@code ObjectMapper} for this view.
 	 *
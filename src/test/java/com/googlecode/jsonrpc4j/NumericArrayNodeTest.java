@@ -0,0 +1,135 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.PARAMS;
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.RESULT;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NumericArrayNodeTest {
+
+	private static final String REQUEST = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"m\",\"params\":"
+			+ "[[1,2,3],[1.5,2,3000000000],[\"a\",1],[1,9007199254740993,0.5],[],{\"x\":[1]},4]}";
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void readsTheSameTreeAsTheMapper() throws IOException {
+		JsonNode request = readTree(REQUEST);
+		assertEquals(mapper.readTree(REQUEST), request);
+		assertEquals(mapper.readTree(REQUEST).toString(), request.toString());
+
+		JsonNode params = request.get(PARAMS);
+		assertTrue(params.get(0) instanceof NumericArrayNode);
+		assertTrue(params.get(1) instanceof NumericArrayNode);
+		assertFalse(params.get(2) instanceof NumericArrayNode);
+		assertFalse(params.get(3) instanceof NumericArrayNode);
+		assertTrue(params.get(1).get(1).isInt());
+		assertTrue(params.get(1).get(2).isLong());
+	}
+
+	@Test
+	public void bindsWithoutConversionOnly() throws IOException {
+		JsonNode params = readTree(REQUEST).get(PARAMS);
+		assertArrayEquals(new int[]{1, 2, 3}, (int[]) NumericArrayNode.toArray(params.get(0), int[].class));
+		assertArrayEquals(new long[]{1, 2, 3}, (long[]) NumericArrayNode.toArray(params.get(0), long[].class));
+		assertArrayEquals(new double[]{1.5, 2, 3000000000.0}, (double[]) NumericArrayNode.toArray(params.get(1), double[].class), 0);
+		assertEquals(null, NumericArrayNode.toArray(params.get(1), long[].class));
+		assertEquals(null, NumericArrayNode.toArray(params.get(0), Integer[].class));
+	}
+
+	@Test
+	public void becomesOrdinaryWhenModified() throws IOException {
+		ArrayNode numbers = (ArrayNode) readTree(REQUEST).get(PARAMS).get(0);
+		numbers.add("x");
+		numbers.set(0, IntNode.valueOf(7));
+		assertEquals("[7,2,3,\"x\"]", numbers.toString());
+		assertEquals(null, NumericArrayNode.toArray(numbers, int[].class));
+	}
+
+	@Test
+	public void readsNumericParamsWithoutElementNodes() throws IOException {
+		JsonNode params = readTree("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"m\",\"params\":[1,2,3]}").get(PARAMS);
+		assertTrue(params instanceof NumericArrayNode);
+
+		List<JsonNode> elements = NumericArrayNode.elements(params);
+		assertArrayEquals(new long[]{1, 2, 3}, (long[]) NumericArrayNode.toArray(elements, long.class));
+		elements.set(0, IntNode.valueOf(7));
+		assertArrayEquals(new int[]{7, 2, 3}, (int[]) NumericArrayNode.toArray(elements, int.class));
+		assertEquals("[1,2,3]", params.toString());
+	}
+
+	@Test
+	public void serverBindsAndWritesPrimitiveArrays() throws IOException {
+		JsonRpcBasicServer server = new JsonRpcBasicServer(mapper, new SeriesImpl(), Series.class);
+		double[] samples = IntStream.range(0, 100000).mapToDouble(i -> i % 3 == 0 ? i : i + 0.25).toArray();
+
+		assertEquals(Arrays.stream(samples).sum(), call(server, "sum", samples).doubleValue(), 0);
+		assertEquals(mapper.readTree("[0,1,2,3]"), call(server, "range", 4));
+		assertEquals(mapper.readTree("[5,3000000000]"), call(server, "scale", new long[]{1, 600000000}, 5));
+		assertEquals(10, call(server, "total", 1, 2, 3, 4).intValue());
+	}
+
+	private JsonNode readTree(String json) throws IOException {
+		try (JsonParser parser = mapper.createParser(json)) {
+			return MessageTreeReader.readTree(mapper, parser);
+		}
+	}
+
+	private JsonNode call(JsonRpcBasicServer server, String method, Object... params) throws IOException {
+		ByteArrayOutputStream request = new ByteArrayOutputStream();
+		new JsonRpcClient(mapper).invoke(method, params, request);
+		ByteArrayOutputStream response = new ByteArrayOutputStream();
+		server.handleRequest(new ByteArrayInputStream(request.toByteArray()), response);
+		return mapper.readTree(response.toByteArray()).get(RESULT);
+	}
+
+	public interface Series {
+
+		double sum(double[] samples);
+
+		int[] range(int size);
+
+		long[] scale(long[] values, int factor);
+
+		int total(int... values);
+	}
+
+	public static class SeriesImpl implements Series {
+
+		@Override
+		public double sum(double[] samples) {
+			return Arrays.stream(samples).sum();
+		}
+
+		@Override
+		public int[] range(int size) {
+			return IntStream.range(0, size).toArray();
+		}
+
+		@Override
+		public long[] scale(long[] values, int factor) {
+			return Arrays.stream(values).map(value -> value * factor).toArray();
+		}
+
+		@Override
+		public int total(int... values) {
+			return IntStream.of(values).sum();
+		}
+	}
+}
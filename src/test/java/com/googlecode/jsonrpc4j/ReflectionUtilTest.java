@@ -1,6 +1,7 @@
 package com.googlecode.jsonrpc4j;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 
 import java.lang.reflect.Method;
@@ -204,6 +205,48 @@ public class ReflectionUtilTest {
 		assertEquals(2, namedParams.get("two"));
 	}
 	
+	@Test
+	public void callPlanIsReused() throws Exception {
+		Method method = JsonRpcTestService.class.getMethod("fixedParamPassParamsAuto", String.class, int.class);
+		ClientCallPlan plan = ReflectionUtil.getCallPlan(method);
+		
+		assertSame(plan, ReflectionUtil.getCallPlan(method));
+		assertEquals("fixedParamPassParamsAuto", plan.getMethodName());
+		assertNotSame(plan.encodeArguments(new Object[]{"1", 2}), plan.encodeArguments(new Object[]{"1", 2}));
+	}
+	
+	@Test
+	public void candidateMethodsAreReusedUntilCleared() throws Exception {
+		Class<?>[] classes = {JsonRpcTestService.class};
+		Set<Method> methods = ReflectionUtil.findCandidateMethods(classes, "noParams");
+		
+		assertEquals(1, methods.size());
+		assertSame(methods, ReflectionUtil.findCandidateMethods(classes, "noParams"));
+		assertEquals(0, ReflectionUtil.findCandidateMethods(classes, "missing").size());
+		
+		ReflectionUtil.clearCache(Map.class);
+		assertSame(methods, ReflectionUtil.findCandidateMethods(classes, "noParams"));
+		ReflectionUtil.clearCache(JsonRpcTestService.class);
+		Set<Method> reloaded = ReflectionUtil.findCandidateMethods(classes, "noParams");
+		assertNotSame(methods, reloaded);
+		assertEquals(methods, reloaded);
+		ReflectionUtil.clearCache();
+		assertNotSame(reloaded, ReflectionUtil.findCandidateMethods(classes, "noParams"));
+	}
+	
+	@Test
+	public void namedParamOverridesFixedParam() throws Exception {
+		Object[] arguments = {"1", 2};
+		
+		Object[] params = (Object[]) ReflectionUtil.parseArguments(
+				JsonRpcTestService.class.getMethod("fixedParamOverriddenPassParamsArray", String.class, int.class), arguments);
+		
+		assertEquals(3, params.length);
+		assertEquals("value1", params[0]);
+		assertEquals(2, params[1]);
+		assertEquals("1", params[2]);
+	}
+	
   @Test
   public void sameNameObjectParamJsonRpcMethod() {
     Set<Method> methods = ReflectionUtil.findCandidateMethods(new Class<?>[] { JsonRpcTestService.class }, "objectParamSameName");
@@ -255,6 +298,11 @@ public class ReflectionUtilTest {
 				@JsonRpcFixedParam(name = "param2", value = "value2") })
 		void fixedParamsPassParamsArray(@JsonRpcParam("one") String one, @JsonRpcParam("two") int two);
 
+		@JsonRpcMethod(value = "fixedParamOverriddenPassParamsArray", paramsPassMode = JsonRpcParamsPassMode.ARRAY)
+		@JsonRpcFixedParams(fixedParams = { @JsonRpcFixedParam(name = "param1", value = "value1"),
+				@JsonRpcFixedParam(name = "two", value = "value2") })
+		void fixedParamOverriddenPassParamsArray(@JsonRpcParam("one") String one, @JsonRpcParam("two") int two);
+
 		@JsonRpcMethod(value = "allNamedParamsPassParamsArray", paramsPassMode = JsonRpcParamsPassMode.ARRAY)
 		void allNamedParamsPassParamsArray(@JsonRpcParam("one") String one, @JsonRpcParam("two") int two);
 
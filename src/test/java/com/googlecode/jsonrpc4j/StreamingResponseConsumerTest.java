@@ -0,0 +1,28 @@
+package com.googlecode.jsonrpc4j;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingResponseConsumerTest {
+
+	@Test
+	public void failsOnResponseWithoutBody() throws Exception {
+		final ObjectMapper mapper = new ObjectMapper();
+		try (StreamingResponseConsumer consumer = new StreamingResponseConsumer(DataFormat.JSON, format -> mapper)) {
+			consumer.responseReceived(new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK"));
+			consumer.responseCompleted(new BasicHttpContext());
+			assertNull(consumer.getResult());
+			assertTrue(consumer.getException() instanceof IOException);
+			assertEquals("Empty response body", consumer.getException().getMessage());
+		}
+	}
+}
@@ -1,20 +1,31 @@
 package com.googlecode.jsonrpc4j.client;
 
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.googlecode.jsonrpc4j.JsonRpcClient;
+import com.googlecode.jsonrpc4j.JsonRpcClientException;
 import com.googlecode.jsonrpc4j.RequestIDGenerator;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.ID;
 import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.PARAMS;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -89,6 +100,77 @@ public class JsonRpcClientTest {
 		assertEquals(1, node.get(PARAMS).get("x").intValue());
 	}
 
+	@Test
+	public void testStreamedRequestMatchesTree() throws Throwable {
+		client.setAdditionalJsonContent(Collections.<String, Object>singletonMap("auth", "secret"));
+		Map<String, Object> named = new LinkedHashMap<>();
+		named.put("hello", "test");
+		named.put("list", Arrays.asList(1, 2));
+		Object[] arguments = {new Object[]{"a\"b", 1.5, null, named}, named, Arrays.asList("x", 2), new Object[0], Collections.emptyMap(), null, "plain"};
+		for (Object argument : arguments) {
+			byteArrayOutputStream.reset();
+			client.invokeNotification("te\"st", argument, byteArrayOutputStream);
+			assertEquals(client.createRequest("te\"st", argument, null), readJSON(byteArrayOutputStream));
+		}
+	}
+	
+	@Test
+	public void testStreamedRequestKeepsTypeIds() throws Throwable {
+		Object[] arguments = {new Object[]{new Dog()}, Collections.singletonList(new Dog())};
+		for (Object argument : arguments) {
+			byteArrayOutputStream.reset();
+			client.invoke("test", argument, byteArrayOutputStream);
+			JsonNode param = readJSON(byteArrayOutputStream).get(PARAMS).get(0);
+			assertEquals("dog", param.get("type").textValue());
+			assertEquals(client.createRequest("test", argument, null).get(PARAMS), readJSON(byteArrayOutputStream).get(PARAMS));
+		}
+	}
+	
+	@Test
+	public void testRequestListenerSeesTree() throws Throwable {
+		client.setRequestListener(new JsonRpcClient.RequestListener() {
+			@Override
+			public void onBeforeRequestSent(JsonRpcClient client, ObjectNode request) {
+				request.put("extra", true);
+			}
+			
+			@Override
+			public void onBeforeResponseProcessed(JsonRpcClient client, ObjectNode response) {
+			}
+		});
+		client.invoke("test", new Object[]{1}, byteArrayOutputStream);
+		assertTrue(readJSON(byteArrayOutputStream).get("extra").booleanValue());
+	}
+	
+	@Test
+	public void testReadResponseSkipsOtherIds() throws Throwable {
+		String responses = "{\"jsonrpc\":\"2.0\",\"result\":[1,2],\"id\":\"other\"}"
+				+ "{\"jsonrpc\":\"2.0\",\"result\":[3,4],\"id\":\"mine\"}";
+		int[] result = client.readResponse(int[].class, new ByteArrayInputStream(responses.getBytes(StandardCharsets.UTF_8)), "mine");
+		assertArrayEquals(new int[]{3, 4}, result);
+	}
+	
+	@Test
+	public void testReadResponseBindsResultInPlace() throws Throwable {
+		String response = "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":{\"a\":[\"x\",\"y\"]}}";
+		@SuppressWarnings("unchecked")
+		Map<String, List<String>> result = (Map<String, List<String>>) client.readResponse(
+				new TypeReference<Map<String, List<String>>>() {}.getType(), new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+		assertEquals(Arrays.asList("x", "y"), result.get("a"));
+	}
+	
+	@Test
+	public void testReadErrorResponse() throws Throwable {
+		String response = "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"error\":{\"code\":-32601,\"message\":\"missing\"}}";
+		try {
+			client.readResponse(String.class, new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+			fail();
+		} catch (JsonRpcClientException e) {
+			assertEquals(-32601, e.getCode());
+			assertEquals("missing", e.getMessage());
+		}
+	}
+	
 	@Test
 	public void testIDGeneration() throws IOException {
 		client.setRequestIDGenerator(new RequestIDGenerator() {
@@ -126,4 +208,13 @@ public class JsonRpcClientTest {
 		}
 	}
 
+	@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+	@JsonSubTypes(@JsonSubTypes.Type(value = Dog.class, name = "dog"))
+	public abstract static class Animal {
+	}
+
+	public static class Dog extends Animal {
+		public int a = 1;
+	}
+
 }
@@ -0,0 +1,147 @@
+package com.googlecode.jsonrpc4j.client;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.googlecode.jsonrpc4j.JsonRpcHttpClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.ID;
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.JSONRPC;
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.PARAMS;
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.RESULT;
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.VERSION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs {@link JsonRpcHttpClient} against an echo server that gunzips requests
+ * and gzips responses, recording the request encoding it saw.
+ */
+public class JsonRpcHttpClientCompressionTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private HttpServer server;
+	private volatile String requestEncoding;
+	private JsonRpcHttpClient client;
+	private final BlockingQueue<String> bodies = new LinkedBlockingQueue<>();
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", this::echo);
+		server.start();
+		URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+		client = new JsonRpcHttpClient(mapper, url, Collections.<String, String>emptyMap(), true, true);
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	private void echo(HttpExchange exchange) throws IOException {
+		requestEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+		JsonNode request;
+		try (InputStream body = "gzip".equals(requestEncoding) ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody()) {
+			request = mapper.readTree(body);
+		}
+		ObjectNode response = mapper.createObjectNode();
+		response.put(JSONRPC, VERSION);
+		response.set(ID, request.get(ID));
+		response.set(RESULT, request.get(PARAMS).get(0));
+		exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+		exchange.sendResponseHeaders(200, 0);
+		try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody())) {
+			mapper.writeValue(out, response);
+		}
+	}
+
+	private void record(HttpExchange exchange) {
+		String body;
+		try (InputStream in = new GZIPInputStream(exchange.getRequestBody())) {
+			body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			body = "incomplete: " + e;
+		}
+		bodies.add(body);
+		exchange.close();
+	}
+
+	@Test
+	public void testSmallRequestIsNotCompressed() throws Throwable {
+		assertEquals("small", client.invoke("echo", new Object[]{"small"}, String.class));
+		assertNull(requestEncoding);
+		assertEquals(1, client.getUncompressedRequestCount());
+		assertEquals(0, client.getCompressedRequestCount());
+		assertEquals(1.0, client.getRequestCompressionRatio(), 0.0);
+	}
+
+	@Test
+	public void testLargeRequestIsCompressed() throws Throwable {
+		String large = repeat(20000);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(large, client.invoke("echo", new Object[]{large}, String.class));
+			assertEquals("gzip", requestEncoding);
+		}
+		assertEquals(3, client.getCompressedRequestCount());
+		assertEquals(0, client.getUncompressedRequestCount());
+		assertTrue(client.getRequestCompressionRatio() > 10);
+	}
+
+	@Test
+	public void testFailedRequestIsNotSent() throws Throwable {
+		server.createContext("/record", this::record);
+		URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/record");
+		JsonRpcHttpClient recordedClient = new JsonRpcHttpClient(mapper, url, Collections.<String, String>emptyMap(), true, true);
+		try {
+			recordedClient.invoke("echo", new Object[]{repeat(20000), new Unwritable()}, String.class);
+			fail();
+		} catch (JsonMappingException expected) {
+			// the request was compressed and partly written when it failed
+		}
+		String body = bodies.poll(1, TimeUnit.SECONDS);
+		assertTrue("the request was sent up to the failure", body == null || body.startsWith("incomplete"));
+	}
+
+	@Test
+	public void testThresholdZeroAlwaysCompresses() throws Throwable {
+		client.setRequestCompressionThreshold(0);
+		assertEquals("tiny", client.invoke("echo", new Object[]{"tiny"}, String.class));
+		assertEquals("gzip", requestEncoding);
+	}
+
+	public static class Unwritable {
+		public String getValue() {
+			throw new IllegalStateException("can't be written");
+		}
+	}
+
+	private static String repeat(int length) {
+		StringBuilder builder = new StringBuilder(length);
+		while (builder.length() < length) {
+			builder.append("compressible ");
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,128 @@
+package com.googlecode.jsonrpc4j.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.googlecode.jsonrpc4j.JsonRpcHttpClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.ID;
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.JSONRPC;
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.PARAMS;
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.RESULT;
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.VERSION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs {@link JsonRpcHttpClient} against an echo server recording the client
+ * ports it was called from, one per TCP connection.
+ */
+public class JsonRpcHttpClientKeepAliveTest {
+
+	private static final int CALLS = 5;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+	private HttpServer server;
+	private JsonRpcHttpClient client;
+	private volatile int padding = 0;
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", this::echo);
+		server.start();
+		URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+		client = new JsonRpcHttpClient(mapper, url, Collections.<String, String>emptyMap());
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	private void echo(HttpExchange exchange) throws IOException {
+		clientPorts.add(exchange.getRemoteAddress().getPort());
+		JsonNode request;
+		try (InputStream body = exchange.getRequestBody()) {
+			request = mapper.readTree(body);
+		}
+		ObjectNode response = mapper.createObjectNode();
+		response.put(JSONRPC, VERSION);
+		response.set(ID, request.get(ID));
+		response.set(RESULT, request.get(PARAMS).get(0));
+		StringBuilder text = new StringBuilder(mapper.writeValueAsString(response)).append('\n');
+		for (int i = 0; i < padding; i++) {
+			text.append(' ');
+		}
+		byte[] bytes = text.toString().getBytes("UTF-8");
+		exchange.sendResponseHeaders(200, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	@Test
+	public void testKeepAliveReusesConnection() throws Throwable {
+		client.setKeepAlive(true);
+		invokeRepeatedly();
+		assertEquals(1, clientPorts.size());
+		assertEquals(CALLS, client.getReleasedStreamCount());
+		assertEquals(0, client.getDiscardedStreamCount());
+	}
+
+	@Test
+	public void testLeftoverIsDrained() throws Throwable {
+		client.setKeepAlive(true);
+		client.setMaxDrainBytes(1024 * 1024);
+		padding = 300 * 1024;
+		invokeRepeatedly();
+		assertEquals(1, clientPorts.size());
+		assertEquals(CALLS, client.getReleasedStreamCount());
+	}
+
+	@Test
+	public void testLargeLeftoverIsDiscarded() throws Throwable {
+		client.setKeepAlive(true);
+		client.setMaxDrainBytes(16);
+		padding = 300 * 1024;
+		invokeRepeatedly();
+		assertEquals(CALLS, client.getDiscardedStreamCount());
+		assertTrue(clientPorts.size() > 1);
+	}
+
+	@Test
+	public void testUnlimitedDrain() throws Throwable {
+		client.setKeepAlive(true);
+		client.setMaxDrainBytes(Integer.MAX_VALUE);
+		padding = 300 * 1024;
+		invokeRepeatedly();
+		assertEquals(1, clientPorts.size());
+		assertEquals(CALLS, client.getReleasedStreamCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeMaxDrainBytesIsRejected() {
+		client.setMaxDrainBytes(-1);
+	}
+
+	private void invokeRepeatedly() throws Throwable {
+		for (int i = 0; i < CALLS; i++) {
+			assertEquals(i, (int) client.invoke("echo", new Object[]{i}, Integer.class));
+		}
+	}
+}
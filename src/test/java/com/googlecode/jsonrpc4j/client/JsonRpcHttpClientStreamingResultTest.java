@@ -0,0 +1,131 @@
+package com.googlecode.jsonrpc4j.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlecode.jsonrpc4j.JsonRpcHttpClient;
+import com.googlecode.jsonrpc4j.JsonRpcMethod;
+import com.googlecode.jsonrpc4j.ProxyUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.ID;
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.PARAMS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs {@link JsonRpcHttpClient} against a server that sends the first
+ * element of a result array and holds back the rest until the client has
+ * read it.
+ */
+public class JsonRpcHttpClientStreamingResultTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final CountDownLatch firstElementRead = new CountDownLatch(1);
+	private HttpServer server;
+	private JsonRpcHttpClient client;
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", this::range);
+		server.start();
+		URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+		client = new JsonRpcHttpClient(mapper, url, Collections.<String, String>emptyMap());
+		client.setKeepAlive(true);
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	/**
+	 * Answers with the numbers from 0 to the requested count.
+	 */
+	private void range(HttpExchange exchange) throws IOException {
+		JsonNode request;
+		try (InputStream body = exchange.getRequestBody()) {
+			request = mapper.readTree(body);
+		}
+		int count = request.get(PARAMS).get(0).intValue();
+		exchange.sendResponseHeaders(200, 0);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(("{\"jsonrpc\":\"2.0\",\"id\":" + request.get(ID) + ",\"result\":[" + (count > 0 ? "0" : "")).getBytes(StandardCharsets.UTF_8));
+			out.flush();
+			if (count > 1) {
+				firstElementRead.await(10, TimeUnit.SECONDS);
+			}
+			StringBuilder rest = new StringBuilder();
+			for (int i = 1; i < count; i++) {
+				rest.append(',').append(i);
+			}
+			out.write(rest.append("]}").toString().getBytes(StandardCharsets.UTF_8));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	public void testIteratorReadsWhileResultArrives() throws Throwable {
+		@SuppressWarnings("unchecked")
+		Iterator<Integer> numbers = (Iterator<Integer>) client.invoke("range", new Object[]{10000}, RangeService.class.getMethod("iterate", int.class).getGenericReturnType());
+		assertEquals(0, (int) numbers.next());
+		firstElementRead.countDown();
+		int expected = 1;
+		while (numbers.hasNext()) {
+			assertEquals(expected++, (int) numbers.next());
+		}
+		assertEquals(10000, expected);
+		assertEquals(1, client.getReleasedStreamCount());
+	}
+
+	@Test
+	public void testStreamFromProxy() {
+		RangeService service = ProxyUtil.createClientProxy(getClass().getClassLoader(), RangeService.class, client);
+		firstElementRead.countDown();
+		try (Stream<Integer> numbers = service.stream(1000)) {
+			assertEquals(499500, numbers.mapToInt(Integer::intValue).sum());
+		}
+	}
+
+	@Test
+	public void testClosingReleasesConnection() throws Throwable {
+		RangeService service = ProxyUtil.createClientProxy(getClass().getClassLoader(), RangeService.class, client);
+		try (Stream<Integer> numbers = service.stream(100)) {
+			assertEquals(0, (int) numbers.iterator().next());
+			firstElementRead.countDown();
+		}
+		assertEquals(1, client.getReleasedStreamCount() + client.getDiscardedStreamCount());
+		Iterator<Integer> empty = service.iterate(0);
+		assertFalse(empty.hasNext());
+		try (Stream<Integer> one = service.stream(1)) {
+			assertTrue(one.findFirst().isPresent());
+		}
+	}
+
+	public interface RangeService {
+
+		@JsonRpcMethod("range")
+		Iterator<Integer> iterate(int count);
+
+		@JsonRpcMethod("range")
+		Stream<Integer> stream(int count);
+	}
+}
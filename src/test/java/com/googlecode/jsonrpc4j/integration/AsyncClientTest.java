@@ -0,0 +1,122 @@
+package com.googlecode.jsonrpc4j.integration;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlecode.jsonrpc4j.JsonRpcBasicServer;
+import com.googlecode.jsonrpc4j.JsonRpcHttpAsyncClient;
+import com.googlecode.jsonrpc4j.util.BaseRestTest;
+import com.googlecode.jsonrpc4j.util.FakeServiceInterface;
+import com.googlecode.jsonrpc4j.util.FakeServiceInterfaceImpl;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncClientTest extends BaseRestTest {
+
+	@Test
+	public void testSharedTransport() throws Exception {
+		JsonRpcHttpAsyncClient client = new JsonRpcHttpAsyncClient(getServiceUrl());
+		Assert.assertEquals(2, (int) client.invoke("returnPrimitiveInt", new Object[]{2}, Integer.class).get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testBuilderTransport() throws Exception {
+		try (JsonRpcHttpAsyncClient client = JsonRpcHttpAsyncClient.builder(getServiceUrl())
+				.reactorThreads(2)
+				.maxPerRoute(4)
+				.maxTotal(8)
+				.connectTimeoutMillis(5000)
+				.build()) {
+			Assert.assertEquals(3, (int) client.invoke("returnPrimitiveInt", new Object[]{3}, Integer.class).get(10, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	public void testGenericReturnType() throws Exception {
+		JsonRpcHttpAsyncClient client = new JsonRpcHttpAsyncClient(getServiceUrl());
+		CompletableFuture<FakeServiceInterface.CustomClass> future = client.invoke("returnCustomClass", new Object[]{4, "four"}, FakeServiceInterface.CustomClass.class);
+		CompletableFuture<Integer> size = future.thenApply(custom -> custom.list.size());
+		Assert.assertEquals(2, (int) size.get(10, TimeUnit.SECONDS));
+		CompletableFuture<Map<String, Object>> map = client.invoke("returnCustomClass", new Object[]{5, "five"}, new TypeReference<Map<String, Object>>() {}.getType());
+		Assert.assertEquals("five", map.get(10, TimeUnit.SECONDS).get("string"));
+	}
+
+	@Test
+	public void testLargeResult() throws Exception {
+		String large = new String(new char[200 * 1024]).replace('\0', 'x');
+		JsonRpcHttpAsyncClient client = new JsonRpcHttpAsyncClient(getServiceUrl());
+		FakeServiceInterface.CustomClass result = client.invoke("returnCustomClass", new Object[]{1, large}, FakeServiceInterface.CustomClass.class).get(10, TimeUnit.SECONDS);
+		Assert.assertEquals(large, result.string);
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		BlockingServiceImpl service = new BlockingServiceImpl();
+		JsonRpcBasicServer server = new JsonRpcBasicServer(new ObjectMapper(), service, BlockingService.class);
+		ExecutorService executor = Executors.newCachedThreadPool();
+		HttpServer httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		httpServer.createContext("/", exchange -> {
+			exchange.sendResponseHeaders(200, 0);
+			try (InputStream input = exchange.getRequestBody(); OutputStream output = exchange.getResponseBody()) {
+				server.handleRequest(input, output);
+			}
+		});
+		httpServer.setExecutor(executor);
+		httpServer.start();
+		URL url = new URL("http://127.0.0.1:" + httpServer.getAddress().getPort() + "/");
+		try (JsonRpcHttpAsyncClient client = JsonRpcHttpAsyncClient.builder(url).maxPerRoute(1).maxTotal(1).build()) {
+			CompletableFuture<Integer> cancelled = client.invoke("block", new Object[]{1}, Integer.class);
+			// the request holds the only connection while the server blocks on it
+			Assert.assertTrue(service.entered.await(10, TimeUnit.SECONDS));
+			Assert.assertTrue(cancelled.cancel(true));
+			Assert.assertTrue(cancelled.isCancelled());
+			// the blocked call never completes before the next one, so that one only gets through on a new connection
+			Assert.assertEquals(2, (int) client.invoke("echo", new Object[]{2}, Integer.class).get(10, TimeUnit.SECONDS));
+		} finally {
+			service.released.countDown();
+			httpServer.stop(0);
+			executor.shutdownNow();
+		}
+	}
+
+	public interface BlockingService {
+
+		int block(int arg) throws InterruptedException;
+
+		int echo(int arg);
+	}
+
+	private static class BlockingServiceImpl implements BlockingService {
+
+		private final CountDownLatch entered = new CountDownLatch(1);
+		private final CountDownLatch released = new CountDownLatch(1);
+
+		@Override
+		public int block(int arg) throws InterruptedException {
+			entered.countDown();
+			released.await();
+			return arg;
+		}
+
+		@Override
+		public int echo(int arg) {
+			return arg;
+		}
+	}
+
+	@Override
+	protected Class service() {
+		return FakeServiceInterfaceImpl.class;
+	}
+}
@@ -0,0 +1,242 @@
+package com.googlecode.jsonrpc4j.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlecode.jsonrpc4j.DataFormat;
+import com.googlecode.jsonrpc4j.JsonRpcBasicServer;
+import com.googlecode.jsonrpc4j.JsonRpcClient;
+import com.googlecode.jsonrpc4j.JsonRpcHttpClient;
+import com.googlecode.jsonrpc4j.ProxyUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Binary parameters and results sent as {@link DataFormat#ATTACHMENTS}
+ * instead of base64 strings.
+ */
+public class AttachmentsTest {
+
+	private static final int SIZE = 1 << 20;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final byte[] data = new byte[SIZE];
+	private JsonRpcBasicServer server;
+	private JsonRpcClient client;
+	private HttpServer httpServer;
+
+	@Before
+	public void setUp() {
+		new Random(42).nextBytes(data);
+		server = new JsonRpcBasicServer(mapper, new DocumentServiceImpl(), DocumentService.class);
+		server.setDataFormat(DataFormat.ATTACHMENTS);
+		client = new JsonRpcClient(mapper);
+		client.setDataFormat(DataFormat.ATTACHMENTS);
+	}
+
+	@After
+	public void tearDown() {
+		if (httpServer != null) {
+			httpServer.stop(0);
+		}
+	}
+
+	@Test
+	public void testBytesTravelUnencoded() throws Throwable {
+		ByteArrayOutputStream request = new ByteArrayOutputStream();
+		client.invoke("echo", new Object[]{data}, request);
+		assertTrue(request.size() < SIZE + 1024);
+
+		ByteArrayOutputStream response = new ByteArrayOutputStream();
+		server.handleRequest(new ByteArrayInputStream(request.toByteArray()), response);
+		assertTrue(response.size() < SIZE + 1024);
+		assertArrayEquals(data, client.readResponse(byte[].class, new ByteArrayInputStream(response.toByteArray())));
+	}
+
+	@Test
+	public void testStreamsInBothDirections() throws Throwable {
+		ByteArrayOutputStream request = new ByteArrayOutputStream();
+		client.invoke("upload", new Object[]{"doc", new ByteArrayInputStream(data)}, request);
+		ByteArrayOutputStream response = new ByteArrayOutputStream();
+		server.handleRequest(new ByteArrayInputStream(request.toByteArray()), response);
+		assertEquals(SIZE, (int) client.readResponse(Integer.class, new ByteArrayInputStream(response.toByteArray())));
+
+		request.reset();
+		client.invoke("download", new Object[]{SIZE}, request);
+		response.reset();
+		server.handleRequest(new ByteArrayInputStream(request.toByteArray()), response);
+		try (InputStream download = (InputStream) client.readResponse(InputStream.class, new ByteArrayInputStream(response.toByteArray()))) {
+			assertArrayEquals(Arrays.copyOf(data, SIZE), download.readAllBytes());
+		}
+	}
+
+	@Test
+	public void testFileStreamsInBothDirections() throws Throwable {
+		File file = File.createTempFile("attachment", ".bin");
+		try {
+			Files.write(file.toPath(), data);
+			ByteArrayOutputStream request = new ByteArrayOutputStream();
+			client.invoke("upload", new Object[]{"doc", new FileInputStream(file)}, request);
+			ByteArrayOutputStream response = new ByteArrayOutputStream();
+			server.handleRequest(new ByteArrayInputStream(request.toByteArray()), response);
+			assertEquals(SIZE, (int) client.readResponse(Integer.class, new ByteArrayInputStream(response.toByteArray())));
+
+			request.reset();
+			client.invoke("read", new Object[]{file.getPath()}, request);
+			response.reset();
+			server.handleRequest(new ByteArrayInputStream(request.toByteArray()), response);
+			try (InputStream download = (InputStream) client.readResponse(InputStream.class, new ByteArrayInputStream(response.toByteArray()))) {
+				assertArrayEquals(data, download.readAllBytes());
+			}
+		} finally {
+			assertTrue(file.delete());
+		}
+	}
+
+	@Test
+	public void testUnreadAttachmentsAreSkipped() throws Throwable {
+		ByteArrayOutputStream requests = new ByteArrayOutputStream();
+		client.invoke("ignore", new Object[]{ByteBuffer.wrap(data), new ByteArrayInputStream(data)}, requests);
+		client.invoke("concat", new Object[]{new byte[]{1, 2}, new ByteArrayInputStream(new byte[]{3})}, requests);
+
+		ByteArrayInputStream input = new ByteArrayInputStream(requests.toByteArray());
+		ByteArrayOutputStream responses = new ByteArrayOutputStream();
+		server.handleRequest(input, responses);
+		server.handleRequest(input, responses);
+		assertEquals(0, input.available());
+
+		ByteArrayInputStream answers = new ByteArrayInputStream(responses.toByteArray());
+		assertEquals(0, (int) client.readResponse(Integer.class, answers));
+		assertArrayEquals(new byte[]{1, 2, 3}, client.readResponse(byte[].class, answers));
+	}
+
+	@Test
+	public void testStreamsAsBase64InJson() throws Throwable {
+		server.setDataFormat(DataFormat.JSON);
+		client.setDataFormat(DataFormat.JSON);
+		byte[] small = Arrays.copyOf(data, 100);
+
+		ByteArrayOutputStream request = new ByteArrayOutputStream();
+		client.invoke("upload", new Object[]{"doc", new ByteArrayInputStream(small)}, request);
+		ByteArrayOutputStream response = new ByteArrayOutputStream();
+		server.handleRequest(new ByteArrayInputStream(request.toByteArray()), response);
+		assertEquals(100, (int) client.readResponse(Integer.class, new ByteArrayInputStream(response.toByteArray())));
+
+		request.reset();
+		client.invoke("download", new Object[]{100}, request);
+		response.reset();
+		server.handleRequest(new ByteArrayInputStream(request.toByteArray()), response);
+		assertTrue(mapper.readTree(response.toByteArray()).get(JsonRpcBasicServer.RESULT).isTextual());
+		try (InputStream download = (InputStream) client.readResponse(InputStream.class, new ByteArrayInputStream(response.toByteArray()))) {
+			assertArrayEquals(small, download.readAllBytes());
+		}
+	}
+
+	@Test
+	public void testHttpClient() throws Throwable {
+		httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		httpServer.createContext("/", this::handle);
+		httpServer.start();
+		JsonRpcHttpClient httpClient = new JsonRpcHttpClient(mapper, new URL("http://127.0.0.1:" + httpServer.getAddress().getPort() + "/"), Collections.<String, String>emptyMap());
+		httpClient.setDataFormat(DataFormat.ATTACHMENTS);
+		DocumentService service = ProxyUtil.createClientProxy(getClass().getClassLoader(), DocumentService.class, httpClient);
+
+		assertEquals(SIZE, service.upload("doc", new ByteArrayInputStream(data)));
+		assertArrayEquals(data, service.echo(data));
+		try (InputStream download = service.download(SIZE)) {
+			assertArrayEquals(data, download.readAllBytes());
+		}
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		assertEquals(DataFormat.ATTACHMENTS.getContentType(), exchange.getRequestHeaders().getFirst("Content-Type"));
+		exchange.getResponseHeaders().set("Content-Type", DataFormat.ATTACHMENTS.getContentType());
+		exchange.sendResponseHeaders(200, 0);
+		try (InputStream input = exchange.getRequestBody(); OutputStream output = exchange.getResponseBody()) {
+			server.handleRequest(input, output);
+		}
+	}
+
+	public interface DocumentService {
+
+		int upload(String name, InputStream content);
+
+		byte[] echo(byte[] content);
+
+		InputStream download(int size);
+
+		InputStream read(String path);
+
+		int ignore(ByteBuffer first, InputStream second);
+
+		byte[] concat(byte[] first, InputStream second);
+	}
+
+	private class DocumentServiceImpl implements DocumentService {
+
+		@Override
+		public int upload(String name, InputStream content) {
+			try {
+				return content.readAllBytes().length;
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public byte[] echo(byte[] content) {
+			return content;
+		}
+
+		@Override
+		public InputStream download(int size) {
+			return new ByteArrayInputStream(data, 0, size);
+		}
+
+		@Override
+		public InputStream read(String path) {
+			try {
+				return new FileInputStream(path);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public int ignore(ByteBuffer first, InputStream second) {
+			return 0;
+		}
+
+		@Override
+		public byte[] concat(byte[] first, InputStream second) {
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				bytes.write(first);
+				second.transferTo(bytes);
+				return bytes.toByteArray();
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
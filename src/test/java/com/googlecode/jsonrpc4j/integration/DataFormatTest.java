@@ -0,0 +1,79 @@
+package com.googlecode.jsonrpc4j.integration;
+
+import com.googlecode.jsonrpc4j.DataFormat;
+import com.googlecode.jsonrpc4j.JsonRpcBasicServer;
+import com.googlecode.jsonrpc4j.JsonRpcClient;
+import com.googlecode.jsonrpc4j.JsonRpcHttpClient;
+import com.googlecode.jsonrpc4j.ProxyUtil;
+import com.googlecode.jsonrpc4j.spring.rest.JsonRpcRestClient;
+import com.googlecode.jsonrpc4j.util.BaseRestTest;
+import com.googlecode.jsonrpc4j.util.FakeServiceInterface;
+import com.googlecode.jsonrpc4j.util.FakeServiceInterfaceImpl;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DataFormatTest extends BaseRestTest {
+
+	@Test
+	public void testContentTypeLookup() {
+		assertEquals(DataFormat.JSON, DataFormat.forContentType("application/json-rpc; charset=UTF-8"));
+		assertEquals(DataFormat.JSON, DataFormat.forContentType("application/json"));
+		assertEquals(DataFormat.CBOR, DataFormat.forContentType("application/cbor"));
+		assertEquals(DataFormat.SMILE, DataFormat.forAccept("text/html, application/x-jackson-smile;q=0.9"));
+		assertNull(DataFormat.forAccept("*/*"));
+	}
+
+	@Test
+	public void testHttpClientCbor() throws Exception {
+		JsonRpcHttpClient client = getHttpClient(false, false);
+		client.setDataFormat(DataFormat.CBOR);
+		assertRoundTrip(ProxyUtil.createClientProxy(getClass().getClassLoader(), FakeServiceInterface.class, client));
+	}
+
+	@Test
+	public void testHttpClientSmile() throws Exception {
+		JsonRpcHttpClient client = getHttpClient(false, false);
+		client.setDataFormat(DataFormat.SMILE);
+		assertRoundTrip(ProxyUtil.createClientProxy(getClass().getClassLoader(), FakeServiceInterface.class, client));
+	}
+
+	@Test
+	public void testRestClientCbor() throws Exception {
+		JsonRpcRestClient client = getClient();
+		client.setDataFormat(DataFormat.CBOR);
+		assertRoundTrip(ProxyUtil.createClientProxy(getClass().getClassLoader(), FakeServiceInterface.class, client));
+	}
+
+	@Test
+	public void testStreamServerCbor() throws Throwable {
+		JsonRpcBasicServer server = new JsonRpcBasicServer(new FakeServiceInterfaceImpl(), FakeServiceInterface.class);
+		server.setDataFormat(DataFormat.CBOR);
+		JsonRpcClient client = new JsonRpcClient();
+		client.setDataFormat(DataFormat.CBOR);
+
+		ByteArrayOutputStream request = new ByteArrayOutputStream();
+		client.invoke("returnPrimitiveInt", new Object[]{7}, request);
+		ByteArrayOutputStream response = new ByteArrayOutputStream();
+		server.handleRequest(new ByteArrayInputStream(request.toByteArray()), response);
+
+		assertEquals(7, (int) client.readResponse(Integer.class, new ByteArrayInputStream(response.toByteArray())));
+	}
+
+	private void assertRoundTrip(FakeServiceInterface service) {
+		assertEquals(2, service.returnPrimitiveInt(2));
+		FakeServiceInterface.CustomClass result = service.returnCustomClass(5, "five");
+		assertEquals(5, result.integer);
+		assertEquals("five", result.string);
+		assertEquals(2, result.list.size());
+	}
+
+	@Override
+	protected Class service() {
+		return FakeServiceInterfaceImpl.class;
+	}
+}
@@ -0,0 +1,131 @@
+package com.googlecode.jsonrpc4j.integration;
+
+import com.googlecode.jsonrpc4j.IJsonRpcClient;
+import com.googlecode.jsonrpc4j.JsonRpcClientException;
+import com.googlecode.jsonrpc4j.JsonRpcJdkHttpClient;
+import com.googlecode.jsonrpc4j.JsonRpcMethod;
+import com.googlecode.jsonrpc4j.ProxyUtil;
+import com.googlecode.jsonrpc4j.util.BaseRestTest;
+import com.googlecode.jsonrpc4j.util.FakeServiceInterface;
+import com.googlecode.jsonrpc4j.util.FakeServiceInterfaceImpl;
+import com.googlecode.jsonrpc4j.util.JettyServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+
+public class JdkHttpClientTest extends BaseRestTest {
+
+	@Test
+	public void testRequestAndResponse() {
+		FakeServiceInterface service = ProxyUtil.createClientProxy(getClass().getClassLoader(), FakeServiceInterface.class, getJdkHttpClient(JettyServer.SERVLET));
+		Assert.assertEquals(2, service.returnPrimitiveInt(2));
+	}
+
+	@Test
+	public void testGzip() {
+		JsonRpcJdkHttpClient client = getJdkHttpClient(JettyServer.SERVLET);
+		client.setAcceptGzipResponses(true);
+		FakeServiceInterface service = ProxyUtil.createClientProxy(getClass().getClassLoader(), FakeServiceInterface.class, client);
+		Assert.assertEquals("gzip", service.returnCustomClass(1, "gzip").string);
+	}
+
+	@Test
+	public void testCustomException() {
+		expectedEx.expectMessage(equalTo("Custom exception"));
+		expectedEx.expect(JsonRpcClientException.class);
+
+		FakeServiceInterface service = ProxyUtil.createClientProxy(getClass().getClassLoader(), FakeServiceInterface.class, getJdkHttpClient(JettyServer.SERVLET));
+		service.throwSomeException("Custom exception");
+	}
+
+	@Test
+	public void testHttpError() {
+		expectedEx.expectMessage(containsString("405 HTTP method POST is not supported by this URL"));
+		expectedEx.expect(Exception.class);
+
+		FakeServiceInterface service = ProxyUtil.createClientProxy(getClass().getClassLoader(), FakeServiceInterface.class, getJdkHttpClient("error"));
+		service.doSomething();
+	}
+
+	@Test
+	public void testLargeRequestIsStreamed() throws Exception {
+		JsonRpcJdkHttpClient client = getJdkHttpClient(JettyServer.SERVLET);
+		String large = "x".repeat(1 << 20);
+		FakeServiceInterface service = ProxyUtil.createClientProxy(getClass().getClassLoader(), FakeServiceInterface.class, client);
+		Assert.assertEquals(large, service.returnCustomClass(1, large).string);
+		FakeServiceInterface.CustomClass async = client.invokeAsync("returnCustomClass", new Object[]{2, large}, FakeServiceInterface.CustomClass.class)
+				.get(10, TimeUnit.SECONDS);
+		Assert.assertEquals(large, async.string);
+	}
+
+	@Test
+	public void testInvokeAsync() throws Exception {
+		JsonRpcJdkHttpClient client = getJdkHttpClient(JettyServer.SERVLET);
+		CompletableFuture<Integer> first = client.invokeAsync("returnPrimitiveInt", new Object[]{1}, Integer.class);
+		CompletableFuture<Integer> second = client.invokeAsync("returnPrimitiveInt", new Object[]{2}, Integer.class);
+		Assert.assertEquals(3, first.get(10, TimeUnit.SECONDS) + second.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testInvokeAsyncException() throws Exception {
+		CompletableFuture<Void> future = getJdkHttpClient(JettyServer.SERVLET).invokeAsync("throwSomeException", new Object[]{"async"}, Void.class);
+		try {
+			future.get(10, TimeUnit.SECONDS);
+			Assert.fail();
+		} catch (ExecutionException e) {
+			Assert.assertThat(e.getCause(), instanceOf(JsonRpcClientException.class));
+			Assert.assertEquals("async", e.getCause().getMessage());
+		}
+	}
+
+	@Test
+	public void testFutureReturningProxy() throws Exception {
+		AsyncFakeService service = ProxyUtil.createAsyncClientProxy(getClass().getClassLoader(), AsyncFakeService.class, getJdkHttpClient(JettyServer.SERVLET));
+		CompletableFuture<FakeServiceInterface.CustomClass> custom = service.returnCustomClass(3, "future");
+		Assert.assertEquals(4, (int) service.returnPrimitiveInt(4).toCompletableFuture().get(10, TimeUnit.SECONDS));
+		Assert.assertEquals("future", custom.get(10, TimeUnit.SECONDS).string);
+		Assert.assertEquals(5, service.blockingReturnPrimitiveInt(5));
+	}
+
+	@Test
+	public void testFutureReturningProxyException() throws Exception {
+		AsyncFakeService service = ProxyUtil.createAsyncClientProxy(getClass().getClassLoader(), AsyncFakeService.class, getJdkHttpClient(JettyServer.SERVLET));
+		try {
+			service.throwSomeException("future").get(10, TimeUnit.SECONDS);
+			Assert.fail();
+		} catch (ExecutionException e) {
+			Assert.assertThat(e.getCause(), instanceOf(JsonRpcClientException.class));
+		}
+	}
+
+	@Test
+	public void testFutureFromSynchronousClient() throws Exception {
+		AsyncFakeService service = ProxyUtil.createClientProxy(getClass().getClassLoader(), AsyncFakeService.class, (IJsonRpcClient) getJdkHttpClient(JettyServer.SERVLET));
+		Assert.assertEquals(6, (int) service.returnPrimitiveInt(6).toCompletableFuture().get(10, TimeUnit.SECONDS));
+	}
+
+	public interface AsyncFakeService {
+
+		CompletionStage<Integer> returnPrimitiveInt(int arg);
+
+		CompletableFuture<FakeServiceInterface.CustomClass> returnCustomClass(int arg1, String arg2);
+
+		CompletableFuture<Void> throwSomeException(String message);
+
+		@JsonRpcMethod("returnPrimitiveInt")
+		int blockingReturnPrimitiveInt(int arg);
+	}
+
+	@Override
+	protected Class service() {
+		return FakeServiceInterfaceImpl.class;
+	}
+}
@@ -0,0 +1,129 @@
+package com.googlecode.jsonrpc4j.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.googlecode.jsonrpc4j.JsonRpcBasicServer;
+import com.googlecode.jsonrpc4j.JsonRpcInterceptor;
+import com.googlecode.jsonrpc4j.JsonRpcLocalClient;
+import com.googlecode.jsonrpc4j.ProxyUtil;
+import com.googlecode.jsonrpc4j.util.FakeServiceInterface;
+import com.googlecode.jsonrpc4j.util.FakeServiceInterfaceImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LocalClientTest {
+
+	private JsonRpcBasicServer server;
+	private JsonRpcLocalClient client;
+	private FakeServiceInterface service;
+	private final List<String> seen = new ArrayList<>();
+
+	@Before
+	public void setUp() {
+		server = new JsonRpcBasicServer(new FakeServiceInterfaceImpl(), FakeServiceInterface.class);
+		server.setInterceptorList(Collections.<JsonRpcInterceptor>singletonList(new RecordingInterceptor()));
+		client = new JsonRpcLocalClient(server);
+		service = ProxyUtil.createClientProxy(getClass().getClassLoader(), FakeServiceInterface.class, client);
+	}
+
+	@Test
+	public void testCallsGoThroughServerPipeline() {
+		assertEquals(42, service.returnPrimitiveInt(42));
+		assertTrue(seen.contains("preHandleJson"));
+		assertTrue(seen.contains("preHandle"));
+		assertTrue(seen.contains("postHandle"));
+	}
+
+	@Test
+	public void testCustomClassRoundTrip() {
+		FakeServiceInterface.CustomClass result = service.returnCustomClass(7, "seven");
+		assertEquals(7, result.integer);
+		assertEquals("seven", result.string);
+	}
+
+	@Test
+	public void testDeepCopy() {
+		client.setDeepCopy(true);
+		FakeServiceInterface.CustomClass result = service.returnCustomClass(3, "three");
+		assertEquals(3, result.integer);
+		assertEquals("three", result.string);
+	}
+
+	@Test
+	public void testErrorIsResolved() {
+		try {
+			service.throwSomeException("boom");
+			fail("expected exception");
+		} catch (UnsupportedOperationException e) {
+			assertEquals("boom", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testStreamedResult() {
+		assertStreamedResult(false);
+	}
+
+	@Test
+	public void testStreamedResultDeepCopy() {
+		assertStreamedResult(true);
+	}
+
+	private void assertStreamedResult(boolean deepCopy) {
+		StreamingServiceImpl impl = new StreamingServiceImpl();
+		JsonRpcLocalClient streamingClient = new JsonRpcLocalClient(new JsonRpcBasicServer(impl, StreamingService.class));
+		streamingClient.setDeepCopy(deepCopy);
+		StreamingService streaming = ProxyUtil.createClientProxy(getClass().getClassLoader(), StreamingService.class, streamingClient);
+		try (Stream<String> letters = streaming.letters()) {
+			assertArrayEquals(new String[]{"a", "b", "c"}, letters.toArray());
+		}
+		assertTrue(impl.closed.get());
+	}
+
+	public interface StreamingService {
+		Stream<String> letters();
+	}
+
+	public static class StreamingServiceImpl implements StreamingService {
+		final AtomicBoolean closed = new AtomicBoolean();
+
+		@Override
+		public Stream<String> letters() {
+			return Stream.of("a", "b", "c").onClose(() -> closed.set(true));
+		}
+	}
+
+	private class RecordingInterceptor implements JsonRpcInterceptor {
+
+		@Override
+		public void preHandleJson(JsonNode json) {
+			seen.add("preHandleJson");
+		}
+
+		@Override
+		public void preHandle(Object target, Method method, List<JsonNode> params) {
+			seen.add("preHandle");
+		}
+
+		@Override
+		public void postHandle(Object target, Method method, List<JsonNode> params, JsonNode result) {
+			seen.add("postHandle");
+		}
+
+		@Override
+		public void postHandleJson(JsonNode json) {
+			seen.add("postHandleJson");
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.googlecode.jsonrpc4j.integration;
+
+import com.googlecode.jsonrpc4j.JsonRpcBasicServer;
+import com.googlecode.jsonrpc4j.JsonRpcClient;
+import com.googlecode.jsonrpc4j.ProxyUtil;
+import com.googlecode.jsonrpc4j.SharedMemoryServer;
+import com.googlecode.jsonrpc4j.SharedMemoryTransport;
+import com.googlecode.jsonrpc4j.util.FakeServiceInterface;
+import com.googlecode.jsonrpc4j.util.FakeServiceInterfaceImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SharedMemoryTransportTest {
+
+	private Path file;
+	private SharedMemoryServer server;
+	private SharedMemoryTransport clientTransport;
+
+	@Before
+	public void setUp() throws Exception {
+		file = Files.createTempFile("jsonrpc4j-shm", ".ring");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (clientTransport != null) {
+			clientTransport.close();
+		}
+		if (server != null && server.isStarted()) {
+			server.stop();
+		}
+		Files.deleteIfExists(file);
+	}
+
+	private FakeServiceInterface connect(int ringCapacity) throws Exception {
+		server = new SharedMemoryServer(new JsonRpcBasicServer(new FakeServiceInterfaceImpl(), FakeServiceInterface.class),
+				SharedMemoryTransport.create(file, ringCapacity));
+		server.start();
+		clientTransport = SharedMemoryTransport.open(file);
+		return ProxyUtil.createClientProxy(getClass().getClassLoader(), FakeServiceInterface.class, new JsonRpcClient(),
+				clientTransport.getInputStream(), clientTransport.getOutputStream());
+	}
+
+	@Test
+	public void testRoundTrips() throws Exception {
+		FakeServiceInterface service = connect(SharedMemoryTransport.DEFAULT_RING_CAPACITY);
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, service.returnPrimitiveInt(i));
+		}
+	}
+
+	@Test
+	public void testMessagesLargerThanTheRing() throws Exception {
+		FakeServiceInterface service = connect(256);
+		StringBuilder large = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			large.append(i % 10);
+		}
+		for (int i = 0; i < 20; i++) {
+			FakeServiceInterface.CustomClass result = service.returnCustomClass(i, large.toString());
+			assertEquals(i, result.integer);
+			assertEquals(large.toString(), result.string);
+		}
+	}
+
+	@Test
+	public void testClientCloseStopsServer() throws Exception {
+		FakeServiceInterface service = connect(SharedMemoryTransport.DEFAULT_RING_CAPACITY);
+		assertEquals(1, service.returnPrimitiveInt(1));
+		clientTransport.close();
+		clientTransport = null;
+		for (int i = 0; i < 100 && server.isRunning(); i++) {
+			Thread.sleep(50);
+		}
+		assertFalse(server.isRunning());
+	}
+}
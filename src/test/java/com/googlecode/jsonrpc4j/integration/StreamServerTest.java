@@ -17,10 +17,13 @@ import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static com.googlecode.jsonrpc4j.util.Util.DEFAULT_LOCAL_HOSTNAME;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class StreamServerTest {
 	
@@ -52,6 +55,35 @@ public class StreamServerTest {
 		streamServer.stop();
 	}
 	
+	@Test
+	public void testResponsesAreNotHeldBack() throws Exception {
+		StreamServer streamServer = createAndStartServer();
+		Socket socket = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+		Service client = ProxyUtil.createClientProxy(this.getClass().getClassLoader(), Service.class, jsonRpcClient, socket);
+		client.inc();
+		long start = System.nanoTime();
+		for (int i = 0; i < 200; i++) {
+			client.inc();
+		}
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		socket.close();
+		streamServer.stop();
+		// the trailing newline of each response would otherwise wait for the client's delayed ack, ~40ms per call
+		assertTrue("200 calls took " + elapsed + "ms", elapsed < 2000);
+	}
+	
+	@Test
+	public void testAsyncMethodReturnsCompletedFuture() throws Exception {
+		StreamServer streamServer = createAndStartServer();
+		Socket socket = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+		AsyncService client = ProxyUtil.createClientProxy(this.getClass().getClassLoader(), AsyncService.class, jsonRpcClient, socket);
+		CompletableFuture<String> result = client.hello("dude");
+		assertTrue(result.isDone());
+		assertEquals("hello dude", result.get());
+		socket.close();
+		streamServer.stop();
+	}
+	
 	private StreamServer createAndStartServer() {
 		StreamServer streamServer = new StreamServer(jsonRpcServer, 5, serverSocket);
 		streamServer.start();
@@ -179,6 +211,10 @@ public class StreamServerTest {
 		void reset();
 	}
 	
+	public interface AsyncService {
+		CompletableFuture<String> hello(String whatever);
+	}
+	
 	@SuppressWarnings("WeakerAccess")
 	public static class ServiceImpl implements Service {
 		
@@ -0,0 +1,49 @@
+package com.googlecode.jsonrpc4j.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlecode.jsonrpc4j.util.BaseRestTest;
+import com.googlecode.jsonrpc4j.util.FakeStreamingServiceImpl;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+
+public class StreamedResultHttpTest extends BaseRestTest {
+
+	@Override
+	protected Class service() {
+		return FakeStreamingServiceImpl.class;
+	}
+
+	@Test
+	public void testStreamedResultReachesClientWhileProduced() throws Exception {
+		CountDownLatch clientRead = new CountDownLatch(1);
+		FakeStreamingServiceImpl.clientRead = clientRead;
+		HttpURLConnection connection = (HttpURLConnection) getServiceUrl().openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setRequestProperty("Content-Type", "application/json-rpc");
+		try (OutputStream output = connection.getOutputStream()) {
+			output.write("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"lines\"}".getBytes(StandardCharsets.UTF_8));
+		}
+
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		try (InputStream input = connection.getInputStream()) {
+			// a buffered response would only arrive after the last line timed out
+			body.write(input.readNBytes(1024));
+			clientRead.countDown();
+			input.transferTo(body);
+		}
+
+		JsonNode result = new ObjectMapper().readTree(body.toByteArray()).get("result");
+		assertEquals(FakeStreamingServiceImpl.LINES + 1, result.size());
+		assertEquals(FakeStreamingServiceImpl.RELEASED, result.get(FakeStreamingServiceImpl.LINES).asText());
+	}
+}
@@ -0,0 +1,147 @@
+package com.googlecode.jsonrpc4j.server;
+
+import com.googlecode.jsonrpc4j.JsonRpcBasicServer;
+import com.googlecode.jsonrpc4j.JsonRpcParam;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.RESULT;
+import static com.googlecode.jsonrpc4j.util.Util.decodeAnswer;
+import static com.googlecode.jsonrpc4j.util.Util.error;
+import static com.googlecode.jsonrpc4j.util.Util.errorCode;
+import static com.googlecode.jsonrpc4j.util.Util.mapper;
+import static com.googlecode.jsonrpc4j.util.Util.messageWithListParamsStream;
+import static com.googlecode.jsonrpc4j.util.Util.messageWithMapParamsStream;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Overloads are resolved once per parameter shape and then remembered.
+ */
+public class JsonRpcServerResolvedMethodTest {
+
+	private JsonRpcBasicServer jsonRpcServer;
+
+	@Before
+	public void setup() {
+		jsonRpcServer = new JsonRpcBasicServer(mapper, new OverloadedServiceImpl(), OverloadedService.class);
+	}
+
+	@Test
+	public void eachShapeKeepsItsOverload() throws IOException {
+		for (int i = 0; i < 3; i++) {
+			assertEquals("string", callWithList("overloaded", "a"));
+			assertEquals("int", callWithList("overloaded", 1));
+			assertEquals("int,int", callWithList("overloaded", 1, 2));
+			assertEquals("list", callWithList("overloaded", Collections.singletonList("a")));
+			assertEquals("boolean", callWithList("overloaded", true));
+			assertEquals("named string", callWithMap("named", "text", "a"));
+			assertEquals("named int", callWithMap("named", "number", 1));
+		}
+	}
+
+	@Test
+	public void settingsApplyToRememberedShapes() throws IOException {
+		assertEquals(-32602, errorCode(error(call(messageWithListParamsStream(1, "pair", 1)))).intValue());
+		jsonRpcServer.setAllowLessParams(true);
+		assertEquals("1,null", decodeAnswer(call(messageWithListParamsStream(1, "pair", 1))).get(RESULT).textValue());
+	}
+
+	@Test
+	public void resolvesEveryRequestWithoutCache() throws IOException {
+		jsonRpcServer.setResolvedMethodCacheSize(0);
+		assertEquals("string", callWithList("overloaded", "a"));
+		assertEquals("int", callWithList("overloaded", 1));
+	}
+
+	@Test
+	public void newShapesReplaceRememberedOnesWhenFull() throws IOException {
+		jsonRpcServer.setResolvedMethodCacheSize(1);
+		for (int i = 0; i < 3; i++) {
+			assertEquals("string", callWithList("overloaded", "a"));
+			assertEquals("int", callWithList("overloaded", 1));
+			assertEquals("int,int", callWithList("overloaded", 1, 2));
+		}
+	}
+
+	private String callWithList(String method, Object... params) throws IOException {
+		return decodeAnswer(call(messageWithListParamsStream(1, method, params))).get(RESULT).textValue();
+	}
+
+	private String callWithMap(String method, Object... params) throws IOException {
+		return decodeAnswer(call(messageWithMapParamsStream(method, params))).get(RESULT).textValue();
+	}
+
+	private ByteArrayOutputStream call(InputStream request) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		jsonRpcServer.handleRequest(request, output);
+		return output;
+	}
+
+	public interface OverloadedService {
+
+		String overloaded(String value);
+
+		String overloaded(int value);
+
+		String overloaded(int first, int second);
+
+		String overloaded(List<String> values);
+
+		String overloaded(boolean value);
+
+		String named(@JsonRpcParam("text") String text);
+
+		String named(@JsonRpcParam("number") int number);
+
+		String pair(int first, Integer second);
+	}
+
+	public static class OverloadedServiceImpl implements OverloadedService {
+
+		@Override
+		public String overloaded(String value) {
+			return "string";
+		}
+
+		@Override
+		public String overloaded(int value) {
+			return "int";
+		}
+
+		@Override
+		public String overloaded(int first, int second) {
+			return "int,int";
+		}
+
+		@Override
+		public String overloaded(List<String> values) {
+			return "list";
+		}
+
+		@Override
+		public String overloaded(boolean value) {
+			return "boolean";
+		}
+
+		@Override
+		public String named(String text) {
+			return "named string";
+		}
+
+		@Override
+		public String named(int number) {
+			return "named int";
+		}
+
+		@Override
+		public String pair(int first, Integer second) {
+			return first + "," + second;
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package com.googlecode.jsonrpc4j.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.googlecode.jsonrpc4j.JsonRpcBasicServer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.RESULT;
+import static com.googlecode.jsonrpc4j.util.Util.decodeAnswer;
+import static com.googlecode.jsonrpc4j.util.Util.mapper;
+import static com.googlecode.jsonrpc4j.util.Util.messageWithListParamsStream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Handler methods returning a {@link Stream}, an {@link Iterator} or a
+ * {@link Flow.Publisher} have their results written element by element.
+ */
+public class JsonRpcServerStreamedResultTest {
+
+	private static final int MANY = 100000;
+
+	private final AtomicBoolean streamClosed = new AtomicBoolean();
+	private final AtomicInteger produced = new AtomicInteger();
+	private final AtomicInteger maxOutstanding = new AtomicInteger();
+	private JsonRpcBasicServer jsonRpcServer;
+
+	@Before
+	public void setup() {
+		jsonRpcServer = new JsonRpcBasicServer(mapper, new StreamingServiceImpl(), StreamingService.class);
+	}
+
+	@Test
+	public void streamResult() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		jsonRpcServer.handleRequest(messageWithListParamsStream(1, "stream", 5), output);
+		assertEquals(mapper.readTree("[0,1,2,3,4]"), decodeAnswer(output).get(RESULT));
+		assertTrue(streamClosed.get());
+	}
+
+	@Test
+	public void iteratorResultIsWrittenWhileProduced() throws IOException {
+		final AtomicInteger producedAtFirstWrite = new AtomicInteger(-1);
+		ByteArrayOutputStream output = new ByteArrayOutputStream() {
+			@Override
+			public synchronized void write(byte[] b, int off, int len) {
+				producedAtFirstWrite.compareAndSet(-1, produced.get());
+				super.write(b, off, len);
+			}
+		};
+		jsonRpcServer.handleRequest(messageWithListParamsStream(1, "iterate", MANY), output);
+		JsonNode result = decodeAnswer(output).get(RESULT);
+		assertEquals(MANY, result.size());
+		assertEquals(MANY - 1, result.get(MANY - 1).intValue());
+		assertTrue(producedAtFirstWrite.get() < MANY);
+	}
+
+	@Test
+	public void publisherResultFollowsDemand() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		jsonRpcServer.handleRequest(messageWithListParamsStream(1, "publish", 1000), output);
+		JsonNode result = decodeAnswer(output).get(RESULT);
+		assertEquals(1000, result.size());
+		assertEquals(999, result.get(999).intValue());
+		assertTrue(maxOutstanding.get() <= 16);
+	}
+
+	@Test
+	public void emptyAndNullResults() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		jsonRpcServer.handleRequest(messageWithListParamsStream(1, "publish", 0), output);
+		assertEquals(0, decodeAnswer(output).get(RESULT).size());
+
+		output = new ByteArrayOutputStream();
+		jsonRpcServer.handleRequest(messageWithListParamsStream(1, "nothing"), output);
+		assertTrue(decodeAnswer(output).get(RESULT).isNull());
+	}
+
+	@Test
+	public void notificationClosesStream() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		jsonRpcServer.handleRequest(messageWithListParamsStream(null, "stream", 5), output);
+		assertEquals(0, output.size());
+		assertTrue(streamClosed.get());
+	}
+
+	public interface StreamingService {
+
+		Stream<Integer> stream(int count);
+
+		Iterator<Integer> iterate(int count);
+
+		Flow.Publisher<Integer> publish(int count);
+
+		Stream<Integer> nothing();
+	}
+
+	private class StreamingServiceImpl implements StreamingService {
+
+		@Override
+		public Stream<Integer> stream(int count) {
+			return IntStream.range(0, count).boxed().onClose(() -> streamClosed.set(true));
+		}
+
+		@Override
+		public Iterator<Integer> iterate(int count) {
+			return new Iterator<Integer>() {
+				@Override
+				public boolean hasNext() {
+					return produced.get() < count;
+				}
+
+				@Override
+				public Integer next() {
+					return produced.getAndIncrement();
+				}
+			};
+		}
+
+		@Override
+		public Flow.Publisher<Integer> publish(int count) {
+			return subscriber -> subscriber.onSubscribe(new Flow.Subscription() {
+				private int requested;
+				private int emitted;
+				private boolean emitting;
+				private boolean completed;
+
+				@Override
+				public void request(long n) {
+					requested += n;
+					maxOutstanding.accumulateAndGet(requested - emitted, Math::max);
+					if (emitting) {
+						return;
+					}
+					emitting = true;
+					while (emitted < requested && emitted < count) {
+						subscriber.onNext(emitted++);
+					}
+					emitting = false;
+					if (emitted == count && !completed) {
+						completed = true;
+						subscriber.onComplete();
+					}
+				}
+
+				@Override
+				public void cancel() {
+					requested = 0;
+				}
+			});
+		}
+
+		@Override
+		public Stream<Integer> nothing() {
+			return null;
+		}
+	}
+}
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Base64;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
 
 import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.*;
 import static com.googlecode.jsonrpc4j.util.Util.*;
@@ -288,6 +289,79 @@ public class JsonRpcServerTest {
 		verify(mockService, mockInterceptor);
 	}
 
+	@Test
+	public void testResponseCompressedAboveThreshold() throws Exception {
+		String large = largeString();
+		EasyMock.expect(mockService.testMethod("large")).andReturn(large);
+		EasyMock.replay(mockService);
+		jsonRpcServer.setResponseCompressionThreshold(1024);
+
+		MockHttpServletResponse response = postTestMethod("large", "deflate, gzip;q=0.9");
+
+		assertEquals("gzip", response.getHeader(CONTENT_ENCODING));
+		assertEquals(ACCEPT_ENCODING, response.getHeader("Vary"));
+		assertTrue(response.getContentAsByteArray().length < large.length() / 4);
+		JsonNode envelope = mapper.readTree(getCompressedResponseContent(response.getContentAsByteArray()));
+		assertEquals(large, envelope.get(RESULT).asText());
+	}
+
+	@Test
+	public void testResponseDeflatedWhenGzipRejected() throws Exception {
+		String large = largeString();
+		EasyMock.expect(mockService.testMethod("large")).andReturn(large);
+		EasyMock.replay(mockService);
+		jsonRpcServer.setResponseCompressionThreshold(1024);
+
+		MockHttpServletResponse response = postTestMethod("large", "gzip;q=0, deflate");
+
+		assertEquals("deflate", response.getHeader(CONTENT_ENCODING));
+		InflaterInputStream inflated = new InflaterInputStream(new ByteArrayInputStream(response.getContentAsByteArray()));
+		assertEquals(large, mapper.readTree(inflated).get(RESULT).asText());
+	}
+
+	@Test
+	public void testSmallResponseNotCompressed() throws Exception {
+		EasyMock.expect(mockService.testMethod("small")).andReturn("tiny");
+		EasyMock.replay(mockService);
+		jsonRpcServer.setResponseCompressionThreshold(1024);
+
+		MockHttpServletResponse response = postTestMethod("small", "gzip");
+
+		assertNull(response.getHeader(CONTENT_ENCODING));
+		assertEquals(response.getContentAsByteArray().length, response.getContentLength());
+		assertEquals("tiny", mapper.readTree(response.getContentAsByteArray()).get(RESULT).asText());
+	}
+
+	@Test
+	public void testResponseNotCompressedByDefault() throws Exception {
+		EasyMock.expect(mockService.testMethod("large")).andReturn(largeString());
+		EasyMock.replay(mockService);
+
+		MockHttpServletResponse response = postTestMethod("large", "gzip");
+
+		assertNull(response.getHeader(CONTENT_ENCODING));
+		assertNull(response.getHeader("Vary"));
+	}
+
+	private MockHttpServletResponse postTestMethod(String param, String acceptEncoding) throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/test-post");
+		request.addHeader(ACCEPT_ENCODING, acceptEncoding);
+		request.setContent(("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"testMethod\",\"params\":[\"" + param + "\"]}")
+				.getBytes(StandardCharsets.UTF_8));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		jsonRpcServer.handle(request, response);
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		return response;
+	}
+
+	private String largeString() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			builder.append("repeated value ").append(i % 10).append(' ');
+		}
+		return builder.toString();
+	}
+
 	// Service and service interfaces used in test
 
 	public interface ServiceInterface {
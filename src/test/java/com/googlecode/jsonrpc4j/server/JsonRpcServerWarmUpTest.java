@@ -0,0 +1,131 @@
+package com.googlecode.jsonrpc4j.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.googlecode.jsonrpc4j.JsonRpcBasicServer;
+import com.googlecode.jsonrpc4j.JsonRpcInterceptor;
+import com.googlecode.jsonrpc4j.JsonRpcMethod;
+import com.googlecode.jsonrpc4j.JsonRpcMultiServer;
+import com.googlecode.jsonrpc4j.WarmUpReport;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.googlecode.jsonrpc4j.JsonRpcBasicServer.RESULT;
+import static com.googlecode.jsonrpc4j.util.Util.decodeAnswer;
+import static com.googlecode.jsonrpc4j.util.Util.mapper;
+import static com.googlecode.jsonrpc4j.util.Util.messageWithListParamsStream;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Warm up resolves every exported method without calling the service.
+ */
+public class JsonRpcServerWarmUpTest {
+
+	@Test
+	public void coversMethodsAndTypes() throws IOException {
+		WarmUpServiceImpl service = new WarmUpServiceImpl();
+		JsonRpcBasicServer server = new JsonRpcBasicServer(mapper, service, WarmUpService.class);
+		CountingInterceptor interceptor = new CountingInterceptor();
+		server.setInterceptorList(Collections.<JsonRpcInterceptor>singletonList(interceptor));
+
+		WarmUpReport report = server.warmUp(5);
+		assertEquals(3, report.getMethodCount());
+		// int, String, List<String>, Map<String, Bean> and Bean
+		assertEquals(5, report.getTypeCount());
+		assertEquals(0, report.getFailedTypeCount());
+		assertEquals(5, report.getRequestCount());
+		assertEquals(0, service.calls.get());
+		assertEquals(0, interceptor.calls.get());
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		server.handleRequest(messageWithListParamsStream(1, "length", "abc"), output);
+		assertEquals(3, decodeAnswer(output).get(RESULT).intValue());
+	}
+
+	@Test
+	public void coversEveryServiceOfMultiServer() {
+		JsonRpcMultiServer server = new JsonRpcMultiServer(mapper);
+		server.addService("first", new WarmUpServiceImpl(), WarmUpService.class);
+		server.addService("second", new OtherServiceImpl(), OtherService.class);
+		assertEquals(4, server.warmUp().getMethodCount());
+	}
+
+	public interface WarmUpService {
+
+		int length(String text);
+
+		@JsonRpcMethod("byKey")
+		Map<String, Bean> index(List<String> keys);
+
+		void reset();
+	}
+
+	public interface OtherService {
+
+		Bean bean();
+	}
+
+	public static class Bean {
+
+		public String name;
+	}
+
+	private static class WarmUpServiceImpl implements WarmUpService {
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public int length(String text) {
+			calls.incrementAndGet();
+			return text.length();
+		}
+
+		@Override
+		public Map<String, Bean> index(List<String> keys) {
+			calls.incrementAndGet();
+			return Collections.emptyMap();
+		}
+
+		@Override
+		public void reset() {
+			calls.incrementAndGet();
+		}
+	}
+
+	private static class OtherServiceImpl implements OtherService {
+
+		@Override
+		public Bean bean() {
+			return new Bean();
+		}
+	}
+
+	private static class CountingInterceptor implements JsonRpcInterceptor {
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public void preHandleJson(JsonNode json) {
+			calls.incrementAndGet();
+		}
+
+		@Override
+		public void preHandle(Object target, Method method, List<JsonNode> params) {
+			calls.incrementAndGet();
+		}
+
+		@Override
+		public void postHandle(Object target, Method method, List<JsonNode> params, JsonNode result) {
+		}
+
+		@Override
+		public void postHandleJson(JsonNode json) {
+		}
+	}
+}
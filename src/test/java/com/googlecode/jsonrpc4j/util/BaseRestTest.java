@@ -2,6 +2,7 @@ package com.googlecode.jsonrpc4j.util;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.googlecode.jsonrpc4j.JsonRpcHttpClient;
+import com.googlecode.jsonrpc4j.JsonRpcJdkHttpClient;
 import com.googlecode.jsonrpc4j.spring.rest.JsonRpcRestClient;
 import org.junit.After;
 import org.junit.Before;
@@ -10,6 +11,7 @@ import org.junit.rules.ExpectedException;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
@@ -57,6 +59,14 @@ public abstract class BaseRestTest {
 		return new JsonRpcHttpClient(new ObjectMapper(), new URL(jettyServer.getCustomServerUrlString(servlet)), header, gzipRequests, acceptGzipResponses);
 	}
 	
+	protected URL getServiceUrl() throws MalformedURLException {
+		return new URL(jettyServer.getCustomServerUrlString(JettyServer.SERVLET));
+	}
+	
+	protected JsonRpcJdkHttpClient getJdkHttpClient(final String servlet) {
+		return new JsonRpcJdkHttpClient(URI.create(jettyServer.getCustomServerUrlString(servlet)));
+	}
+	
 	@After
 	public void teardown() throws Exception {
 		jettyServer.stop();
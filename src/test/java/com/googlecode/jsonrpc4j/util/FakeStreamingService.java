@@ -0,0 +1,7 @@
+package com.googlecode.jsonrpc4j.util;
+
+import java.util.Iterator;
+
+public interface FakeStreamingService {
+	Iterator<String> lines();
+}
@@ -0,0 +1,55 @@
+package com.googlecode.jsonrpc4j.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Produces {@link #LINES} lines, then holds back the last one until the
+ * client has {@link #clientRead read} the start of the response.
+ */
+public class FakeStreamingServiceImpl implements FakeStreamingService {
+
+	public static final int LINES = 200;
+	public static final String RELEASED = "released";
+	public static final String TIMED_OUT = "timed out";
+	public static volatile CountDownLatch clientRead = new CountDownLatch(0);
+
+	private static final String LINE;
+
+	static {
+		char[] line = new char[1000];
+		Arrays.fill(line, 'x');
+		LINE = new String(line);
+	}
+
+	@Override
+	public Iterator<String> lines() {
+		return new Iterator<String>() {
+			private int index;
+
+			@Override
+			public boolean hasNext() {
+				return index <= LINES;
+			}
+
+			@Override
+			public String next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				if (index++ < LINES) {
+					return LINE;
+				}
+				try {
+					return clientRead.await(10, TimeUnit.SECONDS) ? RELEASED : TIMED_OUT;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return TIMED_OUT;
+				}
+			}
+		};
+	}
+}